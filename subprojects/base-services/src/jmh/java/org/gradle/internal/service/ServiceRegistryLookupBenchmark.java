@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simulates the service lookups made while configuring a build with many projects: a registry is created for each project, as a child of a shared
+ * build scoped registry, and a number of services are looked up from each project registry, several times.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ServiceRegistryLookupBenchmark {
+
+    @Param({"100", "500"})
+    int projectCount;
+
+    @Param({"10"})
+    int lookupsPerService;
+
+    DefaultServiceRegistry globalServices;
+    DefaultServiceRegistry buildServices;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        globalServices = new DefaultServiceRegistry("global services");
+        globalServices.addProvider(new GlobalServices());
+        buildServices = new DefaultServiceRegistry("build services", globalServices);
+        buildServices.addProvider(new BuildServices());
+    }
+
+    @Benchmark
+    public void configureProjects(Blackhole blackhole) {
+        List<DefaultServiceRegistry> projects = new ArrayList<DefaultServiceRegistry>(projectCount);
+        for (int i = 0; i < projectCount; i++) {
+            DefaultServiceRegistry projectServices = new DefaultServiceRegistry("project services", buildServices);
+            projectServices.addProvider(new ProjectServices());
+            for (int j = 0; j < lookupsPerService; j++) {
+                blackhole.consume(projectServices.get(ProjectService.class));
+                blackhole.consume(projectServices.get(BuildService.class));
+                blackhole.consume(projectServices.get(GlobalService.class));
+                blackhole.consume(projectServices.find(Runnable.class));
+            }
+            projects.add(projectServices);
+        }
+        for (DefaultServiceRegistry project : projects) {
+            project.close();
+        }
+    }
+
+    public interface GlobalService {
+    }
+
+    public interface BuildService {
+    }
+
+    public interface ProjectService {
+    }
+
+    private static class DefaultGlobalService implements GlobalService {
+    }
+
+    private static class DefaultBuildService implements BuildService {
+    }
+
+    private static class DefaultProjectService implements ProjectService {
+    }
+
+    private static class GlobalServices {
+        GlobalService createGlobalService() {
+            return new DefaultGlobalService();
+        }
+    }
+
+    private static class BuildServices {
+        BuildService createBuildService(GlobalService globalService) {
+            return new DefaultBuildService();
+        }
+    }
+
+    private static class ProjectServices {
+        ProjectService createProjectService(BuildService buildService, GlobalService globalService) {
+            return new DefaultProjectService();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal;
+
+/**
+ * Notified when a long running process predicts that it is about to run out of heap space.
+ *
+ * Implementations should release memory that can be recreated on demand, such as in-memory caches. This listener is
+ * only notified between builds.
+ *
+ * This listener type is available to global services.
+ */
+public interface HeapPressureListener {
+    /**
+     * Called when the heap is under pressure and retained memory should be released.
+     */
+    void onHeapPressure();
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.concurrent;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import org.gradle.concurrent.ParallelismConfiguration;
+import org.gradle.internal.Cast;
+import org.gradle.internal.UncheckedException;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small shared pool that lets a single piece of work, such as hashing a jar or writing an archive, use several threads.
+ *
+ * <p>The calling thread counts as one of the threads, so the pool has one thread less than the parallelism, and tasks run on the
+ * calling thread when the parallelism is one. When created with a {@link ParallelismConfigurationManager}, the parallelism follows
+ * the maximum number of workers of the current build.</p>
+ */
+public abstract class AbstractWorkerLimitedExecutor implements Stoppable, ParallelismConfigurationListener {
+    private final ManagedExecutor executor;
+    private final ParallelismConfigurationManager parallelismConfigurationManager;
+    private volatile int parallelism;
+
+    protected AbstractWorkerLimitedExecutor(ExecutorFactory executorFactory, String displayName, ParallelismConfigurationManager parallelismConfigurationManager) {
+        this(executorFactory, displayName, parallelismConfigurationManager.getParallelismConfiguration().getMaxWorkerCount(), parallelismConfigurationManager);
+    }
+
+    protected AbstractWorkerLimitedExecutor(ExecutorFactory executorFactory, String displayName, int parallelism) {
+        this(executorFactory, displayName, parallelism, null);
+    }
+
+    private AbstractWorkerLimitedExecutor(ExecutorFactory executorFactory, String displayName, int parallelism, @Nullable ParallelismConfigurationManager parallelismConfigurationManager) {
+        this.parallelism = parallelism;
+        this.parallelismConfigurationManager = parallelismConfigurationManager;
+        if (parallelismConfigurationManager != null) {
+            this.executor = executorFactory.create(displayName, Math.max(1, parallelism - 1));
+            parallelismConfigurationManager.addListener(this);
+        } else {
+            this.executor = parallelism > 1 ? executorFactory.create(displayName, parallelism - 1) : null;
+        }
+    }
+
+    @Override
+    public void onParallelismConfigurationChange(ParallelismConfiguration parallelismConfiguration) {
+        int maxWorkerCount = parallelismConfiguration.getMaxWorkerCount();
+        executor.setFixedPoolSize(Math.max(1, maxWorkerCount - 1));
+        parallelism = maxWorkerCount;
+    }
+
+    /**
+     * The number of threads, including the calling thread, that may work on a single piece of work.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Schedules the given task, or runs it on the calling thread when the parallelism is one. Failures are reported by the returned future.
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        if (parallelism > 1) {
+            return executor.submit(task);
+        }
+        try {
+            return Futures.immediateFuture(task.call());
+        } catch (Exception e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    /**
+     * Runs the given tasks and returns their results in order.
+     *
+     * <p>The calling thread and the threads of the pool claim the tasks one at a time, so the calling thread runs the tasks that no pool
+     * thread has started. When the pool is busy with other work, all tasks run on the calling thread instead of waiting for the pool.</p>
+     */
+    public <T> List<T> invokeAll(List<? extends Callable<T>> tasks) throws Exception {
+        TaskBatch<T> batch = new TaskBatch<T>(tasks);
+        List<Future<?>> helpers = Lists.newArrayList();
+        if (parallelism > 1) {
+            int helperCount = Math.min(parallelism, tasks.size()) - 1;
+            for (int i = 0; i < helperCount; i++) {
+                helpers.add(executor.submit(batch));
+            }
+        }
+        try {
+            batch.run();
+            return batch.awaitResults();
+        } finally {
+            // Helpers that have not started yet find no task left to claim
+            for (Future<?> helper : helpers) {
+                helper.cancel(false);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (parallelismConfigurationManager != null) {
+            parallelismConfigurationManager.removeListener(this);
+        }
+        CompositeStoppable.stoppable(executor).stop();
+    }
+
+    private static class TaskBatch<T> implements Runnable {
+        private final List<? extends Callable<T>> tasks;
+        private final Object[] results;
+        private final AtomicInteger nextTask = new AtomicInteger();
+        private final CountDownLatch finished;
+        private volatile Throwable failure;
+
+        TaskBatch(List<? extends Callable<T>> tasks) {
+            this.tasks = tasks;
+            this.results = new Object[tasks.size()];
+            this.finished = new CountDownLatch(tasks.size());
+        }
+
+        @Override
+        public void run() {
+            int index;
+            while ((index = nextTask.getAndIncrement()) < tasks.size()) {
+                try {
+                    if (failure == null) {
+                        results[index] = tasks.get(index).call();
+                    }
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    finished.countDown();
+                }
+            }
+        }
+
+        List<T> awaitResults() throws Exception {
+            finished.await();
+            Throwable failure = this.failure;
+            if (failure != null) {
+                if (failure instanceof Exception) {
+                    throw (Exception) failure;
+                }
+                throw UncheckedException.throwAsUncheckedException(failure);
+            }
+            List<T> results = Lists.newArrayListWithCapacity(this.results.length);
+            for (Object result : this.results) {
+                results.add(Cast.<T>uncheckedCast(result));
+            }
+            return results;
+        }
+    }
+}
@@ -33,13 +33,15 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Formatter;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -73,12 +75,28 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
     private final static ServiceRegistry[] NO_PARENTS = new ServiceRegistry[0];
     private final static Service[] NO_DEPENDENTS = new Service[0];
     private final static Object[] NO_PARAMS = new Object[0];
+    private final static Service NO_SERVICE = new Service() {
+        public String getDisplayName() {
+            return "no service";
+        }
+
+        public Object get() {
+            throw new UnsupportedOperationException();
+        }
+
+        public void requiredBy(ServiceProvider serviceProvider) {
+        }
+    };
+    private final static ConcurrentMap<Class<?>, Class<?>[]> TYPE_HIERARCHIES = new ConcurrentHashMap<Class<?>, Class<?>[]>();
 
     private final OwnServices ownServices;
     private final ServiceProvider allServices;
     private final ServiceProvider parentServices;
     private final String displayName;
     private final ServiceProvider thisAsServiceProvider;
+    // Services located by type, once this registry is no longer mutable. Only used when all parents are DefaultServiceRegistry instances, as other registries may
+    // return a different result for each lookup
+    private final ConcurrentMap<Class<?>, Service> servicesByType;
 
     private AtomicReference<State> state = new AtomicReference<State>(State.INIT);
 
@@ -105,6 +123,7 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
             parentServices = setupParentServices(parents);
             allServices = new CompositeServiceProvider(ownServices, parentServices);
         }
+        this.servicesByType = canMemoizeLookups(parents) ? new ConcurrentHashMap<Class<?>, Service>() : null;
 
         findProviderMethods(this);
     }
@@ -123,6 +142,15 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
         return parentServices;
     }
 
+    private static boolean canMemoizeLookups(ServiceRegistry[] parents) {
+        for (ServiceRegistry parent : parents) {
+            if (!(parent instanceof DefaultServiceRegistry) || ((DefaultServiceRegistry) parent).servicesByType == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private ServiceProvider asProvider() {
         return thisAsServiceProvider;
     }
@@ -251,6 +279,9 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
     public void close() {
         noLongerMutable();
         if (state.compareAndSet(State.STARTED, State.CLOSED)) {
+            if (servicesByType != null) {
+                servicesByType.clear();
+            }
             CompositeStoppable.stoppable(allServices).stop();
         }
     }
@@ -294,7 +325,18 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
 
     private Service getService(Type serviceType) {
         serviceRequested();
-        return find(serviceType, allServices);
+        if (servicesByType == null || !(serviceType instanceof Class)) {
+            return find(serviceType, allServices);
+        }
+        // The services of this registry and its parents cannot change once a service has been requested, so the result of a lookup can be reused
+        Class<?> serviceClass = (Class<?>) serviceType;
+        Service service = servicesByType.get(serviceClass);
+        if (service == null) {
+            service = find(serviceType, allServices);
+            servicesByType.putIfAbsent(serviceClass, service == null ? NO_SERVICE : service);
+            return service;
+        }
+        return service == NO_SERVICE ? null : service;
     }
 
     @Override
@@ -500,23 +542,9 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
         }
 
         private class ProviderAnalyser {
-            private Set<Class<?>> seen = new HashSet<Class<?>>(4, 0.5f);
-
             public void addProviderForClassHierarchy(Class<?> serviceType, ServiceProvider serviceProvider) {
-                analyseType(serviceType, serviceProvider);
-                seen.clear();
-            }
-
-            private void analyseType(Class<?> type, ServiceProvider serviceProvider) {
-                if (type == null || type == Object.class) {
-                    return;
-                }
-                if (seen.add(type)) {
+                for (Class<?> type : typeHierarchyOf(serviceType)) {
                     putServiceType(type, serviceProvider);
-                    analyseType(type.getSuperclass(), serviceProvider);
-                    for (Class<?> iface : type.getInterfaces()) {
-                        analyseType(iface, serviceProvider);
-                    }
                 }
             }
 
@@ -531,6 +559,33 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
         }
     }
 
+    /**
+     * Returns the types that the given service type can be located by. These are calculated once per type and shared by all registries, as the same
+     * services are registered in many registries, such as those of each project.
+     */
+    private static Class<?>[] typeHierarchyOf(Class<?> serviceType) {
+        Class<?>[] types = TYPE_HIERARCHIES.get(serviceType);
+        if (types == null) {
+            Set<Class<?>> seen = new LinkedHashSet<Class<?>>();
+            collectTypeHierarchy(serviceType, seen);
+            types = seen.toArray(new Class<?>[0]);
+            TYPE_HIERARCHIES.putIfAbsent(serviceType, types);
+        }
+        return types;
+    }
+
+    private static void collectTypeHierarchy(Class<?> type, Set<Class<?>> seen) {
+        if (type == null || type == Object.class) {
+            return;
+        }
+        if (seen.add(type)) {
+            collectTypeHierarchy(type.getSuperclass(), seen);
+            for (Class<?> iface : type.getInterfaces()) {
+                collectTypeHierarchy(iface, seen);
+            }
+        }
+    }
+
     private static Class<?> unwrap(Type type) {
         if (type instanceof Class) {
             return (Class) type;
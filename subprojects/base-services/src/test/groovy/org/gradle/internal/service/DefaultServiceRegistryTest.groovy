@@ -1302,6 +1302,37 @@ class DefaultServiceRegistryTest extends Specification {
         thrown IllegalStateException
     }
 
+    def "reuses the result of a lookup from parent registry"() {
+        def parent = new DefaultServiceRegistry()
+        parent.add(Integer, 12)
+        def child = new DefaultServiceRegistry(parent)
+        def grandChild = new DefaultServiceRegistry(child)
+
+        expect:
+        grandChild.get(Integer) == 12
+        grandChild.get(Number) == 12
+        grandChild.get(Integer) == 12
+        grandChild.find(String) == null
+        grandChild.find(String) == null
+        child.get(Integer) == 12
+    }
+
+    def "does not reuse the result of a lookup when a parent is not a DefaultServiceRegistry"() {
+        def parent = Mock(ServiceRegistry)
+        def child = new DefaultServiceRegistry(parent)
+
+        when:
+        def first = child.get(BigDecimal)
+        def second = child.get(BigDecimal)
+
+        then:
+        first == BigDecimal.ONE
+        second == BigDecimal.TEN
+
+        and:
+        2 * parent.get(BigDecimal) >>> [BigDecimal.ONE, BigDecimal.TEN]
+    }
+
     def "cannot lookup services while closing" () {
         given:
         registry.add(Closeable, { registry.get(String) } as Closeable)
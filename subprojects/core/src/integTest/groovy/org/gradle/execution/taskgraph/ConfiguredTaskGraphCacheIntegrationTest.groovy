@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+
+class ConfiguredTaskGraphCacheIntegrationTest extends AbstractIntegrationSpec {
+    def setup() {
+        settingsFile << "include 'a', 'b'"
+        file("a/build.gradle") << """
+            println "configuring a"
+            task hello { doLast { println "hello from a" } }
+        """
+        file("b/build.gradle") << """
+            println "configuring b"
+            task hello
+        """
+    }
+
+    def "configures only the projects of the cached task graph"() {
+        when:
+        runWithCache(":a:hello")
+
+        then:
+        outputContains("configuring a")
+        outputContains("configuring b")
+
+        when:
+        runWithCache(":a:hello")
+
+        then:
+        executedAndNotSkipped(":a:hello")
+        outputContains("configuring a")
+        outputDoesNotContain("configuring b")
+        outputContains("hello from a")
+    }
+
+    def "configures the remaining projects and selects the tasks again when configuration depends on inputs that are not tracked"() {
+        buildFile << """
+            task first
+            task second
+            if (file("dependencies.txt").exists()) {
+                second.dependsOn first
+            }
+        """
+
+        when:
+        runWithCache("second")
+
+        then:
+        executedAndNotSkipped(":second")
+        notExecuted(":first")
+
+        when:
+        file("dependencies.txt").createFile()
+        runWithCache("second")
+
+        then:
+        executedAndNotSkipped(":first", ":second")
+        outputContains("The cached task graph has been discarded")
+        outputContains("configuring b")
+
+        when:
+        runWithCache("second")
+
+        then:
+        executedAndNotSkipped(":first", ":second")
+        outputDoesNotContain("The cached task graph has been discarded")
+        outputDoesNotContain("configuring b")
+    }
+
+    def "configures the projects whose build logic changes the projects of the cached task graph"() {
+        settingsFile << "\ninclude 'c'"
+        file("c/build.gradle") << """
+            project(":a").tasks.hello.doLast { println "hello from c" }
+        """
+
+        when:
+        runWithCache(":a:hello")
+
+        then:
+        outputContains("hello from c")
+
+        when:
+        runWithCache(":a:hello")
+
+        then:
+        outputDoesNotContain("configuring b")
+        outputContains("hello from c")
+    }
+
+    private void runWithCache(String... tasks) {
+        executer.withArgument("-D${ConfiguredTaskGraphCache.ENABLED_PROPERTY}=true")
+        executer.withArgument("--info")
+        succeeds(tasks)
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up already generated classes from many threads, as happens when projects are configured in parallel.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ClassGeneratorBenchmark {
+    private static final Class<?>[] TYPES = {Bean1.class, Bean2.class, Bean3.class, Bean4.class};
+
+    private final ClassGenerator generator = new AsmBackedClassGenerator();
+
+    @Benchmark
+    @Threads(1)
+    public void generate_1_thread(Blackhole blackhole) {
+        generateAll(blackhole);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void generate_4_threads(Blackhole blackhole) {
+        generateAll(blackhole);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void generate_16_threads(Blackhole blackhole) {
+        generateAll(blackhole);
+    }
+
+    private void generateAll(Blackhole blackhole) {
+        for (Class<?> type : TYPES) {
+            blackhole.consume(generator.generate(type));
+        }
+    }
+
+    public static class Bean1 {
+        private String value;
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+
+    public static class Bean2 extends Bean1 {
+    }
+
+    public static class Bean3 extends Bean1 {
+    }
+
+    public static class Bean4 extends Bean1 {
+    }
+}
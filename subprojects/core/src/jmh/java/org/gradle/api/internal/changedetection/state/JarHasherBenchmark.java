@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.collect.ImmutableList;
+import groovy.lang.GroovyObject;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.objectweb.asm.ClassReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fingerprints real-world jars from the benchmark classpath, comparing sequential, concurrent and stored CRC based hashing.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class JarHasherBenchmark {
+    @Param({"asm", "guava", "groovy"})
+    String jar;
+
+    private RegularFileSnapshot snapshot;
+    private JarEntryHashingExecutor executor;
+    private JarHasher sequentialHasher;
+    private JarHasher concurrentHasher;
+    private JarHasher storedCrcHasher;
+
+    @Setup(Level.Trial)
+    public void setup() throws URISyntaxException {
+        File jarFile = jarContaining(jar);
+        snapshot = new RegularFileSnapshot(jarFile.getAbsolutePath(), jarFile.getName(), HashCode.fromInt(0), jarFile.lastModified());
+        executor = new JarEntryHashingExecutor(new DefaultExecutorFactory(), Runtime.getRuntime().availableProcessors());
+        sequentialHasher = new JarHasher(new RuntimeClasspathResourceHasher(), ResourceFilter.FILTER_NOTHING, false, null);
+        concurrentHasher = new JarHasher(new RuntimeClasspathResourceHasher(), ResourceFilter.FILTER_NOTHING, false, executor);
+        storedCrcHasher = new JarHasher(new RuntimeClasspathResourceHasher(), ResourceFilter.FILTER_NOTHING, true, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.stop();
+    }
+
+    @Benchmark
+    public HashCode sequential() {
+        return sequentialHasher.hash(snapshot);
+    }
+
+    @Benchmark
+    public HashCode concurrent() {
+        return concurrentHasher.hash(snapshot);
+    }
+
+    @Benchmark
+    public HashCode storedCrcs() {
+        return storedCrcHasher.hash(snapshot);
+    }
+
+    private static File jarContaining(String name) throws URISyntaxException {
+        Class<?> type;
+        if (name.equals("asm")) {
+            type = ClassReader.class;
+        } else if (name.equals("guava")) {
+            type = ImmutableList.class;
+        } else if (name.equals("groovy")) {
+            type = GroovyObject.class;
+        } else {
+            throw new IllegalArgumentException(name);
+        }
+        return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import groovy.lang.Closure;
+import groovy.lang.GroovyObject;
+import org.apache.tools.zip.ZipOutputStream;
+import org.gradle.api.Transformer;
+import org.gradle.api.file.ContentFilterable;
+import org.gradle.api.file.DuplicatesStrategy;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.AbstractFileTreeElement;
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.internal.file.copy.CopyAction;
+import org.gradle.api.internal.file.copy.CopyActionProcessingStream;
+import org.gradle.api.internal.file.copy.DefaultZipCompressor;
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.util.GFileUtils;
+import org.objectweb.asm.ClassReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Builds a fat jar from the classes and resources of real-world jars from the benchmark classpath, comparing the
+ * Ant based {@link ZipCopyAction} with sequential, concurrent and incremental compression of {@link IncrementalZipCopyAction}.
+ *
+ * <p>The entries of the jars are added {@code copies} times, under different directories, to reach the size of large shadow jars.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ZipCopyActionBenchmark {
+    @Param({"1", "4"})
+    int copies;
+
+    private List<FileCopyDetailsInternal> entries;
+    private File tmpDir;
+    private ZipEntryCompressionExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        entries = Lists.newArrayList();
+        for (int copy = 0; copy < copies; copy++) {
+            for (Class<?> type : ImmutableList.of(ImmutableList.class, GroovyObject.class, ClassReader.class)) {
+                addEntries(new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()), "copy-" + copy + "/");
+            }
+        }
+        tmpDir = Files.createTempDirectory("zip-benchmark").toFile();
+        executor = new ZipEntryCompressionExecutor(new DefaultExecutorFactory(), Runtime.getRuntime().availableProcessors());
+        // Create the previous archive that the incremental benchmark reuses entries from
+        incremental();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.stop();
+        GFileUtils.deleteDirectory(tmpDir);
+    }
+
+    @Benchmark
+    public WorkResult ant() {
+        return zip(new ZipCopyAction(new File(tmpDir, "ant.jar"), new DefaultZipCompressor(true, ZipOutputStream.DEFLATED), new DocumentationRegistry(), "UTF-8", false));
+    }
+
+    @Benchmark
+    public WorkResult sequential() {
+        return zip(new IncrementalZipCopyAction(new File(tmpDir, "sequential.jar"), null, ZipOutputStream.DEFLATED, true, null, new DocumentationRegistry(), "UTF-8", false));
+    }
+
+    @Benchmark
+    public WorkResult concurrent() {
+        return zip(new IncrementalZipCopyAction(new File(tmpDir, "concurrent.jar"), null, ZipOutputStream.DEFLATED, true, executor, new DocumentationRegistry(), "UTF-8", false));
+    }
+
+    @Benchmark
+    public WorkResult incremental() {
+        return zip(new IncrementalZipCopyAction(new File(tmpDir, "incremental.jar"), new File(tmpDir, "incremental.bin"), ZipOutputStream.DEFLATED, true, null, new DocumentationRegistry(), "UTF-8", false));
+    }
+
+    private WorkResult zip(CopyAction action) {
+        return action.execute(new CopyActionProcessingStream() {
+            @Override
+            public void process(CopyActionProcessingStreamAction action) {
+                for (FileCopyDetailsInternal entry : entries) {
+                    action.processFile(entry);
+                }
+            }
+        });
+    }
+
+    private void addEntries(File jar, String prefix) throws IOException {
+        ZipFile zipFile = new ZipFile(jar);
+        try {
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                if (zipEntry.isDirectory()) {
+                    continue;
+                }
+                InputStream inputStream = zipFile.getInputStream(zipEntry);
+                try {
+                    entries.add(new EntryDetails(RelativePath.parse(true, prefix + zipEntry.getName()), ByteStreams.toByteArray(inputStream)));
+                } finally {
+                    inputStream.close();
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    private static class EntryDetails extends AbstractFileTreeElement implements FileCopyDetailsInternal {
+        private final RelativePath path;
+        private final byte[] content;
+
+        EntryDetails(RelativePath path, byte[] content) {
+            super(null);
+            this.path = path;
+            this.content = content;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return path.getPathString();
+        }
+
+        @Override
+        public File getFile() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return false;
+        }
+
+        @Override
+        public long getLastModified() {
+            return 0;
+        }
+
+        @Override
+        public long getSize() {
+            return content.length;
+        }
+
+        @Override
+        public InputStream open() {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public RelativePath getRelativePath() {
+            return path;
+        }
+
+        @Override
+        public boolean isIncludeEmptyDirs() {
+            return false;
+        }
+
+        @Override
+        public void exclude() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setPath(String path) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setRelativePath(RelativePath path) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setMode(int mode) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setDuplicatesStrategy(DuplicatesStrategy strategy) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public DuplicatesStrategy getDuplicatesStrategy() {
+            return DuplicatesStrategy.INCLUDE;
+        }
+
+        @Override
+        public String getSourceName() {
+            return getName();
+        }
+
+        @Override
+        public String getSourcePath() {
+            return getPath();
+        }
+
+        @Override
+        public RelativePath getRelativeSourcePath() {
+            return path;
+        }
+
+        @Override
+        public ContentFilterable filter(Map<String, ?> properties, Class<? extends FilterReader> filterType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ContentFilterable filter(Class<? extends FilterReader> filterType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ContentFilterable filter(Closure closure) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ContentFilterable filter(Transformer<String, String> transformer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ContentFilterable expand(Map<String, ?> properties) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -20,8 +20,6 @@ import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.SetMultimap;
 import groovy.lang.Closure;
 import groovy.lang.GroovyObject;
-import org.apache.commons.collections.map.AbstractReferenceMap;
-import org.apache.commons.collections.map.ReferenceMap;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 import org.gradle.api.NonExtensible;
@@ -44,15 +42,14 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.WeakHashMap;
 
 /**
  * Generates a subclass of the target class to mix-in some DSL behaviour.
@@ -67,8 +64,12 @@ import java.util.concurrent.locks.ReentrantLock;
  * </ul>
  */
 public abstract class AbstractClassGenerator implements ClassGenerator {
-    private static final Map<Class<?>, Map<Class<?>, Class<?>>> GENERATED_CLASSES = new HashMap<Class<?>, Map<Class<?>, Class<?>>>();
-    private static final Lock CACHE_LOCK = new ReentrantLock();
+    private static final ClassValue<GeneratedClassCache> GENERATED_CLASSES = new ClassValue<GeneratedClassCache>() {
+        @Override
+        protected GeneratedClassCache computeValue(Class<?> generatorType) {
+            return new GeneratedClassCache();
+        }
+    };
     private static final Collection<String> SKIP_PROPERTIES = Arrays.asList("class", "metaClass", "conventionMapping", "convention", "asDynamicObject", "extensions");
 
     public <T> T newInstance(Class<T> type, Object... parameters) {
@@ -76,28 +77,51 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
     }
 
     public <T> Class<? extends T> generate(Class<T> type) {
-        try {
-            CACHE_LOCK.lock();
-            return generateUnderLock(type);
-        } finally {
-            CACHE_LOCK.unlock();
+        GeneratedClassCache cache = GENERATED_CLASSES.get(getClass());
+        CachedClass cachedClass = cache.get(type);
+        Class<?> generatedClass = cachedClass.generatedClass;
+        if (generatedClass == null) {
+            // Generate each type at most once, but allow different types to be generated concurrently
+            synchronized (cachedClass) {
+                generatedClass = cachedClass.generatedClass;
+                if (generatedClass == null) {
+                    generatedClass = generateClass(type);
+                    cache.generated(generatedClass);
+                    cachedClass.generatedClass = generatedClass;
+                }
+            }
         }
+        return generatedClass.asSubclass(type);
     }
 
-    private <T> Class<? extends T> generateUnderLock(Class<T> type) {
-        Map<Class<?>, Class<?>> cache = GENERATED_CLASSES.get(getClass());
-        if (cache == null) {
-            // WeakHashMap won't work here. It keeps a strong reference to the mapping value, which is the generated class in this case
-            // However, the generated class has a strong reference to the source class (by extending it), so the keys will always be
-            // strongly reachable while this Class is strongly reachable. Use weak references for both key and value of the mapping instead.
-            cache = new ReferenceMap(AbstractReferenceMap.WEAK, AbstractReferenceMap.WEAK);
-            GENERATED_CLASSES.put(getClass(), cache);
+    /**
+     * The classes generated by a particular generator implementation. Lookups do not lock. A {@link ClassValue} is used so that the cached entries do not prevent
+     * the types, or the classes generated for them, from being garbage collected. A generated class has a strong reference to the source class (by extending it),
+     * which would keep the entries of a weak keyed map alive.
+     */
+    private static class GeneratedClassCache extends ClassValue<CachedClass> {
+        // Only queried the first time a type is looked up
+        private final Set<Class<?>> generatedClasses = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<Class<?>, Boolean>()));
+
+        @Override
+        protected CachedClass computeValue(Class<?> type) {
+            CachedClass cachedClass = new CachedClass();
+            if (generatedClasses.contains(type)) {
+                cachedClass.generatedClass = type;
+            }
+            return cachedClass;
         }
-        Class<?> generatedClass = cache.get(type);
-        if (generatedClass != null) {
-            return generatedClass.asSubclass(type);
+
+        void generated(Class<?> generatedClass) {
+            generatedClasses.add(generatedClass);
         }
+    }
+
+    private static class CachedClass {
+        volatile Class<?> generatedClass;
+    }
 
+    private <T> Class<? extends T> generateClass(Class<T> type) {
         int modifiers = type.getModifiers();
         if (Modifier.isPrivate(modifiers)) {
             throw new GradleException(String.format("Cannot create a proxy class for private class '%s'.",
@@ -111,7 +135,10 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
             throw new GradleException(String.format("Cannot create a proxy class for final class '%s'.",
                 type.getSimpleName()));
         }
-        Class<? extends T> subclass;
+        Class<? extends T> subclass = loadStoredClass(type);
+        if (subclass != null) {
+            return subclass;
+        }
         try {
             ClassMetaData classMetaData = inspectType(type);
 
@@ -229,8 +256,6 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
             throw new GradleException(String.format("Could not generate a proxy class for class %s.", type.getName()), e);
         }
 
-        cache.put(type, subclass);
-        cache.put(subclass, subclass);
         return subclass;
     }
 
@@ -242,6 +267,14 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
 
     protected abstract <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData);
 
+    /**
+     * Returns a class generated for the given type by a previous process, or null when the class needs to be generated.
+     */
+    @Nullable
+    protected <T> Class<? extends T> loadStoredClass(Class<T> type) {
+        return null;
+    }
+
     private ClassMetaData inspectType(Class<?> type) {
         boolean isConventionAware = type.getAnnotation(NoConventionMapping.class) == null;
         boolean extensible = JavaReflectionUtil.getAnnotation(type, NonExtensible.class) == null;
@@ -29,6 +29,7 @@ import org.gradle.api.internal.provider.PropertyInternal;
 import org.gradle.api.plugins.Convention;
 import org.gradle.api.plugins.ExtensionAware;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
 import org.gradle.internal.metaobject.AbstractDynamicObject;
 import org.gradle.internal.metaobject.BeanDynamicObject;
 import org.gradle.internal.metaobject.DynamicObject;
@@ -73,9 +74,55 @@ import static org.objectweb.asm.Opcodes.V1_5;
 import static org.objectweb.asm.Type.VOID_TYPE;
 
 public class AsmBackedClassGenerator extends AbstractClassGenerator {
+    private static final String GENERATED_CLASS_SUFFIX = "_Decorated";
+
+    private final GeneratedClassStore generatedClassStore;
+
+    public AsmBackedClassGenerator() {
+        this(null);
+    }
+
+    /**
+     * Creates a generator that uses the given store to reuse the classes generated by other processes, and to make the classes it generates available to them.
+     * All generators of this type share the classes they have generated in this process.
+     */
+    public AsmBackedClassGenerator(@Nullable GeneratedClassStore generatedClassStore) {
+        this.generatedClassStore = generatedClassStore;
+    }
+
     @Override
     protected <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData) {
-        return new ClassBuilderImpl<T>(type, classMetaData);
+        return new ClassBuilderImpl<T>(type, classMetaData, generatedClassStore);
+    }
+
+    @Nullable
+    @Override
+    protected <T> Class<? extends T> loadStoredClass(Class<T> type) {
+        if (generatedClassStore == null) {
+            return null;
+        }
+        byte[] generatedClass = generatedClassStore.get(type);
+        if (generatedClass == null) {
+            return null;
+        }
+        try {
+            Class<?> storedClass = ClassLoaderUtils.defineDecorator(type, type.getClassLoader(), type.getName() + GENERATED_CLASS_SUFFIX, generatedClass);
+            return storedClass.asSubclass(type);
+        } catch (LinkageError e) {
+            return discardStoredClass(type);
+        } catch (RuntimeException e) {
+            // Depending on the JVM, the class loader utilities wrap the failure to define the class
+            if (e.getCause() instanceof LinkageError) {
+                return discardStoredClass(type);
+            }
+            throw e;
+        }
+    }
+
+    private <T> Class<? extends T> discardStoredClass(Class<T> type) {
+        // Unusable stored class, discard it and generate the class again
+        generatedClassStore.remove(type);
+        return null;
     }
 
     private static class ClassBuilderImpl<T> implements ClassBuilder<T> {
@@ -145,11 +192,13 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
         private final boolean conventionAware;
         private final boolean extensible;
         private final boolean providesOwnDynamicObject;
+        private final GeneratedClassStore generatedClassStore;
 
-        private ClassBuilderImpl(Class<T> type, ClassMetaData classMetaData) {
+        private ClassBuilderImpl(Class<T> type, ClassMetaData classMetaData, @Nullable GeneratedClassStore generatedClassStore) {
             this.type = type;
+            this.generatedClassStore = generatedClassStore;
 
-            classGenerator = new AsmClassGenerator(type, "_Decorated");
+            classGenerator = new AsmClassGenerator(type, GENERATED_CLASS_SUFFIX);
             visitor = classGenerator.getVisitor();
             generatedType = classGenerator.getGeneratedType();
             superclassType = Type.getType(type);
@@ -975,7 +1024,12 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
             writeGenericReturnTypeFields();
             visitor.visitEnd();
 
-            return classGenerator.define().asSubclass(type);
+            byte[] generatedClass = visitor.toByteArray();
+            Class<?> definedClass = ClassLoaderUtils.defineDecorator(type, type.getClassLoader(), classGenerator.getGeneratedTypeName(), generatedClass);
+            if (generatedClassStore != null) {
+                generatedClassStore.put(type, generatedClass);
+            }
+            return definedClass.asSubclass(type);
         }
 
         private void writeGenericReturnTypeFields() {
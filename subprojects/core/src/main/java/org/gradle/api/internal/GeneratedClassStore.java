@@ -0,0 +1,41 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal;
+
+import javax.annotation.Nullable;
+
+/**
+ * Stores the bytecode of generated classes, so that a class does not need to be generated again in another process.
+ */
+public interface GeneratedClassStore {
+    /**
+     * Returns the previously stored bytecode of the class generated for the given type, or null when not available.
+     */
+    @Nullable
+    byte[] get(Class<?> type);
+
+    /**
+     * Stores the bytecode of the class generated for the given type.
+     */
+    void put(Class<?> type, byte[] generatedClass);
+
+    /**
+     * Discards the stored bytecode of the class generated for the given type, for example because it cannot be defined.
+     */
+    void remove(Class<?> type);
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal;
+
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.HashCodeSerializer;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Stores generated classes in a cache in the Gradle user home directory, keyed by the name of the type and the hash of the class loader hierarchy that defines it.
+ * Types defined by class loaders that cannot be hashed are not stored.
+ */
+public class PersistentGeneratedClassStore implements GeneratedClassStore, Closeable {
+    public static final String CACHE_KEY = "generated-classes";
+
+    /**
+     * Change this when the classes generated by {@link AsmBackedClassGenerator} change without a change to the Gradle version.
+     */
+    private static final int GENERATOR_VERSION = 1;
+
+    private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
+    private final PersistentCache cache;
+    private final PersistentIndexedCache<HashCode, byte[]> generatedClasses;
+    private volatile boolean closed;
+
+    public PersistentGeneratedClassStore(CacheRepository cacheRepository, ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+        this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
+        this.cache = cacheRepository.cache(CACHE_KEY)
+            .withDisplayName("generated classes cache")
+            .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+            .open();
+        this.generatedClasses = cache.createCache(PersistentIndexedCacheParameters.of("generatedClasses", new HashCodeSerializer(), BaseSerializerFactory.BYTE_ARRAY_SERIALIZER));
+    }
+
+    @Nullable
+    @Override
+    public byte[] get(Class<?> type) {
+        HashCode key = keyFor(type);
+        if (key == null || closed) {
+            return null;
+        }
+        return generatedClasses.get(key);
+    }
+
+    @Override
+    public void put(Class<?> type, byte[] generatedClass) {
+        HashCode key = keyFor(type);
+        if (key == null || closed) {
+            return;
+        }
+        generatedClasses.put(key, generatedClass);
+    }
+
+    @Override
+    public void remove(Class<?> type) {
+        HashCode key = keyFor(type);
+        if (key == null || closed) {
+            return;
+        }
+        generatedClasses.remove(key);
+    }
+
+    @Nullable
+    private HashCode keyFor(Class<?> type) {
+        ClassLoader classLoader = type.getClassLoader();
+        if (classLoader == null) {
+            return null;
+        }
+        HashCode classLoaderHash = classLoaderHierarchyHasher.getClassLoaderHash(classLoader);
+        if (classLoaderHash == null) {
+            return null;
+        }
+        Hasher hasher = Hashing.newHasher();
+        hasher.putInt(GENERATOR_VERSION);
+        hasher.putString(type.getName());
+        hasher.putHash(classLoaderHash);
+        return hasher.hash();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        cache.close();
+    }
+}
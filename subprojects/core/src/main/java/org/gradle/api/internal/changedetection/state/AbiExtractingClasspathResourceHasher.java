@@ -16,6 +16,7 @@
 package org.gradle.api.internal.changedetection.state;
 
 import com.google.common.io.ByteStreams;
+import org.gradle.api.Transformer;
 import org.gradle.api.internal.tasks.compile.ApiClassExtractor;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
@@ -37,10 +38,34 @@ import java.util.zip.ZipEntry;
 
 public class AbiExtractingClasspathResourceHasher implements ResourceHasher {
     private static final Logger LOGGER = Logging.getLogger(AbiExtractingClasspathResourceHasher.class);
+    private static final Transformer<HashCode, byte[]> ABI_EXTRACTOR = new Transformer<HashCode, byte[]>() {
+        @Override
+        public HashCode transform(byte[] classBytes) {
+            return extractAbiHash(classBytes);
+        }
+    };
+
+    private final ClassAbiHashCache abiHashCache;
+
+    public AbiExtractingClasspathResourceHasher() {
+        this(null);
+    }
+
+    public AbiExtractingClasspathResourceHasher(@Nullable ClassAbiHashCache abiHashCache) {
+        this.abiHashCache = abiHashCache;
+    }
 
     private HashCode hashClassBytes(InputStream inputStream) throws IOException {
         // Use the ABI as the hash
         byte[] classBytes = ByteStreams.toByteArray(inputStream);
+        if (abiHashCache != null) {
+            return abiHashCache.getAbiHash(classBytes, ABI_EXTRACTOR);
+        }
+        return extractAbiHash(classBytes);
+    }
+
+    @Nullable
+    private static HashCode extractAbiHash(byte[] classBytes) {
         ApiClassExtractor extractor = new ApiClassExtractor(Collections.<String>emptySet());
         ClassReader reader = new ClassReader(classBytes);
         if (extractor.shouldExtractApiClassFrom(reader)) {
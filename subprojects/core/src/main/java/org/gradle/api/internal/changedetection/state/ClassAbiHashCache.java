@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.Transformer;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.RunnableBuildOperation;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the ABI hash of class files, keyed by the hash of their content.
+ *
+ * The same class often appears in many jars, for example when a library is shaded or when several versions of a jar differ only in a few classes.
+ * This cache lets those classes skip ABI extraction, even when the jar containing them has never been seen before.
+ */
+public class ClassAbiHashCache {
+    private static final HashCode NO_ABI = Hashing.signature(ClassAbiHashCache.class.getName() + " : no ABI");
+
+    private final PersistentIndexedCache<HashCode, HashCode> persistentCache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesSkipped = new AtomicLong();
+
+    public ClassAbiHashCache(PersistentIndexedCache<HashCode, HashCode> persistentCache) {
+        this.persistentCache = persistentCache;
+    }
+
+    /**
+     * Returns the ABI hash of the given class, using the extractor only when the class has not been seen before.
+     *
+     * @return the ABI hash, or {@code null} when the class has no ABI.
+     */
+    @Nullable
+    public HashCode getAbiHash(byte[] classBytes, Transformer<HashCode, byte[]> abiExtractor) {
+        HashCode contentHash = Hashing.hashBytes(classBytes);
+        HashCode abiHash = persistentCache.get(contentHash);
+        if (abiHash != null) {
+            hits.incrementAndGet();
+            bytesSkipped.addAndGet(classBytes.length);
+            return abiHash.equals(NO_ABI) ? null : abiHash;
+        }
+
+        misses.incrementAndGet();
+        abiHash = abiExtractor.transform(classBytes);
+        persistentCache.put(contentHash, abiHash == null ? NO_ABI : abiHash);
+        return abiHash;
+    }
+
+    /**
+     * Reports the lookups made since the previous report as a build operation, and starts counting anew.
+     */
+    public void reportStatistics(BuildOperationExecutor buildOperationExecutor) {
+        final long hitCount = hits.getAndSet(0);
+        final long missCount = misses.getAndSet(0);
+        final long bytesSkippedCount = bytesSkipped.getAndSet(0);
+        if (hitCount == 0 && missCount == 0) {
+            return;
+        }
+        buildOperationExecutor.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                context.setResult(new ClassAbiHashCacheBuildOperationType.Result() {
+                    @Override
+                    public long getHits() {
+                        return hitCount;
+                    }
+
+                    @Override
+                    public long getMisses() {
+                        return missCount;
+                    }
+
+                    @Override
+                    public double getHitRate() {
+                        return (double) hitCount / (hitCount + missCount);
+                    }
+
+                    @Override
+                    public long getBytesSkipped() {
+                        return bytesSkippedCount;
+                    }
+                });
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Class ABI hash cache statistics")
+                    .details(new ClassAbiHashCacheBuildOperationType.Details() {
+                    });
+            }
+        });
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+/**
+ * Reports how effective the class ABI hash cache was at avoiding ABI extraction while fingerprinting compile classpaths.
+ *
+ * Executed at the end of each build that looked up at least one class in the cache.
+ */
+public final class ClassAbiHashCacheBuildOperationType implements BuildOperationType<ClassAbiHashCacheBuildOperationType.Details, ClassAbiHashCacheBuildOperationType.Result> {
+    public interface Details {
+    }
+
+    public interface Result {
+        /**
+         * The number of classes whose ABI hash was found in the cache.
+         */
+        long getHits();
+
+        /**
+         * The number of classes whose ABI had to be extracted.
+         */
+        long getMisses();
+
+        /**
+         * The fraction of lookups that were found in the cache, between 0 and 1.
+         */
+        double getHitRate();
+
+        /**
+         * The total size of the classes whose ABI extraction was skipped, in bytes.
+         */
+        long getBytesSkipped();
+    }
+
+    private ClassAbiHashCacheBuildOperationType() {
+    }
+}
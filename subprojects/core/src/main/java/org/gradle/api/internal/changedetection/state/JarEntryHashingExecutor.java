@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.internal.concurrent.AbstractWorkerLimitedExecutor;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ParallelismConfigurationManager;
+
+/**
+ * A small shared pool used to hash the entries of large jars concurrently.
+ *
+ * <p>The calling thread claims entries to hash along with the pool, so a saturated pool degrades to hashing on the calling thread rather than blocking it.</p>
+ */
+public class JarEntryHashingExecutor extends AbstractWorkerLimitedExecutor {
+    public JarEntryHashingExecutor(ExecutorFactory executorFactory, ParallelismConfigurationManager parallelismConfigurationManager) {
+        super(executorFactory, "Jar entry hashing", parallelismConfigurationManager);
+    }
+
+    public JarEntryHashingExecutor(ExecutorFactory executorFactory, int parallelism) {
+        super(executorFactory, "Jar entry hashing", parallelism);
+    }
+}
@@ -36,19 +36,46 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
+/**
+ * Hashes the contents of a jar as if it was expanded on disk.
+ *
+ * <p>
+ * Entries are located via the central directory of the jar, so that entries which are ignored are never inflated.
+ * The entries of large jars are hashed concurrently when a {@link JarEntryHashingExecutor} is available.
+ * Jars without a readable central directory are streamed instead.
+ * </p>
+ */
 public class JarHasher implements RegularFileHasher, ConfigurableNormalizer {
     private static final Logger LOGGER = LoggerFactory.getLogger(JarHasher.class);
 
+    /**
+     * Jars with fewer entries than this are always hashed on the calling thread.
+     */
+    static final int PARALLEL_ENTRY_THRESHOLD = 512;
+
     private final ResourceHasher classpathResourceHasher;
     private final ResourceFilter classpathResourceFilter;
-
-    public JarHasher(ResourceHasher classpathResourceHasher, ResourceFilter classpathResourceFilter) {
+    private final boolean reuseStoredCrcs;
+    private final JarEntryHashingExecutor executor;
+
+    /**
+     * @param reuseStoredCrcs whether the CRC and size recorded in the central directory may stand in for the content of an entry.
+     * Only valid when the resource hasher hashes the raw content of entries.
+     * @param executor used to hash the entries of large jars concurrently, or {@code null} to hash all entries on the calling thread.
+     */
+    public JarHasher(ResourceHasher classpathResourceHasher, ResourceFilter classpathResourceFilter, boolean reuseStoredCrcs, @Nullable JarEntryHashingExecutor executor) {
         this.classpathResourceHasher = classpathResourceHasher;
         this.classpathResourceFilter = classpathResourceFilter;
+        this.reuseStoredCrcs = reuseStoredCrcs;
+        this.executor = executor;
     }
 
     @Nullable
@@ -62,11 +89,15 @@ public class JarHasher implements RegularFileHasher, ConfigurableNormalizer {
         hasher.putString(getClass().getName());
         classpathResourceHasher.appendConfigurationToHasher(hasher);
         classpathResourceFilter.appendConfigurationToHasher(hasher);
+        if (reuseStoredCrcs) {
+            // Hashes based on stored CRCs differ from content hashes, so they must not share cache entries
+            hasher.putString("reuseStoredCrcs");
+        }
     }
 
     private HashCode hashJarContents(RegularFileSnapshot jarFileSnapshot) {
         try {
-            List<FileSystemLocationFingerprint> fingerprints = fingerprintZipEntries(jarFileSnapshot.getAbsolutePath());
+            List<FileSystemLocationFingerprint> fingerprints = fingerprintJar(jarFileSnapshot.getAbsolutePath());
             if (fingerprints.isEmpty()) {
                 return null;
             }
@@ -78,6 +109,83 @@ public class JarHasher implements RegularFileHasher, ConfigurableNormalizer {
         }
     }
 
+    private List<FileSystemLocationFingerprint> fingerprintJar(String jarFile) throws Exception {
+        ZipFile zipFile;
+        try {
+            zipFile = new ZipFile(jarFile);
+        } catch (ZipException e) {
+            // No usable central directory, the local headers may still be readable
+            return fingerprintZipEntries(jarFile);
+        }
+        try {
+            return fingerprintCentralDirectoryEntries(zipFile);
+        } finally {
+            IoActions.closeQuietly(zipFile);
+        }
+    }
+
+    private List<FileSystemLocationFingerprint> fingerprintCentralDirectoryEntries(final ZipFile zipFile) throws Exception {
+        List<ZipEntry> entries = Lists.newArrayListWithCapacity(zipFile.size());
+        RelativePathFactory relativePathFactory = new RelativePathFactory();
+        Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+        while (zipEntries.hasMoreElements()) {
+            ZipEntry zipEntry = zipEntries.nextElement();
+            relativePathFactory.setZipEntry(zipEntry);
+            if (zipEntry.isDirectory() || classpathResourceFilter.shouldBeIgnored(relativePathFactory)) {
+                continue;
+            }
+            entries.add(zipEntry);
+        }
+
+        if (executor == null || executor.getParallelism() < 2 || entries.size() < PARALLEL_ENTRY_THRESHOLD) {
+            return fingerprintEntries(zipFile, entries);
+        }
+
+        // The fingerprints are sorted before being hashed, so the order in which the batches complete does not matter
+        int batchSize = (entries.size() + executor.getParallelism() - 1) / executor.getParallelism();
+        List<Callable<List<FileSystemLocationFingerprint>>> batches = Lists.newArrayList();
+        for (final List<ZipEntry> batch : Lists.partition(entries, batchSize)) {
+            batches.add(new Callable<List<FileSystemLocationFingerprint>>() {
+                @Override
+                public List<FileSystemLocationFingerprint> call() throws IOException {
+                    return fingerprintEntries(zipFile, batch);
+                }
+            });
+        }
+        List<FileSystemLocationFingerprint> fingerprints = Lists.newArrayListWithCapacity(entries.size());
+        for (List<FileSystemLocationFingerprint> batchFingerprints : executor.invokeAll(batches)) {
+            fingerprints.addAll(batchFingerprints);
+        }
+        return fingerprints;
+    }
+
+    private List<FileSystemLocationFingerprint> fingerprintEntries(ZipFile zipFile, List<ZipEntry> entries) throws IOException {
+        List<FileSystemLocationFingerprint> fingerprints = Lists.newArrayListWithCapacity(entries.size());
+        for (ZipEntry zipEntry : entries) {
+            HashCode hash = hashEntry(zipFile, zipEntry);
+            if (hash != null) {
+                fingerprints.add(new DefaultFileSystemLocationFingerprint(zipEntry.getName(), FileType.RegularFile, hash));
+            }
+        }
+        return fingerprints;
+    }
+
+    @Nullable
+    private HashCode hashEntry(ZipFile zipFile, ZipEntry zipEntry) throws IOException {
+        if (reuseStoredCrcs && zipEntry.getCrc() != -1 && zipEntry.getSize() != -1) {
+            Hasher hasher = Hashing.newHasher();
+            hasher.putLong(zipEntry.getCrc());
+            hasher.putLong(zipEntry.getSize());
+            return hasher.hash();
+        }
+        InputStream inputStream = zipFile.getInputStream(zipEntry);
+        try {
+            return classpathResourceHasher.hash(zipEntry, inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
     private List<FileSystemLocationFingerprint> fingerprintZipEntries(String jarFile) throws IOException {
         List<FileSystemLocationFingerprint> fingerprints = Lists.newArrayList();
         InputStream fileInputStream = null;
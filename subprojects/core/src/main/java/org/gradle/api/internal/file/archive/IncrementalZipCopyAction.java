@@ -0,0 +1,627 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.FileBackedOutputStream;
+import org.apache.commons.compress.archivers.zip.UnixStat;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.Zip64RequiredException;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.gradle.api.Action;
+import org.gradle.api.GradleException;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.FileCopyDetails;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.internal.file.copy.CopyAction;
+import org.gradle.api.internal.file.copy.CopyActionProcessingStream;
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.WorkResults;
+import org.gradle.api.tasks.bundling.Zip;
+import org.gradle.internal.IoActions;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.hash.HashingOutputStream;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.serialize.ListSerializer;
+import org.gradle.internal.serialize.MapSerializer;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.GFileUtils;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Creates a ZIP archive, reusing the compressed data of the entries that did not change since the archive was last created.
+ *
+ * <p>The content hash of each file entry is recorded in an index file after the archive has been written. When the index
+ * still describes the archive on the next execution, entries whose content hash did not change are copied as raw compressed
+ * data from the previous archive. Only the remaining entries are compressed. Entries with the same path are told apart by
+ * the order in which they occur, so an archive containing duplicate paths reuses each of them from the matching entry.</p>
+ *
+ * <p>Every entry is written as raw compressed data, whether it was reused or not, so the archive does not depend on what
+ * was reused. With file timestamps not preserved, the archive is byte-for-byte the same as one created from scratch.</p>
+ *
+ * <p>When given a {@link ZipEntryCompressionExecutor}, entries are compressed concurrently into pooled buffers while the
+ * following entries are read. The compressed entries are still written in the order they were visited, so the archive
+ * does not depend on the parallelism.</p>
+ */
+public class IncrementalZipCopyAction implements CopyAction {
+    private static final Logger LOGGER = Logging.getLogger(IncrementalZipCopyAction.class);
+    private static final int SPOOL_THRESHOLD = 256 * 1024;
+    private static final Serializer<Map<String, List<HashCode>>> ENTRIES_SERIALIZER = new MapSerializer<String, List<HashCode>>(BaseSerializerFactory.STRING_SERIALIZER, new ListSerializer<HashCode>(new HashCodeSerializer()));
+
+    private final File zipFile;
+    private final File indexFile;
+    private final int entryCompressionMethod;
+    private final Zip64Mode zip64Mode;
+    private final ZipEntryCompressionExecutor compressionExecutor;
+    private final DocumentationRegistry documentationRegistry;
+    private final String encoding;
+    private final boolean preserveFileTimestamps;
+
+    /**
+     * @param indexFile the index of the entries of the previous archive, or {@code null} to compress all entries without recording an index.
+     * @param compressionExecutor the executor to compress entries with, or {@code null} to compress them on the calling thread.
+     */
+    public IncrementalZipCopyAction(File zipFile, @Nullable File indexFile, int entryCompressionMethod, boolean allowZip64Mode, @Nullable ZipEntryCompressionExecutor compressionExecutor,
+                                    DocumentationRegistry documentationRegistry, @Nullable String encoding, boolean preserveFileTimestamps) {
+        this.zipFile = zipFile;
+        this.indexFile = indexFile;
+        this.entryCompressionMethod = entryCompressionMethod;
+        this.zip64Mode = allowZip64Mode ? Zip64Mode.AsNeeded : Zip64Mode.Never;
+        this.compressionExecutor = compressionExecutor;
+        this.documentationRegistry = documentationRegistry;
+        this.encoding = encoding != null ? encoding : Charset.defaultCharset().name();
+        this.preserveFileTimestamps = preserveFileTimestamps;
+    }
+
+    public WorkResult execute(final CopyActionProcessingStream stream) {
+        File tempFile = new File(zipFile.getParentFile(), zipFile.getName() + ".tmp");
+        final PreviousArchive previousArchive = indexFile == null ? null : openPreviousArchive();
+        final Map<String, List<HashCode>> entries = Maps.newLinkedHashMap();
+        try {
+            final ZipArchiveOutputStream zipOutStr;
+            try {
+                zipOutStr = createArchiveOutputStream(tempFile);
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
+            }
+
+            try {
+                IoActions.withResource(zipOutStr, new Action<ZipArchiveOutputStream>() {
+                    public void execute(ZipArchiveOutputStream outputStream) {
+                        StreamAction action = new StreamAction(outputStream, previousArchive, entries);
+                        try {
+                            stream.process(action);
+                            action.writePendingEntries();
+                        } finally {
+                            action.release();
+                        }
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                if (e.getCause() instanceof Zip64RequiredException) {
+                    throw new org.gradle.api.tasks.bundling.internal.Zip64RequiredException(
+                        String.format("%s\n\nTo build this archive, please enable the zip64 extension.\nSee: %s", e.getCause().getMessage(), documentationRegistry.getDslRefForProperty(Zip.class, "zip64"))
+                    );
+                }
+                throw e;
+            }
+
+            IoActions.closeQuietly(previousArchive);
+            try {
+                Files.move(tempFile.toPath(), zipFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
+            }
+        } finally {
+            IoActions.closeQuietly(previousArchive);
+            GFileUtils.deleteQuietly(tempFile);
+        }
+
+        if (indexFile != null) {
+            writeIndex(entries);
+        }
+        return WorkResults.didWork(true);
+    }
+
+    private ZipArchiveOutputStream createArchiveOutputStream(File destination) throws IOException {
+        ZipArchiveOutputStream outStream = new ZipArchiveOutputStream(destination);
+        outStream.setUseZip64(zip64Mode);
+        outStream.setEncoding(encoding);
+        return outStream;
+    }
+
+    @Nullable
+    private PreviousArchive openPreviousArchive() {
+        if (!indexFile.isFile() || !zipFile.isFile()) {
+            return null;
+        }
+        try {
+            Map<String, List<HashCode>> entries;
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(indexFile));
+            try {
+                // The index only describes the archive it was written for, with the same compression settings
+                if (decoder.readSmallInt() != entryCompressionMethod
+                    || !decoder.readString().equals(encoding)
+                    || decoder.readLong() != zipFile.length()
+                    || decoder.readLong() != zipFile.lastModified()) {
+                    return null;
+                }
+                entries = ENTRIES_SERIALIZER.read(decoder);
+            } finally {
+                decoder.close();
+            }
+            return new PreviousArchive(new ZipFile(zipFile, encoding), entries);
+        } catch (Exception e) {
+            LOGGER.debug("Could not reuse entries of ZIP '{}'.", zipFile, e);
+            return null;
+        }
+    }
+
+    private void writeIndex(Map<String, List<HashCode>> entries) {
+        try {
+            GFileUtils.mkdirs(indexFile.getParentFile());
+            KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(indexFile));
+            try {
+                encoder.writeSmallInt(entryCompressionMethod);
+                encoder.writeString(encoding);
+                encoder.writeLong(zipFile.length());
+                encoder.writeLong(zipFile.lastModified());
+                ENTRIES_SERIALIZER.write(encoder, entries);
+            } finally {
+                encoder.close();
+            }
+        } catch (Exception e) {
+            // Without an index, the next execution compresses all entries again
+            GFileUtils.deleteQuietly(indexFile);
+            LOGGER.debug("Could not write index of ZIP '{}'.", zipFile, e);
+        }
+    }
+
+    private class StreamAction implements CopyActionProcessingStreamAction {
+        private final ZipArchiveOutputStream zipOutStr;
+        private final PreviousArchive previousArchive;
+        private final Map<String, List<HashCode>> entries;
+        private final int maxPendingEntries;
+        private final Deque<PendingEntry> pendingEntries = new ArrayDeque<PendingEntry>();
+        private final Deque<EntryBuffer> freeBuffers = new ArrayDeque<EntryBuffer>();
+        private final List<EntryBuffer> buffers = Lists.newArrayList();
+
+        public StreamAction(ZipArchiveOutputStream zipOutStr, @Nullable PreviousArchive previousArchive, Map<String, List<HashCode>> entries) {
+            this.zipOutStr = zipOutStr;
+            this.previousArchive = previousArchive;
+            this.entries = entries;
+            // Keep one entry in flight per compression thread, plus the entry being read, so that the memory used does not grow with the size of the archive
+            this.maxPendingEntries = compressionExecutor == null ? 1 : compressionExecutor.getParallelism();
+        }
+
+        public void processFile(FileCopyDetailsInternal details) {
+            while (pendingEntries.size() >= maxPendingEntries) {
+                writeOldestEntry();
+            }
+            if (details.isDirectory()) {
+                visitDir(details);
+            } else {
+                visitFile(details);
+            }
+        }
+
+        private void visitFile(FileCopyDetails fileDetails) {
+            try {
+                String path = fileDetails.getRelativePath().getPathString();
+                ZipArchiveEntry archiveEntry = new ZipArchiveEntry(path);
+                archiveEntry.setTime(getArchiveTimeFor(fileDetails));
+                archiveEntry.setUnixMode(UnixStat.FILE_FLAG | fileDetails.getMode());
+
+                EntryBuffer buffer = takeBuffer();
+                boolean pending = false;
+                try {
+                    ZipArchiveEntry previousEntry = null;
+                    if (indexFile == null) {
+                        fileDetails.copyTo(buffer.content);
+                    } else {
+                        HashingOutputStream contentHash = Hashing.primitiveStreamHasher(buffer.content);
+                        fileDetails.copyTo(contentHash);
+                        HashCode hash = contentHash.hash();
+                        List<HashCode> hashes = entries.get(path);
+                        if (hashes == null) {
+                            hashes = Lists.newArrayListWithCapacity(1);
+                            entries.put(path, hashes);
+                        }
+                        int ordinal = hashes.size();
+                        hashes.add(hash);
+                        previousEntry = previousArchive == null ? null : previousArchive.findUnchanged(path, ordinal, hash);
+                    }
+
+                    if (previousEntry != null) {
+                        pendingEntries.add(new ReusedEntry(fileDetails, archiveEntry, previousEntry));
+                    } else {
+                        pendingEntries.add(new CompressedEntry(fileDetails, archiveEntry, buffer, compress(buffer)));
+                        pending = true;
+                    }
+                } finally {
+                    if (!pending) {
+                        freeBuffers.push(buffer);
+                    }
+                }
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", fileDetails, zipFile), e);
+            }
+        }
+
+        private void visitDir(FileCopyDetails dirDetails) {
+            // Trailing slash in name indicates that entry is a directory
+            ZipArchiveEntry archiveEntry = new ZipArchiveEntry(dirDetails.getRelativePath().getPathString() + '/');
+            archiveEntry.setTime(getArchiveTimeFor(dirDetails));
+            archiveEntry.setUnixMode(UnixStat.DIR_FLAG | dirDetails.getMode());
+            pendingEntries.add(new DirectoryEntry(dirDetails, archiveEntry));
+        }
+
+        private EntryBuffer takeBuffer() throws IOException {
+            EntryBuffer buffer = freeBuffers.poll();
+            if (buffer == null) {
+                buffer = new EntryBuffer();
+                buffers.add(buffer);
+            }
+            buffer.reset();
+            return buffer;
+        }
+
+        /**
+         * Compresses the content of the given buffer, on the calling thread when there is no compression executor.
+         */
+        @Nullable
+        private Future<?> compress(final EntryBuffer buffer) throws IOException {
+            if (compressionExecutor == null) {
+                buffer.compress(entryCompressionMethod);
+                return null;
+            }
+            return compressionExecutor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    buffer.compress(entryCompressionMethod);
+                    return null;
+                }
+            });
+        }
+
+        void writePendingEntries() {
+            while (!pendingEntries.isEmpty()) {
+                writeOldestEntry();
+            }
+        }
+
+        private void writeOldestEntry() {
+            PendingEntry entry = pendingEntries.removeFirst();
+            try {
+                entry.write();
+            } catch (Zip64RequiredException e) {
+                throw new UncheckedIOException(e);
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", entry.details, zipFile), e);
+            }
+        }
+
+        /**
+         * Waits for the compression of entries that were not written and releases the buffers.
+         */
+        void release() {
+            for (PendingEntry entry : pendingEntries) {
+                entry.await();
+            }
+            pendingEntries.clear();
+            for (EntryBuffer buffer : buffers) {
+                buffer.release();
+            }
+        }
+
+        private void addRawEntry(ZipArchiveEntry archiveEntry, InputStream compressedData) throws IOException {
+            try {
+                zipOutStr.addRawArchiveEntry(archiveEntry, compressedData);
+            } finally {
+                compressedData.close();
+            }
+        }
+
+        private abstract class PendingEntry {
+            final FileCopyDetails details;
+            final ZipArchiveEntry archiveEntry;
+
+            PendingEntry(FileCopyDetails details, ZipArchiveEntry archiveEntry) {
+                this.details = details;
+                this.archiveEntry = archiveEntry;
+            }
+
+            abstract void write() throws Exception;
+
+            void await() {
+            }
+        }
+
+        private class DirectoryEntry extends PendingEntry {
+            DirectoryEntry(FileCopyDetails details, ZipArchiveEntry archiveEntry) {
+                super(details, archiveEntry);
+            }
+
+            @Override
+            void write() throws Exception {
+                archiveEntry.setMethod(ZipArchiveEntry.STORED);
+                archiveEntry.setCrc(0);
+                archiveEntry.setSize(0);
+                archiveEntry.setCompressedSize(0);
+                addRawEntry(archiveEntry, new ByteArrayInputStream(new byte[0]));
+            }
+        }
+
+        private class ReusedEntry extends PendingEntry {
+            private final ZipArchiveEntry previousEntry;
+
+            ReusedEntry(FileCopyDetails details, ZipArchiveEntry archiveEntry, ZipArchiveEntry previousEntry) {
+                super(details, archiveEntry);
+                this.previousEntry = previousEntry;
+            }
+
+            @Override
+            void write() throws Exception {
+                archiveEntry.setMethod(previousEntry.getMethod());
+                archiveEntry.setCrc(previousEntry.getCrc());
+                archiveEntry.setSize(previousEntry.getSize());
+                archiveEntry.setCompressedSize(previousEntry.getCompressedSize());
+                addRawEntry(archiveEntry, previousArchive.getRawInputStream(previousEntry));
+            }
+        }
+
+        private class CompressedEntry extends PendingEntry {
+            private final EntryBuffer buffer;
+            private final Future<?> compression;
+
+            CompressedEntry(FileCopyDetails details, ZipArchiveEntry archiveEntry, EntryBuffer buffer, @Nullable Future<?> compression) {
+                super(details, archiveEntry);
+                this.buffer = buffer;
+                this.compression = compression;
+            }
+
+            @Override
+            void write() throws Exception {
+                if (compression != null) {
+                    try {
+                        compression.get();
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof Exception) {
+                            throw (Exception) cause;
+                        }
+                        throw UncheckedException.throwAsUncheckedException(cause);
+                    }
+                }
+                archiveEntry.setMethod(entryCompressionMethod);
+                archiveEntry.setCrc(buffer.crc.getValue());
+                archiveEntry.setSize(buffer.content.size());
+                archiveEntry.setCompressedSize(buffer.compressed.size());
+                addRawEntry(archiveEntry, buffer.compressed.openStream());
+                freeBuffers.push(buffer);
+            }
+
+            @Override
+            void await() {
+                if (compression != null) {
+                    try {
+                        compression.get();
+                    } catch (Exception e) {
+                        // Ignore, as the archive is not created anyway
+                    }
+                }
+            }
+        }
+    }
+
+    private long getArchiveTimeFor(FileCopyDetails details) {
+        return preserveFileTimestamps ? details.getLastModified() : ZipCopyAction.CONSTANT_TIME_FOR_ZIP_ENTRIES;
+    }
+
+    /**
+     * The content of an entry and its compressed data. Buffers are reused for many entries, one at a time.
+     */
+    private static class EntryBuffer {
+        private final SpillingBuffer content = new SpillingBuffer();
+        private final SpillingBuffer compressed = new SpillingBuffer();
+        private final CRC32 crc = new CRC32();
+        private Deflater deflater;
+
+        void compress(int entryCompressionMethod) throws IOException {
+            if (entryCompressionMethod == ZipArchiveEntry.DEFLATED) {
+                if (deflater == null) {
+                    deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+                } else {
+                    deflater.reset();
+                }
+                DeflaterOutputStream deflaterStream = new DeflaterOutputStream(compressed, deflater);
+                content.writeTo(new CheckedOutputStream(deflaterStream, crc));
+                deflaterStream.finish();
+            } else {
+                content.writeTo(new CheckedOutputStream(compressed, crc));
+            }
+        }
+
+        void reset() throws IOException {
+            content.reset();
+            compressed.reset();
+            crc.reset();
+        }
+
+        void release() {
+            try {
+                reset();
+            } catch (IOException e) {
+                // Ignore, the temporary files are deleted on exit
+            }
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Holds data in memory, moving it to a temporary file when it grows beyond {@link #SPOOL_THRESHOLD}. Keeps its memory when reset.
+     */
+    private static class SpillingBuffer extends OutputStream {
+        private byte[] bytes = new byte[8192];
+        private int count;
+        private long size;
+        private FileBackedOutputStream overflow;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (reserve(1)) {
+                bytes[count++] = (byte) b;
+            } else {
+                overflow.write(b);
+            }
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (reserve(len)) {
+                System.arraycopy(b, off, bytes, count, len);
+                count += len;
+            } else {
+                overflow.write(b, off, len);
+            }
+            size += len;
+        }
+
+        /**
+         * Makes room for the given number of bytes in memory, returning false when they are to be written to the temporary file instead.
+         */
+        private boolean reserve(int len) throws IOException {
+            if (overflow == null && count + len > SPOOL_THRESHOLD) {
+                overflow = new FileBackedOutputStream(0);
+                overflow.write(bytes, 0, count);
+            }
+            if (overflow != null) {
+                return false;
+            }
+            if (count + len > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, count + len));
+            }
+            return true;
+        }
+
+        long size() {
+            return size;
+        }
+
+        void writeTo(OutputStream output) throws IOException {
+            if (overflow != null) {
+                overflow.flush();
+                overflow.asByteSource().copyTo(output);
+            } else {
+                output.write(bytes, 0, count);
+            }
+        }
+
+        InputStream openStream() throws IOException {
+            if (overflow != null) {
+                overflow.flush();
+                return overflow.asByteSource().openStream();
+            }
+            return new ByteArrayInputStream(bytes, 0, count);
+        }
+
+        void reset() throws IOException {
+            count = 0;
+            size = 0;
+            if (overflow != null) {
+                FileBackedOutputStream spilled = overflow;
+                overflow = null;
+                spilled.reset();
+            }
+        }
+    }
+
+    private static class PreviousArchive implements Closeable {
+        private final ZipFile zipFile;
+        private final Map<String, List<HashCode>> entries;
+
+        PreviousArchive(ZipFile zipFile, Map<String, List<HashCode>> entries) {
+            this.zipFile = zipFile;
+            this.entries = entries;
+        }
+
+        /**
+         * Returns the given occurrence of the entries of the previous archive with the given path, when its content has the given hash.
+         */
+        @Nullable
+        ZipArchiveEntry findUnchanged(String path, int ordinal, HashCode hash) {
+            List<HashCode> hashes = entries.get(path);
+            if (hashes == null || ordinal >= hashes.size() || !hash.equals(hashes.get(ordinal))) {
+                return null;
+            }
+            // The entries with the same path are listed in the order they were written
+            List<ZipArchiveEntry> previousEntries = Lists.newArrayList(zipFile.getEntries(path));
+            if (previousEntries.size() != hashes.size()) {
+                return null;
+            }
+            ZipArchiveEntry entry = previousEntries.get(ordinal);
+            return entry.isDirectory() ? null : entry;
+        }
+
+        InputStream getRawInputStream(ZipArchiveEntry entry) throws IOException {
+            return zipFile.getRawInputStream(entry);
+        }
+
+        public void close() throws IOException {
+            zipFile.close();
+        }
+    }
+}
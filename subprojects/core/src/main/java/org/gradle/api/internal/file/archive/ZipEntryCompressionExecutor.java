@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.internal.concurrent.AbstractWorkerLimitedExecutor;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ParallelismConfigurationManager;
+
+/**
+ * A small shared pool used to compress the entries of ZIP archives concurrently, while the calling thread reads and writes entries.
+ */
+public class ZipEntryCompressionExecutor extends AbstractWorkerLimitedExecutor {
+    public ZipEntryCompressionExecutor(ExecutorFactory executorFactory, ParallelismConfigurationManager parallelismConfigurationManager) {
+        super(executorFactory, "Zip entry compression", parallelismConfigurationManager);
+    }
+
+    public ZipEntryCompressionExecutor(ExecutorFactory executorFactory, int parallelism) {
+        super(executorFactory, "Zip entry compression", parallelism);
+    }
+}
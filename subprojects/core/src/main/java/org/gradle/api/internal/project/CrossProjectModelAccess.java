@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.project;
+
+/**
+ * Notified when build logic navigates from one project to the model of another project.
+ */
+public interface CrossProjectModelAccess {
+    /**
+     * Called before the given project is handed to build logic, for example by {@link org.gradle.api.Project#project(String)}.
+     */
+    void beforeAccess(ProjectInternal target);
+
+    /**
+     * Called before the given project is evaluated on behalf of the current project, see {@link org.gradle.api.Project#evaluationDependsOn(String)}.
+     */
+    void beforeEvaluationDependsOn(ProjectInternal target);
+
+    /**
+     * Called before build logic reads or changes state that the build logic of all projects can read and change, such as the extra properties of the build.
+     *
+     * @param displayName describes the state.
+     */
+    void beforeSharedStateAccess(String displayName);
+
+    /**
+     * Returns true when navigation from the current thread to other projects needs to be reported, so that callers handing many projects to build logic
+     * at once can skip reporting each of them.
+     */
+    boolean isAccessTracked();
+}
@@ -159,6 +159,8 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
 
     private ProjectEvaluator projectEvaluator;
 
+    private CrossProjectModelAccess crossProjectModelAccess;
+
     private ScriptSource buildScriptSource;
 
     private final File projectDir;
@@ -353,6 +355,9 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
 
     @Override
     public ProjectInternal getRootProject() {
+        if (rootProject != this) {
+            getCrossProjectModelAccess().beforeAccess(rootProject);
+        }
         return rootProject;
     }
 
@@ -368,6 +373,13 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
         return projectEvaluator;
     }
 
+    private CrossProjectModelAccess getCrossProjectModelAccess() {
+        if (crossProjectModelAccess == null) {
+            crossProjectModelAccess = services.get(CrossProjectModelAccess.class);
+        }
+        return crossProjectModelAccess;
+    }
+
     public void setProjectEvaluator(ProjectEvaluator projectEvaluator) {
         this.projectEvaluator = projectEvaluator;
     }
@@ -402,6 +414,9 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
 
     @Override
     public ProjectInternal getParent() {
+        if (parent != null) {
+            getCrossProjectModelAccess().beforeAccess(parent);
+        }
         return parent;
     }
 
@@ -442,7 +457,7 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
         } else if (this == rootProject) {
             return "";
         }
-        group = rootProject.getName() + (getParent() == rootProject ? "" : "." + getParent().getPath().substring(1).replace(':', '.'));
+        group = rootProject.getName() + (parent == rootProject ? "" : "." + parent.getPath().substring(1).replace(':', '.'));
         return group;
     }
 
@@ -473,6 +488,7 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
 
     @Override
     public Map<String, Project> getChildProjects() {
+        beforeAccess(childProjects.values());
         return childProjects;
     }
 
@@ -636,17 +652,32 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
         if (isNullOrEmpty(path)) {
             throw new InvalidUserDataException("A path must be specified!");
         }
-        return getProjectRegistry().getProject(absoluteProjectPath(path));
+        ProjectInternal project = getProjectRegistry().getProject(absoluteProjectPath(path));
+        if (project != null) {
+            getCrossProjectModelAccess().beforeAccess(project);
+        }
+        return project;
     }
 
     @Override
     public Set<Project> getAllprojects() {
-        return new TreeSet<Project>(getProjectRegistry().getAllProjects(getPath()));
+        return beforeAccess(new TreeSet<Project>(getProjectRegistry().getAllProjects(getPath())));
     }
 
     @Override
     public Set<Project> getSubprojects() {
-        return new TreeSet<Project>(getProjectRegistry().getSubProjects(getPath()));
+        return beforeAccess(new TreeSet<Project>(getProjectRegistry().getSubProjects(getPath())));
+    }
+
+    private <T extends Iterable<Project>> T beforeAccess(T projects) {
+        CrossProjectModelAccess crossProjectModelAccess = getCrossProjectModelAccess();
+        if (!crossProjectModelAccess.isAccessTracked()) {
+            return projects;
+        }
+        for (Project project : projects) {
+            crossProjectModelAccess.beforeAccess((ProjectInternal) project);
+        }
+        return projects;
     }
 
     @Override
@@ -766,6 +797,7 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
     }
 
     private Project evaluationDependsOn(DefaultProject projectToEvaluate) {
+        getCrossProjectModelAccess().beforeEvaluationDependsOn(projectToEvaluate);
         if (projectToEvaluate.getState().isConfiguring()) {
             throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.",
                 projectToEvaluate));
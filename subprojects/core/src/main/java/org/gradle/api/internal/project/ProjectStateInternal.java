@@ -41,7 +41,7 @@ public class ProjectStateInternal implements ProjectState {
         CONFIGURED
     }
 
-    private State state = State.UNCONFIGURED;
+    private volatile State state = State.UNCONFIGURED;
     private ProjectConfigurationException failure;
 
     @Override
@@ -16,9 +16,12 @@
 package org.gradle.api.tasks.bundling;
 
 import org.apache.tools.zip.ZipOutputStream;
+import org.gradle.api.Incubating;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.archive.IncrementalZipCopyAction;
 import org.gradle.api.internal.file.archive.ZipCopyAction;
+import org.gradle.api.internal.file.archive.ZipEntryCompressionExecutor;
 import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.DefaultZipCompressor;
 import org.gradle.api.internal.file.copy.ZipCompressor;
@@ -27,6 +30,7 @@ import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Optional;
 
 import javax.annotation.Nullable;
+import java.io.File;
 import java.nio.charset.Charset;
 
 /**
@@ -39,6 +43,8 @@ public class Zip extends AbstractArchiveTask {
     private ZipEntryCompression entryCompression = ZipEntryCompression.DEFLATED;
     private boolean allowZip64;
     private String metadataCharset;
+    private boolean reuseCompressedEntries;
+    private boolean parallelCompression;
 
     public Zip() {
         getArchiveExtension().set(ZIP_EXTENSION);
@@ -60,6 +66,12 @@ public class Zip extends AbstractArchiveTask {
     @Override
     protected CopyAction createCopyAction() {
         DocumentationRegistry documentationRegistry = getServices().get(DocumentationRegistry.class);
+        if (reuseCompressedEntries || parallelCompression) {
+            int entryCompressionMethod = entryCompression == ZipEntryCompression.STORED ? ZipOutputStream.STORED : ZipOutputStream.DEFLATED;
+            File indexFile = reuseCompressedEntries ? new File(getTemporaryDir(), "entries.bin") : null;
+            ZipEntryCompressionExecutor compressionExecutor = parallelCompression ? getServices().get(ZipEntryCompressionExecutor.class) : null;
+            return new IncrementalZipCopyAction(getArchiveFile().get().getAsFile(), indexFile, entryCompressionMethod, allowZip64, compressionExecutor, documentationRegistry, metadataCharset, isPreserveFileTimestamps());
+        }
         return new ZipCopyAction(getArchiveFile().get().getAsFile(), getCompressor(), documentationRegistry, metadataCharset, isPreserveFileTimestamps());
     }
 
@@ -138,4 +150,66 @@ public class Zip extends AbstractArchiveTask {
         this.metadataCharset = metadataCharset;
     }
 
+    /**
+     * Whether entries that did not change since the last execution of this task are copied, still compressed, from the previous archive.
+     * Defaults to {@code false}.
+     * <p>
+     * When enabled, the content of each entry is hashed and compared to the content the entry had when the archive was last created.
+     * Only the entries that changed are compressed again, which makes rebuilding a large archive after a small change faster.
+     * All entries are compressed again when the previous archive was changed or replaced by something other than this task.
+     * <p>
+     * The archive written in this mode can differ from the archive written without it, but it does not depend on which entries were reused.
+     * When {@link #isPreserveFileTimestamps()} is {@code false}, the archive is the same as one built from scratch with the same contents.
+     * <p>
+     * This mode does not use the compressor returned by {@link #getCompressor()}.
+     *
+     * @see #isParallelCompression()
+     * @since 5.2
+     */
+    @Incubating
+    @Input
+    public boolean isReuseCompressedEntries() {
+        return reuseCompressedEntries;
+    }
+
+    /**
+     * Sets whether entries that did not change since the last execution of this task are copied, still compressed, from the previous archive.
+     *
+     * @see #isReuseCompressedEntries()
+     * @since 5.2
+     */
+    @Incubating
+    public void setReuseCompressedEntries(boolean reuseCompressedEntries) {
+        this.reuseCompressedEntries = reuseCompressedEntries;
+    }
+
+    /**
+     * Whether the entries of the archive are compressed concurrently, using at most as many threads as the maximum number of workers of the build.
+     * Defaults to {@code false}.
+     * <p>
+     * Entries are compressed while the following entries are read, and are written to the archive in the same order as without this option.
+     * This makes building archives with many entries, such as fat jars and distributions, faster on machines with several processors.
+     * <p>
+     * The archive is written the same way as with {@link #isReuseCompressedEntries()}, so it can differ from the archive written without either option.
+     * It does not depend on the number of threads. This mode does not use the compressor returned by {@link #getCompressor()}.
+     *
+     * @since 5.2
+     */
+    @Incubating
+    @Input
+    public boolean isParallelCompression() {
+        return parallelCompression;
+    }
+
+    /**
+     * Sets whether the entries of the archive are compressed concurrently.
+     *
+     * @see #isParallelCompression()
+     * @since 5.2
+     */
+    @Incubating
+    public void setParallelCompression(boolean parallelCompression) {
+        this.parallelCompression = parallelCompression;
+    }
+
 }
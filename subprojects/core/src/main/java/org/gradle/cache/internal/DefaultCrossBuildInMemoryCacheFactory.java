@@ -19,12 +19,14 @@ package org.gradle.cache.internal;
 import net.jcip.annotations.ThreadSafe;
 import org.gradle.api.Transformer;
 import org.gradle.initialization.SessionLifecycleListener;
+import org.gradle.internal.HeapPressureListener;
 import org.gradle.internal.event.ListenerManager;
 
 import javax.annotation.Nullable;
 import java.lang.ref.SoftReference;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
@@ -36,6 +38,7 @@ import java.util.WeakHashMap;
  * Note that this implementation currently retains strong references to keys and values during the whole lifetime of a build session.
  *
  * Uses a simple algorithm to collect unused values, by retaining strong references to all keys and values used during the current build session, and the previous build session. All other values are referenced only by soft references.
+ * When the heap is under pressure, the strong references to the values used during the previous build session are released.
  */
 @ThreadSafe
 public class DefaultCrossBuildInMemoryCacheFactory extends CrossBuildInMemoryCacheFactory {
@@ -67,7 +70,7 @@ public class DefaultCrossBuildInMemoryCacheFactory extends CrossBuildInMemoryCac
         return cache;
     }
 
-    private static class DefaultCrossBuildInMemoryCache<K, V> implements CrossBuildInMemoryCache<K, V>, SessionLifecycleListener {
+    private static class DefaultCrossBuildInMemoryCache<K, V> implements CrossBuildInMemoryCache<K, V>, SessionLifecycleListener, HeapPressureListener {
         private final Object lock = new Object();
         private final Map<K, V> valuesForThisSession = new HashMap<K, V>();
         // This is used only to retain strong references to the values
@@ -92,6 +95,19 @@ public class DefaultCrossBuildInMemoryCacheFactory extends CrossBuildInMemoryCac
             }
         }
 
+        @Override
+        public void onHeapPressure() {
+            synchronized (lock) {
+                // Values from the previous session are now only softly referenced, so can be collected
+                valuesForPreviousSession.clear();
+                for (Iterator<SoftReference<V>> iterator = allValues.values().iterator(); iterator.hasNext();) {
+                    if (iterator.next().get() == null) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+
         @Override
         public void clear() {
             synchronized (lock) {
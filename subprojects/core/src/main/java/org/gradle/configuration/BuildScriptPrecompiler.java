@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration;
+
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.initialization.ClassLoaderScope;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.groovy.scripts.ScriptCompiler;
+import org.gradle.groovy.scripts.ScriptCompilerFactory;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.internal.Actions;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.scripts.ScriptingLanguages;
+import org.gradle.model.dsl.internal.transform.ClosureCreationInterceptingVerifier;
+import org.gradle.scripts.ScriptingLanguage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles the Groovy build scripts of a set of projects concurrently, ahead of configuring these projects, so that the
+ * script class caches are warm when the projects are configured one at a time.
+ *
+ * <p>The first pass over a build script is compiled against the base class loader scope of the build, which is known up front.
+ * The body of the script is compiled against the class loader scope of the project, which inherits the scope of the parent project
+ * and is only known once the script has added to it. The body is compiled against the export class loader of the closest
+ * ancestor scope that is already locked instead. This is the class loader the body will actually be compiled against, unless the
+ * script or one of the projects in between adds to the classpath, in which case the compiled classes are simply not used.</p>
+ *
+ * <p>Scripts that fail to compile are ignored here, the failure is reported when the project is configured.</p>
+ */
+public class BuildScriptPrecompiler {
+    private static final Logger LOGGER = Logging.getLogger(BuildScriptPrecompiler.class);
+
+    private final ScriptCompilerFactory scriptCompilerFactory;
+    private final DocumentationRegistry documentationRegistry;
+    private final BuildOperationExecutor buildOperationExecutor;
+
+    public BuildScriptPrecompiler(ScriptCompilerFactory scriptCompilerFactory, DocumentationRegistry documentationRegistry, BuildOperationExecutor buildOperationExecutor) {
+        this.scriptCompilerFactory = scriptCompilerFactory;
+        this.documentationRegistry = documentationRegistry;
+        this.buildOperationExecutor = buildOperationExecutor;
+    }
+
+    public void precompile(Iterable<? extends Project> projects) {
+        final List<ProjectInternal> candidates = new ArrayList<ProjectInternal>();
+        for (Project project : projects) {
+            ProjectInternal projectInternal = (ProjectInternal) project;
+            if (projectInternal.getState().isUnconfigured() && isGroovyScript(projectInternal.getBuildScriptSource())) {
+                candidates.add(projectInternal);
+            }
+        }
+        if (candidates.size() < 2) {
+            // Nothing to gain over compiling while configuring
+            return;
+        }
+        buildOperationExecutor.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                buildOperationExecutor.runAll(new Action<BuildOperationQueue<CompileBuildScript>>() {
+                    @Override
+                    public void execute(BuildOperationQueue<CompileBuildScript> queue) {
+                        for (ProjectInternal project : candidates) {
+                            queue.add(new CompileBuildScript(project));
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Precompile build scripts of " + candidates.size() + " projects")
+                    .progressDisplayName("Compiling build scripts");
+            }
+        });
+    }
+
+    private static boolean isGroovyScript(ScriptSource scriptSource) {
+        String fileName = scriptSource.getFileName();
+        for (ScriptingLanguage scriptingLanguage : ScriptingLanguages.all()) {
+            if (fileName.endsWith(scriptingLanguage.getExtension())) {
+                return scriptingLanguage.getProvider() == null;
+            }
+        }
+        return true;
+    }
+
+    private static ClassLoader closestLockedExportClassLoader(ClassLoaderScope scope) {
+        while (!scope.isLocked()) {
+            // Asking an unlocked scope for its class loaders would force it to create pessimistic class loaders
+            scope = scope.getParent();
+        }
+        return scope.getExportClassLoader();
+    }
+
+    private class CompileBuildScript implements RunnableBuildOperation {
+        private final ProjectInternal project;
+
+        CompileBuildScript(ProjectInternal project) {
+            this.project = project;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            ScriptSource scriptSource = project.getBuildScriptSource();
+            ScriptTarget scriptTarget = new ProjectScriptTarget(project);
+            ClassLoader initialPassClassLoader = closestLockedExportClassLoader(project.getBaseClassLoaderScope());
+            ClassLoader bodyClassLoader = closestLockedExportClassLoader(project.getClassLoaderScope().getParent());
+            ScriptCompiler compiler = scriptCompilerFactory.createCompiler(scriptSource);
+            try {
+                compiler.compile(scriptTarget.getScriptClass(), DefaultScriptPluginFactory.initialPassOperation(scriptSource, scriptTarget, documentationRegistry), initialPassClassLoader, Actions.doNothing());
+                compiler.compile(scriptTarget.getScriptClass(), DefaultScriptPluginFactory.secondPassOperation(scriptSource, scriptTarget), bodyClassLoader, ClosureCreationInterceptingVerifier.INSTANCE);
+            } catch (RuntimeException e) {
+                LOGGER.debug("Could not precompile {}.", scriptSource.getDisplayName(), e);
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Precompile build script of " + project.getDisplayName())
+                .progressDisplayName(project.getIdentityPath().toString());
+        }
+    }
+}
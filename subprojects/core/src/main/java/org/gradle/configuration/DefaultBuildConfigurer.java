@@ -17,17 +17,27 @@ package org.gradle.configuration;
 
 import org.gradle.StartParameter;
 import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.execution.ProjectConfigurer;
+import org.gradle.execution.taskgraph.ConfiguredTaskGraph;
+import org.gradle.execution.taskgraph.ConfiguredTaskGraphCache;
 import org.gradle.internal.build.BuildStateRegistry;
 import org.gradle.util.SingleMessageLogger;
 
+import java.util.Set;
+import java.util.TreeSet;
+
 public class DefaultBuildConfigurer implements BuildConfigurer {
     private final ProjectConfigurer projectConfigurer;
     private final BuildStateRegistry buildRegistry;
+    private final BuildScriptPrecompiler buildScriptPrecompiler;
+    private final ConfiguredTaskGraphCache taskGraphCache;
 
-    public DefaultBuildConfigurer(ProjectConfigurer projectConfigurer, BuildStateRegistry buildRegistry) {
+    public DefaultBuildConfigurer(ProjectConfigurer projectConfigurer, BuildStateRegistry buildRegistry, BuildScriptPrecompiler buildScriptPrecompiler, ConfiguredTaskGraphCache taskGraphCache) {
         this.projectConfigurer = projectConfigurer;
         this.buildRegistry = buildRegistry;
+        this.buildScriptPrecompiler = buildScriptPrecompiler;
+        this.taskGraphCache = taskGraphCache;
     }
 
     public void configure(GradleInternal gradle) {
@@ -35,10 +45,38 @@ public class DefaultBuildConfigurer implements BuildConfigurer {
         if (gradle.getParent() == null) {
             buildRegistry.beforeConfigureRootBuild();
         }
+        ConfiguredTaskGraph cachedTaskGraph = taskGraphCache.beforeConfiguration(gradle);
         if (gradle.getStartParameter().isConfigureOnDemand()) {
             projectConfigurer.configure(gradle.getRootProject());
         } else {
-            projectConfigurer.configureHierarchy(gradle.getRootProject());
+            if (cachedTaskGraph != null) {
+                configureProjectsOf(cachedTaskGraph, gradle.getRootProject());
+                if (taskGraphCache.checkConfiguredTasks(gradle)) {
+                    return;
+                }
+                // The cached task graph is out of date, so configure the remaining projects
+            }
+            ProjectInternal rootProject = gradle.getRootProject();
+            if (gradle.getStartParameter().isParallelProjectExecutionEnabled()) {
+                // The build scripts of the subprojects are compiled against the class loader scope of the root project, so configure it first
+                projectConfigurer.configure(rootProject);
+                buildScriptPrecompiler.precompile(rootProject.getSubprojects());
+            }
+            projectConfigurer.configureHierarchy(rootProject);
+        }
+    }
+
+    private void configureProjectsOf(ConfiguredTaskGraph taskGraph, ProjectInternal rootProject) {
+        // Configure each project after its ancestors, as it would be when configuring the whole hierarchy
+        Set<ProjectInternal> projects = new TreeSet<ProjectInternal>();
+        for (String projectPath : taskGraph.getProjects()) {
+            ProjectInternal project = rootProject.findProject(projectPath);
+            if (project != null) {
+                projects.add(project);
+            }
+        }
+        for (ProjectInternal project : projects) {
+            projectConfigurer.configure(project);
         }
     }
 
@@ -64,7 +64,15 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
 
     public void evaluate(final ProjectInternal project, final ProjectStateInternal state) {
         if (state.isUnconfigured()) {
-            buildOperationExecutor.run(new EvaluateProject(project, state));
+            project.getMutationState().withMutableState(new Runnable() {
+                @Override
+                public void run() {
+                    // Projects can be configured concurrently, so check again now that the project lock is held
+                    if (state.isUnconfigured()) {
+                        buildOperationExecutor.run(new EvaluateProject(project, state));
+                    }
+                }
+            });
         }
     }
 
@@ -92,36 +100,31 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
 
         @Override
         public void run(final BuildOperationContext context) {
-            project.getMutationState().withMutableState(new Runnable() {
-                @Override
-                public void run() {
-                    // Note: beforeEvaluate and afterEvaluate ops do not throw, instead mark state as failed
+            // Note: beforeEvaluate and afterEvaluate ops do not throw, instead mark state as failed
+            try {
+                state.toBeforeEvaluate();
+                buildOperationExecutor.run(new NotifyBeforeEvaluate(project, state));
+
+                if (!state.hasFailure()) {
+                    state.toEvaluate();
                     try {
-                        state.toBeforeEvaluate();
-                        buildOperationExecutor.run(new NotifyBeforeEvaluate(project, state));
-
-                        if (!state.hasFailure()) {
-                            state.toEvaluate();
-                            try {
-                                delegate.evaluate(project, state);
-                            } catch (Exception e) {
-                                addConfigurationFailure(project, state, e, context);
-                            } finally {
-                                state.toAfterEvaluate();
-                                buildOperationExecutor.run(new NotifyAfterEvaluate(project, state));
-                            }
-                        }
-
-                        if (state.hasFailure()) {
-                            state.rethrowFailure();
-                        } else {
-                            context.setResult(ConfigureProjectBuildOperationType.RESULT);
-                        }
+                        delegate.evaluate(project, state);
+                    } catch (Exception e) {
+                        addConfigurationFailure(project, state, e, context);
                     } finally {
-                        state.configured();
+                        state.toAfterEvaluate();
+                        buildOperationExecutor.run(new NotifyAfterEvaluate(project, state));
                     }
                 }
-            });
+
+                if (state.hasFailure()) {
+                    state.rethrowFailure();
+                } else {
+                    context.setResult(ConfigureProjectBuildOperationType.RESULT);
+                }
+            } finally {
+                state.configured();
+            }
         }
 
         @Override
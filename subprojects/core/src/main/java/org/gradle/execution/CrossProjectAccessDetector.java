@@ -0,0 +1,221 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.CircularReferenceException;
+import org.gradle.api.Project;
+import org.gradle.api.internal.project.CrossProjectModelAccess;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tracks the projects that are being configured concurrently, and serializes their configuration as soon as the build logic of one of these
+ * projects reaches into the model of any other project, including its ancestors.
+ *
+ * <p>The build logic of a project can only change the state of another project after navigating to it, for example using {@link Project#getRootProject()}
+ * or {@link Project#project(String)}. When this happens, the thread waits until every other project configured concurrently has either completed or is
+ * itself waiting to access another project, and then continues alone. It keeps running alone until its own project is configured, after which the waiting
+ * threads continue one at a time, so that from the first cross project access on the projects are configured as if they were configured sequentially.
+ * The model of the other project is therefore never read or changed while another thread is configuring a project. State that the build logic of all
+ * projects can change, such as the extra properties of the build, is treated the same way.</p>
+ *
+ * <p>{@link Project#evaluationDependsOn(String)} on a project that is being configured by another thread waits for that project to be configured,
+ * instead of failing with a {@link CircularReferenceException}. Only a real cycle between the waiting projects is reported.</p>
+ */
+public class CrossProjectAccessDetector implements CrossProjectModelAccess {
+    private static final Logger LOGGER = Logging.getLogger(CrossProjectAccessDetector.class);
+
+    private final ThreadLocal<ProjectInternal> configuring = new ThreadLocal<ProjectInternal>();
+    private final List<CrossProjectModelAccess> observers = new CopyOnWriteArrayList<CrossProjectModelAccess>();
+    private final Object lock = new Object();
+    // All fields below are guarded by lock
+    private final Map<ProjectInternal, Thread> inFlight = new HashMap<ProjectInternal, Thread>();
+    private final Map<Thread, ProjectInternal> waitingFor = new HashMap<Thread, ProjectInternal>();
+    private int running;
+    private Thread exclusiveOwner;
+    private volatile boolean detected;
+
+    /**
+     * Runs the given action on behalf of a project that may be configured concurrently with other projects.
+     */
+    public void configureConcurrently(ProjectInternal project, Runnable action) {
+        ProjectInternal previous = configuring.get();
+        if (previous != null) {
+            // Nested configuration of another project by this thread, which already holds the right to run
+            configuring.set(project);
+            try {
+                action.run();
+            } finally {
+                configuring.set(previous);
+            }
+            return;
+        }
+        synchronized (lock) {
+            inFlight.put(project, Thread.currentThread());
+            if (detected) {
+                acquireExclusive(false);
+            } else {
+                running++;
+            }
+        }
+        configuring.set(project);
+        try {
+            action.run();
+        } finally {
+            configuring.remove();
+            synchronized (lock) {
+                inFlight.remove(project);
+                if (exclusiveOwner == Thread.currentThread()) {
+                    exclusiveOwner = null;
+                } else {
+                    running--;
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Notifies the given observer of every navigation from one project to another, whether or not projects are configured concurrently.
+     */
+    public void addObserver(CrossProjectModelAccess observer) {
+        observers.add(observer);
+    }
+
+    public void removeObserver(CrossProjectModelAccess observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * Returns true when the build logic of a project configured concurrently has accessed another project.
+     */
+    public boolean isCrossProjectAccessDetected() {
+        return detected;
+    }
+
+    @Override
+    public void beforeAccess(ProjectInternal target) {
+        for (CrossProjectModelAccess observer : observers) {
+            observer.beforeAccess(target);
+        }
+        ProjectInternal current = configuring.get();
+        if (current == null || target == current) {
+            return;
+        }
+        synchronized (lock) {
+            runExclusively(current, target.getDisplayName());
+        }
+    }
+
+    @Override
+    public void beforeSharedStateAccess(String displayName) {
+        for (CrossProjectModelAccess observer : observers) {
+            observer.beforeSharedStateAccess(displayName);
+        }
+        ProjectInternal current = configuring.get();
+        if (current == null) {
+            return;
+        }
+        synchronized (lock) {
+            runExclusively(current, displayName);
+        }
+    }
+
+    @Override
+    public boolean isAccessTracked() {
+        return configuring.get() != null || !observers.isEmpty();
+    }
+
+    @Override
+    public void beforeEvaluationDependsOn(ProjectInternal target) {
+        for (CrossProjectModelAccess observer : observers) {
+            observer.beforeEvaluationDependsOn(target);
+        }
+        ProjectInternal current = configuring.get();
+        if (current == null || target == current) {
+            return;
+        }
+        synchronized (lock) {
+            runExclusively(current, target.getDisplayName());
+            Thread configuringThread = inFlight.get(target);
+            if (configuringThread == null || configuringThread == Thread.currentThread()) {
+                return;
+            }
+            // The project is being configured by another thread, which is waiting for this thread to complete or to access another project
+            checkNoCycle(target);
+            waitingFor.put(Thread.currentThread(), target);
+            exclusiveOwner = null;
+            lock.notifyAll();
+            try {
+                while (inFlight.containsKey(target)) {
+                    waitForChange();
+                }
+            } finally {
+                waitingFor.remove(Thread.currentThread());
+                acquireExclusive(false);
+            }
+        }
+    }
+
+    private void runExclusively(ProjectInternal current, String target) {
+        if (exclusiveOwner == Thread.currentThread()) {
+            return;
+        }
+        if (!detected) {
+            detected = true;
+            LOGGER.info("{} accessed {} while projects were configured in parallel. The remaining projects will be configured sequentially.", current.getDisplayName(), target);
+        }
+        acquireExclusive(true);
+    }
+
+    private void acquireExclusive(boolean wasRunning) {
+        if (wasRunning) {
+            running--;
+            lock.notifyAll();
+        }
+        while (exclusiveOwner != null || running > 0) {
+            waitForChange();
+        }
+        exclusiveOwner = Thread.currentThread();
+    }
+
+    private void checkNoCycle(ProjectInternal target) {
+        Thread thread = inFlight.get(target);
+        while (thread != null) {
+            if (thread == Thread.currentThread()) {
+                throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.", target));
+            }
+            ProjectInternal awaited = waitingFor.get(thread);
+            thread = awaited == null ? null : inFlight.get(awaited);
+        }
+    }
+
+    private void waitForChange() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
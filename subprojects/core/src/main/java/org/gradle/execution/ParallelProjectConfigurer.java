@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A {@link ProjectConfigurer} that configures the projects of a hierarchy concurrently, as long as they do not access each other.
+ *
+ * <p>The root project is configured first. The remaining projects are then configured level by level, so that the ancestors of a project
+ * are always configured before it, using the build operation thread pool. Each project is configured while holding its project lock,
+ * so this requires per-project locks, which are only used for parallel builds.</p>
+ *
+ * <p>As soon as the build logic of one project accesses the model of another project, including one of its ancestors, {@link CrossProjectAccessDetector}
+ * lets that project continue alone, and no further projects are configured concurrently. The projects that are already being configured complete
+ * one at a time, and the remaining projects are configured sequentially, in the same order as {@link TaskPathProjectEvaluator} would.</p>
+ */
+public class ParallelProjectConfigurer implements ProjectConfigurer {
+    /**
+     * The system property used to opt in to parallel project configuration.
+     */
+    public static final String PARALLEL_CONFIGURATION_PROPERTY = "org.gradle.internal.configure.parallel";
+
+    private final ProjectConfigurer delegate;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final CrossProjectAccessDetector crossProjectAccessDetector;
+
+    public ParallelProjectConfigurer(ProjectConfigurer delegate, BuildOperationExecutor buildOperationExecutor, CrossProjectAccessDetector crossProjectAccessDetector) {
+        this.delegate = delegate;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.crossProjectAccessDetector = crossProjectAccessDetector;
+    }
+
+    public static boolean isEnabled(boolean parallelProjectExecution) {
+        return parallelProjectExecution && Boolean.getBoolean(PARALLEL_CONFIGURATION_PROPERTY);
+    }
+
+    @Override
+    public void configure(ProjectInternal project) {
+        delegate.configure(project);
+    }
+
+    @Override
+    public void configureFully(ProjectInternal project) {
+        delegate.configureFully(project);
+    }
+
+    @Override
+    public void configureHierarchy(ProjectInternal project) {
+        delegate.configure(project);
+        for (List<ProjectInternal> level : subprojectsByDepth(project).values()) {
+            if (crossProjectAccessDetector.isCrossProjectAccessDetected()) {
+                break;
+            }
+            configureConcurrently(level);
+        }
+        // Configure anything that is left over, in the usual order
+        for (Project sub : project.getSubprojects()) {
+            delegate.configure((ProjectInternal) sub);
+        }
+    }
+
+    @Override
+    public void configureHierarchyFully(ProjectInternal project) {
+        delegate.configureHierarchyFully(project);
+    }
+
+    private static SortedMap<Integer, List<ProjectInternal>> subprojectsByDepth(ProjectInternal project) {
+        SortedMap<Integer, List<ProjectInternal>> levels = new TreeMap<Integer, List<ProjectInternal>>();
+        for (Project sub : project.getSubprojects()) {
+            List<ProjectInternal> level = levels.get(sub.getDepth());
+            if (level == null) {
+                level = new ArrayList<ProjectInternal>();
+                levels.put(sub.getDepth(), level);
+            }
+            level.add((ProjectInternal) sub);
+        }
+        return levels;
+    }
+
+    private void configureConcurrently(final List<ProjectInternal> projects) {
+        if (projects.size() == 1) {
+            delegate.configure(projects.get(0));
+            return;
+        }
+        // Failures are collected per project, so that the failure reported is the one that configuring sequentially would report
+        final Map<ProjectInternal, RuntimeException> failures = new ConcurrentSkipListMap<ProjectInternal, RuntimeException>();
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<ConfigureProject>>() {
+            @Override
+            public void execute(BuildOperationQueue<ConfigureProject> queue) {
+                for (ProjectInternal project : projects) {
+                    queue.add(new ConfigureProject(project, failures));
+                }
+            }
+        });
+        if (!failures.isEmpty()) {
+            throw failures.values().iterator().next();
+        }
+    }
+
+    private class ConfigureProject implements RunnableBuildOperation {
+        private final ProjectInternal project;
+        private final Map<ProjectInternal, RuntimeException> failures;
+
+        ConfigureProject(ProjectInternal project, Map<ProjectInternal, RuntimeException> failures) {
+            this.project = project;
+            this.failures = failures;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            if (!failures.isEmpty() || crossProjectAccessDetector.isCrossProjectAccessDetected()) {
+                // Leave the project to be configured sequentially, if at all
+                return;
+            }
+            try {
+                crossProjectAccessDetector.configureConcurrently(project, new Runnable() {
+                    @Override
+                    public void run() {
+                        delegate.configure(project);
+                    }
+                });
+            } catch (RuntimeException e) {
+                failures.put(project, e);
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Parallel configuration of " + project.getDisplayName());
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.gradle.api.internal.changedetection.TaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.changes.DefaultTaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.changes.ShortCircuitTaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.state.CacheBackedTaskHistoryRepository;
+import org.gradle.api.internal.changedetection.state.JarEntryHashingExecutor;
 import org.gradle.api.internal.changedetection.state.ResourceSnapshotterCacheService;
 import org.gradle.api.internal.changedetection.state.TaskHistoryRepository;
 import org.gradle.api.internal.project.ProjectInternal;
@@ -142,12 +143,13 @@ public class ProjectExecutionServices extends DefaultServiceRegistry {
         return executer;
     }
 
-    ClasspathFingerprinter createClasspathFingerprinter(ResourceSnapshotterCacheService resourceSnapshotterCacheService, FileSystemSnapshotter fileSystemSnapshotter, StringInterner stringInterner, InputNormalizationHandlerInternal inputNormalizationHandler) {
+    ClasspathFingerprinter createClasspathFingerprinter(ResourceSnapshotterCacheService resourceSnapshotterCacheService, FileSystemSnapshotter fileSystemSnapshotter, StringInterner stringInterner, InputNormalizationHandlerInternal inputNormalizationHandler, JarEntryHashingExecutor jarEntryHashingExecutor) {
         return new DefaultClasspathFingerprinter(
             resourceSnapshotterCacheService,
             fileSystemSnapshotter,
             inputNormalizationHandler.getRuntimeClasspath().getResourceFilter(),
-            stringInterner
+            stringInterner,
+            jarEntryHashingExecutor
         );
     }
 
@@ -15,14 +15,20 @@
  */
 package org.gradle.execution;
 
+import com.google.common.collect.Sets;
 import org.gradle.TaskExecutionRequest;
+import org.gradle.api.Task;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.execution.commandline.CommandLineTaskParser;
+import org.gradle.execution.taskgraph.ConfiguredTaskGraphCache;
 import org.gradle.execution.taskgraph.TaskExecutionGraphInternal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.util.List;
+import java.util.Set;
 
 /**
  * A {@link BuildConfigurationAction} which selects tasks which match the provided names. For each name, selects all tasks in all
@@ -31,21 +37,44 @@ import java.util.List;
 public class TaskNameResolvingBuildConfigurationAction implements BuildConfigurationAction {
     private static final Logger LOGGER = LoggerFactory.getLogger(TaskNameResolvingBuildConfigurationAction.class);
     private final CommandLineTaskParser commandLineTaskParser;
+    private final ConfiguredTaskGraphCache taskGraphCache;
 
     public TaskNameResolvingBuildConfigurationAction(CommandLineTaskParser commandLineTaskParser) {
+        this(commandLineTaskParser, null);
+    }
+
+    public TaskNameResolvingBuildConfigurationAction(CommandLineTaskParser commandLineTaskParser, @Nullable ConfiguredTaskGraphCache taskGraphCache) {
         this.commandLineTaskParser = commandLineTaskParser;
+        this.taskGraphCache = taskGraphCache;
     }
 
     public void configure(BuildExecutionContext context) {
         GradleInternal gradle = context.getGradle();
         TaskExecutionGraphInternal taskGraph = gradle.getTaskGraph();
 
+        List<List<String>> cachedEntryTasks = taskGraphCache == null ? null : taskGraphCache.getCachedEntryTasks();
+        if (cachedEntryTasks != null) {
+            for (List<String> taskPaths : cachedEntryTasks) {
+                Set<Task> tasks = Sets.newLinkedHashSet();
+                for (String taskPath : taskPaths) {
+                    tasks.add(gradle.getRootProject().getTasks().getByPath(taskPath));
+                }
+                LOGGER.info("Selected primary tasks {} from the cached task graph", taskPaths);
+                taskGraph.addEntryTasks(tasks);
+            }
+            context.proceed();
+            return;
+        }
+
         List<TaskExecutionRequest> taskParameters = gradle.getStartParameter().getTaskRequests();
         for (TaskExecutionRequest taskParameter : taskParameters) {
             List<TaskSelector.TaskSelection> taskSelections = commandLineTaskParser.parseTasks(taskParameter);
             for (TaskSelector.TaskSelection taskSelection : taskSelections) {
                 LOGGER.info("Selected primary task '{}' from project {}", taskSelection.getTaskName(), taskSelection.getProjectPath());
                 taskGraph.addEntryTasks(taskSelection.getTasks());
+                if (taskGraphCache != null) {
+                    taskGraphCache.entryTasksSelected(taskSelection.getTasks());
+                }
             }
         }
 
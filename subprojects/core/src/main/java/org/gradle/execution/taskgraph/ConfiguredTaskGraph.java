@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.serialize.ListSerializer;
+import org.gradle.internal.serialize.MapSerializer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The task graph of a build, as recorded by {@link ConfiguredTaskGraphCache}.
+ */
+public class ConfiguredTaskGraph {
+    private final Map<String, HashCode> scriptInputs;
+    private final List<String> projects;
+    private final List<List<String>> entryTasks;
+    private final Map<String, CachedTask> tasks;
+
+    public ConfiguredTaskGraph(Map<String, HashCode> scriptInputs, List<String> projects, List<List<String>> entryTasks, Map<String, CachedTask> tasks) {
+        this.scriptInputs = scriptInputs;
+        this.projects = projects;
+        this.entryTasks = entryTasks;
+        this.tasks = tasks;
+    }
+
+    /**
+     * The scripts applied while configuring the build, other than the build scripts of the projects, with the hash of their content.
+     */
+    public Map<String, HashCode> getScriptInputs() {
+        return scriptInputs;
+    }
+
+    /**
+     * The paths of the projects to configure to reproduce the task graph: the projects that own its tasks, their ancestors, the projects whose
+     * build logic accessed any of these projects and the projects that were configured when accessed by any of these projects, sorted.
+     */
+    public List<String> getProjects() {
+        return projects;
+    }
+
+    /**
+     * The paths of the tasks selected from the command-line, in the groups they were added to the task graph in.
+     */
+    public List<List<String>> getEntryTasks() {
+        return entryTasks;
+    }
+
+    /**
+     * The tasks of the graph, by path.
+     */
+    public Map<String, CachedTask> getTasks() {
+        return tasks;
+    }
+
+    public static class CachedTask {
+        private final String type;
+        private final List<String> dependencies;
+
+        public CachedTask(String type, List<String> dependencies) {
+            this.type = type;
+            this.dependencies = dependencies;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * The paths of the tasks this task depends on or is finalized by, sorted.
+         */
+        public List<String> getDependencies() {
+            return dependencies;
+        }
+
+        public boolean hasSameStructureAs(CachedTask other) {
+            return type.equals(other.type) && dependencies.equals(other.dependencies);
+        }
+    }
+
+    public static class Serializer extends AbstractSerializer<ConfiguredTaskGraph> {
+        private final MapSerializer<String, HashCode> hashesSerializer = new MapSerializer<String, HashCode>(BaseSerializerFactory.STRING_SERIALIZER, new HashCodeSerializer());
+        private final ListSerializer<String> pathsSerializer = new ListSerializer<String>(BaseSerializerFactory.STRING_SERIALIZER);
+        private final ListSerializer<List<String>> entryTasksSerializer = new ListSerializer<List<String>>(pathsSerializer);
+
+        @Override
+        public ConfiguredTaskGraph read(Decoder decoder) throws Exception {
+            Map<String, HashCode> scriptInputs = hashesSerializer.read(decoder);
+            List<String> projects = pathsSerializer.read(decoder);
+            List<List<String>> entryTasks = entryTasksSerializer.read(decoder);
+            int taskCount = decoder.readSmallInt();
+            Map<String, CachedTask> tasks = new LinkedHashMap<String, CachedTask>(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                String path = decoder.readString();
+                String type = decoder.readString();
+                List<String> dependencies = pathsSerializer.read(decoder);
+                tasks.put(path, new CachedTask(type, dependencies));
+            }
+            return new ConfiguredTaskGraph(scriptInputs, projects, entryTasks, tasks);
+        }
+
+        @Override
+        public void write(Encoder encoder, ConfiguredTaskGraph value) throws Exception {
+            hashesSerializer.write(encoder, value.scriptInputs);
+            pathsSerializer.write(encoder, value.projects);
+            entryTasksSerializer.write(encoder, value.entryTasks);
+            encoder.writeSmallInt(value.tasks.size());
+            for (Map.Entry<String, CachedTask> entry : value.tasks.entrySet()) {
+                CachedTask task = entry.getValue();
+                encoder.writeString(entry.getKey());
+                encoder.writeString(task.type);
+                pathsSerializer.write(encoder, task.dependencies);
+            }
+        }
+    }
+}
@@ -0,0 +1,514 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.StartParameter;
+import org.gradle.TaskExecutionRequest;
+import org.gradle.api.Project;
+import org.gradle.api.ProjectEvaluationListener;
+import org.gradle.api.ProjectState;
+import org.gradle.api.Task;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.plugins.DslObject;
+import org.gradle.api.internal.project.CrossProjectModelAccess;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.groovy.scripts.Script;
+import org.gradle.groovy.scripts.ScriptExecutionListener;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.initialization.DefaultProjectDescriptor;
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
+import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.execution.CrossProjectAccessDetector;
+import org.gradle.util.GradleVersion;
+import org.gradle.util.Path;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * An experimental cache of the configured task graph of the root build.
+ *
+ * <p>The cache is keyed by the hashes of the settings script, the build scripts of all projects, the init scripts, the {@code gradle.properties}
+ * files, the classpath of the settings script and the command-line and environment of the invocation. An entry additionally records the
+ * hashes of the other scripts applied while configuring the build, which are checked before the entry is used.</p>
+ *
+ * <p>An entry also records which projects need to be configured to reproduce the task graph: the projects that own its tasks, their ancestors,
+ * the projects whose build logic navigated to one of these projects, and the projects these navigated to once they were configured. When an
+ * up-to-date entry is found, only these projects are configured. Before the rest of the build sees the result, the tasks selected from the
+ * command-line are looked up by path and the tasks they depend on are checked against the entry. When they differ, configuration depends on
+ * something the entry does not track: the entry is discarded, the remaining projects are configured as usual and the tasks are selected by
+ * name, so the build behaves as if there was no entry, and a new entry is recorded.</p>
+ *
+ * <p>Listeners registered with the {@link org.gradle.api.invocation.Gradle} instance by the build logic of a project that is not configured are
+ * not tracked, other than through the check of the task dependencies.</p>
+ */
+public class ConfiguredTaskGraphCache implements Closeable {
+    /**
+     * The system property used to opt in to caching the configured task graph.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.taskgraph.cache";
+
+    private static final Logger LOGGER = Logging.getLogger(ConfiguredTaskGraphCache.class);
+    private static final int FORMAT_VERSION = 2;
+
+    private final CacheRepository cacheRepository;
+    private final FileHasher fileHasher;
+    private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
+    private final ListenerManager listenerManager;
+    private final CrossProjectAccessDetector crossProjectAccessDetector;
+    private final boolean enabled;
+    private PersistentCache cache;
+    private PersistentIndexedCache<HashCode, ConfiguredTaskGraph> entries;
+    private Recording recording;
+
+    public ConfiguredTaskGraphCache(CacheRepository cacheRepository, FileHasher fileHasher, ClassLoaderHierarchyHasher classLoaderHierarchyHasher, ListenerManager listenerManager, CrossProjectAccessDetector crossProjectAccessDetector) {
+        this(cacheRepository, fileHasher, classLoaderHierarchyHasher, listenerManager, crossProjectAccessDetector, Boolean.getBoolean(ENABLED_PROPERTY));
+    }
+
+    ConfiguredTaskGraphCache(CacheRepository cacheRepository, FileHasher fileHasher, ClassLoaderHierarchyHasher classLoaderHierarchyHasher, ListenerManager listenerManager, CrossProjectAccessDetector crossProjectAccessDetector, boolean enabled) {
+        this.cacheRepository = cacheRepository;
+        this.fileHasher = fileHasher;
+        this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
+        this.listenerManager = listenerManager;
+        this.crossProjectAccessDetector = crossProjectAccessDetector;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Starts recording the configuration of the given build, when it can be cached.
+     *
+     * @return the cached task graph for the build, or null when there is no up-to-date entry.
+     */
+    @Nullable
+    public ConfiguredTaskGraph beforeConfiguration(GradleInternal gradle) {
+        if (!isCacheable(gradle)) {
+            return null;
+        }
+        HashCode key = cacheKey(gradle);
+        if (key == null) {
+            return null;
+        }
+        ConfiguredTaskGraph cached = getEntries(gradle).get(key);
+        if (cached != null && !scriptsUpToDate(cached)) {
+            LOGGER.info("Scripts applied by the build have changed, the cached task graph will not be used.");
+            cached = null;
+        }
+        recording = new Recording(gradle, key, cached);
+        listenerManager.addListener(recording);
+        crossProjectAccessDetector.addObserver(recording);
+        return cached;
+    }
+
+    /**
+     * Checks the tasks of the cached task graph of the current build, once the projects of the graph have been configured.
+     * When the tasks no longer match the entry, the entry is discarded and the build continues as if there was no entry.
+     *
+     * @return true when the cached task graph can be used, false when the remaining projects need to be configured.
+     */
+    public boolean checkConfiguredTasks(GradleInternal gradle) {
+        Recording current = recording;
+        if (current == null || current.cached == null) {
+            return false;
+        }
+        Map<String, ConfiguredTaskGraph.CachedTask> configured;
+        try {
+            List<Task> entryTasks = Lists.newArrayList();
+            for (List<String> taskPaths : current.cached.getEntryTasks()) {
+                for (String taskPath : taskPaths) {
+                    entryTasks.add(gradle.getRootProject().getTasks().getByPath(taskPath));
+                }
+            }
+            configured = structureOf(entryTasks);
+        } catch (RuntimeException e) {
+            // For example, a task that is no longer created by the configured projects
+            LOGGER.debug("Could not resolve the tasks of the cached task graph.", e);
+            configured = null;
+        }
+        if (configured == null || !sameStructure(current.cached.getTasks(), configured)) {
+            LOGGER.info("The configured tasks do not match the cached task graph, as configuration depends on inputs that are not tracked. The cached task graph has been discarded.");
+            current.discard();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the entry tasks of the cached task graph used by the current build, or null when the build does not use the cache.
+     */
+    @Nullable
+    public List<List<String>> getCachedEntryTasks() {
+        Recording current = recording;
+        return current == null || current.cached == null ? null : current.cached.getEntryTasks();
+    }
+
+    /**
+     * Records that the given tasks were selected from the command-line and added to the task graph of the current build.
+     */
+    public void entryTasksSelected(Collection<? extends Task> tasks) {
+        Recording current = recording;
+        if (current != null) {
+            current.entryTasks.add(ImmutableList.copyOf(tasks));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (cache != null) {
+            cache.close();
+            cache = null;
+            entries = null;
+        }
+    }
+
+    private boolean isCacheable(GradleInternal gradle) {
+        StartParameter startParameter = gradle.getStartParameter();
+        return enabled
+            && gradle.getParent() == null
+            && !startParameter.isConfigureOnDemand()
+            && startParameter.getExcludedTaskNames().isEmpty();
+    }
+
+    private PersistentIndexedCache<HashCode, ConfiguredTaskGraph> getEntries(GradleInternal gradle) {
+        if (entries == null) {
+            cache = cacheRepository
+                .cache(gradle, "taskGraph")
+                .withDisplayName("Configured task graph cache")
+                .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+                .open();
+            entries = cache.createCache(PersistentIndexedCacheParameters.of("taskGraphs", new HashCodeSerializer(), new ConfiguredTaskGraph.Serializer()));
+        }
+        return entries;
+    }
+
+    @Nullable
+    private HashCode cacheKey(GradleInternal gradle) {
+        HashCode settingsClassLoaderHash = classLoaderHierarchyHasher.getClassLoaderHash(gradle.getSettings().getClassLoaderScope().getExportClassLoader());
+        if (settingsClassLoaderHash == null) {
+            return null;
+        }
+        StartParameter startParameter = gradle.getStartParameter();
+        Hasher hasher = Hashing.newHasher();
+        hasher.putInt(FORMAT_VERSION);
+        hasher.putString(GradleVersion.current().getVersion());
+        hasher.putHash(settingsClassLoaderHash);
+        hasher.putString(startParameter.getCurrentDir().getAbsolutePath());
+        hasher.putBoolean(startParameter.isBuildProjectDependencies());
+        hasher.putBoolean(startParameter.isDryRun());
+        for (TaskExecutionRequest request : startParameter.getTaskRequests()) {
+            hasher.putString(String.valueOf(request.getProjectPath()));
+            hasher.putString(String.valueOf(request.getRootDir()));
+            hasher.putInt(request.getArgs().size());
+            for (String arg : request.getArgs()) {
+                hasher.putString(arg);
+            }
+        }
+        putMap(hasher, startParameter.getProjectProperties());
+        putMap(hasher, startParameter.getSystemPropertiesArgs());
+        putMap(hasher, System.getenv());
+        for (File initScript : startParameter.getAllInitScripts()) {
+            putFile(hasher, initScript);
+        }
+        putFile(hasher, new File(startParameter.getGradleUserHomeDir(), "gradle.properties"));
+        putFile(hasher, new File(gradle.getRootProject().getRootDir(), "gradle.properties"));
+        putScript(hasher, gradle.getSettings().getSettingsScript());
+        for (DefaultProjectDescriptor project : gradle.getSettings().getProjectRegistry().getAllProjects()) {
+            hasher.putString(project.getPath());
+            putFile(hasher, project.getBuildFile());
+        }
+        return hasher.hash();
+    }
+
+    private static void putMap(Hasher hasher, Map<String, String> values) {
+        Map<String, String> sorted = new TreeMap<String, String>(values);
+        hasher.putInt(sorted.size());
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+            hasher.putString(entry.getKey());
+            hasher.putString(entry.getValue());
+        }
+    }
+
+    private void putFile(Hasher hasher, File file) {
+        hasher.putString(file.getAbsolutePath());
+        if (file.isFile()) {
+            hasher.putHash(fileHasher.hash(file));
+        } else {
+            hasher.putNull();
+        }
+    }
+
+    private static void putScript(Hasher hasher, ScriptSource scriptSource) {
+        hasher.putString(scriptSource.getDisplayName());
+        if (scriptSource.getResource().getExists()) {
+            hasher.putString(scriptSource.getResource().getText());
+        } else {
+            hasher.putNull();
+        }
+    }
+
+    private boolean scriptsUpToDate(ConfiguredTaskGraph cached) {
+        for (Map.Entry<String, HashCode> entry : cached.getScriptInputs().entrySet()) {
+            File file = new File(entry.getKey());
+            if (!file.isFile() || !fileHasher.hash(file).equals(entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the given tasks and the tasks they depend on or are finalized by, by path.
+     */
+    private static Map<String, ConfiguredTaskGraph.CachedTask> structureOf(Collection<? extends Task> entryTasks) {
+        Map<String, ConfiguredTaskGraph.CachedTask> tasks = new TreeMap<String, ConfiguredTaskGraph.CachedTask>();
+        Deque<Task> queue = new ArrayDeque<Task>(entryTasks);
+        while (!queue.isEmpty()) {
+            Task task = queue.removeFirst();
+            if (tasks.containsKey(task.getPath())) {
+                continue;
+            }
+            Set<Task> dependencies = new LinkedHashSet<Task>();
+            dependencies.addAll(task.getTaskDependencies().getDependencies(task));
+            dependencies.addAll(task.getFinalizedBy().getDependencies(task));
+            List<String> dependencyPaths = Lists.newArrayListWithCapacity(dependencies.size());
+            for (Task dependency : dependencies) {
+                dependencyPaths.add(dependency.getPath());
+            }
+            Collections.sort(dependencyPaths);
+            tasks.put(task.getPath(), new ConfiguredTaskGraph.CachedTask(new DslObject(task).getDeclaredType().getName(), ImmutableList.copyOf(dependencyPaths)));
+            queue.addAll(dependencies);
+        }
+        return tasks;
+    }
+
+    private class Recording extends BuildAdapter implements ScriptExecutionListener, ProjectEvaluationListener, CrossProjectModelAccess {
+        private final GradleInternal gradle;
+        private final HashCode key;
+        private volatile ConfiguredTaskGraph cached;
+        private final Map<String, HashCode> scriptInputs = Maps.newConcurrentMap();
+        private final List<List<Task>> entryTasks = Lists.newArrayList();
+        private final Set<File> projectBuildFiles;
+        private final ThreadLocal<Deque<ProjectInternal>> evaluating = new ThreadLocal<Deque<ProjectInternal>>() {
+            @Override
+            protected Deque<ProjectInternal> initialValue() {
+                return new ArrayDeque<ProjectInternal>();
+            }
+        };
+        // Navigation between projects, from the path of the project whose build logic navigated to the paths of the projects it navigated to
+        private final ConcurrentMap<String, Set<String>> accessed = Maps.newConcurrentMap();
+        // The subset of the above, where the target project was already configured or being configured
+        private final ConcurrentMap<String, Set<String>> accessedConfigured = Maps.newConcurrentMap();
+        // The paths of the projects whose build logic used state shared by all projects
+        private final Set<String> accessedSharedState = Sets.newConcurrentHashSet();
+        private volatile boolean cacheable = true;
+
+        Recording(GradleInternal gradle, HashCode key, @Nullable ConfiguredTaskGraph cached) {
+            this.gradle = gradle;
+            this.key = key;
+            this.cached = cached;
+            this.projectBuildFiles = Sets.newHashSet();
+            for (DefaultProjectDescriptor project : gradle.getSettings().getProjectRegistry().getAllProjects()) {
+                projectBuildFiles.add(project.getBuildFile().getAbsoluteFile());
+            }
+        }
+
+        @Override
+        public void scriptClassLoaded(ScriptSource source, Class<? extends Script> scriptClass) {
+            File file = source.getResource().getFile();
+            if (file == null) {
+                // Not a local file, so cannot be checked
+                cacheable = false;
+            } else if (!projectBuildFiles.contains(file.getAbsoluteFile()) && file.isFile()) {
+                scriptInputs.put(file.getAbsolutePath(), fileHasher.hash(file));
+            }
+        }
+
+        @Override
+        public void beforeEvaluate(Project project) {
+            evaluating.get().push((ProjectInternal) project);
+        }
+
+        @Override
+        public void afterEvaluate(Project project, ProjectState state) {
+            evaluating.get().remove(project);
+        }
+
+        @Override
+        public void beforeAccess(ProjectInternal target) {
+            ProjectInternal current = evaluating.get().peek();
+            if (current == null || current == target) {
+                return;
+            }
+            record(accessed, current, target);
+            if (!target.getState().isUnconfigured()) {
+                record(accessedConfigured, current, target);
+            }
+        }
+
+        @Override
+        public void beforeEvaluationDependsOn(ProjectInternal target) {
+            ProjectInternal current = evaluating.get().peek();
+            if (current != null && current != target) {
+                record(accessed, current, target);
+                record(accessedConfigured, current, target);
+            }
+        }
+
+        @Override
+        public void beforeSharedStateAccess(String displayName) {
+            ProjectInternal current = evaluating.get().peek();
+            if (current != null) {
+                accessedSharedState.add(current.getPath());
+            }
+        }
+
+        @Override
+        public boolean isAccessTracked() {
+            return true;
+        }
+
+        private void record(ConcurrentMap<String, Set<String>> accesses, ProjectInternal from, ProjectInternal to) {
+            Set<String> targets = accesses.get(from.getPath());
+            if (targets == null) {
+                Set<String> newTargets = Sets.newConcurrentHashSet();
+                targets = accesses.putIfAbsent(from.getPath(), newTargets);
+                if (targets == null) {
+                    targets = newTargets;
+                }
+            }
+            targets.add(to.getPath());
+        }
+
+        @Override
+        public void buildFinished(BuildResult result) {
+            listenerManager.removeListener(this);
+            crossProjectAccessDetector.removeObserver(this);
+            recording = null;
+            if (result.getFailure() != null || cached != null || !cacheable || entryTasks.isEmpty()) {
+                return;
+            }
+            List<List<String>> entryTaskPaths = Lists.newArrayListWithCapacity(entryTasks.size());
+            List<Task> allEntryTasks = Lists.newArrayList();
+            for (List<Task> tasks : entryTasks) {
+                List<String> paths = Lists.newArrayListWithCapacity(tasks.size());
+                for (Task task : tasks) {
+                    paths.add(task.getPath());
+                }
+                entryTaskPaths.add(paths);
+                allEntryTasks.addAll(tasks);
+            }
+            Map<String, ConfiguredTaskGraph.CachedTask> tasks;
+            try {
+                tasks = structureOf(allEntryTasks);
+            } catch (RuntimeException e) {
+                LOGGER.debug("Could not record the task graph.", e);
+                return;
+            }
+            getEntries(gradle).put(key, new ConfiguredTaskGraph(new TreeMap<String, HashCode>(scriptInputs), requiredProjects(tasks.keySet()), ImmutableList.copyOf(entryTaskPaths), tasks));
+        }
+
+        private List<String> requiredProjects(Set<String> taskPaths) {
+            Set<String> required = new TreeSet<String>();
+            required.add(Path.ROOT.getPath());
+            for (String taskPath : taskPaths) {
+                addWithAncestors(required, Path.path(taskPath).getParent());
+            }
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (Map.Entry<String, Set<String>> entry : accessed.entrySet()) {
+                    String from = entry.getKey();
+                    if (!required.contains(from) && !Collections.disjoint(entry.getValue(), required)) {
+                        // The build logic of the project may have changed a project that is required
+                        changed |= addWithAncestors(required, Path.path(from));
+                    }
+                }
+                for (Map.Entry<String, Set<String>> entry : accessedConfigured.entrySet()) {
+                    if (required.contains(entry.getKey())) {
+                        // The build logic of a project that is required may have read the state of the configured projects
+                        for (String to : entry.getValue()) {
+                            changed |= addWithAncestors(required, Path.path(to));
+                        }
+                    }
+                }
+                if (!Collections.disjoint(accessedSharedState, required)) {
+                    // A project that is required may have read the shared state, which the other projects may have changed
+                    for (String project : accessedSharedState) {
+                        changed |= addWithAncestors(required, Path.path(project));
+                    }
+                }
+            }
+            return ImmutableList.copyOf(required);
+        }
+
+        private boolean addWithAncestors(Set<String> projects, @Nullable Path projectPath) {
+            boolean added = false;
+            for (Path path = projectPath; path != null; path = path.getParent()) {
+                added |= projects.add(path.getPath());
+            }
+            return added;
+        }
+
+        private void discard() {
+            cached = null;
+            getEntries(gradle).remove(key);
+        }
+    }
+
+    private static boolean sameStructure(Map<String, ConfiguredTaskGraph.CachedTask> expected, Map<String, ConfiguredTaskGraph.CachedTask> actual) {
+        if (!expected.keySet().equals(actual.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, ConfiguredTaskGraph.CachedTask> entry : expected.entrySet()) {
+            if (!entry.getValue().hasSameStructureAs(actual.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -19,6 +19,7 @@ package org.gradle.internal.fingerprint.classpath.impl;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.JarEntryHashingExecutor;
 import org.gradle.api.internal.changedetection.state.JarHasher;
 import org.gradle.api.internal.changedetection.state.ResourceFilter;
 import org.gradle.api.internal.changedetection.state.ResourceHasher;
@@ -62,6 +63,11 @@ import static org.gradle.internal.fingerprint.classpath.impl.ClasspathFingerprin
  * </p>
  */
 public class ClasspathFingerprintingStrategy extends AbstractFingerprintingStrategy {
+    /**
+     * When enabled, runtime classpath normalization uses the CRCs stored in jars instead of hashing the content of jar entries.
+     * This avoids inflating the entries, at the cost of relying on a 32 bit checksum to detect changes.
+     */
+    public static final String REUSE_ZIP_ENTRY_CRCS_PROPERTY = "org.gradle.internal.classpath.reuse-zip-entry-crcs";
 
     private final NonJarFingerprintingStrategy nonJarFingerprintingStrategy;
     private final ResourceFilter classpathResourceFilter;
@@ -71,25 +77,26 @@ public class ClasspathFingerprintingStrategy extends AbstractFingerprintingStrat
     private final StringInterner stringInterner;
     private final HashCode jarHasherConfigurationHash;
 
-    private ClasspathFingerprintingStrategy(String identifier, NonJarFingerprintingStrategy nonJarFingerprintingStrategy, ResourceHasher classpathResourceHasher, ResourceFilter classpathResourceFilter, ResourceSnapshotterCacheService cacheService, StringInterner stringInterner) {
+    private ClasspathFingerprintingStrategy(String identifier, NonJarFingerprintingStrategy nonJarFingerprintingStrategy, ResourceHasher classpathResourceHasher, ResourceFilter classpathResourceFilter, ResourceSnapshotterCacheService cacheService, StringInterner stringInterner, boolean reuseStoredCrcs, JarEntryHashingExecutor jarEntryHashingExecutor) {
         super(identifier, ClasspathCompareStrategy.INSTANCE);
         this.nonJarFingerprintingStrategy = nonJarFingerprintingStrategy;
         this.classpathResourceFilter = classpathResourceFilter;
         this.classpathResourceHasher = classpathResourceHasher;
         this.cacheService = cacheService;
         this.stringInterner = stringInterner;
-        this.jarHasher = new JarHasher(classpathResourceHasher, classpathResourceFilter);
+        this.jarHasher = new JarHasher(classpathResourceHasher, classpathResourceFilter, reuseStoredCrcs, jarEntryHashingExecutor);
         Hasher hasher = Hashing.newHasher();
         jarHasher.appendConfigurationToHasher(hasher);
         this.jarHasherConfigurationHash = hasher.hash();
     }
 
-    public static ClasspathFingerprintingStrategy runtimeClasspath(ResourceFilter classpathResourceFilter, RuntimeClasspathResourceHasher runtimeClasspathResourceHasher, ResourceSnapshotterCacheService cacheService, StringInterner stringInterner) {
-        return new ClasspathFingerprintingStrategy("CLASSPATH", USE_FILE_HASH, runtimeClasspathResourceHasher, classpathResourceFilter, cacheService, stringInterner);
+    public static ClasspathFingerprintingStrategy runtimeClasspath(ResourceFilter classpathResourceFilter, RuntimeClasspathResourceHasher runtimeClasspathResourceHasher, ResourceSnapshotterCacheService cacheService, StringInterner stringInterner, JarEntryHashingExecutor jarEntryHashingExecutor) {
+        boolean reuseStoredCrcs = Boolean.getBoolean(REUSE_ZIP_ENTRY_CRCS_PROPERTY);
+        return new ClasspathFingerprintingStrategy("CLASSPATH", USE_FILE_HASH, runtimeClasspathResourceHasher, classpathResourceFilter, cacheService, stringInterner, reuseStoredCrcs, jarEntryHashingExecutor);
     }
 
-    public static ClasspathFingerprintingStrategy compileClasspath(ResourceHasher classpathResourceHasher, ResourceSnapshotterCacheService cacheService, StringInterner stringInterner) {
-        return new ClasspathFingerprintingStrategy("COMPILE_CLASSPATH", IGNORE, classpathResourceHasher, ResourceFilter.FILTER_NOTHING, cacheService, stringInterner);
+    public static ClasspathFingerprintingStrategy compileClasspath(ResourceHasher classpathResourceHasher, ResourceSnapshotterCacheService cacheService, StringInterner stringInterner, JarEntryHashingExecutor jarEntryHashingExecutor) {
+        return new ClasspathFingerprintingStrategy("COMPILE_CLASSPATH", IGNORE, classpathResourceHasher, ResourceFilter.FILTER_NOTHING, cacheService, stringInterner, false, jarEntryHashingExecutor);
     }
 
     @Override
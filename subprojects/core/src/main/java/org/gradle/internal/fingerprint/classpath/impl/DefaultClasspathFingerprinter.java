@@ -18,6 +18,7 @@ package org.gradle.internal.fingerprint.classpath.impl;
 
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.JarEntryHashingExecutor;
 import org.gradle.api.internal.changedetection.state.ResourceFilter;
 import org.gradle.api.internal.changedetection.state.ResourceSnapshotterCacheService;
 import org.gradle.api.internal.changedetection.state.RuntimeClasspathResourceHasher;
@@ -35,14 +36,16 @@ public class DefaultClasspathFingerprinter extends AbstractFileCollectionFingerp
         ResourceSnapshotterCacheService cacheService,
         FileSystemSnapshotter fileSystemSnapshotter,
         ResourceFilter classpathResourceFilter,
-        StringInterner stringInterner
+        StringInterner stringInterner,
+        JarEntryHashingExecutor jarEntryHashingExecutor
     ) {
         super(stringInterner, fileSystemSnapshotter);
         this.fingerprintingStrategy = ClasspathFingerprintingStrategy.runtimeClasspath(
             classpathResourceFilter,
             new RuntimeClasspathResourceHasher(),
             cacheService,
-            stringInterner
+            stringInterner,
+            jarEntryHashingExecutor
         );
     }
 
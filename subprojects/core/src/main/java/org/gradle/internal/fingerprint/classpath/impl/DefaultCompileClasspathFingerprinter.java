@@ -20,6 +20,8 @@ import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.AbiExtractingClasspathResourceHasher;
 import org.gradle.api.internal.changedetection.state.CachingResourceHasher;
+import org.gradle.api.internal.changedetection.state.ClassAbiHashCache;
+import org.gradle.api.internal.changedetection.state.JarEntryHashingExecutor;
 import org.gradle.api.internal.changedetection.state.ResourceSnapshotterCacheService;
 import org.gradle.api.tasks.CompileClasspathNormalizer;
 import org.gradle.api.tasks.FileNormalizer;
@@ -31,12 +33,13 @@ import org.gradle.internal.snapshot.FileSystemSnapshotter;
 public class DefaultCompileClasspathFingerprinter extends AbstractFileCollectionFingerprinter implements CompileClasspathFingerprinter {
     private final ClasspathFingerprintingStrategy fingerprintingStrategy;
 
-    public DefaultCompileClasspathFingerprinter(ResourceSnapshotterCacheService cacheService, FileSystemSnapshotter fileSystemSnapshotter, StringInterner stringInterner) {
+    public DefaultCompileClasspathFingerprinter(ResourceSnapshotterCacheService cacheService, FileSystemSnapshotter fileSystemSnapshotter, StringInterner stringInterner, ClassAbiHashCache abiHashCache, JarEntryHashingExecutor jarEntryHashingExecutor) {
         super(stringInterner, fileSystemSnapshotter);
         this.fingerprintingStrategy = ClasspathFingerprintingStrategy.compileClasspath(
-            new CachingResourceHasher(new AbiExtractingClasspathResourceHasher(), cacheService),
+            new CachingResourceHasher(new AbiExtractingClasspathResourceHasher(abiHashCache), cacheService),
             cacheService,
-            stringInterner
+            stringInterner,
+            jarEntryHashingExecutor
         );
     }
 
@@ -78,6 +78,7 @@ import org.gradle.cache.CacheRepository;
 import org.gradle.cache.FileLockManager;
 import org.gradle.caching.internal.BuildCacheServices;
 import org.gradle.configuration.BuildConfigurer;
+import org.gradle.configuration.BuildScriptPrecompiler;
 import org.gradle.configuration.DefaultBuildConfigurer;
 import org.gradle.configuration.DefaultInitScriptProcessor;
 import org.gradle.configuration.DefaultScriptPluginFactory;
@@ -91,8 +92,11 @@ import org.gradle.configuration.project.DelayedConfigurationActions;
 import org.gradle.configuration.project.LifecycleProjectEvaluator;
 import org.gradle.configuration.project.PluginsProjectConfigureActions;
 import org.gradle.configuration.project.ProjectEvaluator;
+import org.gradle.execution.CrossProjectAccessDetector;
+import org.gradle.execution.ParallelProjectConfigurer;
 import org.gradle.execution.ProjectConfigurer;
 import org.gradle.execution.TaskPathProjectEvaluator;
+import org.gradle.execution.taskgraph.ConfiguredTaskGraphCache;
 import org.gradle.groovy.scripts.DefaultScriptCompilerFactory;
 import org.gradle.groovy.scripts.ScriptCompilerFactory;
 import org.gradle.groovy.scripts.ScriptExecutionListener;
@@ -385,12 +389,28 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         );
     }
 
-    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken) {
-        return new TaskPathProjectEvaluator(cancellationToken);
+    protected CrossProjectAccessDetector createCrossProjectAccessDetector() {
+        return new CrossProjectAccessDetector();
     }
 
-    protected BuildConfigurer createBuildConfigurer(ProjectConfigurer projectConfigurer, BuildStateRegistry buildStateRegistry) {
-        return new DefaultBuildConfigurer(projectConfigurer, buildStateRegistry);
+    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken, StartParameter startParameter, BuildOperationExecutor buildOperationExecutor, CrossProjectAccessDetector crossProjectAccessDetector) {
+        ProjectConfigurer projectConfigurer = new TaskPathProjectEvaluator(cancellationToken);
+        if (ParallelProjectConfigurer.isEnabled(startParameter.isParallelProjectExecutionEnabled())) {
+            return new ParallelProjectConfigurer(projectConfigurer, buildOperationExecutor, crossProjectAccessDetector);
+        }
+        return projectConfigurer;
+    }
+
+    protected BuildScriptPrecompiler createBuildScriptPrecompiler(ScriptCompilerFactory scriptCompilerFactory, DocumentationRegistry documentationRegistry, BuildOperationExecutor buildOperationExecutor) {
+        return new BuildScriptPrecompiler(scriptCompilerFactory, documentationRegistry, buildOperationExecutor);
+    }
+
+    protected ConfiguredTaskGraphCache createConfiguredTaskGraphCache(CacheRepository cacheRepository, FileHasher fileHasher, ClassLoaderHierarchyHasher classLoaderHierarchyHasher, ListenerManager listenerManager, CrossProjectAccessDetector crossProjectAccessDetector) {
+        return new ConfiguredTaskGraphCache(cacheRepository, fileHasher, classLoaderHierarchyHasher, listenerManager, crossProjectAccessDetector);
+    }
+
+    protected BuildConfigurer createBuildConfigurer(ProjectConfigurer projectConfigurer, BuildStateRegistry buildStateRegistry, BuildScriptPrecompiler buildScriptPrecompiler, ConfiguredTaskGraphCache taskGraphCache) {
+        return new DefaultBuildConfigurer(projectConfigurer, buildStateRegistry, buildScriptPrecompiler, taskGraphCache);
     }
 
     protected ProjectAccessListener createProjectAccessListener() {
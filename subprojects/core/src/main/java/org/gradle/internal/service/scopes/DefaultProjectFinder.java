@@ -16,6 +16,8 @@
 
 package org.gradle.internal.service.scopes;
 
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.UnknownProjectException;
 import org.gradle.api.artifacts.component.BuildIdentifier;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
@@ -25,6 +27,8 @@ import org.gradle.internal.build.BuildStateRegistry;
 import javax.annotation.Nullable;
 import java.util.function.Supplier;
 
+import static com.google.common.base.Strings.isNullOrEmpty;
+
 public class DefaultProjectFinder implements ProjectFinder {
     private final BuildStateRegistry buildStateRegistry;
     private final Supplier<ProjectInternal> baseProjectSupplier;
@@ -35,12 +39,16 @@ public class DefaultProjectFinder implements ProjectFinder {
     }
 
     public ProjectInternal getProject(String path) {
-        return baseProjectSupplier.get().project(path);
+        ProjectInternal project = findProject(path);
+        if (project == null) {
+            throw new UnknownProjectException(String.format("Project with path '%s' could not be found in %s.", path, baseProjectSupplier.get()));
+        }
+        return project;
     }
 
     @Override
     public ProjectInternal findProject(String path) {
-        return baseProjectSupplier.get().findProject(path);
+        return findProject(baseProjectSupplier.get(), path);
     }
 
     @Nullable
@@ -50,6 +58,15 @@ public class DefaultProjectFinder implements ProjectFinder {
             return findProject(path);
         }
         GradleInternal gradle = buildStateRegistry.getIncludedBuild(build).getConfiguredBuild();
-        return gradle.getRootProject().findProject(path);
+        return findProject(gradle.getRootProject(), path);
+    }
+
+    private static ProjectInternal findProject(ProjectInternal baseProject, String path) {
+        if (isNullOrEmpty(path)) {
+            throw new InvalidUserDataException("A path must be specified!");
+        }
+        // Project dependencies only need the identity of the project, so look it up in the registry rather than navigating to it,
+        // which would count as access to the model of the project by the build logic
+        return baseProject.getProjectRegistry().getProject(baseProject.absoluteProjectPath(path));
     }
 }
@@ -29,6 +29,7 @@ import org.gradle.api.internal.DynamicModulesClassPathProvider;
 import org.gradle.api.internal.InstantiatorFactory;
 import org.gradle.api.internal.StartParameterInternal;
 import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.JarEntryHashingExecutor;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.DefaultPluginModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
@@ -39,6 +40,7 @@ import org.gradle.api.internal.file.FileCollectionFactory;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.internal.file.TmpDirTemporaryFileProvider;
+import org.gradle.api.internal.file.archive.ZipEntryCompressionExecutor;
 import org.gradle.api.internal.file.collections.DefaultDirectoryFileTreeFactory;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.model.DefaultObjectFactory;
@@ -246,8 +248,10 @@ public class GlobalScopeServices extends BasicGlobalScopeServices {
         return new DefaultCrossBuildInMemoryCacheFactory(listenerManager);
     }
 
-    InMemoryCacheDecoratorFactory createInMemoryTaskArtifactCache(CrossBuildInMemoryCacheFactory cacheFactory) {
-        return new InMemoryCacheDecoratorFactory(environment.isLongLivingProcess(), cacheFactory);
+    InMemoryCacheDecoratorFactory createInMemoryTaskArtifactCache(CrossBuildInMemoryCacheFactory cacheFactory, ListenerManager listenerManager) {
+        InMemoryCacheDecoratorFactory cacheDecoratorFactory = new InMemoryCacheDecoratorFactory(environment.isLongLivingProcess(), cacheFactory);
+        listenerManager.addListener(cacheDecoratorFactory);
+        return cacheDecoratorFactory;
     }
 
     DirectoryFileTreeFactory createDirectoryFileTreeFactory(Factory<PatternSet> patternSetFactory, FileSystem fileSystem) {
@@ -369,6 +373,14 @@ public class GlobalScopeServices extends BasicGlobalScopeServices {
         return new DefaultTaskClassInfoStore(cacheFactory);
     }
 
+    JarEntryHashingExecutor createJarEntryHashingExecutor(ExecutorFactory executorFactory, ParallelismConfigurationManager parallelismConfigurationManager) {
+        return new JarEntryHashingExecutor(executorFactory, parallelismConfigurationManager);
+    }
+
+    ZipEntryCompressionExecutor createZipEntryCompressionExecutor(ExecutorFactory executorFactory, ParallelismConfigurationManager parallelismConfigurationManager) {
+        return new ZipEntryCompressionExecutor(executorFactory, parallelismConfigurationManager);
+    }
+
     StreamHasher createStreamHasher() {
         return new DefaultStreamHasher();
     }
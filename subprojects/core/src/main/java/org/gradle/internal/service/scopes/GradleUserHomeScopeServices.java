@@ -17,16 +17,23 @@
 package org.gradle.internal.service.scopes;
 
 import org.apache.tools.ant.DirectoryScanner;
+import org.gradle.api.internal.AsmBackedClassGenerator;
+import org.gradle.api.internal.ClassGenerator;
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.DefaultClassPathProvider;
 import org.gradle.api.internal.DefaultClassPathRegistry;
+import org.gradle.api.internal.DefaultInstantiatorFactory;
+import org.gradle.api.internal.InstantiatorFactory;
+import org.gradle.api.internal.PersistentGeneratedClassStore;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.CachingFileHasher;
+import org.gradle.api.internal.changedetection.state.ClassAbiHashCache;
 import org.gradle.api.internal.changedetection.state.CrossBuildFileHashCache;
 import org.gradle.api.internal.changedetection.state.DefaultFileAccessTimeJournal;
 import org.gradle.api.internal.changedetection.state.DefaultResourceSnapshotterCacheService;
 import org.gradle.api.internal.changedetection.state.DefaultWellKnownFileLocations;
 import org.gradle.api.internal.changedetection.state.GlobalScopeFileTimeStampInspector;
+import org.gradle.api.internal.changedetection.state.JarEntryHashingExecutor;
 import org.gradle.api.internal.changedetection.state.ResourceFilter;
 import org.gradle.api.internal.changedetection.state.ResourceSnapshotterCacheService;
 import org.gradle.api.internal.classpath.ModuleRegistry;
@@ -148,6 +155,19 @@ public class GradleUserHomeScopeServices {
         return new CrossBuildInMemoryCachingScriptClassCache(hasher, cacheFactory);
     }
 
+    PersistentGeneratedClassStore createGeneratedClassStore(CacheRepository cacheRepository, ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+        return new PersistentGeneratedClassStore(cacheRepository, classLoaderHierarchyHasher);
+    }
+
+    ClassGenerator createClassGenerator(PersistentGeneratedClassStore generatedClassStore) {
+        // Shares the classes already generated in this process with the global generator, and adds those stored in this user home
+        return new AsmBackedClassGenerator(generatedClassStore);
+    }
+
+    InstantiatorFactory createInstantiatorFactory(ClassGenerator classGenerator, CrossBuildInMemoryCacheFactory cacheFactory) {
+        return new DefaultInstantiatorFactory(classGenerator, cacheFactory);
+    }
+
     ValueSnapshotter createValueSnapshotter(ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
         return new DefaultValueSnapshotter(classLoaderHierarchyHasher, NamedObjectInstantiator.INSTANCE);
     }
@@ -198,8 +218,16 @@ public class GradleUserHomeScopeServices {
         return new DefaultResourceSnapshotterCacheService(resourceHashesCache);
     }
 
-    ClasspathFingerprinter createClasspathFingerprinter(ResourceSnapshotterCacheService resourceSnapshotterCacheService, FileSystemSnapshotter fileSystemSnapshotter, StringInterner stringInterner) {
-        return new DefaultClasspathFingerprinter(resourceSnapshotterCacheService, fileSystemSnapshotter, ResourceFilter.FILTER_NOTHING, stringInterner);
+    ClassAbiHashCache createClassAbiHashCache(CrossBuildFileHashCache store) {
+        PersistentIndexedCache<HashCode, HashCode> classAbiHashesCache = store.createCache(
+            PersistentIndexedCacheParameters.of("classAbiHashesCache", HashCode.class, new HashCodeSerializer()),
+            400000,
+            true);
+        return new ClassAbiHashCache(classAbiHashesCache);
+    }
+
+    ClasspathFingerprinter createClasspathFingerprinter(ResourceSnapshotterCacheService resourceSnapshotterCacheService, FileSystemSnapshotter fileSystemSnapshotter, StringInterner stringInterner, JarEntryHashingExecutor jarEntryHashingExecutor) {
+        return new DefaultClasspathFingerprinter(resourceSnapshotterCacheService, fileSystemSnapshotter, ResourceFilter.FILTER_NOTHING, stringInterner, jarEntryHashingExecutor);
     }
 
     ClasspathHasher createClasspathHasher(ClasspathFingerprinter fingerprinter) {
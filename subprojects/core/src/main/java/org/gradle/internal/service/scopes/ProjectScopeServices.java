@@ -54,6 +54,7 @@ import org.gradle.api.internal.plugins.RuleBasedPluginTarget;
 import org.gradle.api.internal.project.CrossProjectConfigurator;
 import org.gradle.api.internal.project.DefaultAntBuilderFactory;
 import org.gradle.api.internal.project.DeferredProjectConfiguration;
+import org.gradle.api.internal.project.ProjectIdentifier;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.ProjectStateRegistry;
 import org.gradle.api.internal.project.ant.DefaultAntLoggingAdapterFactory;
@@ -124,10 +125,13 @@ public class ProjectScopeServices extends DefaultServiceRegistry {
 
     protected PluginRegistry createPluginRegistry(PluginRegistry rootRegistry) {
         PluginRegistry parentRegistry;
-        if (project.getParent() == null) {
+        ProjectIdentifier parentIdentifier = project.getParentIdentifier();
+        if (parentIdentifier == null) {
             parentRegistry = rootRegistry.createChild(project.getBaseClassLoaderScope());
         } else {
-            parentRegistry = project.getParent().getServices().get(PluginRegistry.class);
+            // Look up the parent without navigating to it, as this does not count as access to the parent by the build logic of the project
+            ProjectInternal parent = project.getProjectRegistry().getProject(parentIdentifier.getPath());
+            parentRegistry = parent.getServices().get(PluginRegistry.class);
         }
         return parentRegistry.createChild(project.getClassLoaderScope());
     }
@@ -27,18 +27,27 @@ import org.gradle.api.ProjectEvaluationListener;
 import org.gradle.api.UnknownDomainObjectException;
 import org.gradle.api.initialization.IncludedBuild;
 import org.gradle.api.initialization.Settings;
+import org.gradle.api.internal.DynamicObjectAware;
+import org.gradle.api.internal.ExtensibleDynamicObject;
 import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.HasConvention;
 import org.gradle.api.internal.MutationGuards;
 import org.gradle.api.internal.SettingsInternal;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.initialization.ClassLoaderScope;
 import org.gradle.api.internal.initialization.ScriptHandlerFactory;
+import org.gradle.api.internal.plugins.DefaultConvention;
+import org.gradle.api.internal.plugins.DefaultExtraPropertiesExtension;
 import org.gradle.api.internal.plugins.DefaultObjectConfigurationAction;
 import org.gradle.api.internal.plugins.PluginManagerInternal;
 import org.gradle.api.internal.project.AbstractPluginAware;
 import org.gradle.api.internal.project.CrossProjectConfigurator;
+import org.gradle.api.internal.project.CrossProjectModelAccess;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.invocation.Gradle;
+import org.gradle.api.plugins.Convention;
+import org.gradle.api.plugins.ExtensionAware;
+import org.gradle.api.plugins.ExtensionContainer;
 import org.gradle.configuration.ScriptPluginFactory;
 import org.gradle.configuration.internal.ListenerBuildOperationDecorator;
 import org.gradle.execution.taskgraph.TaskExecutionGraphInternal;
@@ -52,6 +61,9 @@ import org.gradle.internal.event.ListenerBroadcast;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.installation.CurrentGradleInstallation;
 import org.gradle.internal.installation.GradleInstallation;
+import org.gradle.internal.metaobject.BeanDynamicObject;
+import org.gradle.internal.metaobject.DynamicObject;
+import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.resource.TextResourceLoader;
 import org.gradle.internal.scan.config.BuildScanConfigInit;
 import org.gradle.internal.service.ServiceRegistry;
@@ -64,8 +76,9 @@ import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
 import java.util.Collection;
+import java.util.Map;
 
-public class DefaultGradle extends AbstractPluginAware implements GradleInternal {
+public class DefaultGradle extends AbstractPluginAware implements GradleInternal, DynamicObjectAware, ExtensionAware, HasConvention {
     private SettingsInternal settings;
     private ProjectInternal rootProject;
     private ProjectInternal defaultProject;
@@ -81,6 +94,8 @@ public class DefaultGradle extends AbstractPluginAware implements GradleInternal
     private Path identityPath;
     private final ClassLoaderScope classLoaderScope;
     private BuildType buildType = BuildType.NONE;
+    private final ExtensibleDynamicObject extensibleDynamicObject;
+    private CrossProjectModelAccess crossProjectModelAccess;
 
     public DefaultGradle(GradleInternal parent, StartParameter startParameter, ServiceRegistryFactory parentRegistry) {
         this.parent = parent;
@@ -88,6 +103,9 @@ public class DefaultGradle extends AbstractPluginAware implements GradleInternal
         this.services = parentRegistry.createFor(this);
         this.crossProjectConfigurator = services.get(CrossProjectConfigurator.class);
         classLoaderScope = services.get(ClassLoaderScopeRegistry.class).getCoreAndPluginsScope();
+        // The extra properties of the build are shared by all projects, so build logic using them is reported as cross project access
+        extensibleDynamicObject = new ExtensibleDynamicObject(this, new BeanDynamicObject(this, Gradle.class),
+            new DefaultConvention(services.get(Instantiator.class), new SharedExtraPropertiesExtension()));
         buildListenerBroadcast = getListenerManager().createAnonymousBroadcaster(BuildListener.class);
         projectEvaluationListenerBroadcast = getListenerManager().createAnonymousBroadcaster(ProjectEvaluationListener.class);
 
@@ -431,6 +449,21 @@ public class DefaultGradle extends AbstractPluginAware implements GradleInternal
         return services;
     }
 
+    @Override
+    public DynamicObject getAsDynamicObject() {
+        return extensibleDynamicObject;
+    }
+
+    @Override
+    public Convention getConvention() {
+        return extensibleDynamicObject.getConvention();
+    }
+
+    @Override
+    public ExtensionContainer getExtensions() {
+        return getConvention();
+    }
+
     @Inject
     public ServiceRegistryFactory getServiceRegistryFactory() {
         throw new UnsupportedOperationException();
@@ -500,4 +533,41 @@ public class DefaultGradle extends AbstractPluginAware implements GradleInternal
     public void setBuildType(BuildType buildType) {
         this.buildType = buildType;
     }
+
+    /**
+     * The extra properties of the build, which the build logic of every project can read and change.
+     */
+    private class SharedExtraPropertiesExtension extends DefaultExtraPropertiesExtension {
+        @Override
+        public boolean has(String name) {
+            beforeAccess();
+            return super.has(name);
+        }
+
+        @Nullable
+        @Override
+        public Object find(String name) {
+            beforeAccess();
+            return super.find(name);
+        }
+
+        @Override
+        public void set(String name, @Nullable Object value) {
+            beforeAccess();
+            super.set(name, value);
+        }
+
+        @Override
+        public Map<String, Object> getProperties() {
+            beforeAccess();
+            return super.getProperties();
+        }
+
+        private void beforeAccess() {
+            if (crossProjectModelAccess == null) {
+                crossProjectModelAccess = services.get(CrossProjectModelAccess.class);
+            }
+            crossProjectModelAccess.beforeSharedStateAccess("the extra properties of the build");
+        }
+    }
 }
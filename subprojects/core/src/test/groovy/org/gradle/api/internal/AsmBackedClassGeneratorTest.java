@@ -54,6 +54,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.gradle.api.internal.AbstractClassGeneratorTestGroovy.BeanWithGroovyBoolean;
 import static org.gradle.api.reflect.TypeOf.typeOf;
@@ -138,6 +142,30 @@ public class AsmBackedClassGeneratorTest {
         assertSame(generator.generate(Bean.class), generator.generate(Bean.class));
     }
 
+    @Test
+    public void generatesSubclassOnceWhenRequestedConcurrently() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(8);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Class<?>>> results = new ArrayList<Future<Class<?>>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<Class<?>>() {
+                    @Override
+                    public Class<?> call() throws Exception {
+                        barrier.await();
+                        return generator.generate(BeanWithConstructor.class);
+                    }
+                }));
+            }
+            Class<?> generatedClass = results.get(0).get();
+            for (Future<Class<?>> result : results) {
+                assertSame(generatedClass, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void doesNotDecorateAlreadyDecoratedClass() {
         Class<? extends Bean> generatedClass = generator.generate(Bean.class);
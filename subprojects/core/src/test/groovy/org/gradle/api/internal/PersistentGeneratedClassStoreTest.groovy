@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal
+
+import org.gradle.cache.internal.DefaultCacheRepository
+import org.gradle.cache.internal.DefaultCacheScopeMapping
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher
+import org.gradle.internal.hash.HashCode
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.testfixtures.internal.InMemoryCacheFactory
+import org.gradle.util.GradleVersion
+import org.junit.Rule
+import spock.lang.Specification
+
+class PersistentGeneratedClassStoreTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheRepository = new DefaultCacheRepository(new DefaultCacheScopeMapping(tmpDir.file("user-home"), tmpDir.file("build-dir"), GradleVersion.current()), new InMemoryCacheFactory())
+    def hasher = Stub(ClassLoaderHierarchyHasher)
+    def store = new PersistentGeneratedClassStore(cacheRepository, hasher)
+
+    def cleanup() {
+        store.close()
+    }
+
+    def "stores generated classes by class loader hash"() {
+        def loader1 = new IsolatingClassLoader()
+        def loader2 = new IsolatingClassLoader()
+        hasher.getClassLoaderHash(loader1) >> HashCode.fromInt(1)
+        hasher.getClassLoaderHash(loader2) >> HashCode.fromInt(2)
+        def type1 = loader1.loadClass(AsmBackedClassGeneratorTest.Bean.name)
+        def type2 = loader2.loadClass(AsmBackedClassGeneratorTest.Bean.name)
+
+        when:
+        store.put(type1, [1, 2, 3] as byte[])
+
+        then:
+        store.get(type1) == [1, 2, 3] as byte[]
+        store.get(type2) == null
+    }
+
+    def "does not store classes defined by class loaders that cannot be hashed"() {
+        def loader = new IsolatingClassLoader()
+        hasher.getClassLoaderHash(loader) >> null
+        def type = loader.loadClass(AsmBackedClassGeneratorTest.Bean.name)
+
+        when:
+        store.put(type, [1, 2, 3] as byte[])
+
+        then:
+        store.get(type) == null
+    }
+
+    def "generator defines stored class instead of generating it again"() {
+        def loader1 = new IsolatingClassLoader()
+        def loader2 = new IsolatingClassLoader()
+        def stored = [:]
+        def generatedClassStore = Mock(GeneratedClassStore)
+        generatedClassStore.get(_) >> { Class<?> type -> stored[type.name] }
+        def generator = new AsmBackedClassGenerator(generatedClassStore)
+
+        when:
+        def generated1 = generator.generate(loader1.loadClass(AsmBackedClassGeneratorTest.Bean.name))
+
+        then:
+        1 * generatedClassStore.put(_, _) >> { Class<?> type, byte[] bytes -> stored[type.name] = bytes }
+
+        when:
+        def generated2 = generator.generate(loader2.loadClass(AsmBackedClassGeneratorTest.Bean.name))
+
+        then:
+        0 * generatedClassStore.put(_, _)
+        generated2 != generated1
+        generated2.name == generated1.name
+        generated2.classLoader == loader2
+        GeneratedSubclass.isAssignableFrom(generated2)
+        generated2.newInstance().doStuff("value") == "{value}"
+    }
+
+    def "generator discards stored class that cannot be defined and generates it again"() {
+        def loader = new IsolatingClassLoader()
+        def generatedClassStore = Mock(GeneratedClassStore)
+        def generator = new AsmBackedClassGenerator(generatedClassStore)
+        def type = loader.loadClass(AsmBackedClassGeneratorTest.Bean.name)
+
+        when:
+        def generated = generator.generate(type)
+
+        then:
+        1 * generatedClassStore.get(type) >> ([0xCA, 0xFE, 0xBA, 0xBE, 0, 0] as byte[])
+        1 * generatedClassStore.remove(type)
+        1 * generatedClassStore.put(type, _)
+        generated.classLoader == loader
+        generated.newInstance().doStuff("value") == "{value}"
+    }
+
+    def "removes stored class"() {
+        def loader = new IsolatingClassLoader()
+        hasher.getClassLoaderHash(loader) >> HashCode.fromInt(1)
+        def type = loader.loadClass(AsmBackedClassGeneratorTest.Bean.name)
+        store.put(type, [1, 2, 3] as byte[])
+
+        when:
+        store.remove(type)
+
+        then:
+        store.get(type) == null
+    }
+
+    /**
+     * Defines its own copy of the test bean class, so that each instance provides a different type with the same name.
+     */
+    private static class IsolatingClassLoader extends ClassLoader {
+        IsolatingClassLoader() {
+            super(PersistentGeneratedClassStoreTest.classLoader)
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            synchronized (getClassLoadingLock(name)) {
+                if (name == AsmBackedClassGeneratorTest.Bean.name) {
+                    def loaded = findLoadedClass(name)
+                    if (loaded == null) {
+                        def bytes = getParent().getResourceAsStream(name.replace('.', '/') + ".class").bytes
+                        loaded = defineClass(name, bytes, 0, bytes.length)
+                    }
+                    return loaded
+                }
+                return super.loadClass(name, resolve)
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.Transformer
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.internal.serialize.HashCodeSerializer
+import org.gradle.testfixtures.internal.InMemoryIndexedCache
+import spock.lang.Specification
+
+class ClassAbiHashCacheTest extends Specification {
+    def persistentCache = new InMemoryIndexedCache<HashCode, HashCode>(new HashCodeSerializer())
+    def cache = new ClassAbiHashCache(persistentCache)
+    def extractor = Mock(Transformer)
+    def buildOperationExecutor = new TestBuildOperationExecutor()
+    def classBytes = [1, 2, 3, 4] as byte[]
+
+    def "extracts the ABI of a class only once"() {
+        def abiHash = HashCode.fromInt(123)
+
+        when:
+        def first = cache.getAbiHash(classBytes, extractor)
+        def second = cache.getAbiHash(classBytes.clone(), extractor)
+
+        then:
+        1 * extractor.transform(classBytes) >> abiHash
+        0 * _
+        first == abiHash
+        second == abiHash
+    }
+
+    def "caches classes without an ABI"() {
+        when:
+        def first = cache.getAbiHash(classBytes, extractor)
+        def second = cache.getAbiHash(classBytes, extractor)
+
+        then:
+        1 * extractor.transform(classBytes) >> null
+        0 * _
+        first == null
+        second == null
+    }
+
+    def "classes are shared across cache instances backed by the same store"() {
+        given:
+        cache.getAbiHash(classBytes, { HashCode.fromInt(123) } as Transformer)
+
+        when:
+        def abiHash = new ClassAbiHashCache(persistentCache).getAbiHash(classBytes, extractor)
+
+        then:
+        0 * extractor._
+        abiHash == HashCode.fromInt(123)
+    }
+
+    def "reports hits, misses and skipped bytes since the previous report"() {
+        extractor.transform(_) >> HashCode.fromInt(123)
+
+        when:
+        cache.getAbiHash(classBytes, extractor)
+        cache.getAbiHash(classBytes, extractor)
+        cache.getAbiHash(classBytes, extractor)
+        cache.getAbiHash([5, 6] as byte[], extractor)
+        cache.reportStatistics(buildOperationExecutor)
+
+        then:
+        def result = buildOperationExecutor.log.mostRecentResult(ClassAbiHashCacheBuildOperationType)
+        result.hits == 2
+        result.misses == 2
+        result.hitRate == 0.5d
+        result.bytesSkipped == 8
+
+        when:
+        cache.getAbiHash(classBytes, extractor)
+        cache.reportStatistics(buildOperationExecutor)
+
+        then:
+        def next = buildOperationExecutor.log.mostRecentResult(ClassAbiHashCacheBuildOperationType)
+        next.hits == 1
+        next.misses == 0
+        next.hitRate == 1d
+        next.bytesSkipped == 4
+    }
+
+    def "does not report when the cache was not used"() {
+        when:
+        cache.reportStatistics(buildOperationExecutor)
+
+        then:
+        buildOperationExecutor.log.records.empty
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.initialization.DefaultParallelismConfigurationManager
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.DefaultParallelismConfiguration
+import org.gradle.internal.event.DefaultListenerManager
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+
+class JarEntryHashingExecutorTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+    def parallelismConfigurationManager = new DefaultParallelismConfigurationManager(new DefaultListenerManager())
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "follows the maximum number of workers"() {
+        given:
+        parallelismConfigurationManager.parallelismConfiguration = new DefaultParallelismConfiguration(false, 3)
+        def executor = new JarEntryHashingExecutor(executorFactory, parallelismConfigurationManager)
+
+        expect:
+        executor.parallelism == 3
+
+        when:
+        parallelismConfigurationManager.parallelismConfiguration = new DefaultParallelismConfiguration(false, 1)
+
+        then:
+        executor.parallelism == 1
+        executor.invokeAll(tasks()) == [0, 1, 2]
+
+        when:
+        parallelismConfigurationManager.parallelismConfiguration = new DefaultParallelismConfiguration(false, 8)
+
+        then:
+        executor.parallelism == 8
+        executor.invokeAll(tasks()) == [0, 1, 2]
+
+        when:
+        executor.stop()
+        parallelismConfigurationManager.parallelismConfiguration = new DefaultParallelismConfiguration(false, 2)
+
+        then:
+        executor.parallelism == 8
+    }
+
+    def "runs tasks on the calling thread when the pool is busy"() {
+        given:
+        def executor = new JarEntryHashingExecutor(executorFactory, 2)
+        def release = new CountDownLatch(1)
+        def blocked = new CountDownLatch(1)
+        executor.submit({ -> blocked.countDown(); release.await() } as Callable<Object>)
+        blocked.await()
+
+        when:
+        def results = executor.invokeAll((0..3).collect { i -> { -> Thread.currentThread() } as Callable<Thread> })
+
+        then:
+        results == [Thread.currentThread()] * 4
+
+        cleanup:
+        release.countDown()
+        executor.stop()
+    }
+
+    def "reports failure of a task"() {
+        given:
+        def executor = new JarEntryHashingExecutor(executorFactory, 4)
+        def failure = new IOException("broken")
+
+        when:
+        executor.invokeAll([{ -> 0 } as Callable<Integer>, { -> throw failure } as Callable<Integer>, { -> 2 } as Callable<Integer>])
+
+        then:
+        def e = thrown(IOException)
+        e.is(failure)
+
+        cleanup:
+        executor.stop()
+    }
+
+    private static List<Callable<Integer>> tasks() {
+        return (0..2).collect { i -> { -> i } as Callable<Integer> }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.Hashing
+import org.gradle.internal.snapshot.RegularFileSnapshot
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+@CleanupTestDirectory(fieldName = "tmpDir")
+class JarHasherTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def executor = new JarEntryHashingExecutor(new DefaultExecutorFactory(), 4)
+
+    def cleanup() {
+        executor.stop()
+    }
+
+    def "hashes large jars concurrently with the same result"() {
+        def jar = jar('large.jar', JarHasher.PARALLEL_ENTRY_THRESHOLD * 2)
+
+        expect:
+        hasher(false, null).hash(snapshot(jar)) == hasher(false, executor).hash(snapshot(jar))
+    }
+
+    def "concurrent hashing detects changes to entries"() {
+        def jar = jar('large.jar', JarHasher.PARALLEL_ENTRY_THRESHOLD * 2)
+        def original = hasher(false, executor).hash(snapshot(jar))
+
+        when:
+        tmpDir.file('large.jar-contents/dir1/file7.txt').text = 'changed'
+        tmpDir.file('large.jar-contents').zipTo(jar)
+
+        then:
+        hasher(false, executor).hash(snapshot(jar)) != original
+    }
+
+    def "ignored entries do not contribute to the hash"() {
+        def jar = jar('library.jar', 10)
+        def filter = Stub(ResourceFilter) {
+            shouldBeIgnored(_) >> { args -> args[0].create().last() == 'file3.txt' }
+        }
+        def original = new JarHasher(new RuntimeClasspathResourceHasher(), filter, false, null).hash(snapshot(jar))
+
+        when:
+        tmpDir.file('library.jar-contents/dir0/file3.txt').text = 'changed'
+        tmpDir.file('library.jar-contents').zipTo(jar)
+
+        then:
+        new JarHasher(new RuntimeClasspathResourceHasher(), filter, false, null).hash(snapshot(jar)) == original
+    }
+
+    def "can reuse stored CRCs instead of hashing entry contents"() {
+        def jar = jar('library.jar', 10)
+        def original = hasher(true, null).hash(snapshot(jar))
+
+        expect:
+        original != null
+        original != hasher(false, null).hash(snapshot(jar))
+
+        when:
+        tmpDir.file('library.jar-contents/dir0/file3.txt').text = 'changed'
+        tmpDir.file('library.jar-contents').zipTo(jar)
+
+        then:
+        hasher(true, null).hash(snapshot(jar)) != original
+    }
+
+    def "reusing stored CRCs is part of the configuration"() {
+        expect:
+        configurationHash(hasher(true, null)) != configurationHash(hasher(false, null))
+        configurationHash(hasher(false, null)) == configurationHash(hasher(false, executor))
+    }
+
+    def "falls back to the full file hash for malformed jars"() {
+        def jar = tmpDir.file('malformed.jar')
+        jar.text = 'not a jar'
+        def snapshot = snapshot(jar)
+
+        expect:
+        hasher(false, executor).hash(snapshot) == snapshot.hash
+    }
+
+    private JarHasher hasher(boolean reuseStoredCrcs, JarEntryHashingExecutor executor) {
+        new JarHasher(new RuntimeClasspathResourceHasher(), ResourceFilter.FILTER_NOTHING, reuseStoredCrcs, executor)
+    }
+
+    private TestFile jar(String name, int entries) {
+        def contents = tmpDir.file("${name}-contents")
+        entries.times { i ->
+            contents.file("dir${i % 7}/file${i}.txt").text = "content of entry ${i}"
+        }
+        def jar = tmpDir.file(name)
+        contents.zipTo(jar)
+        return jar
+    }
+
+    private static RegularFileSnapshot snapshot(TestFile file) {
+        new RegularFileSnapshot(file.absolutePath, file.name, TestFile.md5(file), file.lastModified())
+    }
+
+    private static HashCode configurationHash(JarHasher jarHasher) {
+        def hasher = Hashing.newHasher()
+        jarHasher.appendConfigurationToHasher(hasher)
+        hasher.hash()
+    }
+}
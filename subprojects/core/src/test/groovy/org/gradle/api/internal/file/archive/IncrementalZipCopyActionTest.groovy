@@ -0,0 +1,280 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive
+
+import org.apache.commons.compress.archivers.zip.ZipFile
+import org.apache.tools.zip.ZipOutputStream
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction
+import org.gradle.api.internal.file.copy.CopyActionProcessingStream
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.test.fixtures.archive.ZipTestFixture
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class IncrementalZipCopyActionTest extends Specification {
+
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    TestFile zipFile
+    TestFile indexFile
+    ZipEntryCompressionExecutor compressionExecutor
+
+    def setup() {
+        zipFile = tmpDir.file("test.zip")
+        indexFile = tmpDir.file("tmp/entries.bin")
+    }
+
+    def cleanup() {
+        compressionExecutor?.stop()
+    }
+
+    def "creates zip file"() {
+        when:
+        zip(zipFile, indexFile, dir("dir"), file("dir/file1", "first"), file("file2", "second"))
+
+        then:
+        def zipFixture = new ZipTestFixture(zipFile)
+        zipFixture.hasDescendants("dir/file1", "file2")
+        zipFixture.content("dir/file1") == "first"
+        zipFixture.content("file2") == "second"
+        zipFixture.assertFileMode("dir/", 2)
+        zipFixture.assertFileMode("dir/file1", 1)
+        indexFile.file
+    }
+
+    def "rebuilt archive contains changed entries"() {
+        given:
+        zip(zipFile, indexFile, dir("dir"), file("dir/file1", "first"), file("file2", "second"))
+
+        when:
+        zip(zipFile, indexFile, dir("dir"), file("dir/file1", "first changed"), file("file2", "second"), file("file3", "third"))
+
+        then:
+        def zipFixture = new ZipTestFixture(zipFile)
+        zipFixture.hasDescendants("dir/file1", "file2", "file3")
+        zipFixture.content("dir/file1") == "first changed"
+        zipFixture.content("file2") == "second"
+        zipFixture.content("file3") == "third"
+    }
+
+    def "rebuilt archive is the same as an archive created from scratch"() {
+        given:
+        def contents = (1..50).collect { "line $it of some content that compresses well" }.join("\n")
+        zip(zipFile, indexFile, dir("dir"), file("dir/file1", contents), file("file2", "second"))
+
+        when:
+        zip(zipFile, indexFile, dir("dir"), file("dir/file1", contents), file("file2", "second changed"))
+        def fromScratch = tmpDir.file("from-scratch.zip")
+        zip(fromScratch, tmpDir.file("other/entries.bin"), dir("dir"), file("dir/file1", contents), file("file2", "second changed"))
+
+        then:
+        zipFile.bytes == fromScratch.bytes
+        new ZipTestFixture(zipFile).content("dir/file1") == contents
+    }
+
+    def "compresses all entries again when archive was replaced"() {
+        given:
+        zip(zipFile, indexFile, file("file1", "first"), file("file2", "second"))
+        def other = tmpDir.file("other.zip")
+        zip(other, tmpDir.file("other/entries.bin"), file("file1", "other first"), file("file2", "other second"))
+        zipFile.bytes = other.bytes
+
+        when:
+        zip(zipFile, indexFile, file("file1", "first"), file("file2", "second"))
+
+        then:
+        def zipFixture = new ZipTestFixture(zipFile)
+        zipFixture.content("file1") == "first"
+        zipFixture.content("file2") == "second"
+    }
+
+    def "compresses all entries again when index cannot be read"() {
+        given:
+        zip(zipFile, indexFile, file("file1", "first"))
+        indexFile.text = "broken"
+
+        when:
+        zip(zipFile, indexFile, file("file1", "first"))
+
+        then:
+        new ZipTestFixture(zipFile).content("file1") == "first"
+    }
+
+    def "compresses only the entries that changed"() {
+        given:
+        compressionExecutor = Spy(ZipEntryCompressionExecutor, constructorArgs: [new DefaultExecutorFactory(), 1])
+        zip(zipFile, indexFile, dir("dir"), file("dir/file1", "first"), file("file2", "second"), file("file3", "third"))
+
+        when:
+        zip(zipFile, indexFile, dir("dir"), file("dir/file1", "first"), file("file2", "second changed"), file("file3", "third"))
+
+        then:
+        1 * compressionExecutor.submit(_)
+        def zipFixture = new ZipTestFixture(zipFile)
+        zipFixture.content("dir/file1") == "first"
+        zipFixture.content("file2") == "second changed"
+        zipFixture.content("file3") == "third"
+    }
+
+    def "reuses entries with duplicate paths in the order they occur"() {
+        given:
+        compressionExecutor = Spy(ZipEntryCompressionExecutor, constructorArgs: [new DefaultExecutorFactory(), 1])
+        zip(zipFile, indexFile, file("dup", "first"), file("dup", "second"), file("dup", "third"))
+
+        when:
+        zip(zipFile, indexFile, file("dup", "second"), file("dup", "second"), file("dup", "third"), file("dup", "fourth"))
+
+        then:
+        2 * compressionExecutor.submit(_)
+        contents(zipFile, "dup") == ["second", "second", "third", "fourth"]
+
+        when:
+        zip(zipFile, indexFile, file("dup", "fourth"), file("dup", "second"))
+
+        then:
+        1 * compressionExecutor.submit(_)
+        contents(zipFile, "dup") == ["fourth", "second"]
+    }
+
+    def "wraps failure to add element and keeps previous archive"() {
+        given:
+        zip(zipFile, indexFile, file("file1", "first"))
+        def previous = zipFile.bytes
+        Throwable failure = new RuntimeException("broken")
+        def brokenFile = brokenFile("dir/file1", failure)
+
+        when:
+        zip(zipFile, indexFile, brokenFile)
+
+        then:
+        def e = thrown(Exception)
+        e.message == String.format("Could not add $brokenFile to ZIP '%s'.", zipFile)
+        e.cause.is(failure)
+        zipFile.bytes == previous
+        !tmpDir.file("test.zip.tmp").exists()
+    }
+
+    def "archive compressed concurrently is the same as archive compressed sequentially"() {
+        given:
+        def files = [dir("dir")] + (1..200).collect { file("dir/file$it", "content of file $it\n" * it) }
+        def sequential = tmpDir.file("sequential.zip")
+        def concurrent = tmpDir.file("concurrent.zip")
+
+        when:
+        zip(sequential, null, files as FileCopyDetailsInternal[])
+        compressionExecutor = new ZipEntryCompressionExecutor(new DefaultExecutorFactory(), 4)
+        zip(concurrent, null, files as FileCopyDetailsInternal[])
+
+        then:
+        concurrent.bytes == sequential.bytes
+        def zipFixture = new ZipTestFixture(concurrent)
+        zipFixture.hasDescendantsInOrder((1..200).collect { "dir/file$it" } as String[])
+        zipFixture.content("dir/file200") == "content of file 200\n" * 200
+        !indexFile.exists()
+    }
+
+    def "reuses compressed entries when compressing concurrently"() {
+        given:
+        compressionExecutor = new ZipEntryCompressionExecutor(new DefaultExecutorFactory(), 4)
+        def contents = (1..50).collect { "line $it of some content that compresses well" }.join("\n")
+        zip(zipFile, indexFile, dir("dir"), file("dir/file1", contents), file("file2", "second"))
+
+        when:
+        zip(zipFile, indexFile, dir("dir"), file("dir/file1", contents), file("file2", "second changed"))
+        def fromScratch = tmpDir.file("from-scratch.zip")
+        zip(fromScratch, null, dir("dir"), file("dir/file1", contents), file("file2", "second changed"))
+
+        then:
+        zipFile.bytes == fromScratch.bytes
+    }
+
+    def "wraps failure to add element when compressing concurrently"() {
+        given:
+        compressionExecutor = new ZipEntryCompressionExecutor(new DefaultExecutorFactory(), 4)
+        Throwable failure = new RuntimeException("broken")
+        def brokenFile = brokenFile("dir/file3", failure)
+
+        when:
+        zip(zipFile, null, file("dir/file1", "first"), file("dir/file2", "second"), brokenFile)
+
+        then:
+        def e = thrown(Exception)
+        e.message == String.format("Could not add $brokenFile to ZIP '%s'.", zipFile)
+        e.cause.is(failure)
+        !zipFile.exists()
+    }
+
+    private void zip(TestFile zipFile, TestFile indexFile, final FileCopyDetailsInternal... files) {
+        def action = new IncrementalZipCopyAction(zipFile, indexFile, ZipOutputStream.DEFLATED, false, compressionExecutor, new DocumentationRegistry(), 'UTF-8', false)
+        action.execute(new CopyActionProcessingStream() {
+            void process(CopyActionProcessingStreamAction streamAction) {
+                for (FileCopyDetailsInternal f : files) {
+                    streamAction.processFile(f)
+                }
+            }
+        })
+    }
+
+    private static List<String> contents(File zipFile, String path) {
+        def zip = new ZipFile(zipFile)
+        try {
+            return zip.getEntries(path).collect { zip.getInputStream(it).text }
+        } finally {
+            zip.close()
+        }
+    }
+
+    private FileCopyDetailsInternal file(final String path, final String content) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> false
+        mock.getMode() >> 1
+        mock.copyTo(_ as OutputStream) >> { OutputStream out ->
+            out << content
+        }
+        mock
+    }
+
+    private FileCopyDetailsInternal dir(final String path) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> true
+        mock.getMode() >> 2
+        mock
+    }
+
+    private FileCopyDetailsInternal brokenFile(final String path, final Throwable failure) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> false
+        mock.getMode() >> 1
+        mock.copyTo(_ as OutputStream) >> { OutputStream out ->
+            failure.fillInStackTrace()
+            throw failure
+        }
+        mock
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file.archive
+
+import org.gradle.initialization.DefaultParallelismConfigurationManager
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.DefaultParallelismConfiguration
+import org.gradle.internal.event.DefaultListenerManager
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+
+class ZipEntryCompressionExecutorTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+    def parallelismConfigurationManager = new DefaultParallelismConfigurationManager(new DefaultListenerManager())
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "follows the maximum number of workers"() {
+        given:
+        parallelismConfigurationManager.parallelismConfiguration = new DefaultParallelismConfiguration(false, 4)
+        def executor = new ZipEntryCompressionExecutor(executorFactory, parallelismConfigurationManager)
+
+        expect:
+        executor.parallelism == 4
+        executor.submit(task()).get() != Thread.currentThread()
+
+        when:
+        parallelismConfigurationManager.parallelismConfiguration = new DefaultParallelismConfiguration(false, 1)
+
+        then:
+        executor.parallelism == 1
+        executor.submit(task()).get() == Thread.currentThread()
+
+        when:
+        executor.stop()
+        parallelismConfigurationManager.parallelismConfiguration = new DefaultParallelismConfiguration(false, 2)
+
+        then:
+        executor.parallelism == 1
+    }
+
+    def "reports failure of task run on the calling thread"() {
+        given:
+        def executor = new ZipEntryCompressionExecutor(executorFactory, 1)
+        def failure = new IOException("broken")
+
+        when:
+        def future = executor.submit({ throw failure } as Callable<Void>)
+
+        then:
+        future.done
+
+        when:
+        future.get()
+
+        then:
+        def e = thrown(ExecutionException)
+        e.cause.is(failure)
+    }
+
+    private static Callable<Thread> task() {
+        return { -> Thread.currentThread() } as Callable<Thread>
+    }
+}
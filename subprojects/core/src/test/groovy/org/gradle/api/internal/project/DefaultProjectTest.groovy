@@ -217,6 +217,7 @@ class DefaultProjectTest extends Specification {
 
         serviceRegistryMock.get((Type) ProjectStateRegistry) >> projectStateRegistryMock
         serviceRegistryMock.get(ProjectStateRegistry) >> projectStateRegistryMock
+        serviceRegistryMock.get(CrossProjectModelAccess) >> Stub(CrossProjectModelAccess)
         projectStateRegistryMock.stateFor(_) >> projectStateMock
         projectStateMock.withMutableState(_) >> { Runnable runnable -> runnable.run() }
 
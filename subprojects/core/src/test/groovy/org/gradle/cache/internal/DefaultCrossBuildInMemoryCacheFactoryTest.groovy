@@ -18,6 +18,7 @@ package org.gradle.cache.internal
 
 import org.gradle.api.Transformer
 import org.gradle.initialization.SessionLifecycleListener
+import org.gradle.internal.HeapPressureListener
 import org.gradle.internal.event.DefaultListenerManager
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 
@@ -147,6 +148,31 @@ class DefaultCrossBuildInMemoryCacheFactoryTest extends ConcurrentSpec {
         0 * transformer._
     }
 
+    def "retains strong references to values from the current session when heap is under pressure"() {
+        def transformer = Mock(Transformer)
+
+        given:
+        def cache = factory.newCache()
+
+        when:
+        cache.get("a", transformer)
+        cache.get("b", transformer)
+
+        then:
+        1 * transformer.transform("a") >> new Object()
+        1 * transformer.transform("b") >> new Object()
+        0 * transformer._
+
+        when:
+        listenerManager.getBroadcaster(HeapPressureListener).onHeapPressure()
+        System.gc()
+        cache.get("a", transformer)
+        cache.get("b", transformer)
+
+        then:
+        0 * transformer._
+    }
+
     def "creates a cache whose keys are classes"() {
         def a = new Object()
         def b = new Object()
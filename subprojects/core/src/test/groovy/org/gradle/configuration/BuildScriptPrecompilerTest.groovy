@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration
+
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.api.internal.initialization.ClassLoaderScope
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import org.gradle.groovy.scripts.ScriptCompiler
+import org.gradle.groovy.scripts.ScriptCompilerFactory
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.util.Path
+import spock.lang.Specification
+
+class BuildScriptPrecompilerTest extends Specification {
+    def scriptCompilerFactory = Mock(ScriptCompilerFactory)
+    def precompiler = new BuildScriptPrecompiler(scriptCompilerFactory, new DocumentationRegistry(), new TestBuildOperationExecutor())
+    def baseLoader = new URLClassLoader(new URL[0])
+    def rootLoader = new URLClassLoader(new URL[0])
+    def baseScope = scope(null, baseLoader)
+    def rootScope = scope(baseScope, rootLoader)
+
+    def "compiles both passes of Groovy build scripts against the closest locked scopes"() {
+        def a = project("a", "build.gradle", scope(rootScope, null))
+        def b = project("b", "b.gradle", scope(scope(rootScope, null, false), null))
+        def compilerA = Mock(ScriptCompiler)
+        def compilerB = Mock(ScriptCompiler)
+
+        when:
+        precompiler.precompile([a, b])
+
+        then:
+        1 * scriptCompilerFactory.createCompiler(a.buildScriptSource) >> compilerA
+        1 * compilerA.compile(_, { it.id == "cp_proj" }, baseLoader, _)
+        1 * compilerA.compile(_, { it.id == "proj" }, rootLoader, _)
+        1 * scriptCompilerFactory.createCompiler(b.buildScriptSource) >> compilerB
+        1 * compilerB.compile(_, { it.id == "cp_proj" }, baseLoader, _)
+        1 * compilerB.compile(_, { it.id == "proj" }, rootLoader, _)
+    }
+
+    def "ignores Kotlin build scripts and projects that are already configured"() {
+        def configured = project("a", "build.gradle", scope(rootScope, null))
+        configured.state.configured()
+        def kotlin = project("b", "build.gradle.kts", scope(rootScope, null))
+        def c = project("c", "build.gradle", scope(rootScope, null))
+
+        when:
+        precompiler.precompile([configured, kotlin, c])
+
+        then:
+        0 * scriptCompilerFactory._
+    }
+
+    def "ignores scripts that fail to compile"() {
+        def a = project("a", "build.gradle", scope(rootScope, null))
+        def b = project("b", "build.gradle", scope(rootScope, null))
+        def compiler = Mock(ScriptCompiler)
+
+        when:
+        precompiler.precompile([a, b])
+
+        then:
+        2 * scriptCompilerFactory.createCompiler(_) >> compiler
+        1 * compiler.compile(_, { it.id == "cp_proj" }, _, _) >> { throw new RuntimeException("broken") }
+        2 * compiler.compile(_, _, _, _)
+        noExceptionThrown()
+    }
+
+    ProjectInternal project(String name, String fileName, ClassLoaderScope projectScope) {
+        def scriptSource = Stub(ScriptSource)
+        scriptSource.fileName >> fileName
+        def project = Stub(ProjectInternal)
+        project.state >> new ProjectStateInternal()
+        project.buildScriptSource >> scriptSource
+        project.baseClassLoaderScope >> baseScope
+        project.classLoaderScope >> projectScope
+        project.identityPath >> Path.path(":" + name)
+        project.displayName >> "project ':" + name + "'"
+        return project
+    }
+
+    ClassLoaderScope scope(ClassLoaderScope parent, ClassLoader exportLoader, boolean locked = true) {
+        def scope = Stub(ClassLoaderScope)
+        scope.parent >> parent
+        scope.locked >> locked
+        scope.exportClassLoader >> exportLoader
+        return scope
+    }
+}
@@ -19,6 +19,8 @@ import org.gradle.StartParameter
 import org.gradle.api.internal.GradleInternal
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.execution.ProjectConfigurer
+import org.gradle.execution.taskgraph.ConfiguredTaskGraph
+import org.gradle.execution.taskgraph.ConfiguredTaskGraphCache
 import org.gradle.internal.build.BuildStateRegistry
 import spock.lang.Specification
 
@@ -28,7 +30,9 @@ class DefaultBuildConfigurerTest extends Specification {
     private rootProject = Mock(ProjectInternal)
     private projectConfigurer = Mock(ProjectConfigurer)
     private buildRegistry = Mock(BuildStateRegistry)
-    private configurer = new DefaultBuildConfigurer(projectConfigurer, buildRegistry)
+    private buildScriptPrecompiler = Mock(BuildScriptPrecompiler)
+    private taskGraphCache = Mock(ConfiguredTaskGraphCache)
+    private configurer = new DefaultBuildConfigurer(projectConfigurer, buildRegistry, buildScriptPrecompiler, taskGraphCache)
 
     def setup() {
         gradle.startParameter >> startParameter
@@ -39,6 +43,76 @@ class DefaultBuildConfigurerTest extends Specification {
         when:
         configurer.configure(gradle)
 
+        then:
+        1 * projectConfigurer.configureHierarchy(rootProject)
+        0 * buildScriptPrecompiler._
+    }
+
+    def "precompiles build scripts of subprojects once root project is configured for parallel mode"() {
+        def subprojects = [Mock(ProjectInternal)] as Set
+
+        given:
+        startParameter.isParallelProjectExecutionEnabled() >> true
+        rootProject.subprojects >> subprojects
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * projectConfigurer.configure(rootProject)
+
+        then:
+        1 * buildScriptPrecompiler.precompile(subprojects)
+
+        then:
+        1 * projectConfigurer.configureHierarchy(rootProject)
+    }
+
+    def "configures only the projects of the cached task graph"() {
+        def child = Mock(ProjectInternal)
+        def taskGraph = new ConfiguredTaskGraph([:], [":", ":child"], [[":child:build"]], [
+            ":child:build": new ConfiguredTaskGraph.CachedTask("Build", [])
+        ])
+
+        given:
+        taskGraphCache.beforeConfiguration(gradle) >> taskGraph
+        rootProject.findProject(":") >> rootProject
+        rootProject.findProject(":child") >> child
+        child.compareTo(rootProject) >> 1
+        rootProject.compareTo(child) >> -1
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * projectConfigurer.configure(rootProject)
+
+        then:
+        1 * projectConfigurer.configure(child)
+
+        then:
+        1 * taskGraphCache.checkConfiguredTasks(gradle) >> true
+        0 * projectConfigurer.configureHierarchy(_)
+    }
+
+    def "configures the remaining projects when the configured tasks do not match the cached task graph"() {
+        def taskGraph = new ConfiguredTaskGraph([:], [":"], [[":help"]], [
+            ":help": new ConfiguredTaskGraph.CachedTask("Help", [])
+        ])
+
+        given:
+        taskGraphCache.beforeConfiguration(gradle) >> taskGraph
+        rootProject.findProject(":") >> rootProject
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * projectConfigurer.configure(rootProject)
+
+        then:
+        1 * taskGraphCache.checkConfiguredTasks(gradle) >> false
+
         then:
         1 * projectConfigurer.configureHierarchy(rootProject)
     }
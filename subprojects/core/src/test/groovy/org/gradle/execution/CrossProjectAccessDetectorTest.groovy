@@ -0,0 +1,234 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.api.CircularReferenceException
+import org.gradle.api.internal.project.CrossProjectModelAccess
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+class CrossProjectAccessDetectorTest extends ConcurrentSpec {
+    def detector = new CrossProjectAccessDetector()
+    def root = Stub(ProjectInternal)
+    def a = Stub(ProjectInternal)
+    def b = Stub(ProjectInternal)
+    def c = Stub(ProjectInternal)
+
+    def "project that accesses another project waits for the other projects configured concurrently to complete"() {
+        when:
+        async {
+            start {
+                detector.configureConcurrently(a) {
+                    instant.aStarted
+                    thread.block()
+                    instant.aConfigured
+                }
+            }
+            start {
+                thread.blockUntil.aStarted
+                detector.configureConcurrently(b) {
+                    detector.beforeAccess(root)
+                    instant.bAccessedRoot
+                }
+            }
+        }
+
+        then:
+        instant.bAccessedRoot > instant.aConfigured
+        detector.crossProjectAccessDetected
+    }
+
+    def "projects configured concurrently continue one at a time after a project accesses another project"() {
+        when:
+        async {
+            start {
+                detector.configureConcurrently(a) {
+                    instant.aStarted
+                    thread.blockUntil.bStarted
+                    thread.block()
+                    detector.beforeAccess(root)
+                    instant.aAccessedRoot
+                    thread.block()
+                    instant.aConfigured
+                }
+            }
+            start {
+                thread.blockUntil.aStarted
+                detector.configureConcurrently(b) {
+                    instant.bStarted
+                    detector.beforeAccess(c)
+                    instant.bAccessedC
+                    thread.block()
+                    instant.bConfigured
+                }
+            }
+        }
+
+        then:
+        instant.aAccessedRoot > instant.bConfigured || instant.bAccessedC > instant.aConfigured
+    }
+
+    def "project started after cross project access is detected is configured alone"() {
+        when:
+        async {
+            start {
+                detector.configureConcurrently(a) {
+                    detector.beforeAccess(root)
+                    instant.aAccessedRoot
+                    thread.block()
+                    instant.aConfigured
+                }
+            }
+            start {
+                thread.blockUntil.aAccessedRoot
+                detector.configureConcurrently(b) {
+                    instant.bStarted
+                }
+            }
+        }
+
+        then:
+        instant.bStarted > instant.aConfigured
+    }
+
+    def "project that accesses shared state waits for the other projects configured concurrently to complete"() {
+        when:
+        async {
+            start {
+                detector.configureConcurrently(a) {
+                    instant.aStarted
+                    thread.block()
+                    instant.aConfigured
+                }
+            }
+            start {
+                thread.blockUntil.aStarted
+                detector.configureConcurrently(b) {
+                    detector.beforeSharedStateAccess("the extra properties of the build")
+                    instant.bAccessedSharedState
+                }
+            }
+        }
+
+        then:
+        instant.bAccessedSharedState > instant.aConfigured
+        detector.crossProjectAccessDetected
+    }
+
+    def "shared state access outside of concurrent configuration is ignored"() {
+        when:
+        detector.beforeSharedStateAccess("the extra properties of the build")
+
+        then:
+        !detector.crossProjectAccessDetected
+    }
+
+    def "tracks access only while configuring concurrently or observed"() {
+        def observer = Mock(CrossProjectModelAccess)
+        def trackedWhileConfiguring = false
+
+        expect:
+        !detector.accessTracked
+
+        when:
+        detector.configureConcurrently(a) {
+            trackedWhileConfiguring = detector.accessTracked
+        }
+
+        then:
+        trackedWhileConfiguring
+        !detector.accessTracked
+
+        when:
+        detector.addObserver(observer)
+
+        then:
+        detector.accessTracked
+
+        when:
+        detector.beforeSharedStateAccess("the extra properties of the build")
+
+        then:
+        1 * observer.beforeSharedStateAccess("the extra properties of the build")
+
+        when:
+        detector.removeObserver(observer)
+
+        then:
+        !detector.accessTracked
+    }
+
+    def "evaluation of a project configured by another thread waits for that project to be configured"() {
+        when:
+        async {
+            start {
+                detector.configureConcurrently(a) {
+                    instant.aStarted
+                    thread.blockUntil.bStarted
+                    detector.beforeAccess(root)
+                    thread.block()
+                    instant.aConfigured
+                }
+            }
+            start {
+                thread.blockUntil.aStarted
+                detector.configureConcurrently(b) {
+                    instant.bStarted
+                    detector.beforeEvaluationDependsOn(a)
+                    instant.bEvaluatedA
+                }
+            }
+        }
+
+        then:
+        instant.bEvaluatedA > instant.aConfigured
+    }
+
+    def "reports circular evaluation between projects configured by different threads"() {
+        def failures = [].asSynchronized()
+
+        when:
+        async {
+            start {
+                detector.configureConcurrently(a) {
+                    instant.aStarted
+                    thread.blockUntil.bStarted
+                    evaluationDependsOn(b, failures)
+                }
+            }
+            start {
+                thread.blockUntil.aStarted
+                detector.configureConcurrently(b) {
+                    instant.bStarted
+                    evaluationDependsOn(a, failures)
+                }
+            }
+        }
+
+        then:
+        failures.size() == 1
+        failures[0] instanceof CircularReferenceException
+    }
+
+    def evaluationDependsOn(ProjectInternal project, List<Throwable> failures) {
+        try {
+            detector.beforeEvaluationDependsOn(project)
+        } catch (CircularReferenceException e) {
+            failures << e
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import spock.lang.Specification
+
+class ParallelProjectConfigurerTest extends Specification {
+    def delegate = Mock(ProjectConfigurer)
+    def detector = new CrossProjectAccessDetector()
+    def configurer = new ParallelProjectConfigurer(delegate, new TestBuildOperationExecutor(), detector)
+    def root = project(null, 0)
+    def a = project(root, 1)
+    def b = project(root, 1)
+    def c = project(a, 2)
+
+    def setup() {
+        root.subprojects >> ([a, b, c] as Set)
+    }
+
+    def "configures root project before its subprojects and parents before their children"() {
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * delegate.configure(root)
+
+        then:
+        1 * delegate.configure(a)
+        1 * delegate.configure(b)
+
+        then:
+        1 * delegate.configure(c)
+
+        then:
+        // Configuring the projects again is a no-op
+        1 * delegate.configure(a)
+        1 * delegate.configure(b)
+        1 * delegate.configure(c)
+        0 * delegate._
+    }
+
+    def "configures remaining projects sequentially once a project accesses another project"() {
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * delegate.configure(root)
+        1 * delegate.configure(a) >> { detector.beforeAccess(b) }
+
+        then:
+        1 * delegate.configure(a)
+        1 * delegate.configure(b)
+        1 * delegate.configure(c)
+        0 * delegate._
+
+        and:
+        detector.crossProjectAccessDetected
+    }
+
+    def "access to itself is not considered cross project access"() {
+        when:
+        detector.configureConcurrently(c, { detector.beforeAccess(c) })
+
+        then:
+        !detector.crossProjectAccessDetected
+    }
+
+    def "access to ancestor is considered cross project access"() {
+        when:
+        detector.configureConcurrently(c, { detector.beforeAccess(root) })
+
+        then:
+        detector.crossProjectAccessDetected
+    }
+
+    def "access from projects that are not configured concurrently is not considered cross project access"() {
+        when:
+        detector.beforeAccess(b)
+        detector.beforeEvaluationDependsOn(c)
+
+        then:
+        !detector.crossProjectAccessDetected
+    }
+
+    def "access to sibling is considered cross project access"() {
+        when:
+        detector.configureConcurrently(a, { detector.beforeAccess(b) })
+
+        then:
+        detector.crossProjectAccessDetected
+    }
+
+    def "access to child is considered cross project access"() {
+        when:
+        detector.configureConcurrently(a, { detector.beforeAccess(c) })
+
+        then:
+        detector.crossProjectAccessDetected
+    }
+
+    def "rethrows failure and does not configure the remaining projects"() {
+        def failure = new RuntimeException("broken")
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+
+        and:
+        1 * delegate.configure(root)
+        1 * delegate.configure(a) >> { throw failure }
+        0 * delegate._
+    }
+
+    ProjectInternal project(ProjectInternal parent, int depth) {
+        def project = Stub(ProjectInternal)
+        project.parent >> parent
+        project.depth >> depth
+        return project
+    }
+}
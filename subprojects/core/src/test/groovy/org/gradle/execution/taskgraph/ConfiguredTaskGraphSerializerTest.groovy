@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.serialize.SerializerSpec
+
+class ConfiguredTaskGraphSerializerTest extends SerializerSpec {
+    def serializer = new ConfiguredTaskGraph.Serializer()
+
+    def "serializes task graph"() {
+        given:
+        def scriptHash = HashCode.fromInt(123)
+        def compile = new ConfiguredTaskGraph.CachedTask("org.gradle.Compile", [])
+        def test = new ConfiguredTaskGraph.CachedTask("org.gradle.Test", [":a:compile"])
+        def value = new ConfiguredTaskGraph(["/script.gradle": scriptHash], [":", ":a"], [[":a:test"], [":b:build", ":c:build"]], [":a:compile": compile, ":a:test": test])
+
+        when:
+        def result = serialize(value, serializer)
+
+        then:
+        result.scriptInputs == ["/script.gradle": scriptHash]
+        result.projects == [":", ":a"]
+        result.entryTasks == [[":a:test"], [":b:build", ":c:build"]]
+        result.tasks.keySet() as List == [":a:compile", ":a:test"]
+
+        def resultCompile = result.tasks[":a:compile"]
+        resultCompile.type == "org.gradle.Compile"
+        resultCompile.dependencies == []
+        resultCompile.hasSameStructureAs(compile)
+
+        def resultTest = result.tasks[":a:test"]
+        resultTest.type == "org.gradle.Test"
+        resultTest.dependencies == [":a:compile"]
+        resultTest.hasSameStructureAs(test)
+        !resultTest.hasSameStructureAs(compile)
+    }
+}
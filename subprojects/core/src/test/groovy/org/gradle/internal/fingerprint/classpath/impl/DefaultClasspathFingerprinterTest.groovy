@@ -18,9 +18,11 @@ package org.gradle.internal.fingerprint.classpath.impl
 
 import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.changedetection.state.DefaultResourceSnapshotterCacheService
+import org.gradle.api.internal.changedetection.state.JarEntryHashingExecutor
 import org.gradle.api.internal.changedetection.state.ResourceFilter
 import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.internal.file.collections.ImmutableFileCollection
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.fingerprint.FileSystemLocationFingerprint
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.hash.TestFileHasher
@@ -55,7 +57,8 @@ class DefaultClasspathFingerprinterTest extends Specification {
         cacheService,
         fileSystemSnapshotter,
         ResourceFilter.FILTER_NOTHING,
-        stringInterner)
+        stringInterner,
+        new JarEntryHashingExecutor(new DefaultExecutorFactory(), 1))
 
     def "directories and missing files are ignored"() {
         def emptyDir = file('root/emptyDir').createDir()
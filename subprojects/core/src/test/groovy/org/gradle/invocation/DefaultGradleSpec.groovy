@@ -27,6 +27,7 @@ import org.gradle.api.internal.file.FileResolver
 import org.gradle.api.internal.initialization.ClassLoaderScope
 import org.gradle.api.internal.project.BuildOperationCrossProjectConfigurator
 import org.gradle.api.internal.project.CrossProjectConfigurator
+import org.gradle.api.internal.project.CrossProjectModelAccess
 import org.gradle.api.internal.project.DefaultProject
 import org.gradle.api.internal.project.DefaultProjectRegistry
 import org.gradle.api.internal.project.ProjectInternal
@@ -65,6 +66,7 @@ class DefaultGradleSpec extends Specification {
     ListenerBuildOperationDecorator listenerBuildOperationDecorator = new TestListenerBuildOperationDecorator()
     CrossProjectConfigurator crossProjectConfigurator = new BuildOperationCrossProjectConfigurator(buildOperationExecutor)
     ProjectState projectState = Mock(ProjectState)
+    CrossProjectModelAccess crossProjectModelAccess = Mock(CrossProjectModelAccess)
 
     GradleInternal gradle
 
@@ -85,6 +87,7 @@ class DefaultGradleSpec extends Specification {
         _ * serviceRegistry.get(CrossProjectConfigurator) >> crossProjectConfigurator
         _ * serviceRegistry.get(BuildScanConfigInit) >> Mock(BuildScanConfigInit)
         _ * serviceRegistry.get(MutablePublicBuildPath) >> Mock(MutablePublicBuildPath)
+        _ * serviceRegistry.get(CrossProjectModelAccess) >> crossProjectModelAccess
 
         gradle = classGenerator.newInstance(DefaultGradle.class, null, parameter, serviceRegistryFactory)
     }
@@ -420,6 +423,39 @@ class DefaultGradleSpec extends Specification {
         child2.identityPath == Path.path(":child1:child2")
     }
 
+    def "has extra properties"() {
+        when:
+        gradle.ext.prop = "value"
+
+        then:
+        gradle.prop == "value"
+        gradle.extensions.extraProperties.get("prop") == "value"
+    }
+
+    def "notifies cross project model access when extra properties are used"() {
+        when:
+        gradle.ext.prop = "value"
+
+        then:
+        (1.._) * crossProjectModelAccess.beforeSharedStateAccess("the extra properties of the build")
+
+        when:
+        def value = gradle.prop
+
+        then:
+        value == "value"
+        (1.._) * crossProjectModelAccess.beforeSharedStateAccess("the extra properties of the build")
+    }
+
+    def "does not notify cross project model access when build properties are used"() {
+        when:
+        gradle.startParameter
+        gradle.gradleVersion
+
+        then:
+        0 * crossProjectModelAccess._
+    }
+
     def projectRegistry = new DefaultProjectRegistry()
 
     private SettingsInternal settings(String rootProjectName) {
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.java.compile.incremental
+
+import org.gradle.api.internal.tasks.compile.incremental.classpath.ClassAbiManifestStore
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.CompilationOutputsFixture
+
+class ClassAbiManifestIntegrationTest extends AbstractIntegrationSpec {
+
+    CompilationOutputsFixture impl
+
+    def setup() {
+        impl = new CompilationOutputsFixture(file("impl/build/classes"))
+
+        buildFile << """
+            subprojects {
+                apply plugin: 'java'
+            }
+            project(':api') {
+                configurations {
+                   classesDir
+                }
+                artifacts {
+                    classesDir file: compileJava.destinationDir, builtBy: compileJava
+                }
+            }
+            project(':impl') {
+                dependencies { compile project(path: ':api', configuration: 'classesDir') }
+            }
+        """
+        settingsFile << "include 'api', 'impl'"
+
+        file("api/src/main/java/A.java").text = 'class A { String foo() { return "a"; } }'
+        file("impl/src/main/java/ImplA.java").text = "class ImplA extends A {}"
+        file("impl/src/main/java/Other.java").text = "class Other {}"
+    }
+
+    def "does not recompile dependents of an upstream class when only its implementation changes"() {
+        executer.beforeExecute { withArgument("-D${ClassAbiManifestStore.ENABLED_PROPERTY}=true") }
+        impl.snapshot { run "compileJava" }
+
+        when:
+        file("api/src/main/java/A.java").text = 'class A { String foo() { return "b"; } }'
+        file("impl/src/main/java/Other.java").text = "class Other { int change; }"
+        run "impl:compileJava"
+
+        then:
+        impl.recompiledClasses("Other")
+    }
+
+    def "recompiles dependents of an upstream class whose implementation changes when no manifest is published"() {
+        impl.snapshot { run "compileJava" }
+
+        when:
+        file("api/src/main/java/A.java").text = 'class A { String foo() { return "b"; } }'
+        file("impl/src/main/java/Other.java").text = "class Other { int change; }"
+        run "impl:compileJava"
+
+        then:
+        impl.recompiledClasses("ImplA", "Other")
+        !file("api/build/classes/java/main.abi").exists()
+    }
+
+    def "manifest is an output of the compile task"() {
+        executer.beforeExecute { withArgument("-D${ClassAbiManifestStore.ENABLED_PROPERTY}=true") }
+        def manifest = file("api/build/classes/java/main.abi")
+        run "api:compileJava"
+
+        expect:
+        manifest.file
+
+        when:
+        manifest.delete()
+        run "api:compileJava"
+
+        then:
+        executedAndNotSkipped(":api:compileJava")
+        manifest.file
+    }
+}
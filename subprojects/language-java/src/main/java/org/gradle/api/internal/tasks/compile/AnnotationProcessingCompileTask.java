@@ -29,6 +29,7 @@ import org.gradle.internal.classloader.FilteringClassLoader;
 import org.gradle.internal.classpath.DefaultClassPath;
 import org.gradle.internal.concurrent.CompositeStoppable;
 
+import javax.annotation.Nullable;
 import javax.annotation.processing.Processor;
 import javax.tools.JavaCompiler;
 import java.io.File;
@@ -55,15 +56,22 @@ class AnnotationProcessingCompileTask implements JavaCompiler.CompilationTask {
     private final Set<AnnotationProcessorDeclaration> processorDeclarations;
     private final List<File> annotationProcessorPath;
     private final AnnotationProcessingResult result;
+    private final AnnotationProcessorClassLoaderCache classLoaderCache;
 
     private URLClassLoader processorClassloader;
+    private AnnotationProcessorClassLoaderCache.Key processorClassloaderKey;
     private boolean called;
 
     AnnotationProcessingCompileTask(JavaCompiler.CompilationTask delegate, Set<AnnotationProcessorDeclaration> processorDeclarations, List<File> annotationProcessorPath, AnnotationProcessingResult result) {
+        this(delegate, processorDeclarations, annotationProcessorPath, result, null);
+    }
+
+    AnnotationProcessingCompileTask(JavaCompiler.CompilationTask delegate, Set<AnnotationProcessorDeclaration> processorDeclarations, List<File> annotationProcessorPath, AnnotationProcessingResult result, @Nullable AnnotationProcessorClassLoaderCache classLoaderCache) {
         this.delegate = delegate;
         this.processorDeclarations = processorDeclarations;
         this.annotationProcessorPath = annotationProcessorPath;
         this.result = result;
+        this.classLoaderCache = classLoaderCache;
     }
 
     @Override
@@ -86,11 +94,13 @@ class AnnotationProcessingCompileTask implements JavaCompiler.CompilationTask {
             throw new IllegalStateException("Cannot reuse a compilation task");
         }
         called = true;
+        boolean success = false;
         try {
             setupProcessors();
-            return delegate.call();
+            success = delegate.call();
+            return success;
         } finally {
-            cleanupProcessors();
+            cleanupProcessors(success);
         }
     }
 
@@ -111,9 +121,19 @@ class AnnotationProcessingCompileTask implements JavaCompiler.CompilationTask {
     }
 
     private URLClassLoader createProcessorClassLoader() {
+        ClassLoader compilerClassLoader = delegate.getClass().getClassLoader();
+        if (classLoaderCache != null) {
+            processorClassloaderKey = AnnotationProcessorClassLoaderCache.keyFor(compilerClassLoader, annotationProcessorPath);
+            if (processorClassloaderKey != null) {
+                URLClassLoader classLoader = classLoaderCache.acquire(processorClassloaderKey);
+                if (classLoader != null) {
+                    return classLoader;
+                }
+            }
+        }
         return new URLClassLoader(
             DefaultClassPath.of(annotationProcessorPath).getAsURLArray(),
-            new FilteringClassLoader(delegate.getClass().getClassLoader(), getExtraAllowedPackages())
+            new FilteringClassLoader(compilerClassLoader, getExtraAllowedPackages())
         );
     }
 
@@ -163,7 +183,11 @@ class AnnotationProcessingCompileTask implements JavaCompiler.CompilationTask {
         return new TimeTrackingProcessor(processor, processorResult);
     }
 
-    private void cleanupProcessors() {
-        CompositeStoppable.stoppable(processorClassloader).stop();
+    private void cleanupProcessors(boolean success) {
+        if (success && processorClassloaderKey != null) {
+            classLoaderCache.release(processorClassloaderKey, processorClassloader);
+        } else {
+            CompositeStoppable.stoppable(processorClassloader).stop();
+        }
     }
 }
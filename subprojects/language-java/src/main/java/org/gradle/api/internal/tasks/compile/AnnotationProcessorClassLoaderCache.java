@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.util.List;
+
+/**
+ * Keeps annotation processor class loaders between compilations in a long-lived process, so that processor classes are not loaded and verified again by every compilation.
+ *
+ * <p>A class loader is only handed out again for the same parent class loader and a processor path made up of jars only, whose content is unchanged.
+ * The content of a jar is identified in the same way as for {@link JavaFileManagerPool}. Each compilation still creates its own processor instances.
+ * The idle class loaders are closed at the end of each build, together with the idle file managers.</p>
+ */
+class AnnotationProcessorClassLoaderCache extends IdleResourcePool<AnnotationProcessorClassLoaderCache.Key, URLClassLoader> {
+    private static final int MAX_IDLE_CLASS_LOADERS = 8;
+
+    static final AnnotationProcessorClassLoaderCache INSTANCE = new AnnotationProcessorClassLoaderCache(MAX_IDLE_CLASS_LOADERS);
+
+    AnnotationProcessorClassLoaderCache(int maxIdleClassLoaders) {
+        super(maxIdleClassLoaders);
+    }
+
+    /**
+     * Returns the key for the given processor path, or {@code null} when class loaders for it must not be reused.
+     */
+    @Nullable
+    static Key keyFor(ClassLoader parent, List<File> processorPath) {
+        ImmutableList.Builder<Object> jarStates = ImmutableList.builder();
+        for (File file : processorPath) {
+            if (file.isDirectory()) {
+                // Classes already loaded from a directory would not notice when it changes
+                return null;
+            }
+            try {
+                jarStates.add(file.getAbsolutePath(), JavaFileManagerPool.hashContent(file));
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return new Key(parent, jarStates.build());
+    }
+
+    static class Key {
+        private final ClassLoader parent;
+        private final List<Object> jarStates;
+
+        private Key(ClassLoader parent, List<Object> jarStates) {
+            this.parent = parent;
+            this.jarStates = jarStates;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return parent == key.parent
+                && jarStates.equals(key.jarStates);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(parent) + jarStates.hashCode();
+        }
+    }
+}
@@ -33,15 +33,17 @@ public class DefaultJavaCompilerFactory implements JavaCompilerFactory {
     private final PathToFileResolver fileResolver;
     private final ExecHandleFactory execHandleFactory;
     private final AnnotationProcessorDetector processorDetector;
+    private final RetainedCompilerResources retainedCompilerResources;
 
     public DefaultJavaCompilerFactory(WorkerDirectoryProvider workingDirProvider, WorkerDaemonFactory workerDaemonFactory, Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory,
-                                      PathToFileResolver fileResolver, ExecHandleFactory execHandleFactory, AnnotationProcessorDetector processorDetector) {
+                                      PathToFileResolver fileResolver, ExecHandleFactory execHandleFactory, AnnotationProcessorDetector processorDetector, RetainedCompilerResources retainedCompilerResources) {
         this.workingDirProvider = workingDirProvider;
         this.workerDaemonFactory = workerDaemonFactory;
         this.javaHomeBasedJavaCompilerFactory = javaHomeBasedJavaCompilerFactory;
         this.fileResolver = fileResolver;
         this.execHandleFactory = execHandleFactory;
         this.processorDetector = processorDetector;
+        this.retainedCompilerResources = retainedCompilerResources;
     }
 
     @Override
@@ -64,11 +66,14 @@ public class DefaultJavaCompilerFactory implements JavaCompilerFactory {
             return new CommandLineJavaCompiler(execHandleFactory);
         }
 
-        Compiler<JavaCompileSpec> compiler = new JdkJavaCompiler(javaHomeBasedJavaCompilerFactory);
         if (ForkingJavaCompileSpec.class.isAssignableFrom(type) && !jointCompilation) {
-            return new DaemonJavaCompiler(workingDirProvider.getWorkingDirectory(), compiler, workerDaemonFactory, fileResolver);
+            return new DaemonJavaCompiler(workingDirProvider.getWorkingDirectory(), new JdkJavaCompiler(javaHomeBasedJavaCompilerFactory), workerDaemonFactory, fileResolver);
+        }
+        if (jointCompilation) {
+            return new JdkJavaCompiler(javaHomeBasedJavaCompilerFactory);
         }
 
-        return compiler;
+        // Only retain resources in the build process, where they are released at the end of the build session
+        return new JdkJavaCompiler(javaHomeBasedJavaCompilerFactory, retainedCompilerResources.isRetainFileManagers(), retainedCompilerResources.isRetainProcessorClassLoaders());
     }
 }
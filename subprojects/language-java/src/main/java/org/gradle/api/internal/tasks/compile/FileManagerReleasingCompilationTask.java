@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import java.util.Locale;
+
+/**
+ * Returns the file manager to a {@link JavaFileManagerPool} after a successful compilation, and closes it otherwise.
+ */
+class FileManagerReleasingCompilationTask implements JavaCompiler.CompilationTask {
+    private final JavaCompiler.CompilationTask delegate;
+    private final JavaFileManagerPool pool;
+    private final JavaFileManagerPool.Key key;
+    private final StandardJavaFileManager fileManager;
+
+    FileManagerReleasingCompilationTask(JavaCompiler.CompilationTask delegate, JavaFileManagerPool pool, JavaFileManagerPool.Key key, StandardJavaFileManager fileManager) {
+        this.delegate = delegate;
+        this.pool = pool;
+        this.key = key;
+        this.fileManager = fileManager;
+    }
+
+    @Override
+    public void addModules(Iterable<String> moduleNames) {
+    }
+
+    @Override
+    public void setProcessors(Iterable<? extends Processor> processors) {
+        delegate.setProcessors(processors);
+    }
+
+    @Override
+    public void setLocale(Locale locale) {
+        delegate.setLocale(locale);
+    }
+
+    @Override
+    public Boolean call() {
+        boolean success = false;
+        try {
+            success = delegate.call();
+            return success;
+        } finally {
+            if (success) {
+                pool.release(key, fileManager);
+            } else {
+                JavaFileManagerPool.close(fileManager);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.collect.Lists;
+import org.gradle.internal.concurrent.CompositeStoppable;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a bounded number of idle resources between compilations in a long-lived process, keyed by everything that decides whether a resource can be used again.
+ *
+ * <p>A resource is taken out of the pool while a compilation uses it, so it is never used by two compilations at once. When more than the maximum number of
+ * resources are idle, the least recently used one is closed.</p>
+ */
+class IdleResourcePool<K, T extends Closeable> {
+    private final Map<K, T> idleResources;
+
+    IdleResourcePool(final int maxIdleResources) {
+        this.idleResources = new LinkedHashMap<K, T>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, T> eldest) {
+                if (size() > maxIdleResources) {
+                    close(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Takes an idle resource for the given key out of the pool.
+     *
+     * @return the resource, or {@code null} when there is no idle resource for the key.
+     */
+    @Nullable
+    synchronized T acquire(K key) {
+        return idleResources.remove(key);
+    }
+
+    /**
+     * Returns a resource to the pool after a successful compilation.
+     */
+    synchronized void release(K key, T resource) {
+        T replaced = idleResources.put(key, resource);
+        if (replaced != null && replaced != resource) {
+            close(replaced);
+        }
+    }
+
+    /**
+     * Closes all idle resources. Resources in use by a compilation are closed or returned to the pool when the compilation completes.
+     */
+    synchronized void closeIdle() {
+        List<T> resources = Lists.newArrayList(idleResources.values());
+        idleResources.clear();
+        CompositeStoppable.stoppable(resources).stop();
+    }
+
+    static void close(Closeable resource) {
+        CompositeStoppable.stoppable(resource).stop();
+    }
+}
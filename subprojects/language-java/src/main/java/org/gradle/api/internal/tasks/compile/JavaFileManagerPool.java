@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+
+import javax.annotation.Nullable;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Keeps javac file managers open between compilations in a long-lived process, so that the jars on a classpath are not re-opened and re-indexed by every compilation.
+ *
+ * <p>A file manager is only handed out again for a compilation with the same compiler, encoding and arguments, and only when the content of the jars on the
+ * classpath is unchanged. The content of a jar is identified by the names, sizes and CRCs of its entries, which are read from its central directory.
+ * A file manager is never used by two compilations at once. The idle file managers are closed by {@link #closeIdle()} at the end of each build, so that
+ * the jars they hold open can be deleted or replaced between builds.</p>
+ */
+class JavaFileManagerPool extends IdleResourcePool<JavaFileManagerPool.Key, StandardJavaFileManager> {
+    private static final int MAX_IDLE_FILE_MANAGERS = 8;
+
+    static final JavaFileManagerPool INSTANCE = new JavaFileManagerPool(MAX_IDLE_FILE_MANAGERS);
+
+    JavaFileManagerPool(int maxIdleFileManagers) {
+        super(maxIdleFileManagers);
+    }
+
+    /**
+     * Returns the key for a compilation, or {@code null} when the content of a jar on the classpath cannot be read, in which case a new file manager should be used.
+     */
+    @Nullable
+    static Key keyFor(JavaCompiler compiler, @Nullable Charset charset, List<String> options, @Nullable List<File> classpath) {
+        ImmutableList.Builder<Object> jarStates = ImmutableList.builder();
+        if (classpath != null) {
+            for (File file : classpath) {
+                // Directories are listed again by each compilation, so only the jars that the file manager keeps open need to be unchanged
+                if (file.isFile()) {
+                    try {
+                        jarStates.add(file.getAbsolutePath(), hashContent(file));
+                    } catch (IOException e) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return new Key(compiler.getClass(), charset == null ? null : charset.name(), ImmutableList.copyOf(options), jarStates.build());
+    }
+
+    /**
+     * Hashes the names, sizes and CRCs of the entries of a jar, or the full content of any other file.
+     */
+    static HashCode hashContent(File file) throws IOException {
+        Hasher hasher = Hashing.newHasher();
+        ZipFile zipFile;
+        try {
+            zipFile = new ZipFile(file);
+        } catch (ZipException e) {
+            // Not a jar, so javac reads it in full
+            hashBytes(file, hasher);
+            return hasher.hash();
+        }
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                hasher.putString(entry.getName());
+                hasher.putLong(entry.getSize());
+                hasher.putLong(entry.getCrc());
+            }
+        } finally {
+            zipFile.close();
+        }
+        return hasher.hash();
+    }
+
+    private static void hashBytes(File file, Hasher hasher) throws IOException {
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                hasher.putBytes(buffer, 0, read);
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    static class Key {
+        private final Class<?> compilerType;
+        private final String charset;
+        private final List<String> options;
+        private final List<Object> jarStates;
+
+        private Key(Class<?> compilerType, @Nullable String charset, List<String> options, List<Object> jarStates) {
+            this.compilerType = compilerType;
+            this.charset = charset;
+            this.options = options;
+            this.jarStates = jarStates;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return compilerType.equals(key.compilerType)
+                && (charset == null ? key.charset == null : charset.equals(key.charset))
+                && options.equals(key.options)
+                && jarStates.equals(key.jarStates);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = compilerType.hashCode();
+            result = 31 * result + (charset != null ? charset.hashCode() : 0);
+            result = 31 * result + options.hashCode();
+            result = 31 * result + jarStates.hashCode();
+            return result;
+        }
+    }
+}
@@ -34,11 +34,29 @@ import java.util.List;
 import java.util.Set;
 
 public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable {
+    /**
+     * When enabled, the compiler keeps its file managers open between compilations in the process that runs it, so jars on the classpath are only opened and indexed once.
+     */
+    public static final String RETAIN_FILE_MANAGERS_PROPERTY = "org.gradle.internal.java.compile.retain-file-managers";
+
+    /**
+     * When enabled, annotation processor class loaders are kept between compilations in the process that runs the compiler, so processor classes are only loaded once per processor path.
+     */
+    public static final String RETAIN_PROCESSOR_CLASS_LOADERS_PROPERTY = "org.gradle.internal.java.compile.retain-processor-class-loaders";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(JdkJavaCompiler.class);
     private final Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory;
+    private final boolean retainFileManagers;
+    private final boolean retainProcessorClassLoaders;
 
     public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory) {
+        this(javaHomeBasedJavaCompilerFactory, false, false);
+    }
+
+    public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory, boolean retainFileManagers, boolean retainProcessorClassLoaders) {
         this.javaHomeBasedJavaCompilerFactory = javaHomeBasedJavaCompilerFactory;
+        this.retainFileManagers = retainFileManagers;
+        this.retainProcessorClassLoaders = retainProcessorClassLoaders;
     }
 
     @Override
@@ -58,7 +76,17 @@ public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable
         List<String> options = new JavaCompilerArgumentsBuilder(spec).build();
         JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
         MinimalJavaCompileOptions compileOptions = spec.getCompileOptions();
-        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(null, null, compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null);
+        Charset charset = compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null;
+        JavaFileManagerPool.Key fileManagerKey = null;
+        StandardJavaFileManager standardFileManager = null;
+        if (retainFileManagers) {
+            fileManagerKey = JavaFileManagerPool.keyFor(compiler, charset, options, spec.getCompileClasspath());
+            standardFileManager = fileManagerKey == null ? null : JavaFileManagerPool.INSTANCE.acquire(fileManagerKey);
+            LOGGER.debug(standardFileManager == null ? "No warm file manager available for this classpath." : "Reusing warm file manager.");
+        }
+        if (standardFileManager == null) {
+            standardFileManager = compiler.getStandardFileManager(null, null, charset);
+        }
         Iterable<? extends JavaFileObject> compilationUnits = standardFileManager.getJavaFileObjectsFromFiles(spec.getSourceFiles());
         StandardJavaFileManager fileManager = standardFileManager;
         if (JavaVersion.current().isJava9Compatible() && emptySourcepathIn(options)) {
@@ -67,8 +95,13 @@ public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable
         JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, spec.getClasses(), compilationUnits);
 
         Set<AnnotationProcessorDeclaration> annotationProcessors = spec.getEffectiveAnnotationProcessors();
-        task = new AnnotationProcessingCompileTask(task, annotationProcessors, spec.getAnnotationProcessorPath(), result.getAnnotationProcessingResult());
-        task = new ResourceCleaningCompilationTask(task, fileManager);
+        AnnotationProcessorClassLoaderCache classLoaderCache = retainProcessorClassLoaders ? AnnotationProcessorClassLoaderCache.INSTANCE : null;
+        task = new AnnotationProcessingCompileTask(task, annotationProcessors, spec.getAnnotationProcessorPath(), result.getAnnotationProcessingResult(), classLoaderCache);
+        if (fileManagerKey != null) {
+            task = new FileManagerReleasingCompilationTask(task, JavaFileManagerPool.INSTANCE, fileManagerKey, standardFileManager);
+        } else {
+            task = new ResourceCleaningCompilationTask(task, fileManager);
+        }
         return task;
     }
 
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.internal.concurrent.Stoppable;
+
+/**
+ * Decides whether the Java compiler running in the build process keeps file managers and annotation processor class loaders open between compilations,
+ * and closes the idle ones at the end of each build session, so that the jars they hold open can be deleted or replaced between builds.
+ */
+public class RetainedCompilerResources implements Stoppable {
+    private final boolean retainFileManagers;
+    private final boolean retainProcessorClassLoaders;
+
+    public RetainedCompilerResources() {
+        this(Boolean.getBoolean(JdkJavaCompiler.RETAIN_FILE_MANAGERS_PROPERTY), Boolean.getBoolean(JdkJavaCompiler.RETAIN_PROCESSOR_CLASS_LOADERS_PROPERTY));
+    }
+
+    public RetainedCompilerResources(boolean retainFileManagers, boolean retainProcessorClassLoaders) {
+        this.retainFileManagers = retainFileManagers;
+        this.retainProcessorClassLoaders = retainProcessorClassLoaders;
+    }
+
+    public boolean isRetainFileManagers() {
+        return retainFileManagers;
+    }
+
+    public boolean isRetainProcessorClassLoaders() {
+        return retainProcessorClassLoaders;
+    }
+
+    @Override
+    public void stop() {
+        JavaFileManagerPool.INSTANCE.closeIdle();
+        AnnotationProcessorClassLoaderCache.INSTANCE.closeIdle();
+    }
+}
@@ -24,6 +24,7 @@ import com.google.common.collect.Sets;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
 import org.gradle.api.internal.tasks.compile.JdkJavaCompilerResult;
+import org.gradle.api.internal.tasks.compile.incremental.classpath.ClassAbiManifestStore;
 import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathSnapshotData;
 import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathSnapshotProvider;
 import org.gradle.api.internal.tasks.compile.incremental.processing.AnnotationProcessingData;
@@ -46,12 +47,14 @@ class IncrementalResultStoringCompiler implements Compiler<JavaCompileSpec> {
     private final ClasspathSnapshotProvider classpathSnapshotProvider;
     private final Stash<PreviousCompilationData> stash;
     private final StringInterner interner;
+    private final ClassAbiManifestStore abiManifestStore;
 
-    IncrementalResultStoringCompiler(Compiler<JavaCompileSpec> delegate, ClasspathSnapshotProvider classpathSnapshotProvider, Stash<PreviousCompilationData> stash, StringInterner interner) {
+    IncrementalResultStoringCompiler(Compiler<JavaCompileSpec> delegate, ClasspathSnapshotProvider classpathSnapshotProvider, Stash<PreviousCompilationData> stash, StringInterner interner, ClassAbiManifestStore abiManifestStore) {
         this.delegate = delegate;
         this.classpathSnapshotProvider = classpathSnapshotProvider;
         this.stash = stash;
         this.interner = interner;
+        this.abiManifestStore = abiManifestStore;
     }
 
     @Override
@@ -61,6 +64,7 @@ class IncrementalResultStoringCompiler implements Compiler<JavaCompileSpec> {
             return result;
         }
         storeResult(spec, result);
+        abiManifestStore.publish(spec.getDestinationDir());
         return result;
     }
 
@@ -38,4 +38,13 @@ public class CachingClassDependenciesAnalyzer implements ClassDependenciesAnalyz
             }
         });
     }
+
+    @Override
+    public ClassAnalysis getClassAnalysis(final HashCode classFileHash, final byte[] classFile) {
+        return cache.get(classFileHash, new Factory<ClassAnalysis>() {
+            public ClassAnalysis create() {
+                return analyzer.getClassAnalysis(classFileHash, classFile);
+            }
+        });
+    }
 }
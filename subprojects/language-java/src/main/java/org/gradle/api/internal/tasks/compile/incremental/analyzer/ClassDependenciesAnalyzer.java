@@ -22,4 +22,9 @@ import org.gradle.internal.hash.HashCode;
 
 public interface ClassDependenciesAnalyzer {
     ClassAnalysis getClassAnalysis(HashCode classFileHash, FileTreeElement classFile);
+
+    /**
+     * Analyzes a class file that has already been read, for example from a jar.
+     */
+    ClassAnalysis getClassAnalysis(HashCode classFileHash, byte[] classFile);
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.classpath;
 
+import org.gradle.api.internal.changedetection.state.JarEntryHashingExecutor;
 import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
 import org.gradle.internal.Factory;
@@ -25,17 +26,20 @@ import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.snapshot.FileSystemSnapshotter;
 
 import java.io.File;
+import java.util.Map;
 
 public class CachingClasspathEntrySnapshotter implements ClasspathEntrySnapshotter {
 
     private final DefaultClasspathEntrySnapshotter snapshotter;
     private final FileSystemSnapshotter fileSystemSnapshotter;
     private final ClasspathEntrySnapshotCache cache;
+    private final ClassAbiManifestStore abiManifestStore;
 
-    public CachingClasspathEntrySnapshotter(FileHasher fileHasher, StreamHasher streamHasher, FileSystemSnapshotter fileSystemSnapshotter, ClassDependenciesAnalyzer analyzer, ClasspathEntrySnapshotCache cache, FileOperations fileOperations) {
-        this.snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, analyzer, fileOperations);
+    public CachingClasspathEntrySnapshotter(FileHasher fileHasher, StreamHasher streamHasher, FileSystemSnapshotter fileSystemSnapshotter, ClassDependenciesAnalyzer analyzer, ClasspathEntrySnapshotCache cache, FileOperations fileOperations, JarEntryHashingExecutor executor, ClassAbiManifestStore abiManifestStore) {
+        this.snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, analyzer, fileOperations, executor);
         this.fileSystemSnapshotter = fileSystemSnapshotter;
         this.cache = cache;
+        this.abiManifestStore = abiManifestStore;
     }
 
     @Override
@@ -43,7 +47,9 @@ public class CachingClasspathEntrySnapshotter implements ClasspathEntrySnapshott
         final HashCode hash = getHash(classpathEntry);
         return cache.get(classpathEntry, new Factory<ClasspathEntrySnapshot>() {
             public ClasspathEntrySnapshot create() {
-                return snapshotter.createSnapshot(hash, classpathEntry);
+                // Classes with a published ABI are compared by that ABI rather than by content, so that implementation changes do not affect dependents
+                Map<String, HashCode> abiHashes = abiManifestStore.read(classpathEntry, hash);
+                return abiHashes == null ? snapshotter.createSnapshot(hash, classpathEntry) : snapshotter.createSnapshot(hash, classpathEntry, abiHashes);
             }
         });
     }
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.classpath;
+
+import com.google.common.collect.Maps;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.AbiExtractingClasspathResourceHasher;
+import org.gradle.api.internal.changedetection.state.ClassAbiHashCache;
+import org.gradle.api.internal.changedetection.state.ResourceHasher;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.serialize.InterningStringSerializer;
+import org.gradle.internal.serialize.MapSerializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.FileSystemSnapshotVisitor;
+import org.gradle.internal.snapshot.FileSystemSnapshotter;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.RelativePathStringTracker;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Map;
+
+/**
+ * Publishes the ABI hash of every class in a classes directory to a manifest next to that directory.
+ *
+ * <p>Compilations that have the directory on their classpath compare its classes by these hashes rather than by content,
+ * so a change to the implementation of an upstream class does not cause its dependents to be recompiled.
+ * A manifest records the hash of the directory it was created for and is ignored as soon as the directory no longer matches.
+ * The manifest is declared as an output of the compile task that publishes it, so it is removed, cached and restored together with the classes.</p>
+ *
+ * <p>Only classes directories get a manifest. Jars on the classpath are still compared by content.</p>
+ */
+public class ClassAbiManifestStore {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.java.compile.abi-manifest";
+
+    private static final Logger LOGGER = Logging.getLogger(ClassAbiManifestStore.class);
+    private static final String MANIFEST_SUFFIX = ".abi";
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final FileSystemSnapshotter fileSystemSnapshotter;
+    private final ResourceHasher abiHasher;
+    private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
+    private final MapSerializer<String, HashCode> hashesSerializer;
+    private final boolean enabled;
+
+    public ClassAbiManifestStore(FileSystemSnapshotter fileSystemSnapshotter, ClassAbiHashCache abiHashCache, StringInterner interner, boolean enabled) {
+        this.fileSystemSnapshotter = fileSystemSnapshotter;
+        this.abiHasher = new AbiExtractingClasspathResourceHasher(abiHashCache);
+        this.hashesSerializer = new MapSerializer<String, HashCode>(new InterningStringSerializer(interner), hashCodeSerializer);
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Writes the manifest for the given classes directory, replacing any previous one.
+     */
+    public void publish(File classesDir) {
+        if (!enabled) {
+            return;
+        }
+        File manifestFile = manifestFileFor(classesDir);
+        // Taken through the file system mirror, so the snapshot of the task outputs that follows the compilation reuses it instead of walking the directory again
+        FileSystemLocationSnapshot snapshot = fileSystemSnapshotter.snapshot(classesDir);
+        if (snapshot.getType() != FileType.Directory) {
+            manifestFile.delete();
+            return;
+        }
+        Map<String, HashCode> abiHashes = collectAbiHashes(snapshot);
+        try {
+            KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(manifestFile));
+            try {
+                hashCodeSerializer.write(encoder, snapshot.getHash());
+                hashesSerializer.write(encoder, abiHashes);
+            } finally {
+                encoder.close();
+            }
+        } catch (Exception e) {
+            // Without a manifest, downstream compilations fall back to comparing classes by content
+            manifestFile.delete();
+            LOGGER.debug("Could not write ABI manifest for {}", classesDir, e);
+        }
+    }
+
+    /**
+     * Returns the ABI hashes of the classes in the given classpath entry, keyed by class name.
+     *
+     * @return the hashes, or {@code null} when the entry has no manifest or the manifest does not describe the entry with the given hash.
+     */
+    @Nullable
+    public Map<String, HashCode> read(File classpathEntry, HashCode entryHash) {
+        if (!enabled) {
+            return null;
+        }
+        File manifestFile = manifestFileFor(classpathEntry);
+        if (!manifestFile.isFile()) {
+            return null;
+        }
+        try {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(manifestFile));
+            try {
+                if (!hashCodeSerializer.read(decoder).equals(entryHash)) {
+                    return null;
+                }
+                return hashesSerializer.read(decoder);
+            } finally {
+                decoder.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not read ABI manifest for {}", classpathEntry, e);
+            return null;
+        }
+    }
+
+    private Map<String, HashCode> collectAbiHashes(FileSystemLocationSnapshot classesDir) {
+        final Map<String, HashCode> abiHashes = Maps.newHashMap();
+        classesDir.accept(new FileSystemSnapshotVisitor() {
+            private final RelativePathStringTracker relativePathStringTracker = new RelativePathStringTracker();
+
+            @Override
+            public boolean preVisitDirectory(DirectorySnapshot directorySnapshot) {
+                relativePathStringTracker.enter(directorySnapshot);
+                return true;
+            }
+
+            @Override
+            public void visit(FileSystemLocationSnapshot fileSnapshot) {
+                if (fileSnapshot.getType() != FileType.RegularFile || !fileSnapshot.getName().endsWith(CLASS_SUFFIX)) {
+                    return;
+                }
+                HashCode abiHash = abiHasher.hash((RegularFileSnapshot) fileSnapshot);
+                if (abiHash != null) {
+                    relativePathStringTracker.enter(fileSnapshot);
+                    String relativePath = relativePathStringTracker.getRelativePathString();
+                    abiHashes.put(relativePath.substring(0, relativePath.length() - CLASS_SUFFIX.length()).replace('/', '.'), abiHash);
+                    relativePathStringTracker.leave();
+                }
+            }
+
+            @Override
+            public void postVisitDirectory(DirectorySnapshot directorySnapshot) {
+                relativePathStringTracker.leave();
+            }
+        });
+        return abiHashes;
+    }
+
+    /**
+     * Returns the location of the manifest for the given classes directory.
+     */
+    public static File manifestFileFor(File classesDir) {
+        return new File(classesDir.getParentFile(), classesDir.getName() + MANIFEST_SUFFIX);
+    }
+}
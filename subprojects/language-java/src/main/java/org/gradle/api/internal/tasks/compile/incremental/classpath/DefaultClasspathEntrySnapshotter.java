@@ -15,9 +15,12 @@
  */
 package org.gradle.api.internal.tasks.compile.incremental.classpath;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
+import org.gradle.api.internal.changedetection.state.JarEntryHashingExecutor;
 import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
@@ -29,33 +32,53 @@ import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.StreamHasher;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
 public class DefaultClasspathEntrySnapshotter {
     private static final Logger LOGGER = Logging.getLogger(DefaultClasspathEntrySnapshotter.class);
 
+    // Below this number of classes, handing the work to other threads costs more than it saves
+    static final int PARALLEL_ANALYSIS_THRESHOLD = 512;
+
     private final FileHasher fileHasher;
     private final StreamHasher hasher;
     private final ClassDependenciesAnalyzer analyzer;
     private final FileOperations fileOperations;
+    private final JarEntryHashingExecutor executor;
 
-    public DefaultClasspathEntrySnapshotter(FileHasher fileHasher, StreamHasher streamHasher, ClassDependenciesAnalyzer analyzer, FileOperations fileOperations) {
+    public DefaultClasspathEntrySnapshotter(FileHasher fileHasher, StreamHasher streamHasher, ClassDependenciesAnalyzer analyzer, FileOperations fileOperations, JarEntryHashingExecutor executor) {
         this.fileHasher = fileHasher;
         this.hasher = streamHasher;
         this.analyzer = analyzer;
         this.fileOperations = fileOperations;
+        this.executor = executor;
     }
 
     public ClasspathEntrySnapshot createSnapshot(HashCode hash, File classpathEntry) {
+        return createSnapshot(hash, classpathEntry, Collections.<String, HashCode>emptyMap());
+    }
+
+    /**
+     * Creates a snapshot that records the given ABI hash instead of the content hash for each class that has one.
+     */
+    public ClasspathEntrySnapshot createSnapshot(HashCode hash, File classpathEntry, Map<String, HashCode> abiHashes) {
         final Map<String, HashCode> hashes = Maps.newHashMap();
         final ClassDependentsAccumulator accumulator = new ClassDependentsAccumulator();
 
         try {
-            visit(classpathEntry, hashes, accumulator);
+            visit(classpathEntry, hashes, abiHashes, accumulator);
         } catch (Exception e) {
             accumulator.fullRebuildNeeded(classpathEntry + " could not be analyzed for incremental compilation. See the debug log for more details");
             if (LOGGER.isDebugEnabled()) {
@@ -66,22 +89,114 @@ public class DefaultClasspathEntrySnapshotter {
         return new ClasspathEntrySnapshot(new ClasspathEntrySnapshotData(hash, hashes, accumulator.getAnalysis()));
     }
 
-    private void visit(File classpathEntry, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) {
+    private void visit(File classpathEntry, Map<String, HashCode> hashes, Map<String, HashCode> abiHashes, ClassDependentsAccumulator accumulator) throws Exception {
         if (hasExtension(classpathEntry, ".jar")) {
-            fileOperations.zipTree(classpathEntry).visit(new JarEntryVisitor(accumulator, hashes));
+            visitJar(classpathEntry, hashes, accumulator);
         }
         if (classpathEntry.isDirectory()) {
-            fileOperations.fileTree(classpathEntry).visit(new DirectoryEntryVisitor(accumulator, hashes));
+            fileOperations.fileTree(classpathEntry).visit(new DirectoryEntryVisitor(accumulator, hashes, abiHashes));
+        }
+    }
+
+    private void visitJar(File jar, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) throws Exception {
+        ZipFile zipFile = new ZipFile(jar);
+        try {
+            for (AnalyzedClass analyzedClass : analyzeClasses(zipFile)) {
+                // Accumulate in central directory order, so that the first of several duplicate classes wins as before
+                if (analyzedClass.failure == null) {
+                    accumulator.addClass(analyzedClass.analysis);
+                    hashes.put(analyzedClass.analysis.getClassName(), analyzedClass.hash);
+                } else {
+                    accumulator.fullRebuildNeeded(analyzedClass.name + " could not be analyzed for incremental compilation. See the debug log for more details");
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Could not analyze " + analyzedClass.name + " for incremental compilation", analyzedClass.failure);
+                    }
+                }
+            }
+        } finally {
+            IoActions.closeQuietly(zipFile);
+        }
+    }
+
+    private List<AnalyzedClass> analyzeClasses(final ZipFile zipFile) throws Exception {
+        final List<ZipEntry> classEntries = Lists.newArrayList();
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory() && entry.getName().endsWith(".class")) {
+                classEntries.add(entry);
+            }
+        }
+
+        if (executor.getParallelism() < 2 || classEntries.size() < PARALLEL_ANALYSIS_THRESHOLD) {
+            return analyzeClasses(zipFile, classEntries);
+        }
+
+        int batchSize = (classEntries.size() + executor.getParallelism() - 1) / executor.getParallelism();
+        List<Callable<List<AnalyzedClass>>> batches = Lists.newArrayList();
+        for (final List<ZipEntry> batch : Lists.partition(classEntries, batchSize)) {
+            batches.add(new Callable<List<AnalyzedClass>>() {
+                @Override
+                public List<AnalyzedClass> call() throws IOException {
+                    return analyzeClasses(zipFile, batch);
+                }
+            });
+        }
+        List<AnalyzedClass> analyzedClasses = Lists.newArrayListWithCapacity(classEntries.size());
+        for (List<AnalyzedClass> batchResult : executor.invokeAll(batches)) {
+            analyzedClasses.addAll(batchResult);
+        }
+        return analyzedClasses;
+    }
+
+    private List<AnalyzedClass> analyzeClasses(ZipFile zipFile, List<ZipEntry> classEntries) throws IOException {
+        List<AnalyzedClass> analyzedClasses = Lists.newArrayListWithCapacity(classEntries.size());
+        for (ZipEntry entry : classEntries) {
+            analyzedClasses.add(analyzeClass(zipFile, entry));
+        }
+        return analyzedClasses;
+    }
+
+    private AnalyzedClass analyzeClass(ZipFile zipFile, ZipEntry entry) throws IOException {
+        // Read the class once, and use the same bytes for both the hash and the analysis
+        byte[] content;
+        InputStream inputStream = zipFile.getInputStream(entry);
+        try {
+            content = ByteStreams.toByteArray(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        HashCode classFileHash = hasher.hash(new ByteArrayInputStream(content));
+        try {
+            return new AnalyzedClass(entry.getName(), classFileHash, analyzer.getClassAnalysis(classFileHash, content), null);
+        } catch (Exception e) {
+            return new AnalyzedClass(entry.getName(), classFileHash, null, e);
+        }
+    }
+
+    private static class AnalyzedClass {
+        private final String name;
+        private final HashCode hash;
+        private final ClassAnalysis analysis;
+        private final Exception failure;
+
+        AnalyzedClass(String name, HashCode hash, ClassAnalysis analysis, Exception failure) {
+            this.name = name;
+            this.hash = hash;
+            this.analysis = analysis;
+            this.failure = failure;
         }
     }
 
     private abstract class EntryVisitor implements FileVisitor {
         private final ClassDependentsAccumulator accumulator;
         private final Map<String, HashCode> hashes;
+        private final Map<String, HashCode> abiHashes;
 
-        public EntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
+        public EntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes, Map<String, HashCode> abiHashes) {
             this.accumulator = accumulator;
             this.hashes = hashes;
+            this.abiHashes = abiHashes;
         }
 
         public void visitDir(FileVisitDetails dirDetails) {
@@ -97,7 +212,8 @@ public class DefaultClasspathEntrySnapshotter {
             try {
                 ClassAnalysis analysis = analyzer.getClassAnalysis(classFileHash, fileDetails);
                 accumulator.addClass(analysis);
-                hashes.put(analysis.getClassName(), classFileHash);
+                HashCode abiHash = abiHashes.get(analysis.getClassName());
+                hashes.put(analysis.getClassName(), abiHash != null ? abiHash : classFileHash);
             } catch (Exception e) {
                 accumulator.fullRebuildNeeded(fileDetails.getName() + " could not be analyzed for incremental compilation. See the debug log for more details");
                 if (LOGGER.isDebugEnabled()) {
@@ -109,27 +225,10 @@ public class DefaultClasspathEntrySnapshotter {
         protected abstract HashCode getHashCode(FileVisitDetails fileDetails);
     }
 
-    private class JarEntryVisitor extends EntryVisitor {
-
-        public JarEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            super(accumulator, hashes);
-        }
-
-        @Override
-        protected HashCode getHashCode(FileVisitDetails fileDetails) {
-            InputStream inputStream = fileDetails.open();
-            try {
-                return hasher.hash(inputStream);
-            } finally {
-                IoActions.closeQuietly(inputStream);
-            }
-        }
-    }
-
     private class DirectoryEntryVisitor extends EntryVisitor {
 
-        public DirectoryEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            super(accumulator, hashes);
+        public DirectoryEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes, Map<String, HashCode> abiHashes) {
+            super(accumulator, hashes, abiHashes);
         }
 
         @Override
@@ -90,8 +90,13 @@ public class ClassSetAnalysis {
             return deps;
         }
         Set<String> result = new HashSet<String>();
-        recurseDependents(new HashSet<String>(), result, deps.getDependentClasses());
-        recurseDependents(new HashSet<String>(), result, dependingOnAllOthers);
+        if (dependenciesFromAnnotationProcessing.isEmpty()) {
+            classAnalysis.collectTransitiveDependents(deps.getDependentClasses(), result);
+            classAnalysis.collectTransitiveDependents(dependingOnAllOthers, result);
+        } else {
+            recurseDependents(new HashSet<String>(), result, deps.getDependentClasses());
+            recurseDependents(new HashSet<String>(), result, dependingOnAllOthers);
+        }
         result.remove(className);
         return DependentsSet.dependents(result);
     }
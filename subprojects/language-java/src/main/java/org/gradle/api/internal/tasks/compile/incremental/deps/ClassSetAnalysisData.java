@@ -28,29 +28,133 @@ import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.IntSetSerializer;
 
-import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * The dependency graph of a set of classes.
+ *
+ * <p>Every class name is interned to an int id. Dependents and children are stored in compressed sparse row form:
+ * the ids related to the class with id {@code i} are found at {@code [offsets[i], offsets[i + 1])} of a single int array.
+ * This keeps large graphs compact, makes them cheap to deserialize and lets transitive traversals work on ids instead of names.</p>
+ */
 public class ClassSetAnalysisData {
     public static final String PACKAGE_INFO = "package-info";
 
-    private final Set<String> classes;
-    private final Map<String, DependentsSet> dependents;
+    private final String[] classNames;
+    private final Map<String, Integer> classIds;
+    private final BitSet classes;
+    private final int[] dependentsOffsets;
+    private final int[] dependents;
+    private final BitSet dependenciesToAll;
+    private final String[] dependencyToAllReasons;
     private final Map<String, IntSet> classesToConstants;
-    private final Map<String, Set<String>> classesToChildren;
+    private final int[] childrenOffsets;
+    private final int[] children;
     private final String fullRebuildCause;
 
     public ClassSetAnalysisData(Set<String> classes, Map<String, DependentsSet> dependents, Map<String, IntSet> classesToConstants, Map<String, Set<String>> classesToChildren, String fullRebuildCause) {
+        ClassNameTable table = new ClassNameTable();
+        for (String className : classes) {
+            table.idOf(className);
+        }
+        for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
+            table.idOf(entry.getKey());
+            if (!entry.getValue().isDependencyToAll()) {
+                for (String dependent : entry.getValue().getDependentClasses()) {
+                    table.idOf(dependent);
+                }
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : classesToChildren.entrySet()) {
+            table.idOf(entry.getKey());
+            for (String child : entry.getValue()) {
+                table.idOf(child);
+            }
+        }
+        for (String className : classesToConstants.keySet()) {
+            table.idOf(className);
+        }
+
+        int count = table.names.size();
+        this.classNames = table.names.toArray(new String[0]);
+        this.classIds = table.ids;
+        this.classes = new BitSet(count);
+        for (String className : classes) {
+            this.classes.set(table.ids.get(className));
+        }
+
+        this.dependenciesToAll = new BitSet(count);
+        this.dependencyToAllReasons = new String[count];
+        List<Set<String>> dependentsById = new ArrayList<Set<String>>(Collections.<Set<String>>nCopies(count, null));
+        for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
+            int id = table.ids.get(entry.getKey());
+            if (entry.getValue().isDependencyToAll()) {
+                dependenciesToAll.set(id);
+                dependencyToAllReasons[id] = entry.getValue().getDescription();
+            } else {
+                dependentsById.set(id, entry.getValue().getDependentClasses());
+            }
+        }
+        this.dependentsOffsets = new int[count + 1];
+        this.dependents = toRows(dependentsById, table.ids, dependentsOffsets);
+
+        List<Set<String>> childrenById = new ArrayList<Set<String>>(Collections.<Set<String>>nCopies(count, null));
+        for (Map.Entry<String, Set<String>> entry : classesToChildren.entrySet()) {
+            childrenById.set(table.ids.get(entry.getKey()), entry.getValue());
+        }
+        this.childrenOffsets = new int[count + 1];
+        this.children = toRows(childrenById, table.ids, childrenOffsets);
+
+        this.classesToConstants = classesToConstants;
+        this.fullRebuildCause = fullRebuildCause;
+    }
+
+    private ClassSetAnalysisData(String[] classNames, BitSet classes, int[] dependentsOffsets, int[] dependents, BitSet dependenciesToAll, String[] dependencyToAllReasons, Map<String, IntSet> classesToConstants, int[] childrenOffsets, int[] children, String fullRebuildCause) {
+        this.classNames = classNames;
+        this.classIds = new HashMap<String, Integer>(classNames.length * 4 / 3 + 1);
+        for (int i = 0; i < classNames.length; i++) {
+            classIds.put(classNames[i], i);
+        }
         this.classes = classes;
+        this.dependentsOffsets = dependentsOffsets;
         this.dependents = dependents;
+        this.dependenciesToAll = dependenciesToAll;
+        this.dependencyToAllReasons = dependencyToAllReasons;
         this.classesToConstants = classesToConstants;
-        this.classesToChildren = classesToChildren;
+        this.childrenOffsets = childrenOffsets;
+        this.children = children;
         this.fullRebuildCause = fullRebuildCause;
     }
 
+    private static int[] toRows(List<Set<String>> relatedById, Map<String, Integer> ids, int[] offsets) {
+        int total = 0;
+        for (int i = 0; i < relatedById.size(); i++) {
+            offsets[i] = total;
+            Set<String> related = relatedById.get(i);
+            total += related == null ? 0 : related.size();
+        }
+        offsets[relatedById.size()] = total;
+        int[] rows = new int[total];
+        int next = 0;
+        for (Set<String> related : relatedById) {
+            if (related != null) {
+                for (String className : related) {
+                    rows[next++] = ids.get(className);
+                }
+            }
+        }
+        return rows;
+    }
+
     public DependentsSet getDependents(String className) {
         if (fullRebuildCause != null) {
             return DependentsSet.dependencyToAll(fullRebuildCause);
@@ -59,13 +163,21 @@ public class ClassSetAnalysisData {
             String packageName = className.equals(PACKAGE_INFO) ? null : StringUtils.removeEnd(className, "." + PACKAGE_INFO);
             return getDependentsOfPackage(packageName);
         }
-        DependentsSet dependentsSet = dependents.get(className);
-        return dependentsSet == null ? DependentsSet.empty() : dependentsSet;
+        Integer id = classIds.get(className);
+        if (id == null) {
+            return DependentsSet.empty();
+        }
+        if (dependenciesToAll.get(id)) {
+            String reason = dependencyToAllReasons[id];
+            return reason == null ? DependentsSet.dependencyToAll() : DependentsSet.dependencyToAll(reason);
+        }
+        return DependentsSet.dependents(namesOf(id, dependentsOffsets, dependents));
     }
 
     private DependentsSet getDependentsOfPackage(String packageName) {
         Set<String> typesInPackage = Sets.newHashSet();
-        for (String type : classes) {
+        for (int id = classes.nextSetBit(0); id >= 0; id = classes.nextSetBit(id + 1)) {
+            String type = classNames[id];
             int i = type.lastIndexOf(".");
             if (i < 0 && packageName == null || i > 0 && type.substring(0, i).equals(packageName)) {
                 typesInPackage.add(type);
@@ -74,6 +186,75 @@ public class ClassSetAnalysisData {
         return DependentsSet.dependents(typesInPackage);
     }
 
+    /**
+     * Adds the given classes and the classes that transitively depend on them to the result, leaving out nested classes.
+     * The traversal does not continue past classes that are a dependency to all.
+     */
+    public void collectTransitiveDependents(Iterable<String> classNames, Set<String> result) {
+        BitSet visited = new BitSet(this.classNames.length);
+        Set<String> visitedUnknownClasses = null;
+        int[] stack = new int[16];
+        int stackSize = 0;
+        Deque<String> pendingNames = new ArrayDeque<String>();
+        for (String className : classNames) {
+            pendingNames.add(className);
+        }
+
+        while (stackSize > 0 || !pendingNames.isEmpty()) {
+            if (stackSize == 0) {
+                String className = pendingNames.removeFirst();
+                Integer id = classIds.get(className);
+                if (id != null) {
+                    stack[stackSize++] = id;
+                    continue;
+                }
+                // Only reachable by name, e.g. via the package of a package-info class
+                if (visitedUnknownClasses == null) {
+                    visitedUnknownClasses = Sets.newHashSet();
+                }
+                if (!visitedUnknownClasses.add(className)) {
+                    continue;
+                }
+                if (!isNestedClass(className)) {
+                    result.add(className);
+                }
+                DependentsSet classDependents = getDependents(className);
+                if (!classDependents.isDependencyToAll()) {
+                    pendingNames.addAll(classDependents.getDependentClasses());
+                }
+                continue;
+            }
+
+            int id = stack[--stackSize];
+            if (visited.get(id)) {
+                continue;
+            }
+            visited.set(id);
+            String className = this.classNames[id];
+            if (!isNestedClass(className)) {
+                result.add(className);
+            }
+            if (fullRebuildCause != null || dependenciesToAll.get(id)) {
+                continue;
+            }
+            if (className.endsWith(PACKAGE_INFO)) {
+                pendingNames.addAll(getDependents(className).getDependentClasses());
+                continue;
+            }
+            int end = dependentsOffsets[id + 1];
+            for (int i = dependentsOffsets[id]; i < end; i++) {
+                if (stackSize == stack.length) {
+                    stack = Arrays.copyOf(stack, stackSize * 2);
+                }
+                stack[stackSize++] = dependents[i];
+            }
+        }
+    }
+
+    private static boolean isNestedClass(String className) {
+        return className.contains("$");
+    }
+
     public IntSet getConstants(String className) {
         IntSet integers = classesToConstants.get(className);
         if (integers == null) {
@@ -83,8 +264,36 @@ public class ClassSetAnalysisData {
     }
 
     public Set<String> getChildren(String className) {
-        Set<String> children = classesToChildren.get(className);
-        return children == null ? Collections.<String>emptySet() : children;
+        Integer id = classIds.get(className);
+        return id == null ? Collections.<String>emptySet() : namesOf(id, childrenOffsets, children);
+    }
+
+    private Set<String> namesOf(int id, int[] offsets, int[] rows) {
+        int start = offsets[id];
+        int end = offsets[id + 1];
+        if (start == end) {
+            return Collections.emptySet();
+        }
+        ImmutableSet.Builder<String> names = ImmutableSet.builder();
+        for (int i = start; i < end; i++) {
+            names.add(classNames[rows[i]]);
+        }
+        return names.build();
+    }
+
+    private static class ClassNameTable {
+        private final List<String> names = new ArrayList<String>();
+        private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+        int idOf(String className) {
+            Integer id = ids.get(className);
+            if (id == null) {
+                id = names.size();
+                names.add(className);
+                ids.put(className, id);
+            }
+            return id;
+        }
     }
 
     public static class Serializer extends AbstractSerializer<ClassSetAnalysisData> {
@@ -97,126 +306,101 @@ public class ClassSetAnalysisData {
 
         @Override
         public ClassSetAnalysisData read(Decoder decoder) throws Exception {
-            Map<Integer, String> classNameMap = new HashMap<Integer, String>();
-
             int count = decoder.readSmallInt();
-            ImmutableSet.Builder<String> classes = ImmutableSet.builder();
+            String[] classNames = new String[count];
             for (int i = 0; i < count; i++) {
-                classes.add(readClassName(decoder, classNameMap));
+                classNames[i] = interner.intern(decoder.readString());
             }
 
-            count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, DependentsSet> dependentsBuilder = ImmutableMap.builder();
-            for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
-                DependentsSet dependents = readDependentsSet(decoder, classNameMap);
-                dependentsBuilder.put(className, dependents);
+            BitSet classes = readIds(decoder, count);
+            BitSet dependenciesToAll = readIds(decoder, count);
+            String[] dependencyToAllReasons = new String[count];
+            for (int id = dependenciesToAll.nextSetBit(0); id >= 0; id = dependenciesToAll.nextSetBit(id + 1)) {
+                dependencyToAllReasons[id] = decoder.readNullableString();
             }
 
-            count = decoder.readSmallInt();
+            int[] dependentsOffsets = new int[count + 1];
+            int[] dependents = readRows(decoder, dependentsOffsets);
+
+            int constantsCount = decoder.readSmallInt();
             ImmutableMap.Builder<String, IntSet> classesToConstantsBuilder = ImmutableMap.builder();
-            for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
+            for (int i = 0; i < constantsCount; i++) {
+                String className = classNames[decoder.readSmallInt()];
                 IntSet constants = IntSetSerializer.INSTANCE.read(decoder);
                 classesToConstantsBuilder.put(className, constants);
             }
 
-            count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, Set<String>> classNameToChildren = ImmutableMap.builder();
-            for (int i = 0; i < count; i++) {
-                String parent = readClassName(decoder, classNameMap);
-                int nameCount = decoder.readSmallInt();
-                ImmutableSet.Builder<String> namesBuilder = ImmutableSet.builder();
-                for (int j = 0; j < nameCount; j++) {
-                    namesBuilder.add(readClassName(decoder, classNameMap));
-                }
-                classNameToChildren.put(parent, namesBuilder.build());
-            }
+            int[] childrenOffsets = new int[count + 1];
+            int[] children = readRows(decoder, childrenOffsets);
 
             String fullRebuildCause = decoder.readNullableString();
 
-            return new ClassSetAnalysisData(classes.build(), dependentsBuilder.build(), classesToConstantsBuilder.build(), classNameToChildren.build(), fullRebuildCause);
+            return new ClassSetAnalysisData(classNames, classes, dependentsOffsets, dependents, dependenciesToAll, dependencyToAllReasons, classesToConstantsBuilder.build(), childrenOffsets, children, fullRebuildCause);
         }
 
         @Override
         public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
-            Map<String, Integer> classNameMap = new HashMap<String, Integer>();
-            encoder.writeSmallInt(value.classes.size());
-            for (String clazz : value.classes) {
-                writeClassName(clazz, classNameMap, encoder);
+            int count = value.classNames.length;
+            encoder.writeSmallInt(count);
+            for (String className : value.classNames) {
+                encoder.writeString(className);
             }
 
-            encoder.writeSmallInt(value.dependents.size());
-            for (Map.Entry<String, DependentsSet> entry : value.dependents.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                writeDependentSet(entry.getValue(), classNameMap, encoder);
+            writeIds(encoder, value.classes);
+            writeIds(encoder, value.dependenciesToAll);
+            for (int id = value.dependenciesToAll.nextSetBit(0); id >= 0; id = value.dependenciesToAll.nextSetBit(id + 1)) {
+                encoder.writeNullableString(value.dependencyToAllReasons[id]);
             }
 
+            writeRows(encoder, value.dependentsOffsets, value.dependents);
+
             encoder.writeSmallInt(value.classesToConstants.size());
             for (Map.Entry<String, IntSet> entry : value.classesToConstants.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
+                encoder.writeSmallInt(value.classIds.get(entry.getKey()));
                 IntSetSerializer.INSTANCE.write(encoder, entry.getValue());
             }
 
-            encoder.writeSmallInt(value.classesToChildren.size());
-            for (Map.Entry<String, Set<String>> entry : value.classesToChildren.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                encoder.writeSmallInt(entry.getValue().size());
-                for (String className : entry.getValue()) {
-                    writeClassName(className, classNameMap, encoder);
-                }
-            }
+            writeRows(encoder, value.childrenOffsets, value.children);
 
             encoder.writeNullableString(value.fullRebuildCause);
         }
 
-        private DependentsSet readDependentsSet(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            byte b = decoder.readByte();
-            if (b == 1) {
-                return DependentsSet.dependencyToAll(decoder.readNullableString());
-            }
-            int count = decoder.readSmallInt();
-            ImmutableSet.Builder<String> builder = ImmutableSet.builder();
-            for (int i = 0; i < count; i++) {
-                builder.add(readClassName(decoder, classNameMap));
+        private static BitSet readIds(Decoder decoder, int count) throws Exception {
+            BitSet ids = new BitSet(count);
+            int size = decoder.readSmallInt();
+            for (int i = 0; i < size; i++) {
+                ids.set(decoder.readSmallInt());
             }
-            return DependentsSet.dependents(builder.build());
+            return ids;
         }
 
-        private void writeDependentSet(DependentsSet dependentsSet, Map<String, Integer> classNameMap, Encoder encoder) throws IOException {
-            if (dependentsSet.isDependencyToAll()) {
-                encoder.writeByte((byte) 1);
-                encoder.writeNullableString(dependentsSet.getDescription());
-            } else {
-                encoder.writeByte((byte) 2);
-                encoder.writeSmallInt(dependentsSet.getDependentClasses().size());
-                for (String className : dependentsSet.getDependentClasses()) {
-                    writeClassName(className, classNameMap, encoder);
-                }
+        private static void writeIds(Encoder encoder, BitSet ids) throws Exception {
+            encoder.writeSmallInt(ids.cardinality());
+            for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+                encoder.writeSmallInt(id);
             }
         }
 
-        private String readClassName(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            int id = decoder.readSmallInt();
-            if (id == 0) {
-                id = decoder.readSmallInt();
-                String className = interner.intern(decoder.readString());
-                classNameMap.put(id, className);
-                return className;
+        private static int[] readRows(Decoder decoder, int[] offsets) throws Exception {
+            int total = 0;
+            for (int i = 0; i < offsets.length - 1; i++) {
+                offsets[i] = total;
+                total += decoder.readSmallInt();
             }
-            return classNameMap.get(id);
+            offsets[offsets.length - 1] = total;
+            int[] rows = new int[total];
+            for (int i = 0; i < total; i++) {
+                rows[i] = decoder.readSmallInt();
+            }
+            return rows;
         }
 
-        private void writeClassName(String className, Map<String, Integer> classIdMap, Encoder encoder) throws IOException {
-            Integer id = classIdMap.get(className);
-            if (id == null) {
-                id = classIdMap.size() + 1;
-                classIdMap.put(className, id);
-                encoder.writeSmallInt(0);
-                encoder.writeSmallInt(id);
-                encoder.writeString(className);
-            } else {
-                encoder.writeSmallInt(id);
+        private static void writeRows(Encoder encoder, int[] offsets, int[] rows) throws Exception {
+            for (int i = 0; i < offsets.length - 1; i++) {
+                encoder.writeSmallInt(offsets[i + 1] - offsets[i]);
+            }
+            for (int row : rows) {
+                encoder.writeSmallInt(row);
             }
         }
     }
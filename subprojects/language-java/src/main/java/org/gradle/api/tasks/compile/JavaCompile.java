@@ -28,6 +28,7 @@ import org.gradle.api.internal.tasks.compile.DefaultJavaCompileSpec;
 import org.gradle.api.internal.tasks.compile.DefaultJavaCompileSpecFactory;
 import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
 import org.gradle.api.internal.tasks.compile.incremental.IncrementalCompilerFactory;
+import org.gradle.api.internal.tasks.compile.incremental.classpath.ClassAbiManifestStore;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.CompileClasspath;
@@ -50,6 +51,7 @@ import org.gradle.util.SingleMessageLogger;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
+import java.util.concurrent.Callable;
 
 /**
  * Compiles Java source files.
@@ -72,6 +74,15 @@ public class JavaCompile extends AbstractCompile {
         CompileOptions compileOptions = getServices().get(ObjectFactory.class).newInstance(CompileOptions.class);
         this.compileOptions = compileOptions;
         CompilerForkUtils.doNotCacheIfForkingViaExecutable(compileOptions, getOutputs());
+        if (getServices().get(ClassAbiManifestStore.class).isEnabled()) {
+            getOutputs().file(new Callable<File>() {
+                @Override
+                public File call() {
+                    File destinationDir = getDestinationDir();
+                    return destinationDir == null ? null : ClassAbiManifestStore.manifestFileFor(destinationDir);
+                }
+            }).withPropertyName("abiManifest").optional();
+        }
     }
 
     /**
@@ -16,10 +16,17 @@
 
 package org.gradle.api.tasks.javadoc;
 
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import groovy.lang.Closure;
 import org.gradle.api.Action;
+import org.gradle.api.Incubating;
+import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTree;
+import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Classpath;
 import org.gradle.api.tasks.Input;
@@ -31,9 +38,16 @@ import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.SourceTask;
 import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.javadoc.internal.JavadocOutputMerger;
+import org.gradle.api.tasks.javadoc.internal.JavadocPackageGroup;
 import org.gradle.api.tasks.javadoc.internal.JavadocSpec;
 import org.gradle.external.javadoc.MinimalJavadocOptions;
 import org.gradle.external.javadoc.StandardJavadocDocletOptions;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.jvm.internal.toolchain.JavaToolChainInternal;
 import org.gradle.jvm.platform.JavaPlatform;
 import org.gradle.jvm.platform.internal.DefaultJavaPlatform;
@@ -49,6 +63,8 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
 
 /**
  * <p>Generates HTML API documentation for Java classes.</p>
@@ -101,6 +117,8 @@ public class Javadoc extends SourceTask {
 
     private String executable;
 
+    private int packageGroups = 1;
+
     @TaskAction
     protected void generate() {
         File destinationDir = getDestinationDir();
@@ -137,27 +155,110 @@ public class Javadoc extends SourceTask {
             }
         }
 
+        if (getPackageGroups() > 1) {
+            final SortedMap<String, List<File>> sourcesByPackage = Maps.newTreeMap();
+            final Set<File> sourceRoots = Sets.newLinkedHashSet();
+            getSource().visit(new EmptyFileVisitor() {
+                @Override
+                public void visitFile(FileVisitDetails fileDetails) {
+                    String[] packageSegments = fileDetails.getRelativePath().getParent().getSegments();
+                    String packageName = Joiner.on('.').join(packageSegments);
+                    List<File> sources = sourcesByPackage.get(packageName);
+                    if (sources == null) {
+                        sources = Lists.newArrayList();
+                        sourcesByPackage.put(packageName, sources);
+                    }
+                    sources.add(fileDetails.getFile());
+                    File sourceRoot = fileDetails.getFile().getParentFile();
+                    for (int i = 0; i < packageSegments.length; i++) {
+                        sourceRoot = sourceRoot.getParentFile();
+                    }
+                    sourceRoots.add(sourceRoot);
+                }
+            });
+            List<JavadocPackageGroup> groups = JavadocPackageGroup.partition(sourcesByPackage, getPackageGroups());
+            if (groups.size() > 1) {
+                executeExternalJavadocInPackageGroups(options, groups, sourceRoots);
+                return;
+            }
+        }
+
         List<String> sourceNames = new ArrayList<String>();
         for (File sourceFile : getSource()) {
             sourceNames.add(sourceFile.getAbsolutePath());
         }
         options.setSourceNames(sourceNames);
 
-        executeExternalJavadoc(options);
+        executeExternalJavadoc(createGenerator(), options, getOptionsFile());
+    }
+
+    private void executeExternalJavadocInPackageGroups(final StandardJavadocDocletOptions options, final List<JavadocPackageGroup> groups, final Set<File> sourceRoots) {
+        final File groupsDir = new File(getTemporaryDir(), "package-groups");
+        GFileUtils.deleteQuietly(groupsDir);
+        final File packageListsDir = new File(groupsDir, "package-lists");
+        final List<File> groupDirs = Lists.newArrayList();
+        for (JavadocPackageGroup group : groups) {
+            group.writePackageList(new File(packageListsDir, group.getName()));
+            groupDirs.add(new File(groupsDir, group.getName()));
+        }
+
+        final Compiler<JavadocSpec> generator = createGenerator();
+        getBuildOperationExecutor().runAll(new Action<BuildOperationQueue<RunnableBuildOperation>>() {
+            @Override
+            public void execute(BuildOperationQueue<RunnableBuildOperation> queue) {
+                for (int i = 0; i < groups.size(); i++) {
+                    final JavadocPackageGroup group = groups.get(i);
+                    final File groupDir = groupDirs.get(i);
+                    queue.add(new RunnableBuildOperation() {
+                        @Override
+                        public void run(BuildOperationContext context) {
+                            StandardJavadocDocletOptions groupOptions = new StandardJavadocDocletOptions(options);
+                            groupOptions.destinationDirectory(groupDir);
+                            groupOptions.setSourceNames(group.getSourceNames());
+                            // The index of each group is a single page, which is simpler to merge than one page per letter
+                            groupOptions.setSplitIndex(false);
+                            // Lets javadoc resolve the types of the other groups, which it then links to relative to the root of the merged documentation
+                            groupOptions.classpath(new ArrayList<File>(sourceRoots));
+                            for (JavadocPackageGroup other : groups) {
+                                if (other != group) {
+                                    groupOptions.linksOffline(".", new File(packageListsDir, other.getName()).getAbsolutePath());
+                                }
+                            }
+                            executeExternalJavadoc(generator, groupOptions, new File(getTemporaryDir(), "javadoc-" + group.getName() + ".options"));
+                        }
+
+                        @Override
+                        public BuildOperationDescriptor.Builder description() {
+                            return BuildOperationDescriptor.displayName("Generate Javadoc for " + group.getName() + " of " + getPath());
+                        }
+                    });
+                }
+            }
+        });
+
+        new JavadocOutputMerger().merge(groupDirs, options.getDestinationDirectory());
     }
 
-    private void executeExternalJavadoc(StandardJavadocDocletOptions options) {
+    private Compiler<JavadocSpec> createGenerator() {
+        return ((JavaToolChainInternal) getToolChain()).select(getPlatform()).newCompiler(JavadocSpec.class);
+    }
+
+    private void executeExternalJavadoc(Compiler<JavadocSpec> generator, StandardJavadocDocletOptions options, File optionsFile) {
         JavadocSpec spec = new JavadocSpec();
         spec.setExecutable(getExecutable());
         spec.setOptions(options);
         spec.setIgnoreFailures(!isFailOnError());
         spec.setWorkingDir(getProject().getProjectDir());
-        spec.setOptionsFile(getOptionsFile());
+        spec.setOptionsFile(optionsFile);
 
-        Compiler<JavadocSpec> generator = ((JavaToolChainInternal) getToolChain()).select(getPlatform()).newCompiler(JavadocSpec.class);
         generator.execute(spec);
     }
 
+    @Inject
+    protected BuildOperationExecutor getBuildOperationExecutor() {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -335,6 +436,37 @@ public class Javadoc extends SourceTask {
         this.failOnError = failOnError;
     }
 
+    /**
+     * Returns the maximum number of groups that the documented packages are split into. Each group is documented by a separate javadoc process, and the groups are documented concurrently.
+     * The packages are spread so that the groups have about the same number of source files. Each group has at least two packages.
+     *
+     * <p>The documentation of the groups is merged into the destination directory, where each page ends up at the same location as when all packages are documented together.
+     * The package and class indexes, the index, the deprecated list, the class tree, the package list and the search index cover all groups. The other pages that describe
+     * the whole documentation, such as the constant values, list the content of each group in turn. The index is not split per letter.</p>
+     *
+     * <p>Defaults to 1, which documents all packages with a single javadoc process.</p>
+     *
+     * @since 5.2
+     */
+    @Incubating
+    @Input
+    public int getPackageGroups() {
+        return packageGroups;
+    }
+
+    /**
+     * Sets the maximum number of groups that the documented packages are split into.
+     *
+     * @since 5.2
+     */
+    @Incubating
+    public void setPackageGroups(int packageGroups) {
+        if (packageGroups < 1) {
+            throw new IllegalArgumentException("The number of package groups must be at least 1, but was " + packageGroups + ".");
+        }
+        this.packageGroups = packageGroups;
+    }
+
     @Internal
     public File getOptionsFile() {
         return new File(getTemporaryDir(), "javadoc.options");
@@ -0,0 +1,993 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.tasks.javadoc.internal;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.util.GFileUtils;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Combines the documentation generated for several {@link JavadocPackageGroup package groups} into a single documentation tree.
+ *
+ * <p>The pages of packages and classes are copied unchanged, so they end up where a single javadoc invocation would have put them. The pages that
+ * describe the whole documentation set are combined:</p>
+ *
+ * <ul>
+ *     <li>The entries of the package and class indexes, the package lists and the search indexes of all groups are merged and sorted.</li>
+ *     <li>The index, the deprecated list and the class tree are merged section by section: the entries of each letter of the index and of each kind
+ *     of deprecated element are merged and sorted, and the class hierarchies of all groups are combined into a single tree.</li>
+ *     <li>For the other pages that differ between groups, such as the constant values, the content of each group is appended in turn.</li>
+ * </ul>
+ *
+ * <p>The layout of the generated pages depends on the javadoc version. A page whose layout is not recognized falls back to appending the content of
+ * each group. Pages are read and written as ISO-8859-1, which leaves any other encoding intact.</p>
+ */
+public class JavadocOutputMerger {
+    private static final Set<String> PACKAGE_LISTS = ImmutableSet.of("package-list", "element-list");
+    private static final Set<String> INDEX_PAGES = ImmutableSet.of(
+        "index.html", "overview-summary.html", "overview-frame.html", "allpackages-index.html",
+        "allclasses-frame.html", "allclasses-noframe.html", "allclasses.html", "allclasses-index.html");
+    private static final Pattern SEARCH_INDEX = Pattern.compile(".+-search-index\\.(js|zip)");
+    private static final String INDEX_ALL = "index-all.html";
+    private static final String DEPRECATED_LIST = "deprecated-list.html";
+    private static final String CLASS_TREE = "overview-tree.html";
+
+    /**
+     * The start of an entry of an index: a table row, a list item with a link, the first cell of a row of a grid, or the term of a definition list.
+     */
+    private static final Pattern ENTRY_START = Pattern.compile("^<(?:(tr) (?:class|id)=|(li)><a |(div) class=\"col-(?:first|summary-item-name)|(dt)>)");
+    /**
+     * The start of another cell of a row of a grid or the description of a term, which belong to the entry before them.
+     */
+    private static final Pattern CELL_START = Pattern.compile("^<(?:(div) class=\"col-(?:second|last)|(dd)>)");
+    private static final Pattern LINK = Pattern.compile("<a [^>]*href=\"([^\"]*)\"[^>]*>(.*?)</a>");
+    private static final Pattern TAG = Pattern.compile("<[^>]*>");
+    private static final Pattern ROW_ID = Pattern.compile("id=\"i(\\d+)\"");
+    private static final Pattern ROW_TYPES = Pattern.compile("^var data = \\{(.*)\\};$");
+    private static final Pattern ROW_TYPE = Pattern.compile("\"i(\\d+)\":(\\d+)");
+    private static final Pattern TABLE_ROW_COLOR = Pattern.compile("\\b(?:altColor|rowColor)\\b");
+    private static final Pattern GRID_ROW_COLOR = Pattern.compile("\\b(?:even|odd)-row-color\\b");
+
+    /**
+     * The tabs that select the rows of a table by their type: buttons numbered by type, or captions numbered in order whose names are listed in a script.
+     */
+    private static final Pattern TAB_BUTTON = Pattern.compile("<button id=\"[\\w-]+-tab(\\d+)\".*?</button>");
+    private static final Pattern TAB_CAPTION = Pattern.compile(
+        "<span id=\"t\\d+\" class=\"(?:activeTableTab|tableTab)\"><span>(?:<a href=\"javascript:show\\((\\d+)\\);\">)?.*?</span><span class=\"tabEnd\">&nbsp;</span></span>");
+    private static final Pattern TAB_CAPTION_ID = Pattern.compile("id=\"t\\d+\"");
+    private static final Pattern TAB_NAMES = Pattern.compile("^var tabs = \\{(.*)\\};$");
+    private static final Pattern TAB_NAME = Pattern.compile("(\\d+):\\[\"t\\d+\",(\"[^\"]*\")\\]");
+    private static final int ALL_ROWS = 65535;
+
+    private static final Pattern INDEX_SECTION_START = Pattern.compile(
+        "<a (?:name|id)=\"(I:[^\"]*)\">\\s*<!--   -->\\s*</a>\\s*<h2 class=\"title\">[^<]*</h2>|<h2 class=\"title\" id=\"(I:[^\"]*)\">[^<]*</h2>");
+    private static final Pattern INDEX_LETTER_LINKS = Pattern.compile("(?:<a href=\"#I:[^\"]*\">[^<]*</a>&nbsp;)+");
+    private static final Pattern INDEX_LETTER_LINK = Pattern.compile("<a href=\"#(I:[^\"]*)\">[^<]*</a>&nbsp;");
+    private static final Pattern DEPRECATED_SECTION_START = Pattern.compile(
+        "<a (?:name|id)=\"([\\w.-]+)\">\\s*<!--   -->\\s*</a>\\s*(?=<ul class=\"blockList\">)|<ul class=\"block-list\">\\s*<li>\\s*<div id=\"([\\w.-]+)\">");
+    private static final Pattern DEPRECATED_CONTENTS_ITEM = Pattern.compile("^<li(?: id=\"[^\"]*\")?><a href=\"#([^\"]+)\">[^<]*</a></li>$");
+    private static final Pattern HIERARCHY_SECTION_START = Pattern.compile("(?:<section[^>]*>\\s*)?<h2 title=\"([^\"]+)\">");
+    private static final Pattern PACKAGE_HIERARCHY_ITEM = Pattern.compile("^<li><a href=\"[^\"]*package-tree\\.html\">([^<]*)</a>(?:, )?</li>$");
+    private static final String PACKAGE_HIERARCHY_SEPARATOR = ", ";
+
+    private static final Comparator<IndexEntry> BY_LABEL = new Comparator<IndexEntry>() {
+        @Override
+        public int compare(IndexEntry o1, IndexEntry o2) {
+            int result = o1.label.compareToIgnoreCase(o2.label);
+            if (result == 0) {
+                result = o1.label.compareTo(o2.label);
+            }
+            return result == 0 ? o1.href.compareTo(o2.href) : result;
+        }
+    };
+    private static final Ordering<String> IGNORING_CASE = Ordering.from(String.CASE_INSENSITIVE_ORDER).compound(Ordering.<String>natural());
+
+    /**
+     * Merges the given group directories, in order, into the destination directory.
+     */
+    public void merge(List<File> groupDirs, File destinationDir) {
+        Map<String, List<File>> topLevelFiles = Maps.newTreeMap();
+        for (File groupDir : groupDirs) {
+            File[] files = groupDir.listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    copyMissing(file, new File(destinationDir, file.getName()));
+                } else {
+                    List<File> versions = topLevelFiles.get(file.getName());
+                    if (versions == null) {
+                        versions = Lists.newArrayList();
+                        topLevelFiles.put(file.getName(), versions);
+                    }
+                    versions.add(file);
+                }
+            }
+        }
+        try {
+            for (Map.Entry<String, List<File>> entry : topLevelFiles.entrySet()) {
+                mergeTopLevelFile(entry.getKey(), entry.getValue(), new File(destinationDir, entry.getKey()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not merge the Javadoc of the package groups into " + destinationDir, e);
+        }
+    }
+
+    private void mergeTopLevelFile(String name, List<File> versions, File target) throws IOException {
+        if (SEARCH_INDEX.matcher(name).matches()) {
+            if (name.endsWith(".zip")) {
+                mergeSearchIndexArchives(versions, target);
+            } else {
+                write(mergeSearchIndexScripts(read(versions)), target);
+            }
+            return;
+        }
+        List<String> contents = read(versions);
+        if (versions.size() == 1 || Sets.newHashSet(contents).size() == 1) {
+            Files.copy(versions.get(0), target);
+        } else if (PACKAGE_LISTS.contains(name)) {
+            write(mergePackageLists(contents), target);
+        } else if (name.endsWith(".html")) {
+            write(mergePages(name, contents), target);
+        } else {
+            Files.copy(versions.get(0), target);
+        }
+    }
+
+    private static String mergePackageLists(List<String> contents) {
+        Set<String> packages = Sets.newTreeSet();
+        for (String content : contents) {
+            for (String line : content.split("\n")) {
+                if (line.trim().length() > 0) {
+                    packages.add(line.trim());
+                }
+            }
+        }
+        return Joiner.on('\n').join(packages) + '\n';
+    }
+
+    private static String mergePages(String name, List<String> contents) {
+        // Pages generated on Windows end their lines with \r\n, which is put back once the pages are merged
+        boolean windowsLineEndings = contents.get(0).contains("\r\n");
+        List<String> pages = Lists.newArrayListWithCapacity(contents.size());
+        for (String content : contents) {
+            pages.add(content.replace("\r\n", "\n"));
+        }
+        String merged = null;
+        if (INDEX_PAGES.contains(name)) {
+            merged = mergeIndexPages(pages);
+        } else if (name.equals(INDEX_ALL)) {
+            merged = mergeIndex(pages);
+        } else if (name.equals(DEPRECATED_LIST)) {
+            merged = mergeDeprecatedList(pages);
+        } else if (name.equals(CLASS_TREE)) {
+            merged = mergeClassTree(pages);
+        }
+        if (merged == null) {
+            merged = appendPageContents(pages);
+        }
+        if (merged == null) {
+            return contents.get(0);
+        }
+        return windowsLineEndings ? merged.replace("\n", "\r\n") : merged;
+    }
+
+    /**
+     * Merges pages made up of a single run of index entries, such as the package and class indexes.
+     *
+     * @return the merged page, or {@code null} when one of the pages is not made up that way.
+     */
+    @Nullable
+    private static String mergeIndexPages(List<String> contents) {
+        List<IndexPage> pages = Lists.newArrayListWithCapacity(contents.size());
+        List<IndexEntry> entries = Lists.newArrayList();
+        for (String content : contents) {
+            IndexPage page = IndexPage.parse(lines(content));
+            if (page == null) {
+                return null;
+            }
+            pages.add(page);
+            entries.addAll(page.entries);
+        }
+        Collections.sort(entries, BY_LABEL);
+
+        List<String> lines = Lists.newArrayList();
+        Map<Integer, String> rowTypes = Maps.newLinkedHashMap();
+        for (int i = 0; i < entries.size(); i++) {
+            IndexEntry entry = entries.get(i);
+            if (entry.rowType != null) {
+                rowTypes.put(i, entry.rowType);
+            }
+            for (String line : entry.lines) {
+                line = TABLE_ROW_COLOR.matcher(line).replaceAll(i % 2 == 0 ? "altColor" : "rowColor");
+                line = GRID_ROW_COLOR.matcher(line).replaceAll(i % 2 == 0 ? "even-row-color" : "odd-row-color");
+                line = ROW_ID.matcher(line).replaceFirst("id=\"i" + i + "\"");
+                lines.add(line);
+            }
+        }
+
+        IndexPage base = pages.get(0);
+        List<String> header = Lists.newArrayList(base.header);
+        for (int i = 0; i < header.size(); i++) {
+            if (ROW_TYPES.matcher(header.get(i)).matches()) {
+                // The row types select the rows shown by each tab of the table
+                List<String> types = Lists.newArrayList();
+                for (Map.Entry<Integer, String> rowType : rowTypes.entrySet()) {
+                    types.add("\"i" + rowType.getKey() + "\":" + rowType.getValue());
+                }
+                header.set(i, "var data = {" + Joiner.on(',').join(types) + "};");
+            } else if (TAB_NAMES.matcher(header.get(i)).matches()) {
+                header.set(i, mergeTabNames(pages));
+            } else if (TAB_BUTTON.matcher(header.get(i)).find()) {
+                header.set(i, mergeTabs(header.get(i), pages, TAB_BUTTON));
+            } else if (TAB_CAPTION.matcher(header.get(i)).find()) {
+                header.set(i, mergeTabs(header.get(i), pages, TAB_CAPTION));
+            }
+        }
+        return Joiner.on('\n').join(header) + '\n' + Joiner.on('\n').join(lines) + '\n' + Joiner.on('\n').join(base.footer);
+    }
+
+    /**
+     * Replaces the tabs of the given line with the tabs of all pages, so there is a tab for each type of row of the merged table.
+     */
+    private static String mergeTabs(String line, List<IndexPage> pages, Pattern tab) {
+        Map<Integer, String> tabs = Maps.newTreeMap();
+        for (IndexPage page : pages) {
+            for (String headerLine : page.header) {
+                Matcher matcher = tab.matcher(headerLine);
+                while (matcher.find()) {
+                    // The tab that shows all rows comes first
+                    int type = matcher.group(1) == null ? -1 : Integer.parseInt(matcher.group(1));
+                    if (!tabs.containsKey(type)) {
+                        tabs.put(type, matcher.group());
+                    }
+                }
+            }
+        }
+        Matcher matcher = tab.matcher(line);
+        matcher.find();
+        int start = matcher.start();
+        int end = matcher.end();
+        while (matcher.find()) {
+            end = matcher.end();
+        }
+        StringBuilder merged = new StringBuilder(line.substring(0, start));
+        int index = 0;
+        for (String mergedTab : tabs.values()) {
+            // Captions are numbered in order
+            merged.append(tab == TAB_CAPTION ? TAB_CAPTION_ID.matcher(mergedTab).replaceFirst("id=\"t" + index++ + "\"") : mergedTab);
+        }
+        return merged.append(line.substring(end)).toString();
+    }
+
+    /**
+     * Lists the names of the tabs of all pages, in the order of their captions.
+     */
+    private static String mergeTabNames(List<IndexPage> pages) {
+        Map<Integer, String> names = Maps.newTreeMap();
+        for (IndexPage page : pages) {
+            for (String headerLine : page.header) {
+                Matcher tabNames = TAB_NAMES.matcher(headerLine);
+                if (tabNames.matches()) {
+                    Matcher name = TAB_NAME.matcher(tabNames.group(1));
+                    while (name.find()) {
+                        int type = Integer.parseInt(name.group(1));
+                        names.put(type == ALL_ROWS ? -1 : type, name.group(2));
+                    }
+                }
+            }
+        }
+        List<String> tabs = Lists.newArrayList();
+        for (Map.Entry<Integer, String> name : names.entrySet()) {
+            int type = name.getKey() < 0 ? ALL_ROWS : name.getKey();
+            tabs.add(type + ":[\"t" + tabs.size() + "\"," + name.getValue() + "]");
+        }
+        return "var tabs = {" + Joiner.on(',').join(tabs) + "};";
+    }
+
+    /**
+     * Merges the index of all elements letter by letter, and links to all letters.
+     *
+     * @return the merged page, or {@code null} when the letters of one of the pages cannot be located.
+     */
+    @Nullable
+    private static String mergeIndex(List<String> contents) {
+        List<SectionedPage> pages = SectionedPage.parseAll(contents, INDEX_SECTION_START, "dl");
+        if (pages == null) {
+            return null;
+        }
+        List<String> letters = IGNORING_CASE.sortedCopy(sectionOrder(pages));
+        String merged = mergeSections(pages, letters, false);
+        if (merged == null) {
+            return null;
+        }
+        Map<String, String> links = Maps.newHashMap();
+        for (String content : contents) {
+            Matcher link = INDEX_LETTER_LINK.matcher(content);
+            while (link.find()) {
+                links.put(link.group(1), link.group());
+            }
+        }
+        StringBuilder letterLinks = new StringBuilder();
+        for (String letter : letters) {
+            if (links.containsKey(letter)) {
+                letterLinks.append(links.get(letter));
+            }
+        }
+        return INDEX_LETTER_LINKS.matcher(merged).replaceAll(Matcher.quoteReplacement(letterLinks.toString()));
+    }
+
+    /**
+     * Merges the deprecated elements of each kind, and lists all kinds in the contents of the page.
+     *
+     * @return the merged page, or {@code null} when the kinds of one of the pages cannot be located.
+     */
+    @Nullable
+    private static String mergeDeprecatedList(List<String> contents) {
+        List<SectionedPage> pages = SectionedPage.parseAll(contents, DEPRECATED_SECTION_START, "ul");
+        if (pages == null) {
+            return null;
+        }
+        List<String> kinds = sectionOrder(pages);
+        String merged = mergeSections(pages, kinds, false);
+        return merged == null ? null : mergeListItems(merged, contents, DEPRECATED_CONTENTS_ITEM, kinds, null);
+    }
+
+    /**
+     * Combines the class and interface hierarchies of all pages, and lists all packages in the header of the page.
+     *
+     * @return the merged page, or {@code null} when the hierarchies of one of the pages cannot be located.
+     */
+    @Nullable
+    private static String mergeClassTree(List<String> contents) {
+        List<SectionedPage> pages = SectionedPage.parseAll(contents, HIERARCHY_SECTION_START, "ul");
+        if (pages == null) {
+            return null;
+        }
+        String merged = mergeSections(pages, sectionOrder(pages), true);
+        return merged == null ? null : mergeListItems(merged, contents, PACKAGE_HIERARCHY_ITEM, null, PACKAGE_HIERARCHY_SEPARATOR);
+    }
+
+    /**
+     * Combines the order of the sections of all pages. A section that is missing from the pages before is placed after the section it follows.
+     */
+    private static List<String> sectionOrder(List<SectionedPage> pages) {
+        List<String> order = Lists.newArrayList();
+        for (SectionedPage page : pages) {
+            List<String> keys = Lists.newArrayList(page.sections.keySet());
+            for (int i = 0; i < keys.size(); i++) {
+                if (order.contains(keys.get(i))) {
+                    continue;
+                }
+                int position = order.size();
+                if (i > 0) {
+                    position = order.indexOf(keys.get(i - 1)) + 1;
+                } else {
+                    for (String following : keys) {
+                        if (order.contains(following)) {
+                            position = order.indexOf(following);
+                            break;
+                        }
+                    }
+                }
+                order.add(position, keys.get(i));
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Replaces the sections of the first page with the sections of all pages, merging the sections that several pages have.
+     */
+    @Nullable
+    private static String mergeSections(List<SectionedPage> pages, List<String> keys, boolean trees) {
+        List<String> sections = Lists.newArrayListWithCapacity(keys.size());
+        for (String key : keys) {
+            List<String> versions = Lists.newArrayList();
+            for (SectionedPage page : pages) {
+                if (page.sections.containsKey(key)) {
+                    versions.add(page.sections.get(key));
+                }
+            }
+            String section = versions.size() == 1 ? versions.get(0) : trees ? mergeTrees(versions) : mergeIndexPages(versions);
+            if (section == null) {
+                return null;
+            }
+            sections.add(section);
+        }
+        SectionedPage base = pages.get(0);
+        return base.prefix + Joiner.on('\n').join(sections) + base.suffix;
+    }
+
+    /**
+     * Combines sections holding a tree of classes into the first section.
+     */
+    @Nullable
+    private static String mergeTrees(List<String> sections) {
+        List<String> baseLines = null;
+        int baseStart = -1;
+        int baseEnd = -1;
+        List<List<TreeNode>> trees = Lists.newArrayList();
+        for (String section : sections) {
+            List<String> lines = lines(section);
+            int start = 0;
+            while (start < lines.size() && !lines.get(start).startsWith("<ul")) {
+                start++;
+            }
+            List<TreeNode> tree = Lists.newArrayList();
+            int end = start < lines.size() ? TreeNode.parseList(lines, start, tree) : -1;
+            if (end < 0) {
+                return null;
+            }
+            if (baseLines == null) {
+                baseLines = lines;
+                baseStart = start;
+                baseEnd = end;
+            }
+            trees.add(tree);
+        }
+        List<String> lines = Lists.newArrayList(baseLines.subList(0, baseStart + 1));
+        for (TreeNode node : TreeNode.merge(trees)) {
+            node.render(lines);
+        }
+        lines.addAll(baseLines.subList(baseEnd - 1, baseLines.size()));
+        return Joiner.on('\n').join(lines);
+    }
+
+    /**
+     * Replaces the first run of list items matching the given pattern with the items of all pages, in the given order of their keys or else sorted.
+     */
+    private static String mergeListItems(String merged, List<String> contents, Pattern item, @Nullable List<String> order, @Nullable String separator) {
+        Map<String, String> items = Maps.newHashMap();
+        for (String content : contents) {
+            for (String line : lines(content)) {
+                Matcher matcher = item.matcher(line);
+                if (matcher.matches() && !items.containsKey(matcher.group(1))) {
+                    items.put(matcher.group(1), line);
+                }
+            }
+        }
+        List<String> keys = Lists.newArrayList();
+        if (order != null) {
+            for (String key : order) {
+                if (items.containsKey(key)) {
+                    keys.add(key);
+                }
+            }
+        }
+        for (String key : IGNORING_CASE.sortedCopy(items.keySet())) {
+            if (!keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+
+        List<String> lines = Lists.newArrayList(lines(merged));
+        int start = 0;
+        while (start < lines.size() && !item.matcher(lines.get(start)).matches()) {
+            start++;
+        }
+        int end = start;
+        while (end < lines.size() && item.matcher(lines.get(end)).matches()) {
+            end++;
+        }
+        if (start == end) {
+            return merged;
+        }
+        List<String> mergedItems = Lists.newArrayListWithCapacity(keys.size());
+        for (String key : keys) {
+            String line = items.get(key);
+            if (separator != null) {
+                // Every item but the last one is followed by the separator
+                line = line.replace(separator + "</li>", "</li>");
+                if (mergedItems.size() < keys.size() - 1) {
+                    line = line.substring(0, line.length() - "</li>".length()) + separator + "</li>";
+                }
+            }
+            mergedItems.add(line);
+        }
+        lines.subList(start, end).clear();
+        lines.addAll(start, mergedItems);
+        return Joiner.on('\n').join(lines);
+    }
+
+    /**
+     * Appends the content of each page to the content of the first page.
+     *
+     * @return the merged page, or {@code null} when the content of one of the pages cannot be located.
+     */
+    @Nullable
+    private static String appendPageContents(List<String> contents) {
+        List<String> baseLines = lines(contents.get(0));
+        int[] baseRegion = contentRegion(baseLines);
+        if (baseRegion == null) {
+            return null;
+        }
+        List<String> lines = Lists.newArrayList(baseLines.subList(0, baseRegion[1]));
+        for (String content : contents.subList(1, contents.size())) {
+            List<String> pageLines = lines(content);
+            int[] region = contentRegion(pageLines);
+            if (region == null) {
+                return null;
+            }
+            lines.addAll(pageLines.subList(region[0], region[1]));
+        }
+        lines.addAll(baseLines.subList(baseRegion[1], baseLines.size()));
+        return Joiner.on('\n').join(lines);
+    }
+
+    /**
+     * Locates the content of a page between its navigation bars, as {@code [start, end)} line indexes.
+     */
+    @Nullable
+    private static int[] contentRegion(List<String> lines) {
+        int start = -1;
+        int end = -1;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.contains("<main")) {
+                start = i + 1;
+            } else if (line.contains("</main>")) {
+                end = i;
+                break;
+            } else if (start < 0 && line.contains("END OF TOP NAVBAR")) {
+                start = i + 1;
+            } else if (line.contains("START OF BOTTOM NAVBAR")) {
+                end = i;
+                break;
+            }
+        }
+        return start < 0 || end < start ? null : new int[]{start, end};
+    }
+
+    private static String mergeSearchIndexScripts(List<String> contents) {
+        String base = contents.get(0);
+        Set<String> items = Sets.newLinkedHashSet();
+        for (String content : contents) {
+            items.addAll(jsonArrayItems(content));
+        }
+        return base.substring(0, base.indexOf('[') + 1) + Joiner.on(',').join(items) + base.substring(base.lastIndexOf(']'));
+    }
+
+    private static void mergeSearchIndexArchives(List<File> versions, File target) throws IOException {
+        String entryName = null;
+        Set<String> items = Sets.newLinkedHashSet();
+        for (File version : versions) {
+            ZipFile zipFile = new ZipFile(version);
+            try {
+                ZipEntry entry = zipFile.entries().nextElement();
+                entryName = entry.getName();
+                InputStream inputStream = zipFile.getInputStream(entry);
+                try {
+                    items.addAll(jsonArrayItems(new String(ByteStreams.toByteArray(inputStream), Charsets.UTF_8)));
+                } finally {
+                    inputStream.close();
+                }
+            } finally {
+                zipFile.close();
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ZipOutputStream outputStream = new ZipOutputStream(bytes);
+        try {
+            outputStream.putNextEntry(new ZipEntry(entryName));
+            outputStream.write(("[" + Joiner.on(',').join(items) + "]").getBytes(Charsets.UTF_8));
+            outputStream.closeEntry();
+        } finally {
+            outputStream.close();
+        }
+        Files.write(bytes.toByteArray(), target);
+    }
+
+    /**
+     * Splits the outermost JSON array in the given text into its items, which are objects.
+     */
+    private static List<String> jsonArrayItems(String text) {
+        List<String> items = Lists.newArrayList();
+        int start = text.indexOf('[');
+        int end = text.lastIndexOf(']');
+        int depth = 0;
+        int itemStart = -1;
+        boolean inString = false;
+        for (int i = start + 1; i < end; i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                if (depth++ == 0) {
+                    itemStart = i;
+                }
+            } else if (c == '}' && --depth == 0) {
+                items.add(text.substring(itemStart, i + 1));
+            }
+        }
+        return items;
+    }
+
+    private static void copyMissing(File source, File target) {
+        if (source.isDirectory()) {
+            GFileUtils.mkdirs(target);
+            File[] children = source.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    copyMissing(child, new File(target, child.getName()));
+                }
+            }
+        } else if (!target.exists()) {
+            // Package pages belong to exactly one group, and the shared resources are the same in every group
+            GFileUtils.copyFile(source, target);
+        }
+    }
+
+    private static List<String> read(List<File> files) throws IOException {
+        List<String> contents = Lists.newArrayListWithCapacity(files.size());
+        for (File file : files) {
+            contents.add(Files.asCharSource(file, Charsets.ISO_8859_1).read());
+        }
+        return contents;
+    }
+
+    private static void write(String content, File target) throws IOException {
+        Files.asCharSink(target, Charsets.ISO_8859_1).write(content);
+    }
+
+    private static List<String> lines(String content) {
+        return Arrays.asList(content.split("\n", -1));
+    }
+
+    /**
+     * Returns the first group that matched.
+     */
+    private static String firstGroup(Matcher matcher) {
+        for (int i = 1; i <= matcher.groupCount(); i++) {
+            if (matcher.group(i) != null) {
+                return matcher.group(i);
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * A page whose content is a run of sections, such as the letters of the index.
+     */
+    private static class SectionedPage {
+        private final String prefix;
+        private final Map<String, String> sections;
+        private final String suffix;
+
+        private SectionedPage(String prefix, Map<String, String> sections, String suffix) {
+            this.prefix = prefix;
+            this.sections = sections;
+            this.suffix = suffix;
+        }
+
+        @Nullable
+        static List<SectionedPage> parseAll(List<String> contents, Pattern sectionStart, String element) {
+            List<SectionedPage> pages = Lists.newArrayListWithCapacity(contents.size());
+            for (String content : contents) {
+                SectionedPage page = parse(content, sectionStart, element);
+                if (page == null) {
+                    return null;
+                }
+                pages.add(page);
+            }
+            return pages;
+        }
+
+        /**
+         * Splits the page into sections, each of which is made up of a match of the given pattern followed by the given element.
+         */
+        @Nullable
+        static SectionedPage parse(String content, Pattern sectionStart, String element) {
+            Map<String, String> sections = Maps.newLinkedHashMap();
+            Matcher matcher = sectionStart.matcher(content);
+            int start = -1;
+            int end = -1;
+            while (matcher.find(Math.max(end, 0))) {
+                if (start < 0) {
+                    start = matcher.start();
+                } else if (content.substring(end, matcher.start()).trim().length() > 0) {
+                    // Something other than a section between two sections
+                    return null;
+                }
+                int sectionEnd = endOfElement(content, matcher.start(), element);
+                if (sectionEnd >= 0 && matcher.group().startsWith("<section")) {
+                    int sectionClose = content.indexOf("</section>", sectionEnd);
+                    sectionEnd = sectionClose < 0 ? -1 : sectionClose + "</section>".length();
+                }
+                String key = firstGroup(matcher);
+                if (sectionEnd < 0 || sections.containsKey(key)) {
+                    return null;
+                }
+                sections.put(key, content.substring(matcher.start(), sectionEnd));
+                end = sectionEnd;
+            }
+            if (sections.isEmpty()) {
+                return null;
+            }
+            return new SectionedPage(content.substring(0, start), sections, content.substring(end));
+        }
+
+        /**
+         * Returns the index after the end of the first element with the given tag at or after the given index, or -1 when it is not closed.
+         */
+        private static int endOfElement(String content, int start, String tag) {
+            Matcher matcher = Pattern.compile("<(/?)" + tag + "[\\s>]").matcher(content);
+            int depth = 0;
+            for (int index = start; matcher.find(index); index = matcher.end()) {
+                depth += matcher.group(1).isEmpty() ? 1 : -1;
+                if (depth == 0) {
+                    return matcher.end();
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * A class in a tree of classes, with the line that describes it and its subclasses.
+     */
+    private static class TreeNode {
+        private static final Comparator<TreeNode> BY_SIMPLE_NAME = new Comparator<TreeNode>() {
+            @Override
+            public int compare(TreeNode o1, TreeNode o2) {
+                int result = IGNORING_CASE.compare(o1.simpleName(), o2.simpleName());
+                return result == 0 ? o1.name().compareTo(o2.name()) : result;
+            }
+        };
+        private static final Pattern SIMPLE_NAME = Pattern.compile("^(?:[\\w$]+\\.)*([^\\s&]+)");
+
+        private final String head;
+        private final List<TreeNode> children = Lists.newArrayList();
+
+        private TreeNode(String head) {
+            this.head = head;
+        }
+
+        /**
+         * Parses the list items of the list starting at the given line.
+         *
+         * @return the index of the line after the end of the list, or -1 when the list is not made up of list items.
+         */
+        static int parseList(List<String> lines, int start, List<TreeNode> nodes) {
+            int next = start + 1;
+            while (next < lines.size() && !lines.get(next).equals("</ul>")) {
+                String line = lines.get(next++);
+                if (!line.startsWith("<li")) {
+                    return -1;
+                }
+                if (line.endsWith("</li>")) {
+                    nodes.add(new TreeNode(line.substring(0, line.length() - "</li>".length())));
+                    continue;
+                }
+                TreeNode node = new TreeNode(line);
+                if (next < lines.size() && lines.get(next).startsWith("<ul")) {
+                    next = parseList(lines, next, node.children);
+                }
+                if (next < 0 || next >= lines.size() || !lines.get(next).equals("</li>")) {
+                    return -1;
+                }
+                nodes.add(node);
+                next++;
+            }
+            return next < lines.size() ? next + 1 : -1;
+        }
+
+        /**
+         * Combines the given trees, merging the classes with the same name.
+         */
+        static List<TreeNode> merge(List<List<TreeNode>> trees) {
+            Map<String, List<TreeNode>> byName = Maps.newLinkedHashMap();
+            for (List<TreeNode> tree : trees) {
+                for (TreeNode node : tree) {
+                    List<TreeNode> versions = byName.get(node.name());
+                    if (versions == null) {
+                        versions = Lists.newArrayList();
+                        byName.put(node.name(), versions);
+                    }
+                    versions.add(node);
+                }
+            }
+            List<TreeNode> merged = Lists.newArrayListWithCapacity(byName.size());
+            for (List<TreeNode> versions : byName.values()) {
+                // A class documented by another group is linked as an external class
+                TreeNode node = new TreeNode(versions.get(0).head);
+                List<List<TreeNode>> children = Lists.newArrayList();
+                for (TreeNode version : versions) {
+                    if (node.isExternal() && !version.isExternal()) {
+                        node = new TreeNode(version.head);
+                    }
+                    children.add(version.children);
+                }
+                node.children.addAll(merge(children));
+                merged.add(node);
+            }
+            Collections.sort(merged, BY_SIMPLE_NAME);
+            return merged;
+        }
+
+        private String name() {
+            return TAG.matcher(head).replaceAll("").trim();
+        }
+
+        private String simpleName() {
+            Matcher matcher = SIMPLE_NAME.matcher(name());
+            return matcher.find() ? matcher.group(1) : name();
+        }
+
+        private boolean isExternal() {
+            return head.contains("is-external=true") || head.contains("external-link");
+        }
+
+        void render(List<String> lines) {
+            if (children.isEmpty()) {
+                lines.add(head + "</li>");
+                return;
+            }
+            lines.add(head);
+            lines.add("<ul>");
+            for (TreeNode child : children) {
+                child.render(lines);
+            }
+            lines.add("</ul>");
+            lines.add("</li>");
+        }
+    }
+
+    /**
+     * A page whose content is a single run of index entries.
+     */
+    private static class IndexPage {
+        private final List<String> header;
+        private final List<IndexEntry> entries;
+        private final List<String> footer;
+
+        private IndexPage(List<String> header, List<IndexEntry> entries, List<String> footer) {
+            this.header = header;
+            this.entries = entries;
+            this.footer = footer;
+        }
+
+        @Nullable
+        static IndexPage parse(List<String> lines) {
+            int[] region = contentRegion(lines);
+            int start = region == null ? 0 : region[0];
+            int end = region == null ? lines.size() : region[1];
+            Map<String, String> rowTypes = Maps.newHashMap();
+            for (String line : lines.subList(0, start)) {
+                Matcher types = ROW_TYPES.matcher(line);
+                if (types.matches()) {
+                    Matcher type = ROW_TYPE.matcher(types.group(1));
+                    while (type.find()) {
+                        rowTypes.put(type.group(1), type.group(2));
+                    }
+                }
+            }
+
+            int first = start;
+            while (first < end && !ENTRY_START.matcher(lines.get(first)).find()) {
+                first++;
+            }
+            List<IndexEntry> entries = Lists.newArrayList();
+            int next = first;
+            while (next < end) {
+                Matcher entryStart = ENTRY_START.matcher(lines.get(next));
+                Matcher cellStart = CELL_START.matcher(lines.get(next));
+                boolean newEntry = entryStart.find();
+                if (!newEntry && (entries.isEmpty() || !cellStart.find())) {
+                    break;
+                }
+                int entryEnd = endOfElement(lines, next, end, firstGroup(newEntry ? entryStart : cellStart));
+                if (entryEnd < 0) {
+                    return null;
+                }
+                List<String> entryLines = lines.subList(next, entryEnd);
+                if (newEntry) {
+                    Matcher link = LINK.matcher(Joiner.on('\n').join(entryLines));
+                    if (!link.find()) {
+                        return null;
+                    }
+                    Matcher id = ROW_ID.matcher(entryLines.get(0));
+                    String rowType = id.find() ? rowTypes.get(id.group(1)) : null;
+                    entries.add(new IndexEntry(Lists.newArrayList(entryLines), TAG.matcher(link.group(2)).replaceAll(""), link.group(1), rowType));
+                } else {
+                    entries.get(entries.size() - 1).lines.addAll(entryLines);
+                }
+                next = entryEnd;
+            }
+            if (entries.isEmpty()) {
+                return null;
+            }
+            for (int i = next; i < end; i++) {
+                if (ENTRY_START.matcher(lines.get(i)).find() || CELL_START.matcher(lines.get(i)).find()) {
+                    // More than one list of entries, for example the package groups of an overview
+                    return null;
+                }
+            }
+            return new IndexPage(lines.subList(0, first), entries, lines.subList(next, lines.size()));
+        }
+
+        /**
+         * Returns the index of the line after the one that closes the element starting at the given line, or -1 when it is not closed before the end.
+         */
+        private static int endOfElement(List<String> lines, int start, int end, String tag) {
+            Pattern open = Pattern.compile("<" + tag + "[\\s>]");
+            String close = "</" + tag + ">";
+            int depth = 0;
+            for (int i = start; i < end; i++) {
+                String line = lines.get(i);
+                Matcher matcher = open.matcher(line);
+                while (matcher.find()) {
+                    depth++;
+                }
+                for (int index = line.indexOf(close); index >= 0; index = line.indexOf(close, index + 1)) {
+                    depth--;
+                }
+                if (depth <= 0) {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static class IndexEntry {
+        private final List<String> lines;
+        private final String label;
+        private final String href;
+        private final String rowType;
+
+        private IndexEntry(List<String> lines, String label, String href, @Nullable String rowType) {
+            this.lines = lines;
+            this.label = label;
+            this.href = href;
+            this.rowType = rowType;
+        }
+    }
+}
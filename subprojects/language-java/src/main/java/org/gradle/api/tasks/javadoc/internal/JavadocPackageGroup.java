@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.tasks.javadoc.internal;
+
+import com.google.common.collect.Lists;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * A set of packages that is documented by its own javadoc invocation, so that several groups can be documented concurrently.
+ *
+ * <p>Each group is generated into its own directory, and links to the packages of the other groups with {@code -linkoffline}, relative to the root of the
+ * combined documentation. The package lists for those links are known up front, so the groups do not have to wait for each other. Once all groups are done,
+ * {@link JavadocOutputMerger} combines them into a single documentation tree.</p>
+ */
+public class JavadocPackageGroup {
+    /**
+     * The smallest number of packages in a group, so that javadoc generates the package overview pages for every group.
+     */
+    public static final int MIN_PACKAGES_PER_GROUP = 2;
+
+    private static final Comparator<Map.Entry<String, List<File>>> BY_PACKAGE_NAME = new Comparator<Map.Entry<String, List<File>>>() {
+        @Override
+        public int compare(Map.Entry<String, List<File>> o1, Map.Entry<String, List<File>> o2) {
+            return o1.getKey().compareTo(o2.getKey());
+        }
+    };
+    private static final Comparator<Map.Entry<String, List<File>>> LARGEST_FIRST = new Comparator<Map.Entry<String, List<File>>>() {
+        @Override
+        public int compare(Map.Entry<String, List<File>> o1, Map.Entry<String, List<File>> o2) {
+            int result = o2.getValue().size() - o1.getValue().size();
+            return result == 0 ? BY_PACKAGE_NAME.compare(o1, o2) : result;
+        }
+    };
+
+    private final String name;
+    private final List<String> packages = Lists.newArrayList();
+    private final List<String> sourceNames = Lists.newArrayList();
+
+    private JavadocPackageGroup(String name) {
+        this.name = name;
+    }
+
+    /**
+     * The name of the group, which is also the name of the directory it is generated into.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getPackages() {
+        return packages;
+    }
+
+    public List<String> getSourceNames() {
+        return sourceNames;
+    }
+
+    /**
+     * Splits the given packages into at most the given number of groups, so that the groups have about the same number of source files. Each group has at
+     * least {@link #MIN_PACKAGES_PER_GROUP} packages, unless there are fewer packages than that. Packages with the same number of source files are assigned
+     * in the order of their names, so the same packages always end up in the same groups.
+     *
+     * @param sourcesByPackage the source files of each package, sorted by package name.
+     */
+    public static List<JavadocPackageGroup> partition(SortedMap<String, List<File>> sourcesByPackage, int maxGroups) {
+        int groupCount = Math.max(1, Math.min(maxGroups, sourcesByPackage.size() / MIN_PACKAGES_PER_GROUP));
+        List<List<Map.Entry<String, List<File>>>> assignments = Lists.newArrayListWithCapacity(groupCount);
+        int[] sourceCounts = new int[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            assignments.add(Lists.<Map.Entry<String, List<File>>>newArrayList());
+        }
+
+        // The largest packages are assigned first, each to the group with the fewest source files so far, so that the smaller packages even out the groups
+        List<Map.Entry<String, List<File>>> packages = Lists.newArrayList(sourcesByPackage.entrySet());
+        Collections.sort(packages, LARGEST_FIRST);
+        for (Map.Entry<String, List<File>> entry : packages) {
+            int smallest = 0;
+            for (int i = 1; i < groupCount; i++) {
+                if (sourceCounts[i] < sourceCounts[smallest]
+                    || (sourceCounts[i] == sourceCounts[smallest] && assignments.get(i).size() < assignments.get(smallest).size())) {
+                    smallest = i;
+                }
+            }
+            assignments.get(smallest).add(entry);
+            sourceCounts[smallest] += entry.getValue().size();
+        }
+
+        // A group that got a single large package takes the smallest packages of the groups with the most packages
+        for (List<Map.Entry<String, List<File>>> assignment : assignments) {
+            while (assignment.size() < MIN_PACKAGES_PER_GROUP) {
+                List<Map.Entry<String, List<File>>> largest = assignments.get(0);
+                for (List<Map.Entry<String, List<File>>> candidate : assignments) {
+                    if (candidate.size() > largest.size()) {
+                        largest = candidate;
+                    }
+                }
+                if (largest.size() <= MIN_PACKAGES_PER_GROUP) {
+                    break;
+                }
+                assignment.add(largest.remove(largest.size() - 1));
+            }
+        }
+
+        List<JavadocPackageGroup> groups = Lists.newArrayListWithCapacity(groupCount);
+        for (List<Map.Entry<String, List<File>>> assignment : assignments) {
+            Collections.sort(assignment, BY_PACKAGE_NAME);
+            JavadocPackageGroup group = new JavadocPackageGroup("group-" + (groups.size() + 1));
+            for (Map.Entry<String, List<File>> entry : assignment) {
+                group.add(entry.getKey(), entry.getValue());
+            }
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    private void add(String packageName, List<File> sources) {
+        packages.add(packageName);
+        for (File source : sources) {
+            sourceNames.add(source.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Writes the list of packages in this group to the given directory, for the other groups to link against.
+     */
+    public void writePackageList(File dir) {
+        StringBuilder packageList = new StringBuilder();
+        for (String packageName : packages) {
+            // The unnamed package cannot be linked to
+            if (packageName.length() > 0) {
+                packageList.append(packageName).append('\n');
+            }
+        }
+        GFileUtils.mkdirs(dir);
+        // Older javadoc versions read the package list, newer ones the element list
+        GFileUtils.writeFile(packageList.toString(), new File(dir, "package-list"));
+        GFileUtils.writeFile(packageList.toString(), new File(dir, "element-list"));
+    }
+}
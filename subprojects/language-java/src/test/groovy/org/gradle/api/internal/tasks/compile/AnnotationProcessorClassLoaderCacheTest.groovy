@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class AnnotationProcessorClassLoaderCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def cache = new AnnotationProcessorClassLoaderCache(2)
+    def parent = Stub(ClassLoader)
+    def processorJar = tmpDir.file("processor.jar").touch()
+
+    def "hands out a released class loader for the same processor path"() {
+        def classLoader = Mock(URLClassLoader)
+        def key = AnnotationProcessorClassLoaderCache.keyFor(parent, [processorJar])
+
+        when:
+        cache.release(key, classLoader)
+
+        then:
+        cache.acquire(AnnotationProcessorClassLoaderCache.keyFor(parent, [processorJar])).is(classLoader)
+        cache.acquire(key) == null
+        0 * classLoader._
+    }
+
+    def "does not hand out a class loader for a different parent"() {
+        cache.release(AnnotationProcessorClassLoaderCache.keyFor(parent, [processorJar]), Mock(URLClassLoader))
+
+        expect:
+        cache.acquire(AnnotationProcessorClassLoaderCache.keyFor(Stub(ClassLoader), [processorJar])) == null
+    }
+
+    def "does not hand out a class loader once a jar on the processor path has changed"() {
+        cache.release(AnnotationProcessorClassLoaderCache.keyFor(parent, [processorJar]), Mock(URLClassLoader))
+
+        when:
+        processorJar.text = "changed"
+
+        then:
+        cache.acquire(AnnotationProcessorClassLoaderCache.keyFor(parent, [processorJar])) == null
+    }
+
+    def "hands out a class loader when a jar on the processor path is rewritten with the same content"() {
+        def classLoader = Mock(URLClassLoader)
+        cache.release(AnnotationProcessorClassLoaderCache.keyFor(parent, [processorJar]), classLoader)
+
+        when:
+        processorJar.lastModified = processorJar.lastModified() + 10000
+
+        then:
+        cache.acquire(AnnotationProcessorClassLoaderCache.keyFor(parent, [processorJar])).is(classLoader)
+    }
+
+    def "does not reuse class loaders for processor paths containing directories"() {
+        expect:
+        AnnotationProcessorClassLoaderCache.keyFor(parent, [processorJar, tmpDir.file("classes").createDir()]) == null
+    }
+
+    def "closes the least recently used class loaders beyond the limit"() {
+        def classLoader1 = Mock(URLClassLoader)
+        def classLoader2 = Mock(URLClassLoader)
+        def classLoader3 = Mock(URLClassLoader)
+
+        when:
+        cache.release(AnnotationProcessorClassLoaderCache.keyFor(parent, [tmpDir.file("a.jar").touch()]), classLoader1)
+        cache.release(AnnotationProcessorClassLoaderCache.keyFor(parent, [tmpDir.file("b.jar").touch()]), classLoader2)
+        cache.release(AnnotationProcessorClassLoaderCache.keyFor(parent, [tmpDir.file("c.jar").touch()]), classLoader3)
+
+        then:
+        1 * classLoader1.close()
+        0 * classLoader2.close()
+        0 * classLoader3.close()
+    }
+
+    def "closes idle class loaders"() {
+        def classLoader = Mock(URLClassLoader)
+        cache.release(AnnotationProcessorClassLoaderCache.keyFor(parent, [processorJar]), classLoader)
+
+        when:
+        cache.closeIdle()
+
+        then:
+        1 * classLoader.close()
+        cache.acquire(AnnotationProcessorClassLoaderCache.keyFor(parent, [processorJar])) == null
+    }
+}
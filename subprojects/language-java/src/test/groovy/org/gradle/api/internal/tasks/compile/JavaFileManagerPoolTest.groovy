@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+import java.nio.charset.Charset
+import java.util.jar.JarEntry
+import java.util.jar.JarOutputStream
+
+class JavaFileManagerPoolTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def pool = new JavaFileManagerPool(2)
+    def compiler = Stub(JavaCompiler)
+    def jar = tmpDir.file("lib.jar").touch()
+    def classesDir = tmpDir.file("classes").createDir()
+    def options = ["-d", "out", "-classpath", jar.absolutePath]
+
+    def "hands out a released file manager for the same compilation"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def key = JavaFileManagerPool.keyFor(compiler, null, options, [jar, classesDir])
+
+        when:
+        pool.release(key, fileManager)
+
+        then:
+        pool.acquire(JavaFileManagerPool.keyFor(compiler, null, options, [jar, classesDir])).is(fileManager)
+        pool.acquire(key) == null
+        0 * fileManager._
+    }
+
+    def "does not hand out a file manager for different arguments or encoding"() {
+        def key = JavaFileManagerPool.keyFor(compiler, null, options, [jar])
+        pool.release(key, Mock(StandardJavaFileManager))
+
+        expect:
+        pool.acquire(JavaFileManagerPool.keyFor(compiler, null, options + ["-g"], [jar])) == null
+        pool.acquire(JavaFileManagerPool.keyFor(compiler, Charset.forName("UTF-8"), options, [jar])) == null
+    }
+
+    def "does not hand out a file manager once a jar on the classpath has changed"() {
+        def key = JavaFileManagerPool.keyFor(compiler, null, options, [jar])
+        pool.release(key, Mock(StandardJavaFileManager))
+
+        when:
+        jar.text = "changed"
+
+        then:
+        pool.acquire(JavaFileManagerPool.keyFor(compiler, null, options, [jar])) == null
+    }
+
+    def "does not hand out a file manager once an entry of a jar on the classpath has changed, even when the jar has the same length and timestamp"() {
+        def lib = tmpDir.file("lib-1.0.jar")
+        writeJar(lib, "a")
+        def lastModified = lib.lastModified()
+        def length = lib.length()
+        def key = JavaFileManagerPool.keyFor(compiler, null, options, [lib])
+        pool.release(key, Mock(StandardJavaFileManager))
+
+        when:
+        writeJar(lib, "b")
+        lib.setLastModified(lastModified)
+
+        then:
+        lib.length() == length
+        pool.acquire(JavaFileManagerPool.keyFor(compiler, null, options, [lib])) == null
+    }
+
+    def "hands out the file manager when a jar on the classpath is rewritten with the same content"() {
+        def lib = tmpDir.file("lib-1.0.jar")
+        writeJar(lib, "a")
+        def fileManager = Mock(StandardJavaFileManager)
+        pool.release(JavaFileManagerPool.keyFor(compiler, null, options, [lib]), fileManager)
+
+        when:
+        writeJar(lib, "a")
+        lib.setLastModified(lib.lastModified() + 2000)
+
+        then:
+        pool.acquire(JavaFileManagerPool.keyFor(compiler, null, options, [lib])).is(fileManager)
+    }
+
+    def "closes idle file managers"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def key = JavaFileManagerPool.keyFor(compiler, null, options, [jar])
+        pool.release(key, fileManager)
+
+        when:
+        pool.closeIdle()
+
+        then:
+        1 * fileManager.close()
+        pool.acquire(key) == null
+    }
+
+    def "changes to classpath directories do not invalidate the file manager"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        pool.release(JavaFileManagerPool.keyFor(compiler, null, options, [classesDir]), fileManager)
+
+        when:
+        classesDir.file("Foo.class").text = "changed"
+
+        then:
+        pool.acquire(JavaFileManagerPool.keyFor(compiler, null, options, [classesDir])).is(fileManager)
+    }
+
+    def "closes the least recently used file managers beyond the limit"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+        def fileManager3 = Mock(StandardJavaFileManager)
+
+        when:
+        pool.release(JavaFileManagerPool.keyFor(compiler, null, ["-g:none"], []), fileManager1)
+        pool.release(JavaFileManagerPool.keyFor(compiler, null, ["-g:lines"], []), fileManager2)
+        pool.release(JavaFileManagerPool.keyFor(compiler, null, ["-g"], []), fileManager3)
+
+        then:
+        1 * fileManager1.close()
+        0 * fileManager2.close()
+        0 * fileManager3.close()
+    }
+
+    private static void writeJar(File file, String content) {
+        def output = new JarOutputStream(new FileOutputStream(file))
+        try {
+            output.putNextEntry(new JarEntry("Foo.class"))
+            output.write(content.bytes)
+            output.closeEntry()
+        } finally {
+            output.close()
+        }
+    }
+}
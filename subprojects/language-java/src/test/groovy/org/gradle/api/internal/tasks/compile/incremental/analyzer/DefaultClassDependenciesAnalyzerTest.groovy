@@ -33,6 +33,7 @@ import org.gradle.api.internal.tasks.compile.incremental.test.SomeClass
 import org.gradle.api.internal.tasks.compile.incremental.test.SomeOtherClass
 import org.gradle.api.internal.tasks.compile.incremental.test.UsedByNonPrivateConstantsClass
 import org.gradle.api.internal.tasks.compile.incremental.test.YetAnotherClass
+import org.gradle.internal.hash.HashCode
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -104,6 +105,17 @@ class DefaultClassDependenciesAnalyzerTest extends Specification {
         analyze(SomeSourceAnnotation).dependencyToAll
     }
 
+    def "analyzes a class file that has already been read"() {
+        def content = classStream(SomeOtherClass).bytes
+
+        when:
+        def analysis = analyzer.getClassAnalysis(HashCode.fromInt(123), content)
+
+        then:
+        analysis.className == SomeOtherClass.name
+        analysis.classDependencies == [YetAnotherClass.name, SomeClass.name] as Set
+    }
+
     InputStream classStream(Class aClass) {
         aClass.classLoader.getResourceAsStream(aClass.getName().replace(".", "/") + ".class")
     }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.classpath
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.changedetection.state.ClassAbiHashCache
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.serialize.HashCodeSerializer
+import org.gradle.internal.snapshot.WellKnownFileLocations
+import org.gradle.internal.snapshot.impl.DefaultFileSystemMirror
+import org.gradle.internal.snapshot.impl.DefaultFileSystemSnapshotter
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.testfixtures.internal.InMemoryIndexedCache
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+@UsesNativeServices
+class ClassAbiManifestStoreTest extends Specification {
+
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+
+    def fileSystemMirror = new DefaultFileSystemMirror(Stub(WellKnownFileLocations))
+    def fileSystemSnapshotter = new DefaultFileSystemSnapshotter(TestFiles.fileHasher(), new StringInterner(), TestFiles.fileSystem(), fileSystemMirror)
+    def abiHashCache = new ClassAbiHashCache(new InMemoryIndexedCache<HashCode, HashCode>(new HashCodeSerializer()))
+    def store = new ClassAbiManifestStore(fileSystemSnapshotter, abiHashCache, new StringInterner(), true)
+    def classesDir = temp.file("classes/java/main")
+
+    def "publishes the ABI hash of each class in a classes directory"() {
+        classesDir.file("org/Foo.class").bytes = classBytes("org/Foo", "implementation")
+        classesDir.file("Bar.class").bytes = classBytes("Bar", "implementation")
+        classesDir.file("org/app.properties").text = "foo"
+
+        when:
+        store.publish(classesDir)
+        def abiHashes = store.read(classesDir, directoryHash())
+
+        then:
+        temp.file("classes/java/main.abi").file
+        abiHashes.keySet() == ["org.Foo", "Bar"] as Set
+    }
+
+    def "ABI hash does not change when only the implementation of a class changes"() {
+        def classFile = classesDir.file("org/Foo.class")
+        classFile.bytes = classBytes("org/Foo", "implementation")
+        store.publish(classesDir)
+        def before = store.read(classesDir, directoryHash())
+
+        when:
+        classFile.bytes = classBytes("org/Foo", "other implementation")
+        fileSystemMirror.beforeOutputChange()
+        store.publish(classesDir)
+        def after = store.read(classesDir, directoryHash())
+
+        then:
+        after == before
+    }
+
+    def "ignores a manifest that does not describe the current contents of the directory"() {
+        classesDir.file("org/Foo.class").bytes = classBytes("org/Foo", "implementation")
+        store.publish(classesDir)
+
+        expect:
+        store.read(classesDir, HashCode.fromInt(123)) == null
+        store.read(temp.file("classes/java/test"), HashCode.fromInt(123)) == null
+    }
+
+    def "does nothing when disabled"() {
+        def disabledStore = new ClassAbiManifestStore(fileSystemSnapshotter, abiHashCache, new StringInterner(), false)
+        classesDir.file("org/Foo.class").bytes = classBytes("org/Foo", "implementation")
+
+        when:
+        disabledStore.publish(classesDir)
+
+        then:
+        !temp.file("classes/java/main.abi").exists()
+        disabledStore.read(classesDir, directoryHash()) == null
+    }
+
+    private HashCode directoryHash() {
+        fileSystemSnapshotter.snapshot(classesDir).hash
+    }
+
+    private static byte[] classBytes(String internalName, String returnValue) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, internalName, null, "java/lang/Object", null)
+        MethodVisitor publicMethod = writer.visitMethod(Opcodes.ACC_PUBLIC, "foo", "()Ljava/lang/String;", null, null)
+        publicMethod.visitCode()
+        publicMethod.visitLdcInsn(returnValue)
+        publicMethod.visitInsn(Opcodes.ARETURN)
+        publicMethod.visitMaxs(1, 1)
+        publicMethod.visitEnd()
+        writer.visitEnd()
+        writer.toByteArray()
+    }
+}
@@ -18,12 +18,15 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.classpath
 
+import it.unimi.dsi.fastutil.ints.IntSets
 import org.gradle.api.file.ConfigurableFileTree
 import org.gradle.api.file.FileVisitor
+import org.gradle.api.internal.changedetection.state.JarEntryHashingExecutor
 import org.gradle.api.internal.file.DefaultFileVisitDetails
 import org.gradle.api.internal.file.FileOperations
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.hash.FileHasher
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.hash.StreamHasher
@@ -33,6 +36,9 @@ import org.junit.Rule
 import spock.lang.Specification
 import spock.lang.Subject
 
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
 @UsesNativeServices
 class DefaultClasspathEntrySnapshotterTest extends Specification {
 
@@ -42,7 +48,12 @@ class DefaultClasspathEntrySnapshotterTest extends Specification {
     def streamHasher = Mock(StreamHasher)
     def classDependenciesAnalyzer = Mock(ClassDependenciesAnalyzer)
     def fileOperations = Mock(FileOperations)
-    @Subject snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, classDependenciesAnalyzer, fileOperations)
+    def executor = new JarEntryHashingExecutor(new DefaultExecutorFactory(), 1)
+    @Subject snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, classDependenciesAnalyzer, fileOperations, executor)
+
+    def cleanup() {
+        executor.stop()
+    }
 
     def "creates snapshot for an empty entry"() {
         expect:
@@ -87,4 +98,101 @@ class DefaultClasspathEntrySnapshotterTest extends Specification {
         snapshot.hashes == ["Foo": f1Hash, "com.Foo2": f2Hash]
         snapshot.classAnalysis
     }
+
+    def "records the published ABI hash instead of the content hash of a class"() {
+        def f1 = temp.createFile("foo/Foo.class")
+        def f2 = temp.createFile("foo/Bar.class")
+        def entry = temp.file("foo")
+        def f1Details = new DefaultFileVisitDetails(f1, null, null)
+        def f2Details = new DefaultFileVisitDetails(f2, null, null)
+        def fileTree = Mock(ConfigurableFileTree)
+        fileOperations.fileTree(entry) >> fileTree
+        fileTree.visit(_) >> { FileVisitor visitor ->
+            visitor.visitFile(f1Details)
+            visitor.visitFile(f2Details)
+        }
+        fileHasher.hash(f1Details) >> HashCode.fromInt(1)
+        fileHasher.hash(f2Details) >> HashCode.fromInt(2)
+        classDependenciesAnalyzer.getClassAnalysis(HashCode.fromInt(1), f1Details) >> analysis("Foo.class")
+        classDependenciesAnalyzer.getClassAnalysis(HashCode.fromInt(2), f2Details) >> analysis("Bar.class")
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), entry, ["Foo": HashCode.fromInt(11)])
+
+        then:
+        snapshot.hashes == ["Foo": HashCode.fromInt(11), "Bar": HashCode.fromInt(2)]
+    }
+
+    def "creates snapshot of a jar by reading each class once"() {
+        def jar = jar(temp.file("foo.jar"), ["Foo.class": "foo", "com/Foo2.class": "foo2", "com/app.properties": "props"])
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), jar)
+
+        then:
+        2 * streamHasher.hash(_) >> { InputStream input -> HashCode.fromInt(input.text.hashCode()) }
+        1 * classDependenciesAnalyzer.getClassAnalysis(HashCode.fromInt("foo".hashCode()), "foo".bytes) >> analysis("Foo.class")
+        1 * classDependenciesAnalyzer.getClassAnalysis(HashCode.fromInt("foo2".hashCode()), "foo2".bytes) >> analysis("com/Foo2.class")
+        0 * _._
+
+        and:
+        snapshot.hashes == ["Foo": HashCode.fromInt("foo".hashCode()), "com.Foo2": HashCode.fromInt("foo2".hashCode())]
+        !snapshot.classAnalysis.getRelevantDependents("Foo", IntSets.EMPTY_SET).dependencyToAll
+    }
+
+    def "analyzes the classes of a large jar concurrently"() {
+        def parallelExecutor = new JarEntryHashingExecutor(new DefaultExecutorFactory(), 4)
+        def parallelSnapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, classDependenciesAnalyzer, fileOperations, parallelExecutor)
+        def classCount = DefaultClasspathEntrySnapshotter.PARALLEL_ANALYSIS_THRESHOLD * 2
+        def entries = (0..<classCount).collectEntries { ["org/Foo${it}.class", "foo${it}"] }
+        def jar = jar(temp.file("foo.jar"), entries)
+        streamHasher.hash(_) >> { InputStream input -> HashCode.fromInt(input.text.hashCode()) }
+        classDependenciesAnalyzer.getClassAnalysis(_ as HashCode, _ as byte[]) >> { HashCode hash, byte[] classFile -> analysis("org/${new String(classFile).capitalize()}.class") }
+
+        when:
+        def snapshot = parallelSnapshotter.createSnapshot(HashCode.fromInt(123), jar)
+
+        then:
+        snapshot.hashes.size() == classCount
+        snapshot.hashes["org.Foo7"] == HashCode.fromInt("foo7".hashCode())
+
+        cleanup:
+        parallelExecutor.stop()
+    }
+
+    def "requires a full rebuild when a class in a jar cannot be analyzed"() {
+        def jar = jar(temp.file("foo.jar"), ["Foo.class": "foo", "Bar.class": "bar"])
+        streamHasher.hash(_) >> { InputStream input -> HashCode.fromInt(input.text.hashCode()) }
+        classDependenciesAnalyzer.getClassAnalysis(_ as HashCode, _ as byte[]) >> { HashCode hash, byte[] classFile ->
+            if (new String(classFile) == "bar") {
+                throw new RuntimeException("broken")
+            }
+            analysis("Foo.class")
+        }
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), jar)
+
+        then:
+        snapshot.hashes.keySet() == ["Foo"] as Set
+        snapshot.classAnalysis.getRelevantDependents("Foo", IntSets.EMPTY_SET).dependencyToAll
+    }
+
+    private static ClassAnalysis analysis(String path) {
+        new ClassAnalysis(path.replace('/', '.') - '.class', [] as Set, false, IntSets.EMPTY_SET, [] as Set)
+    }
+
+    private static File jar(File file, Map<String, String> entries) {
+        def output = new ZipOutputStream(new FileOutputStream(file))
+        try {
+            output.putNextEntry(new ZipEntry("com/"))
+            entries.each { name, content ->
+                output.putNextEntry(new ZipEntry(name))
+                output.write(content.bytes)
+            }
+        } finally {
+            output.close()
+        }
+        file
+    }
 }
@@ -37,7 +37,7 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
             ["A": dependents("B", "C"), "B": dependents("C"), "C": dependents(), "D": dependencyToAll(),],
             [C: new IntOpenHashSet([1, 2]) as IntSet, D: IntSets.EMPTY_SET]
             ,
-            ['A': ['SA'] as Set, B: ['SB1', 'SB2'] as Set], "Because"
+            ['A': ['SA'] as Set, B: ['SB1', 'SB2'] as Set], null
         )
         def os = new ByteArrayOutputStream()
         def e = new OutputStreamBackedEncoder(os)
@@ -47,16 +47,46 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
         ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
 
         then:
-        read.dependents.keySet() == data.dependents.keySet()
-
         ["A", "B", "C"].each {
-            assert read.dependents[it].dependentClasses == data.dependents[it].dependentClasses
-            assert read.dependents[it].dependencyToAll == data.dependents[it].dependencyToAll
+            assert read.getDependents(it).dependentClasses == data.getDependents(it).dependentClasses
+            assert read.getDependents(it).dependencyToAll == data.getDependents(it).dependencyToAll
         }
 
-        read.dependents["D"].dependencyToAll
-        read.classesToConstants == [C: [1,2] as Set, D: [] as Set]
-        read.classesToChildren == ['A': ['SA'] as Set, B: ['SB1', 'SB2'] as Set]
-        read.fullRebuildCause == "Because"
+        read.getDependents("D").dependencyToAll
+        read.getConstants("C") == [1, 2] as Set
+        read.getConstants("D").empty
+        read.getChildren("A") == ['SA'] as Set
+        read.getChildren("B") == ['SB1', 'SB2'] as Set
+        read.getChildren("C").empty
+        read.getDependents("unknown").dependentClasses.empty
+    }
+
+    def "serializes full rebuild cause"() {
+        def data = new ClassSetAnalysisData(["A", "B"] as Set, ["A": dependents("B")], [:], [:], "Because")
+
+        when:
+        def read = roundTrip(data)
+
+        then:
+        read.getDependents("A").dependencyToAll
+        read.getDependents("A").description == "Because"
+    }
+
+    def "serializes dependency to all reasons and package-info dependents"() {
+        def data = new ClassSetAnalysisData(["a.A", "a.B", "b.C"] as Set, ["a.A": dependencyToAll("A reason"), "b.C": dependents("a.A", "x.Unknown")], [:], [:], null)
+
+        when:
+        def read = roundTrip(data)
+
+        then:
+        read.getDependents("a.A").description == "A reason"
+        read.getDependents("b.C").dependentClasses == ["a.A", "x.Unknown"] as Set
+        read.getDependents("a.package-info").dependentClasses == ["a.A", "a.B"] as Set
+    }
+
+    private ClassSetAnalysisData roundTrip(ClassSetAnalysisData data) {
+        def os = new ByteArrayOutputStream()
+        serializer.write(new OutputStreamBackedEncoder(os), data)
+        return serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
     }
 }
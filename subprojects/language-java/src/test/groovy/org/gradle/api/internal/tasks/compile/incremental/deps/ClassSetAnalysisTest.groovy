@@ -126,6 +126,29 @@ class ClassSetAnalysisTest extends Specification {
         deps.dependentClasses == ["c", "d"] as Set
     }
 
+    def "recurses into the classes of a package through package-info"() {
+        def a = analysis([
+            "a.A": dependents("b.package-info"),
+            "b.B": dependents("c.C"),
+            "b.package-info": dependents(),
+            "c.C": dependents(),
+        ])
+        def deps = a.getRelevantDependents("a.A", IntSets.EMPTY_SET)
+
+        expect:
+        deps.dependentClasses == ["b.package-info", "b.B", "c.C"] as Set
+    }
+
+    def "recurses through long dependency chains"() {
+        def chain = (0..<10000).collectEntries { ["C${it}".toString(), dependents("C${it + 1}".toString())] }
+        def a = analysis(chain)
+        def deps = a.getRelevantDependents("C0", IntSets.EMPTY_SET)
+
+        expect:
+        deps.dependentClasses.size() == 10000
+        deps.dependentClasses.contains("C10000")
+    }
+
     def "handles cycles with inner classes"() {
         def a = analysis([
             "a": dependents('a$b'),
@@ -18,6 +18,7 @@ package org.gradle.api.tasks.javadoc
 
 import org.apache.commons.io.FileUtils
 import org.gradle.api.internal.file.collections.ImmutableFileCollection
+import org.gradle.api.tasks.javadoc.internal.JavadocSpec
 import org.gradle.jvm.internal.toolchain.JavaToolChainInternal
 import org.gradle.language.base.internal.compile.Compiler
 import org.gradle.platform.base.internal.toolchain.ToolProvider
@@ -72,4 +73,56 @@ class JavadocTest extends AbstractProjectBuilderSpec {
         1 * toolProvider.newCompiler(!null) >> generator
         1 * generator.execute(_)
     }
+
+    def executionInPackageGroups() {
+        FileUtils.touch(new File(srcDir, "org/a/A.java"))
+        FileUtils.touch(new File(srcDir, "org/b/B.java"))
+        FileUtils.touch(new File(srcDir, "org/c/C.java"))
+        def specs = Collections.synchronizedList([])
+
+        when:
+        task.setDestinationDir(destDir)
+        task.source(srcDir)
+        task.setPackageGroups(2)
+
+        and:
+        execute(task)
+
+        then:
+        1 * toolChain.select(_) >> toolProvider
+        1 * toolProvider.newCompiler(!null) >> generator
+        2 * generator.execute(_) >> { JavadocSpec spec -> specs << spec }
+
+        and:
+        def groupsDir = new File(task.temporaryDir, "package-groups")
+        specs*.options*.destinationDirectory as Set == [new File(groupsDir, "group-1"), new File(groupsDir, "group-2")] as Set
+        specs.every { it.options.linksOffline*.extDocUrl == ["."] && it.options.classpath.contains(srcDir) && !it.options.splitIndex }
+        specs*.options*.sourceNames.flatten().size() == 4
+    }
+
+    def "documents all packages together when there are too few packages for more than one group"() {
+        FileUtils.touch(new File(srcDir, "org/a/A.java"))
+        FileUtils.touch(new File(srcDir, "org/b/B.java"))
+
+        when:
+        task.setDestinationDir(destDir)
+        task.source(srcDir)
+        task.setPackageGroups(2)
+
+        and:
+        execute(task)
+
+        then:
+        1 * toolChain.select(_) >> toolProvider
+        1 * toolProvider.newCompiler(!null) >> generator
+        1 * generator.execute(_) >> { JavadocSpec spec -> assert spec.options.destinationDirectory == destDir }
+    }
+
+    def "package groups must be positive"() {
+        when:
+        task.setPackageGroups(0)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
 }
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.tasks.javadoc.internal
+
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class JavadocOutputMergerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def merger = new JavadocOutputMerger()
+    def group1 = tmpDir.createDir("group-1")
+    def group2 = tmpDir.createDir("group-2")
+    def destinationDir = tmpDir.createDir("docs")
+
+    def "copies the pages of each group to the destination directory"() {
+        group1.file("org/a/A.html").text = "A"
+        group1.file("stylesheet.css").text = "style"
+        group2.file("org/a/b/B.html").text = "B"
+        group2.file("stylesheet.css").text = "style"
+
+        when:
+        merge()
+
+        then:
+        destinationDir.file("org/a/A.html").text == "A"
+        destinationDir.file("org/a/b/B.html").text == "B"
+        destinationDir.file("stylesheet.css").text == "style"
+    }
+
+    def "merges the entries of the class index in order"() {
+        group1.file("allclasses-index.html").text = page("""var data = {"i0":2,"i1":1};""", """
+<tr id="i0" class="altColor">
+<td class="colFirst"><a href="org/a/A.html" title="class in org.a">A</a></td>
+</tr>
+<tr id="i1" class="rowColor">
+<td class="colFirst"><a href="org/c/C.html" title="interface in org.c">C</a></td>
+</tr>""")
+        group2.file("allclasses-index.html").text = page("""var data = {"i0":2};""", """
+<tr id="i0" class="altColor">
+<td class="colFirst"><a href="org/b/B.html" title="class in org.b">B</a></td>
+</tr>""")
+
+        when:
+        merge()
+
+        then:
+        destinationDir.file("allclasses-index.html").text == page("""var data = {"i0":2,"i1":2,"i2":1};""", """
+<tr id="i0" class="altColor">
+<td class="colFirst"><a href="org/a/A.html" title="class in org.a">A</a></td>
+</tr>
+<tr id="i1" class="rowColor">
+<td class="colFirst"><a href="org/b/B.html" title="class in org.b">B</a></td>
+</tr>
+<tr id="i2" class="altColor">
+<td class="colFirst"><a href="org/c/C.html" title="interface in org.c">C</a></td>
+</tr>""")
+    }
+
+    def "merges the rows of a grid with their descriptions"() {
+        group1.file("index.html").text = page("", """
+<div class="col-first even-row-color"><a href="org/b/package-summary.html">org.b</a></div>
+<div class="col-last even-row-color">
+<div class="block">Uses <a href="org/a/package-summary.html">org.a</a></div>
+</div>""")
+        group2.file("index.html").text = page("", """
+<div class="col-first even-row-color"><a href="org/a/package-summary.html">org.a</a></div>
+<div class="col-last even-row-color">&nbsp;</div>""")
+
+        when:
+        merge()
+
+        then:
+        destinationDir.file("index.html").text == page("", """
+<div class="col-first even-row-color"><a href="org/a/package-summary.html">org.a</a></div>
+<div class="col-last even-row-color">&nbsp;</div>
+<div class="col-first odd-row-color"><a href="org/b/package-summary.html">org.b</a></div>
+<div class="col-last odd-row-color">
+<div class="block">Uses <a href="org/a/package-summary.html">org.a</a></div>
+</div>""")
+    }
+
+    def "merges the tabs of the class index"() {
+        group1.file("allclasses-index.html").text = page("""var data = {"i0":2};
+var tabs = {65535:["t0","All Classes"],2:["t1","Class Summary"]};""", """
+<caption><span id="t0" class="activeTableTab"><span>All Classes</span><span class="tabEnd">&nbsp;</span></span><span id="t1" class="tableTab"><span><a href="javascript:show(2);">Class Summary</a></span><span class="tabEnd">&nbsp;</span></span></caption>
+<tr id="i0" class="altColor">
+<td class="colFirst"><a href="org/a/A.html" title="class in org.a">A</a></td>
+</tr>""")
+        group2.file("allclasses-index.html").text = page("""var data = {"i0":1};
+var tabs = {65535:["t0","All Classes"],1:["t1","Interface Summary"]};""", """
+<caption><span id="t0" class="activeTableTab"><span>All Classes</span><span class="tabEnd">&nbsp;</span></span><span id="t1" class="tableTab"><span><a href="javascript:show(1);">Interface Summary</a></span><span class="tabEnd">&nbsp;</span></span></caption>
+<tr id="i0" class="altColor">
+<td class="colFirst"><a href="org/b/B.html" title="interface in org.b">B</a></td>
+</tr>""")
+
+        when:
+        merge()
+
+        then:
+        destinationDir.file("allclasses-index.html").text == page("""var data = {"i0":2,"i1":1};
+var tabs = {65535:["t0","All Classes"],1:["t1","Interface Summary"],2:["t2","Class Summary"]};""", """
+<caption><span id="t0" class="activeTableTab"><span>All Classes</span><span class="tabEnd">&nbsp;</span></span><span id="t1" class="tableTab"><span><a href="javascript:show(1);">Interface Summary</a></span><span class="tabEnd">&nbsp;</span></span><span id="t2" class="tableTab"><span><a href="javascript:show(2);">Class Summary</a></span><span class="tabEnd">&nbsp;</span></span></caption>
+<tr id="i0" class="altColor">
+<td class="colFirst"><a href="org/a/A.html" title="class in org.a">A</a></td>
+</tr>
+<tr id="i1" class="rowColor">
+<td class="colFirst"><a href="org/b/B.html" title="interface in org.b">B</a></td>
+</tr>""")
+    }
+
+    def "merges the index letter by letter"() {
+        group1.file("index-all.html").text = page("", """
+<a href="#I:A">A</a>&nbsp;<a href="#I:C">C</a>&nbsp;
+<h2 class="title" id="I:A">A</h2>
+<dl class="index">
+<dt><a href="org/a/A.html" class="type-name-link" title="class in org.a">A</a> - Class in <a href="org/a/package-summary.html">org.a</a></dt>
+<dd>&nbsp;</dd>
+</dl>
+<h2 class="title" id="I:C">C</h2>
+<dl class="index">
+<dt><a href="org/a/C.html" class="type-name-link" title="class in org.a">C</a> - Class in <a href="org/a/package-summary.html">org.a</a></dt>
+<dd>&nbsp;</dd>
+</dl>
+<a href="#I:A">A</a>&nbsp;<a href="#I:C">C</a>&nbsp;""", lineSeparator)
+        group2.file("index-all.html").text = page("", """
+<a href="#I:A">A</a>&nbsp;<a href="#I:B">B</a>&nbsp;
+<h2 class="title" id="I:A">A</h2>
+<dl class="index">
+<dt><a href="org/b/B.html#a()" class="member-name-link">a()</a> - Method in class org.b.<a href="org/b/B.html" title="class in org.b">B</a></dt>
+<dd>
+<div class="block">Does a.</div>
+</dd>
+</dl>
+<h2 class="title" id="I:B">B</h2>
+<dl class="index">
+<dt><a href="org/b/B.html" class="type-name-link" title="class in org.b">B</a> - Class in <a href="org/b/package-summary.html">org.b</a></dt>
+<dd>&nbsp;</dd>
+</dl>
+<a href="#I:A">A</a>&nbsp;<a href="#I:B">B</a>&nbsp;""", lineSeparator)
+
+        when:
+        merge()
+
+        then:
+        destinationDir.file("index-all.html").text == page("", """
+<a href="#I:A">A</a>&nbsp;<a href="#I:B">B</a>&nbsp;<a href="#I:C">C</a>&nbsp;
+<h2 class="title" id="I:A">A</h2>
+<dl class="index">
+<dt><a href="org/a/A.html" class="type-name-link" title="class in org.a">A</a> - Class in <a href="org/a/package-summary.html">org.a</a></dt>
+<dd>&nbsp;</dd>
+<dt><a href="org/b/B.html#a()" class="member-name-link">a()</a> - Method in class org.b.<a href="org/b/B.html" title="class in org.b">B</a></dt>
+<dd>
+<div class="block">Does a.</div>
+</dd>
+</dl>
+<h2 class="title" id="I:B">B</h2>
+<dl class="index">
+<dt><a href="org/b/B.html" class="type-name-link" title="class in org.b">B</a> - Class in <a href="org/b/package-summary.html">org.b</a></dt>
+<dd>&nbsp;</dd>
+</dl>
+<h2 class="title" id="I:C">C</h2>
+<dl class="index">
+<dt><a href="org/a/C.html" class="type-name-link" title="class in org.a">C</a> - Class in <a href="org/a/package-summary.html">org.a</a></dt>
+<dd>&nbsp;</dd>
+</dl>
+<a href="#I:A">A</a>&nbsp;<a href="#I:B">B</a>&nbsp;<a href="#I:C">C</a>&nbsp;""", lineSeparator)
+
+        where:
+        lineSeparator << ["\n", "\r\n"]
+    }
+
+    def "combines the class hierarchies into a single tree"() {
+        group1.file("overview-tree.html").text = page("", """
+<ul class="horizontal">
+<li><a href="org/a/package-tree.html">org.a</a></li>
+</ul>
+<section class="hierarchy">
+<h2 title="Class Hierarchy">Class Hierarchy</h2>
+<ul>
+<li class="circle">java.lang.Object
+<ul>
+<li class="circle">org.a.<a href="org/a/A.html" class="type-name-link" title="class in org.a">A</a>
+<ul>
+<li class="circle">org.a.<a href="org/a/C.html" class="type-name-link" title="class in org.a">C</a></li>
+</ul>
+</li>
+</ul>
+</li>
+</ul>
+</section>""")
+        group2.file("overview-tree.html").text = page("", """
+<ul class="horizontal">
+<li><a href="org/b/package-tree.html">org.b</a></li>
+</ul>
+<section class="hierarchy">
+<h2 title="Class Hierarchy">Class Hierarchy</h2>
+<ul>
+<li class="circle">java.lang.Object
+<ul>
+<li class="circle">org.a.<a href="org/a/A.html" class="type-name-link external-link" title="class or interface in org.a">A</a>
+<ul>
+<li class="circle">org.b.<a href="org/b/B.html" class="type-name-link" title="class in org.b">B</a></li>
+</ul>
+</li>
+<li class="circle">org.b.<a href="org/b/D.html" class="type-name-link" title="class in org.b">D</a></li>
+</ul>
+</li>
+</ul>
+</section>""")
+
+        when:
+        merge()
+
+        then:
+        destinationDir.file("overview-tree.html").text == page("", """
+<ul class="horizontal">
+<li><a href="org/a/package-tree.html">org.a</a>, </li>
+<li><a href="org/b/package-tree.html">org.b</a></li>
+</ul>
+<section class="hierarchy">
+<h2 title="Class Hierarchy">Class Hierarchy</h2>
+<ul>
+<li class="circle">java.lang.Object
+<ul>
+<li class="circle">org.a.<a href="org/a/A.html" class="type-name-link" title="class in org.a">A</a>
+<ul>
+<li class="circle">org.b.<a href="org/b/B.html" class="type-name-link" title="class in org.b">B</a></li>
+<li class="circle">org.a.<a href="org/a/C.html" class="type-name-link" title="class in org.a">C</a></li>
+</ul>
+</li>
+<li class="circle">org.b.<a href="org/b/D.html" class="type-name-link" title="class in org.b">D</a></li>
+</ul>
+</li>
+</ul>
+</section>""")
+    }
+
+    def "appends the content of other pages"() {
+        group1.file("constant-values.html").text = page("", "\n<h1>Constant Field Values</h1>\n<p>a</p>")
+        group2.file("constant-values.html").text = page("", "\n<h1>Constant Field Values</h1>\n<p>b</p>")
+
+        when:
+        merge()
+
+        then:
+        destinationDir.file("constant-values.html").text == page("", "\n<h1>Constant Field Values</h1>\n<p>a</p>\n<h1>Constant Field Values</h1>\n<p>b</p>")
+    }
+
+    def "merges package lists and search indexes"() {
+        group1.file("package-list").text = "org.b\norg.d\n"
+        group2.file("package-list").text = "org.a\norg.c\n"
+        group1.file("type-search-index.js").text = 'typeSearchIndex = [{"p":"org.b","l":"B"},{"l":"All Classes","url":"allclasses-index.html"}];updateSearchResults();'
+        group2.file("type-search-index.js").text = 'typeSearchIndex = [{"p":"org.a","l":"A{}"},{"l":"All Classes","url":"allclasses-index.html"}];updateSearchResults();'
+
+        when:
+        merge()
+
+        then:
+        destinationDir.file("package-list").text == "org.a\norg.b\norg.c\norg.d\n"
+        destinationDir.file("type-search-index.js").text == 'typeSearchIndex = [{"p":"org.b","l":"B"},{"l":"All Classes","url":"allclasses-index.html"},{"p":"org.a","l":"A{}"}];updateSearchResults();'
+    }
+
+    private void merge() {
+        merger.merge([group1, group2], destinationDir)
+    }
+
+    private static String page(String script, String content, String lineSeparator = "\n") {
+        """<html>
+<head>
+<script>
+${script}
+</script>
+</head>
+<body>
+<ul>
+<li><a href="overview-tree.html">Tree</a></li>
+</ul>
+<!-- ========= END OF TOP NAVBAR ========= -->
+<main role="main">${content}
+</main>
+<footer>
+<li><a href="help-doc.html">Help</a></li>
+</footer>
+</body>
+</html>
+""".replace("\n", lineSeparator)
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.tasks.javadoc.internal
+
+import spock.lang.Specification
+
+class JavadocPackageGroupTest extends Specification {
+
+    def "balances the groups by number of source files"() {
+        when:
+        def groups = JavadocPackageGroup.partition(sources(a: 6, b: 1, c: 2, d: 3, e: 1, f: 1), 2)
+
+        then:
+        groups*.packages == [["a", "e"], ["b", "c", "d", "f"]]
+        groups*.name == ["group-1", "group-2"]
+        groups*.sourceNames*.size() == [7, 7]
+    }
+
+    def "each group has at least the minimum number of packages"() {
+        expect:
+        JavadocPackageGroup.partition(sources(a: 10, b: 1, c: 1, d: 1), 2)*.packages == [["a", "d"], ["b", "c"]]
+        JavadocPackageGroup.partition(sources(a: 1, b: 1, c: 1), 2)*.packages == [["a", "b", "c"]]
+        JavadocPackageGroup.partition(sources(a: 1, b: 1, c: 1, d: 1, e: 1), 3).every { it.packages.size() >= JavadocPackageGroup.MIN_PACKAGES_PER_GROUP }
+    }
+
+    def "lists the source files of the packages in a group"() {
+        def sources = new TreeMap(["org.a": [new File("A.java"), new File("A2.java")], "org.b": [new File("B.java")]])
+
+        expect:
+        JavadocPackageGroup.partition(sources, 1)[0].sourceNames == ["A.java", "A2.java", "B.java"].collect { new File(it).absolutePath }
+    }
+
+    private static SortedMap<String, List<File>> sources(Map<String, Integer> sourceCounts) {
+        def sources = new TreeMap<String, List<File>>()
+        sourceCounts.each { packageName, count -> sources.put(packageName, (1..count).collect { new File("${packageName}/Foo${it}.java") }) }
+        sources
+    }
+}
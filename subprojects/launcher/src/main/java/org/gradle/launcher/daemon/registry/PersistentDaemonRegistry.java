@@ -16,6 +16,7 @@
 
 package org.gradle.launcher.daemon.registry;
 
+import com.google.common.io.Files;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.specs.Spec;
@@ -24,14 +25,24 @@ import org.gradle.cache.PersistentStateCache;
 import org.gradle.cache.internal.FileIntegrityViolationSuppressingPersistentStateCacheDecorator;
 import org.gradle.cache.internal.OnDemandFileAccess;
 import org.gradle.cache.internal.SimpleStateCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.nativeintegration.filesystem.Chmod;
 import org.gradle.internal.remote.Address;
+import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
+import org.gradle.internal.serialize.InputStreamBackedDecoder;
 import org.gradle.launcher.daemon.context.DaemonContext;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FilenameFilter;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -41,23 +52,33 @@ import static org.gradle.launcher.daemon.server.api.DaemonStateControl.State.Idl
 
 /**
  * Access to daemon registry files. Useful also for testing.
+ *
+ * Reads are attempted without locking the registry file first, as acquiring the file lock is a significant part of the time a client needs to find a daemon.
+ *
+ * When a daemon is stored, the Unix domain socket files next to the registry file that belong to none of the registered daemons are deleted, such as those
+ * left behind by a daemon that was killed.
  */
 public class PersistentDaemonRegistry implements DaemonRegistry {
     private final PersistentStateCache<DaemonRegistryContent> cache;
     private final Lock lock = new ReentrantLock();
     private final File registryFile;
+    private final OnDemandFileAccess fileAccess;
 
     private static final Logger LOGGER = Logging.getLogger(PersistentDaemonRegistry.class);
+    private static final String SOCKET_FILE_EXTENSION = ".sock";
+    // A daemon creates its socket file shortly before it registers itself, so leave recent socket files alone
+    private static final long MIN_ORPHAN_SOCKET_FILE_AGE_MILLIS = TimeUnit.MINUTES.toMillis(1);
 
     public PersistentDaemonRegistry(File registryFile, FileLockManager fileLockManager, Chmod chmod) {
         this.registryFile = registryFile;
+        this.fileAccess = new OnDemandFileAccess(
+            registryFile,
+            "daemon addresses registry",
+            fileLockManager);
         cache = new FileIntegrityViolationSuppressingPersistentStateCacheDecorator<DaemonRegistryContent>(
             new SimpleStateCache<DaemonRegistryContent>(
                 registryFile,
-                new OnDemandFileAccess(
-                    registryFile,
-                    "daemon addresses registry",
-                    fileLockManager),
+                fileAccess,
                 DaemonRegistryContent.SERIALIZER,
                 chmod
             ));
@@ -66,7 +87,7 @@ public class PersistentDaemonRegistry implements DaemonRegistry {
     public List<DaemonInfo> getAll() {
         lock.lock();
         try {
-            DaemonRegistryContent content = cache.get();
+            DaemonRegistryContent content = read();
             if (content == null) {
                 //when no daemon process has started yet
                 return new LinkedList<DaemonInfo>();
@@ -180,7 +201,7 @@ public class PersistentDaemonRegistry implements DaemonRegistry {
         lock.lock();
         LOGGER.debug("Getting daemon stop events");
         try {
-            DaemonRegistryContent content = cache.get();
+            DaemonRegistryContent content = read();
             if (content == null) { // no daemon process has started yet
                 return new LinkedList<DaemonStopEvent>();
             }
@@ -225,6 +246,7 @@ public class PersistentDaemonRegistry implements DaemonRegistry {
                     }
                     DaemonInfo daemonInfo = new DaemonInfo(address, daemonContext, token, state);
                     oldValue.setStatus(address, daemonInfo);
+                    deleteOrphanSocketFiles(oldValue);
                     return oldValue;
                 }
             });
@@ -233,6 +255,61 @@ public class PersistentDaemonRegistry implements DaemonRegistry {
         }
     }
 
+    private void deleteOrphanSocketFiles(DaemonRegistryContent content) {
+        File[] socketFiles = registryFile.getAbsoluteFile().getParentFile().listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SOCKET_FILE_EXTENSION);
+            }
+        });
+        if (socketFiles == null || socketFiles.length == 0) {
+            return;
+        }
+        Set<File> registeredSocketFiles = new HashSet<File>();
+        for (DaemonInfo info : content.getInfos()) {
+            if (info.getAddress() instanceof MultiChoiceAddress) {
+                File socketFile = ((MultiChoiceAddress) info.getAddress()).getSocketFile();
+                if (socketFile != null) {
+                    registeredSocketFiles.add(socketFile.getAbsoluteFile());
+                }
+            }
+        }
+        long createdBefore = System.currentTimeMillis() - MIN_ORPHAN_SOCKET_FILE_AGE_MILLIS;
+        for (File socketFile : socketFiles) {
+            if (!registeredSocketFiles.contains(socketFile.getAbsoluteFile()) && socketFile.lastModified() < createdBefore) {
+                LOGGER.debug("Deleting orphan daemon socket file {}", socketFile);
+                socketFile.delete();
+            }
+        }
+    }
+
+    private DaemonRegistryContent read() {
+        DaemonRegistryContent content = readWithoutLocking();
+        if (content != null) {
+            return content;
+        }
+        return cache.get();
+    }
+
+    /**
+     * Reads the registry without acquiring the file lock. Returns null when the registry cannot be read this way, for example because it is being written
+     * concurrently, in which case the caller should use a locked read.
+     */
+    @Nullable
+    private DaemonRegistryContent readWithoutLocking() {
+        return fileAccess.readFileWithoutLocking(new Factory<DaemonRegistryContent>() {
+            @Override
+            public DaemonRegistryContent create() {
+                try {
+                    InputStreamBackedDecoder decoder = new InputStreamBackedDecoder(new ByteArrayInputStream(Files.toByteArray(registryFile)));
+                    return DaemonRegistryContent.SERIALIZER.read(decoder);
+                } catch (Exception e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        });
+    }
+
     public String toString() {
         return String.format("PersistentDaemonRegistry[file=%s]", registryFile);
     }
@@ -42,6 +42,7 @@ import org.gradle.launcher.daemon.registry.DaemonRegistryServices;
 import org.gradle.launcher.daemon.server.api.DaemonCommandAction;
 import org.gradle.launcher.daemon.server.api.HandleReportStatus;
 import org.gradle.launcher.daemon.server.api.HandleStop;
+import org.gradle.launcher.daemon.server.exec.CollectGarbageWhenIdle;
 import org.gradle.launcher.daemon.server.exec.DaemonCommandExecuter;
 import org.gradle.launcher.daemon.server.exec.EstablishBuildEnvironment;
 import org.gradle.launcher.daemon.server.exec.ExecuteBuild;
@@ -58,6 +59,7 @@ import org.gradle.launcher.daemon.server.health.DaemonHealthCheck;
 import org.gradle.launcher.daemon.server.health.DaemonHealthStats;
 import org.gradle.launcher.daemon.server.health.DaemonMemoryStatus;
 import org.gradle.launcher.daemon.server.health.HealthExpirationStrategy;
+import org.gradle.launcher.daemon.server.health.TenuredSpaceGrowthMonitor;
 import org.gradle.launcher.daemon.server.scaninfo.DaemonScanInfo;
 import org.gradle.launcher.daemon.server.scaninfo.DefaultDaemonScanInfo;
 import org.gradle.launcher.daemon.server.stats.DaemonRunningStats;
@@ -108,8 +110,12 @@ public class DaemonServices extends DefaultServiceRegistry {
         return new DaemonMemoryStatus(healthStats);
     }
 
-    protected DaemonHealthCheck createDaemonHealthCheck(ListenerManager listenerManager, HealthExpirationStrategy healthExpirationStrategy) {
-        return new DaemonHealthCheck(healthExpirationStrategy, listenerManager);
+    protected TenuredSpaceGrowthMonitor createTenuredSpaceGrowthMonitor(DaemonHealthStats healthStats, DaemonMemoryStatus memoryStatus, ListenerManager listenerManager) {
+        return new TenuredSpaceGrowthMonitor(healthStats, memoryStatus, listenerManager);
+    }
+
+    protected DaemonHealthCheck createDaemonHealthCheck(ListenerManager listenerManager, HealthExpirationStrategy healthExpirationStrategy, TenuredSpaceGrowthMonitor growthMonitor) {
+        return new DaemonHealthCheck(healthExpirationStrategy, growthMonitor, listenerManager);
     }
 
     protected DaemonRunningStats createDaemonRunningStats() {
@@ -132,7 +138,11 @@ public class DaemonServices extends DefaultServiceRegistry {
         return new DaemonHealthStats(runningStats, executorFactory);
     }
 
-    protected ImmutableList<DaemonCommandAction> createDaemonCommandActions(DaemonContext daemonContext, ProcessEnvironment processEnvironment, DaemonHealthStats healthStats, DaemonHealthCheck healthCheck, BuildExecuter buildActionExecuter, DaemonRunningStats runningStats) {
+    protected IdleDaemonGarbageCollector createIdleDaemonGarbageCollector(ExecutorFactory executorFactory) {
+        return new IdleDaemonGarbageCollector(executorFactory);
+    }
+
+    protected ImmutableList<DaemonCommandAction> createDaemonCommandActions(DaemonContext daemonContext, ProcessEnvironment processEnvironment, DaemonHealthStats healthStats, DaemonHealthCheck healthCheck, BuildExecuter buildActionExecuter, DaemonRunningStats runningStats, IdleDaemonGarbageCollector idleGarbageCollector) {
         File daemonLog = getDaemonLogFile();
         DaemonDiagnostics daemonDiagnostics = new DaemonDiagnostics(daemonLog, daemonContext.getPid());
         return ImmutableList.of(
@@ -144,6 +154,7 @@ public class DaemonServices extends DefaultServiceRegistry {
             new EstablishBuildEnvironment(processEnvironment),
             new LogToClient(loggingManager, daemonDiagnostics), // from this point down, logging is sent back to the client
             new LogAndCheckHealth(healthStats, healthCheck),
+            new CollectGarbageWhenIdle(idleGarbageCollector),
             new ForwardClientInput(),
             new RequestStopIfSingleUsedDaemon(),
             new ResetDeprecationLogger(),
@@ -162,7 +173,8 @@ public class DaemonServices extends DefaultServiceRegistry {
             new DaemonTcpServerConnector(
                 get(ExecutorFactory.class),
                 get(InetAddressFactory.class),
-                DaemonMessageSerializer.create(buildActionSerializer)
+                DaemonMessageSerializer.create(buildActionSerializer),
+                get(DaemonDir.class).getVersionedDir()
             ),
             get(DaemonRegistry.class),
             get(DaemonContext.class),
@@ -31,11 +31,14 @@ import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.serialize.Serializers;
 import org.gradle.launcher.daemon.protocol.Message;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Opens a TCP connection for clients to connect to communicate with a daemon.
+ * Opens a TCP connection for clients to connect to communicate with a daemon. Also opens a Unix domain socket in the given directory, where supported, which
+ * local clients prefer over TCP.
  */
 public class DaemonTcpServerConnector implements DaemonServerConnector {
     final private IncomingConnector incomingConnector;
@@ -46,12 +49,13 @@ public class DaemonTcpServerConnector implements DaemonServerConnector {
     private final Lock lifecycleLock = new ReentrantLock();
     private ConnectionAcceptor acceptor;
 
-    public DaemonTcpServerConnector(ExecutorFactory executorFactory, InetAddressFactory inetAddressFactory, Serializer<Message> serializer) {
+    public DaemonTcpServerConnector(ExecutorFactory executorFactory, InetAddressFactory inetAddressFactory, Serializer<Message> serializer, @Nullable File socketDir) {
         this.serializer = serializer;
         this.incomingConnector = new TcpIncomingConnector(
                 executorFactory,
                 inetAddressFactory,
-                new UUIDGenerator()
+                new UUIDGenerator(),
+                socketDir
         );
     }
 
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.time.Clock;
+import org.gradle.internal.time.Time;
+import org.gradle.internal.util.NumberUtil;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the garbage left behind by a build while the daemon is idle, so that the next build starts with an empty heap rather than
+ * triggering a full collection part way through. This is experimental and has to be enabled with the {@value #ENABLED_PROPERTY} system
+ * property of the daemon.
+ *
+ * <p>The class loaders and script classes used by a build are already retained by the daemon for the next build, so the collection is the
+ * only preparation done. It starts once the daemon has been idle for a short while and is skipped when a build has started in the meantime.
+ * A collection cannot be interrupted, so a build that starts while it is in progress is delayed until it completes. When that happens, or when
+ * a collection takes longer than its time budget, collecting while idle is switched off for the rest of the life of the daemon.</p>
+ *
+ * <p>At the end of each build, the time spent collecting garbage during the build is logged along with the time spent collecting while the
+ * daemon was idle before the build, and how long this delayed the start of the build. Comparing builds with and without this property shows
+ * whether it saves time for a given build.</p>
+ */
+public class IdleDaemonGarbageCollector implements Stoppable {
+    public static final String ENABLED_PROPERTY = "org.gradle.daemon.idle-gc";
+
+    private static final Logger LOGGER = Logging.getLogger(IdleDaemonGarbageCollector.class);
+    private static final long IDLE_DELAY_MILLIS = 1000;
+    private static final long TIME_BUDGET_MILLIS = 5000;
+    // Don't bother collecting when the previous build did not use a significant part of the heap
+    private static final double MIN_USED_HEAP_FRACTION = 0.2;
+
+    private final ScheduledExecutorService scheduler;
+    private final MemoryMXBean memoryBean;
+    private final List<GarbageCollectorMXBean> garbageCollectorBeans;
+    private final Runnable garbageCollector;
+    private final Clock clock;
+    private final boolean optedIn;
+    private final Object lock = new Object();
+    // All fields below are guarded by lock
+    private ScheduledFuture<?> pending;
+    private boolean collecting;
+    private boolean buildRunning;
+    private long buildStartTime;
+    private long buildGcTimeAtStart;
+    private IdleCollection lastCollection;
+    private boolean enabled;
+
+    public IdleDaemonGarbageCollector(ExecutorFactory executorFactory) {
+        this(executorFactory.createScheduled("Daemon idle garbage collector", 1), ManagementFactory.getMemoryMXBean(), ManagementFactory.getGarbageCollectorMXBeans(), new Runnable() {
+            @Override
+            public void run() {
+                System.gc();
+            }
+        }, Time.clock(), Boolean.getBoolean(ENABLED_PROPERTY));
+    }
+
+    @VisibleForTesting
+    IdleDaemonGarbageCollector(ScheduledExecutorService scheduler, MemoryMXBean memoryBean, List<GarbageCollectorMXBean> garbageCollectorBeans, Runnable garbageCollector, Clock clock, boolean enabled) {
+        this.scheduler = scheduler;
+        this.memoryBean = memoryBean;
+        this.garbageCollectorBeans = garbageCollectorBeans;
+        this.garbageCollector = garbageCollector;
+        this.clock = clock;
+        this.optedIn = enabled;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Abandons any pending collection, and starts measuring the time the build spends collecting garbage.
+     */
+    public void buildStarted() {
+        if (!optedIn) {
+            return;
+        }
+        synchronized (lock) {
+            if (pending != null) {
+                pending.cancel(false);
+                pending = null;
+            }
+            buildRunning = true;
+            buildStartTime = clock.getCurrentTime();
+            buildGcTimeAtStart = totalGcTime();
+            if (collecting) {
+                // The collection will delay this build, so stop collecting while idle
+                enabled = false;
+            }
+        }
+    }
+
+    /**
+     * Reports the time the build spent collecting garbage, and schedules a collection for once the daemon is idle.
+     */
+    public void buildFinished() {
+        if (!optedIn) {
+            return;
+        }
+        synchronized (lock) {
+            if (!buildRunning) {
+                return;
+            }
+            buildRunning = false;
+            long buildGcTime = totalGcTime() - buildGcTimeAtStart;
+            IdleCollection collection = lastCollection;
+            lastCollection = null;
+            if (collection != null) {
+                // Only the part of the collection that ran after the build had started delayed it
+                long delayMillis = Math.max(0, collection.endTime - buildStartTime);
+                LOGGER.info("Collected {} of garbage in {} ms while the daemon was idle before this build, which delayed the start of the build by {} ms. The build spent {} ms collecting garbage.",
+                    NumberUtil.formatBytes(collection.reclaimedBytes), collection.durationMillis, delayMillis, buildGcTime);
+                if (delayMillis > 0) {
+                    LOGGER.info("Collecting garbage while the daemon is idle has been switched off, as it delayed a build.");
+                }
+            } else {
+                LOGGER.info("The build spent {} ms collecting garbage.", buildGcTime);
+            }
+            if (enabled && pending == null) {
+                pending = scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        collect();
+                    }
+                }, IDLE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void collect() {
+        MemoryUsage before;
+        synchronized (lock) {
+            if (pending == null || buildRunning) {
+                // A build has started in the meantime
+                return;
+            }
+            pending = null;
+            before = memoryBean.getHeapMemoryUsage();
+            long maxHeap = before.getMax() > 0 ? before.getMax() : before.getCommitted();
+            if (before.getUsed() < maxHeap * MIN_USED_HEAP_FRACTION) {
+                return;
+            }
+            collecting = true;
+        }
+        long startTime = clock.getCurrentTime();
+        try {
+            garbageCollector.run();
+        } finally {
+            long endTime = clock.getCurrentTime();
+            long reclaimedBytes = Math.max(0, before.getUsed() - memoryBean.getHeapMemoryUsage().getUsed());
+            synchronized (lock) {
+                collecting = false;
+                lastCollection = new IdleCollection(endTime - startTime, endTime, reclaimedBytes);
+                if (endTime - startTime > TIME_BUDGET_MILLIS) {
+                    LOGGER.info("Collecting garbage while the daemon was idle took {} ms, which is more than its budget of {} ms. The daemon will no longer do this while idle.", endTime - startTime, TIME_BUDGET_MILLIS);
+                    enabled = false;
+                }
+            }
+        }
+    }
+
+    private long totalGcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean bean : garbageCollectorBeans) {
+            total += Math.max(0, bean.getCollectionTime());
+        }
+        return total;
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private static class IdleCollection {
+        private final long durationMillis;
+        private final long endTime;
+        private final long reclaimedBytes;
+
+        IdleCollection(long durationMillis, long endTime, long reclaimedBytes) {
+            this.durationMillis = durationMillis;
+            this.endTime = endTime;
+            this.reclaimedBytes = reclaimedBytes;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.exec;
+
+import org.gradle.launcher.daemon.server.IdleDaemonGarbageCollector;
+import org.gradle.launcher.daemon.server.api.DaemonCommandAction;
+import org.gradle.launcher.daemon.server.api.DaemonCommandExecution;
+
+/**
+ * Lets the daemon collect the garbage left behind by a build once the build has finished.
+ */
+public class CollectGarbageWhenIdle implements DaemonCommandAction {
+    private final IdleDaemonGarbageCollector idleGarbageCollector;
+
+    public CollectGarbageWhenIdle(IdleDaemonGarbageCollector idleGarbageCollector) {
+        this.idleGarbageCollector = idleGarbageCollector;
+    }
+
+    @Override
+    public void execute(DaemonCommandExecution execution) {
+        if (execution.isSingleUseDaemon()) {
+            execution.proceed();
+            return;
+        }
+
+        idleGarbageCollector.buildStarted();
+        try {
+            execution.proceed();
+        } finally {
+            idleGarbageCollector.buildFinished();
+        }
+    }
+}
@@ -25,14 +25,18 @@ import static org.gradle.launcher.daemon.server.expiry.DaemonExpirationStatus.DO
 
 public class DaemonHealthCheck {
     private final DaemonExpirationStrategy strategy;
+    private final TenuredSpaceGrowthMonitor growthMonitor;
     private final DaemonExpirationListener listenerBroadcast;
 
-    public DaemonHealthCheck(DaemonExpirationStrategy strategy, ListenerManager listenerManager) {
+    public DaemonHealthCheck(DaemonExpirationStrategy strategy, TenuredSpaceGrowthMonitor growthMonitor, ListenerManager listenerManager) {
         this.strategy = strategy;
+        this.growthMonitor = growthMonitor;
         this.listenerBroadcast = listenerManager.getBroadcaster(DaemonExpirationListener.class);
     }
 
     public void executeHealthCheck() {
+        // Give the daemon a chance to release memory before deciding whether it should expire
+        growthMonitor.buildFinished();
         DaemonExpirationResult result = strategy.checkExpiration();
         if (result.getStatus() != DO_NOT_EXPIRE) {
             listenerBroadcast.onExpirationEvent(result);
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+/**
+ * Reports the heap health of the daemon, as observed at the end of the previous build.
+ *
+ * Executed at the start of each build that runs in a daemon that has already run a build.
+ */
+public final class DaemonHeapHealthBuildOperationType implements BuildOperationType<DaemonHeapHealthBuildOperationType.Details, DaemonHeapHealthBuildOperationType.Result> {
+    public interface Details {
+    }
+
+    public interface Result {
+        /**
+         * The tenured space used after the most recent collection, in bytes.
+         */
+        long getTenuredUsed();
+
+        /**
+         * The maximum size of the tenured space, in bytes.
+         */
+        long getTenuredMax();
+
+        /**
+         * The tenured space usage at which the daemon expires, in bytes.
+         */
+        long getTenuredLimit();
+
+        /**
+         * The projected growth of the tenured space per build, in bytes.
+         */
+        double getTenuredGrowthPerBuild();
+
+        /**
+         * The projected number of builds until the limit is reached, or -1 if the limit is not projected to be reached.
+         */
+        int getProjectedBuildsUntilLimit();
+
+        /**
+         * Whether in-memory caches were discarded after the previous build to relieve heap pressure.
+         */
+        boolean isCachesTrimmed();
+    }
+}
@@ -114,7 +114,11 @@ public class DaemonMemoryStatus {
         return false;
     }
 
-    private boolean isEnabled() {
+    int getTenuredUsageThreshold() {
+        return tenuredUsageThreshold;
+    }
+
+    boolean isEnabled() {
         String enabledValue = System.getProperty(ENABLE_PERFORMANCE_MONITORING, "true");
         return Boolean.parseBoolean(enabledValue);
     }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Projects the growth of the tenured space from the usage observed after a collection at the end of recent builds.
+ *
+ * Uses a least squares fit over a sliding window of builds, so that a single build that happens to retain a lot of memory does not dominate the projection.
+ */
+public class TenuredSpaceGrowthModel {
+    private final int windowSize;
+    private final Deque<Long> samples = new ArrayDeque<Long>();
+
+    public TenuredSpaceGrowthModel(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    public void recordBuild(long usedAfterCollection) {
+        if (samples.size() == windowSize) {
+            samples.removeFirst();
+        }
+        samples.addLast(usedAfterCollection);
+    }
+
+    public void reset() {
+        samples.clear();
+    }
+
+    public int getSampleCount() {
+        return samples.size();
+    }
+
+    /**
+     * The usage recorded for the most recent build, or -1 when nothing has been recorded.
+     */
+    public long getLastUsed() {
+        return samples.isEmpty() ? -1 : samples.getLast();
+    }
+
+    /**
+     * The projected growth of the tenured space per build, in bytes. Negative when the tenured space is shrinking.
+     */
+    public double getGrowthPerBuild() {
+        int count = samples.size();
+        if (count < 2) {
+            return 0;
+        }
+        double meanX = (count - 1) / 2.0;
+        double meanY = 0;
+        for (long sample : samples) {
+            meanY += sample;
+        }
+        meanY /= count;
+
+        double covariance = 0;
+        double variance = 0;
+        int x = 0;
+        for (long sample : samples) {
+            covariance += (x - meanX) * (sample - meanY);
+            variance += (x - meanX) * (x - meanX);
+            x++;
+        }
+        return covariance / variance;
+    }
+
+    /**
+     * The number of builds until the tenured space usage reaches the given limit, 0 when the limit has already been reached, or -1 when the usage is not projected to reach the limit.
+     */
+    public int getBuildsUntil(long limit) {
+        long lastUsed = getLastUsed();
+        if (lastUsed < 0) {
+            return -1;
+        }
+        if (lastUsed >= limit) {
+            return 0;
+        }
+        double growthPerBuild = getGrowthPerBuild();
+        if (growthPerBuild <= 0) {
+            return -1;
+        }
+        double builds = Math.ceil((limit - lastUsed) / growthPerBuild);
+        return builds > Integer.MAX_VALUE ? -1 : (int) builds;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.HeapPressureListener;
+import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.util.NumberUtil;
+import org.gradle.launcher.daemon.server.health.gc.GarbageCollectionMonitor;
+import org.gradle.launcher.daemon.server.health.gc.GarbageCollectionStats;
+import org.gradle.launcher.daemon.server.health.gc.GarbageCollectorMonitoringStrategy;
+
+/**
+ * Tracks the growth of the tenured space across builds, and asks the {@link HeapPressureListener}s to release memory when the
+ * tenured space is projected to reach the usage at which the daemon expires within the next few builds.
+ *
+ * This gives the daemon a chance to recover before the {@link LowTenuredSpaceDaemonExpirationStrategy} kicks in. When releasing memory
+ * does not help, the usage keeps on growing and the daemon expires as before.
+ */
+public class TenuredSpaceGrowthMonitor {
+    public static final String ENABLE_PROACTIVE_TRIMMING = "org.gradle.daemon.performance.proactive-trimming";
+
+    private static final Logger LOGGER = Logging.getLogger(TenuredSpaceGrowthMonitor.class);
+    private static final DaemonHeapHealthBuildOperationType.Details DETAILS = new DaemonHeapHealthBuildOperationType.Details() {};
+    private static final int WINDOW_SIZE = 10;
+    static final int MIN_BUILDS = 3;
+    static final int PREDICTION_HORIZON = 3;
+
+    private final GarbageCollectionMonitor gcMonitor;
+    private final DaemonMemoryStatus memoryStatus;
+    private final HeapPressureListener heapPressureBroadcast;
+    private final TenuredSpaceGrowthModel model = new TenuredSpaceGrowthModel(WINDOW_SIZE);
+    private long lastCollectionCount;
+    private volatile HeapHealth lastHealth;
+
+    public TenuredSpaceGrowthMonitor(DaemonHealthStats stats, DaemonMemoryStatus memoryStatus, ListenerManager listenerManager) {
+        this(stats.getGcMonitor(), memoryStatus, listenerManager.getBroadcaster(HeapPressureListener.class));
+    }
+
+    TenuredSpaceGrowthMonitor(GarbageCollectionMonitor gcMonitor, DaemonMemoryStatus memoryStatus, HeapPressureListener heapPressureBroadcast) {
+        this.gcMonitor = gcMonitor;
+        this.memoryStatus = memoryStatus;
+        this.heapPressureBroadcast = heapPressureBroadcast;
+    }
+
+    /**
+     * Records the tenured space usage at the end of a build, and releases memory when the daemon is projected to run out of tenured space soon.
+     */
+    public void buildFinished() {
+        if (gcMonitor.getGcStrategy() == GarbageCollectorMonitoringStrategy.UNKNOWN || memoryStatus.getTenuredUsageThreshold() == 0) {
+            return;
+        }
+        GarbageCollectionStats tenuredStats = gcMonitor.getTenuredStats();
+        long used = tenuredStats.getUsedAfterLastCollection();
+        long max = tenuredStats.getMax();
+        if (used < 0 || max <= 0 || tenuredStats.getCollectionCount() == lastCollectionCount) {
+            // Nothing new to learn when there has not been a collection since the previous build
+            return;
+        }
+        lastCollectionCount = tenuredStats.getCollectionCount();
+        model.recordBuild(used);
+
+        long limit = max / 100 * memoryStatus.getTenuredUsageThreshold();
+        double growthPerBuild = model.getGrowthPerBuild();
+        int buildsUntilLimit = model.getSampleCount() >= MIN_BUILDS ? model.getBuildsUntil(limit) : -1;
+        boolean trim = isEnabled() && buildsUntilLimit >= 0 && buildsUntilLimit <= PREDICTION_HORIZON;
+        if (trim) {
+            LOGGER.info("Tenured space usage is projected to reach {} within {} builds (growing by {} per build), discarding in-memory caches.",
+                NumberUtil.formatBytes(limit), buildsUntilLimit, NumberUtil.formatBytes((long) growthPerBuild));
+            heapPressureBroadcast.onHeapPressure();
+            // The usage after releasing memory is the new baseline
+            model.reset();
+        }
+        lastHealth = new HeapHealth(used, max, limit, growthPerBuild, buildsUntilLimit, trim);
+    }
+
+    /**
+     * Reports the heap health observed at the end of the previous build as a build operation, so that it can be charted over the lifetime of the daemon.
+     */
+    public void reportHealth(BuildOperationExecutor buildOperationExecutor) {
+        final HeapHealth health = lastHealth;
+        if (health == null) {
+            return;
+        }
+        buildOperationExecutor.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                context.setResult(health);
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Daemon heap health").details(DETAILS);
+            }
+        });
+    }
+
+    private boolean isEnabled() {
+        return memoryStatus.isEnabled() && Boolean.parseBoolean(System.getProperty(ENABLE_PROACTIVE_TRIMMING, "true"));
+    }
+
+    private static class HeapHealth implements DaemonHeapHealthBuildOperationType.Result {
+        private final long tenuredUsed;
+        private final long tenuredMax;
+        private final long tenuredLimit;
+        private final double tenuredGrowthPerBuild;
+        private final int projectedBuildsUntilLimit;
+        private final boolean cachesTrimmed;
+
+        HeapHealth(long tenuredUsed, long tenuredMax, long tenuredLimit, double tenuredGrowthPerBuild, int projectedBuildsUntilLimit, boolean cachesTrimmed) {
+            this.tenuredUsed = tenuredUsed;
+            this.tenuredMax = tenuredMax;
+            this.tenuredLimit = tenuredLimit;
+            this.tenuredGrowthPerBuild = tenuredGrowthPerBuild;
+            this.projectedBuildsUntilLimit = projectedBuildsUntilLimit;
+            this.cachesTrimmed = cachesTrimmed;
+        }
+
+        @Override
+        public long getTenuredUsed() {
+            return tenuredUsed;
+        }
+
+        @Override
+        public long getTenuredMax() {
+            return tenuredMax;
+        }
+
+        @Override
+        public long getTenuredLimit() {
+            return tenuredLimit;
+        }
+
+        @Override
+        public double getTenuredGrowthPerBuild() {
+            return tenuredGrowthPerBuild;
+        }
+
+        @Override
+        public int getProjectedBuildsUntilLimit() {
+            return projectedBuildsUntilLimit;
+        }
+
+        @Override
+        public boolean isCachesTrimmed() {
+            return cachesTrimmed;
+        }
+    }
+}
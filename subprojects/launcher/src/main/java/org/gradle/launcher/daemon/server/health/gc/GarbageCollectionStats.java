@@ -26,12 +26,17 @@ public class GarbageCollectionStats {
     final private long used;
     final private long max;
     final private long eventCount;
+    final private long usedAfterLastCollection;
+    final private long collectionCount;
 
     public GarbageCollectionStats(Set<GarbageCollectionEvent> events) {
         this.rate = calculateRate(events);
         this.used = calculateAverageUsage(events);
         this.max = calculateMaxSize(events);
         this.eventCount = events.size();
+        GarbageCollectionEvent lastEvent = lastEvent(events);
+        this.usedAfterLastCollection = lastEvent == null || lastEvent.getCount() == 0 ? -1 : lastEvent.getUsage().getUsed();
+        this.collectionCount = lastEvent == null ? 0 : lastEvent.getCount();
     }
 
     static double calculateRate(Set<GarbageCollectionEvent> events) {
@@ -97,6 +102,14 @@ public class GarbageCollectionStats {
         }
     }
 
+    private static GarbageCollectionEvent lastEvent(Set<GarbageCollectionEvent> events) {
+        GarbageCollectionEvent last = null;
+        for (GarbageCollectionEvent event : events) {
+            last = event;
+        }
+        return last;
+    }
+
     static long calculateMaxSize(Set<GarbageCollectionEvent> events) {
         if (events.size() < 1) {
             return -1;
@@ -130,4 +143,18 @@ public class GarbageCollectionStats {
     public long getEventCount() {
         return eventCount;
     }
+
+    /**
+     * The memory used after the most recent collection, or -1 if no collection has happened yet.
+     */
+    public long getUsedAfterLastCollection() {
+        return usedAfterLastCollection;
+    }
+
+    /**
+     * The total number of collections at the time of the most recent event.
+     */
+    public long getCollectionCount() {
+        return collectionCount;
+    }
 }
@@ -17,6 +17,7 @@
 package org.gradle.launcher.exec;
 
 import org.gradle.api.internal.StartParameterInternal;
+import org.gradle.api.internal.changedetection.state.ClassAbiHashCache;
 import org.gradle.composite.internal.IncludedBuildControllers;
 import org.gradle.internal.invocation.BuildAction;
 import org.gradle.internal.invocation.BuildActionRunner;
@@ -25,6 +26,7 @@ import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.operations.CallableBuildOperation;
+import org.gradle.launcher.daemon.server.health.TenuredSpaceGrowthMonitor;
 
 /**
  * An {@link BuildActionRunner} that wraps all work in a build operation.
@@ -40,13 +42,15 @@ public class RunAsBuildOperationBuildActionRunner implements BuildActionRunner {
 
     @Override
     public Result run(final BuildAction action, final BuildController buildController) {
-        BuildOperationExecutor buildOperationExecutor = buildController.getGradle().getServices().get(BuildOperationExecutor.class);
+        final BuildOperationExecutor buildOperationExecutor = buildController.getGradle().getServices().get(BuildOperationExecutor.class);
         return buildOperationExecutor.call(new CallableBuildOperation<Result>() {
             @Override
             public Result call(BuildOperationContext context) {
                 checkDeprecations((StartParameterInternal)buildController.getGradle().getStartParameter());
+                reportDaemonHeapHealth(buildController, buildOperationExecutor);
                 buildController.getGradle().getServices().get(IncludedBuildControllers.class).rootBuildOperationStarted();
                 Result result = delegate.run(action, buildController);
+                buildController.getGradle().getServices().get(ClassAbiHashCache.class).reportStatistics(buildOperationExecutor);
                 context.setResult(RESULT);
                 if (result.getBuildFailure() != null) {
                     context.failed(result.getBuildFailure());
@@ -61,6 +65,14 @@ public class RunAsBuildOperationBuildActionRunner implements BuildActionRunner {
         });
     }
 
+    private void reportDaemonHeapHealth(BuildController buildController, BuildOperationExecutor buildOperationExecutor) {
+        // Only available when running in a daemon
+        TenuredSpaceGrowthMonitor growthMonitor = (TenuredSpaceGrowthMonitor) buildController.getGradle().getServices().find(TenuredSpaceGrowthMonitor.class);
+        if (growthMonitor != null) {
+            growthMonitor.reportHealth(buildOperationExecutor);
+        }
+    }
+
     private void checkDeprecations(StartParameterInternal startParameter) {
         startParameter.checkDeprecation();
     }
@@ -16,16 +16,20 @@
 
 package org.gradle.launcher.daemon.registry
 
+import org.gradle.cache.FileLockManager
 import org.gradle.internal.nativeintegration.ProcessEnvironment
 import org.gradle.internal.nativeintegration.filesystem.Chmod
 import org.gradle.launcher.daemon.context.DaemonContext
 import org.gradle.launcher.daemon.context.DaemonContextBuilder
 import org.gradle.internal.remote.Address
+import org.gradle.internal.remote.internal.inet.MultiChoiceAddress
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStatus
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.concurrent.TimeUnit
+
 import static org.gradle.cache.internal.DefaultFileLockManagerTestHelper.createDefaultFileLockManager
 import static org.gradle.cache.internal.DefaultFileLockManagerTestHelper.unlockUncleanly
 import static org.gradle.launcher.daemon.server.api.DaemonStateControl.State.*
@@ -53,6 +57,20 @@ class PersistentDaemonRegistryTest extends Specification {
         registry.all.empty
     }
 
+    def "reads cleanly written registry file without locking"() {
+        given:
+        registry.store(new DaemonInfo(address(), daemonContext(), "password".bytes, Idle))
+        def otherLockManager = Mock(FileLockManager)
+        def otherRegistry = new PersistentDaemonRegistry(file, otherLockManager, Stub(Chmod))
+
+        when:
+        def all = otherRegistry.all
+
+        then:
+        all.size() == 1
+        0 * otherLockManager._
+    }
+
     def "safely removes from registry file"() {
         given:
         def address = address()
@@ -138,6 +156,30 @@ class PersistentDaemonRegistryTest extends Specification {
         registry.stopEvents.empty
     }
 
+    def "deletes socket files of daemons that are not registered when a daemon is stored"() {
+        given:
+        def registeredSocketFile = oldFile("registered.sock")
+        def orphanSocketFile = oldFile("orphan.sock")
+        def recentSocketFile = tmp.file("recent.sock").createFile()
+        def otherFile = oldFile("other.bin")
+        registry.store(new DaemonInfo(new MultiChoiceAddress(UUID.randomUUID(), 123, [], registeredSocketFile), daemonContext(), "password".bytes, Idle))
+
+        when:
+        registry.store(new DaemonInfo(address(), daemonContext(), "password".bytes, Idle))
+
+        then:
+        registeredSocketFile.exists()
+        !orphanSocketFile.exists()
+        recentSocketFile.exists()
+        otherFile.exists()
+    }
+
+    File oldFile(String name) {
+        def file = tmp.file(name).createFile()
+        file.lastModified = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)
+        return file
+    }
+
     DaemonContext daemonContext() {
         new DaemonContextBuilder([maybeGetPid: {null}] as ProcessEnvironment).with {
             daemonRegistryDir = tmp.createDir("daemons")
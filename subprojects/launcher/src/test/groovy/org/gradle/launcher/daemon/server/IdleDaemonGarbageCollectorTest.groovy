@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server
+
+import org.gradle.internal.time.Clock
+import spock.lang.Specification
+
+import java.lang.management.GarbageCollectorMXBean
+import java.lang.management.MemoryMXBean
+import java.lang.management.MemoryUsage
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+
+class IdleDaemonGarbageCollectorTest extends Specification {
+    def scheduler = Mock(ScheduledExecutorService)
+    def memoryBean = Mock(MemoryMXBean)
+    def gcBean = Mock(GarbageCollectorMXBean)
+    def garbageCollector = Mock(Runnable)
+    def clock = Mock(Clock)
+    def future = Mock(ScheduledFuture)
+    def idleGarbageCollector = new IdleDaemonGarbageCollector(scheduler, memoryBean, [gcBean], garbageCollector, clock, true)
+
+    def "collects garbage once idle after a build"() {
+        Runnable action = null
+
+        given:
+        idleGarbageCollector.buildStarted()
+
+        when:
+        idleGarbageCollector.buildFinished()
+
+        then:
+        1 * scheduler.schedule(_, _, TimeUnit.MILLISECONDS) >> { Runnable r, long delay, TimeUnit unit ->
+            action = r
+            future
+        }
+
+        when:
+        action.run()
+
+        then:
+        2 * memoryBean.getHeapMemoryUsage() >>> [heap(800), heap(100)]
+        1 * garbageCollector.run()
+    }
+
+    def "does not collect garbage when little heap is used"() {
+        given:
+        scheduler.schedule(_, _, _) >> future
+        idleGarbageCollector.buildStarted()
+        idleGarbageCollector.buildFinished()
+
+        when:
+        idleGarbageCollector.collect()
+
+        then:
+        1 * memoryBean.getHeapMemoryUsage() >> heap(100)
+        0 * garbageCollector.run()
+    }
+
+    def "abandons pending collection when a build starts"() {
+        given:
+        scheduler.schedule(_, _, _) >> future
+        idleGarbageCollector.buildStarted()
+        idleGarbageCollector.buildFinished()
+
+        when:
+        idleGarbageCollector.buildStarted()
+
+        then:
+        1 * future.cancel(false)
+
+        when:
+        idleGarbageCollector.collect()
+
+        then:
+        0 * memoryBean._
+        0 * garbageCollector.run()
+    }
+
+    def "stops collecting while idle once a collection has delayed a build"() {
+        given:
+        scheduler.schedule(_, _, _) >> future
+        memoryBean.getHeapMemoryUsage() >>> [heap(800), heap(100)]
+        clock.getCurrentTime() >>> [0, 100, 150, 300, 400]
+        idleGarbageCollector.buildStarted()
+        idleGarbageCollector.buildFinished()
+
+        when:
+        idleGarbageCollector.collect()
+
+        then:
+        // The next build starts while the collection is in progress
+        1 * garbageCollector.run() >> { idleGarbageCollector.buildStarted() }
+
+        when:
+        idleGarbageCollector.buildFinished()
+
+        then:
+        0 * scheduler._
+    }
+
+    def "does nothing unless enabled"() {
+        def idleGarbageCollector = new IdleDaemonGarbageCollector(scheduler, memoryBean, [gcBean], garbageCollector, clock, false)
+
+        when:
+        idleGarbageCollector.buildStarted()
+        idleGarbageCollector.buildFinished()
+
+        then:
+        0 * scheduler._
+        0 * gcBean._
+        0 * clock._
+    }
+
+    private static MemoryUsage heap(long used) {
+        return new MemoryUsage(0, used, 1000, 1000)
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health
+
+import spock.lang.Specification
+
+class TenuredSpaceGrowthModelTest extends Specification {
+    def model = new TenuredSpaceGrowthModel(4)
+
+    def "projects nothing when no builds have been recorded"() {
+        expect:
+        model.sampleCount == 0
+        model.lastUsed == -1
+        model.growthPerBuild == 0
+        model.getBuildsUntil(1000) == -1
+    }
+
+    def "projects growth from recorded builds"() {
+        when:
+        model.recordBuild(100)
+        model.recordBuild(200)
+        model.recordBuild(300)
+
+        then:
+        model.growthPerBuild == 100
+        model.getBuildsUntil(600) == 3
+        model.getBuildsUntil(650) == 4
+        model.getBuildsUntil(300) == 0
+    }
+
+    def "smooths out noise between builds"() {
+        when:
+        model.recordBuild(100)
+        model.recordBuild(300)
+        model.recordBuild(200)
+        model.recordBuild(400)
+
+        then:
+        model.growthPerBuild == 80
+        model.getBuildsUntil(800) == 5
+    }
+
+    def "does not project reaching limit when usage is stable or shrinking"() {
+        when:
+        samples.each { model.recordBuild(it) }
+
+        then:
+        model.getBuildsUntil(1000) == -1
+
+        where:
+        samples << [[500, 500, 500], [500, 400, 300]]
+    }
+
+    def "only considers the most recent builds"() {
+        when:
+        model.recordBuild(900)
+        model.recordBuild(100)
+        model.recordBuild(200)
+        model.recordBuild(300)
+        model.recordBuild(400)
+
+        then:
+        model.sampleCount == 4
+        model.growthPerBuild == 100
+    }
+
+    def "forgets recorded builds on reset"() {
+        given:
+        model.recordBuild(100)
+        model.recordBuild(200)
+
+        when:
+        model.reset()
+
+        then:
+        model.sampleCount == 0
+        model.growthPerBuild == 0
+    }
+}
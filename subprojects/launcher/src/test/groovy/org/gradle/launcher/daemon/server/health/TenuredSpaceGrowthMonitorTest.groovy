@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health
+
+import org.gradle.internal.HeapPressureListener
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.launcher.daemon.server.health.gc.GarbageCollectionMonitor
+import org.gradle.launcher.daemon.server.health.gc.GarbageCollectionStats
+import org.gradle.launcher.daemon.server.health.gc.GarbageCollectorMonitoringStrategy
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class TenuredSpaceGrowthMonitorTest extends Specification {
+    @Rule SetSystemProperties props = new SetSystemProperties()
+
+    def gcMonitor = Mock(GarbageCollectionMonitor)
+    def memoryStatus = Mock(DaemonMemoryStatus)
+    def listener = Mock(HeapPressureListener)
+    def monitor = new TenuredSpaceGrowthMonitor(gcMonitor, memoryStatus, listener)
+    def collections = 0
+    GarbageCollectionStats tenuredStats
+
+    def setup() {
+        gcMonitor.getGcStrategy() >> GarbageCollectorMonitoringStrategy.ORACLE_PARALLEL_CMS
+        gcMonitor.getTenuredStats() >> { tenuredStats }
+        memoryStatus.getTenuredUsageThreshold() >> 90
+        memoryStatus.isEnabled() >> true
+    }
+
+    def "releases memory when tenured space is projected to reach the limit soon"() {
+        when:
+        buildFinishedWithTenuredUsage(500)
+        buildFinishedWithTenuredUsage(600)
+
+        then:
+        0 * listener._
+
+        when:
+        buildFinishedWithTenuredUsage(700)
+
+        then:
+        1 * listener.onHeapPressure()
+    }
+
+    def "does not release memory when tenured space grows slowly"() {
+        when:
+        buildFinishedWithTenuredUsage(500)
+        buildFinishedWithTenuredUsage(510)
+        buildFinishedWithTenuredUsage(520)
+        buildFinishedWithTenuredUsage(530)
+
+        then:
+        0 * listener._
+    }
+
+    def "ignores builds without a collection"() {
+        when:
+        buildFinishedWithTenuredUsage(500)
+        buildFinishedWithTenuredUsage(600)
+        buildFinishedWithoutCollection(600)
+        buildFinishedWithoutCollection(600)
+
+        then:
+        0 * listener._
+    }
+
+    def "starts projecting again after releasing memory"() {
+        given:
+        buildFinishedWithTenuredUsage(500)
+        buildFinishedWithTenuredUsage(600)
+
+        when:
+        buildFinishedWithTenuredUsage(700)
+
+        then:
+        1 * listener.onHeapPressure()
+
+        when:
+        buildFinishedWithTenuredUsage(400)
+        buildFinishedWithTenuredUsage(410)
+        buildFinishedWithTenuredUsage(420)
+
+        then:
+        0 * listener._
+    }
+
+    def "can disable releasing memory"() {
+        System.setProperty(TenuredSpaceGrowthMonitor.ENABLE_PROACTIVE_TRIMMING, "false")
+
+        when:
+        buildFinishedWithTenuredUsage(500)
+        buildFinishedWithTenuredUsage(600)
+        buildFinishedWithTenuredUsage(700)
+
+        then:
+        0 * listener._
+    }
+
+    def "reports heap health as a build operation"() {
+        def buildOperationExecutor = new TestBuildOperationExecutor()
+
+        when:
+        monitor.reportHealth(buildOperationExecutor)
+
+        then:
+        buildOperationExecutor.operations.empty
+
+        when:
+        buildFinishedWithTenuredUsage(500)
+        buildFinishedWithTenuredUsage(600)
+        buildFinishedWithTenuredUsage(700)
+        monitor.reportHealth(buildOperationExecutor)
+
+        then:
+        def result = buildOperationExecutor.log.mostRecentResult(DaemonHeapHealthBuildOperationType)
+        result.tenuredUsed == 700
+        result.tenuredMax == 1000
+        result.tenuredLimit == 900
+        result.tenuredGrowthPerBuild == 100
+        result.projectedBuildsUntilLimit == 2
+        result.cachesTrimmed
+    }
+
+    private void buildFinishedWithTenuredUsage(long used) {
+        collections++
+        buildFinished(used)
+    }
+
+    private void buildFinishedWithoutCollection(long used) {
+        buildFinished(used)
+    }
+
+    private void buildFinished(long used) {
+        def collectionCount = collections
+        tenuredStats = Stub(GarbageCollectionStats) {
+            getUsedAfterLastCollection() >> used
+            getMax() >> 1000
+            getCollectionCount() >> collectionCount
+        }
+        monitor.buildFinished()
+    }
+}
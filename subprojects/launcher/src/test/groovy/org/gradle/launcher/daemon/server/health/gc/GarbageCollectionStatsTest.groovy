@@ -31,6 +31,19 @@ public class GarbageCollectionStatsTest extends Specification {
         new GarbageCollectionStats(checkStream).usage == 73
     }
 
+    def "knows usage after most recent collection"() {
+        expect:
+        def stats = new GarbageCollectionStats(checkStream)
+        stats.usedAfterLastCollection == 900
+        stats.collectionCount == 10
+    }
+
+    def "has no usage after collection when no collection has happened"() {
+        expect:
+        new GarbageCollectionStats([new GarbageCollectionEvent(1000, new MemoryUsage(0, 0, 1000, 1000), 0)] as Set).usedAfterLastCollection == -1
+        new GarbageCollectionStats([] as Set).usedAfterLastCollection == -1
+    }
+
     Set<GarbageCollectionEvent> getCheckStream() {
         Set<GarbageCollectionEvent> checks = [
             new GarbageCollectionEvent(1000, new MemoryUsage(0, 250, 1000, 1000), 2),
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.hub;
+
+import org.gradle.api.Action;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.dispatch.Dispatch;
+import org.gradle.internal.remote.internal.KryoBackedMessageSerializer;
+import org.gradle.internal.remote.internal.hub.protocol.InterHubMessage;
+import org.gradle.internal.remote.internal.inet.SocketConnection;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.Serializers;
+import org.gradle.internal.serialize.StatefulSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends 1M test output events from one message hub to another over a loopback socket, with and without batched framing.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class MessageHubBatchingBenchmark {
+    private static final int MESSAGE_COUNT = 1000000;
+    private static final String CHANNEL = "output";
+
+    @Param({"false", "true"})
+    boolean batching;
+
+    private final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory();
+    private final CountingHandler handler = new CountingHandler();
+    private MessageHub sender;
+    private MessageHub receiver;
+    private SocketConnection<InterHubMessage> senderConnection;
+    private SocketConnection<InterHubMessage> receiverConnection;
+    private Dispatch<String> output;
+
+    @Setup(Level.Trial)
+    public void setupHubs() throws Exception {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        SocketChannel clientChannel = SocketChannel.open(serverChannel.socket().getLocalSocketAddress());
+        SocketChannel acceptedChannel = serverChannel.accept();
+        serverChannel.close();
+
+        Action<Throwable> errorHandler = new Action<Throwable>() {
+            @Override
+            public void execute(Throwable throwable) {
+                throwable.printStackTrace();
+            }
+        };
+        sender = new MessageHub("sender", executorFactory, errorHandler, batching);
+        receiver = new MessageHub("receiver", executorFactory, errorHandler, batching);
+        senderConnection = new SocketConnection<InterHubMessage>(clientChannel, new KryoBackedMessageSerializer(), messageSerializer());
+        receiverConnection = new SocketConnection<InterHubMessage>(acceptedChannel, new KryoBackedMessageSerializer(), messageSerializer());
+
+        receiver.addHandler(CHANNEL, handler);
+        sender.addConnection(senderConnection);
+        receiver.addConnection(receiverConnection);
+        output = sender.getOutgoing(CHANNEL, String.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetHandler() {
+        handler.expect(MESSAGE_COUNT);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopHubs() {
+        CompositeStoppable.stoppable(sender, senderConnection, receiver, receiverConnection, executorFactory).stop();
+    }
+
+    @Benchmark
+    public void sendTestOutputEvents() throws InterruptedException {
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            output.dispatch("test output line " + i);
+        }
+        handler.await();
+    }
+
+    private static StatefulSerializer<InterHubMessage> messageSerializer() {
+        return new InterHubMessageSerializer(Serializers.stateful(new Serializer<Object>() {
+            @Override
+            public Object read(Decoder decoder) throws Exception {
+                return decoder.readString();
+            }
+
+            @Override
+            public void write(Encoder encoder, Object value) throws Exception {
+                encoder.writeString((String) value);
+            }
+        }));
+    }
+
+    private static class CountingHandler implements Dispatch<Object> {
+        private volatile CountDownLatch latch;
+
+        void expect(int count) {
+            latch = new CountDownLatch(count);
+        }
+
+        void await() throws InterruptedException {
+            latch.await();
+        }
+
+        @Override
+        public void dispatch(Object message) {
+            latch.countDown();
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.internal.remote.internal.hub;
 
 import org.gradle.internal.remote.internal.hub.protocol.ChannelMessage;
+import org.gradle.internal.remote.internal.hub.protocol.ChannelMessageBatch;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.ObjectReader;
@@ -25,14 +26,19 @@ import org.gradle.internal.serialize.StatefulSerializer;
 import org.gradle.internal.remote.internal.hub.protocol.ChannelIdentifier;
 import org.gradle.internal.remote.internal.hub.protocol.EndOfStream;
 import org.gradle.internal.remote.internal.hub.protocol.InterHubMessage;
+import org.gradle.internal.remote.internal.hub.protocol.StreamFailureMessage;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class InterHubMessageSerializer implements StatefulSerializer<InterHubMessage> {
     private static final byte CHANNEL_MESSAGE = 1;
     private static final byte END_STREAM_MESSAGE = 2;
+    private static final byte CHANNEL_MESSAGE_BATCH = 3;
     private final StatefulSerializer<Object> payloadSerializer;
 
     public InterHubMessageSerializer(StatefulSerializer<Object> payloadSerializer) {
@@ -62,9 +68,9 @@ public class InterHubMessageSerializer implements StatefulSerializer<InterHubMes
         public InterHubMessage read() throws Exception {
             switch (decoder.readByte()) {
                 case CHANNEL_MESSAGE:
-                    ChannelIdentifier channelId = readChannelId();
-                    Object payload = payloadReader.read();
-                    return new ChannelMessage(channelId, payload);
+                    return readChannelMessage();
+                case CHANNEL_MESSAGE_BATCH:
+                    return readChannelMessageBatch();
                 case END_STREAM_MESSAGE:
                     return new EndOfStream();
                 default:
@@ -72,6 +78,30 @@ public class InterHubMessageSerializer implements StatefulSerializer<InterHubMes
             }
         }
 
+        private ChannelMessage readChannelMessage() throws Exception {
+            ChannelIdentifier channelId = readChannelId();
+            Object payload = payloadReader.read();
+            return new ChannelMessage(channelId, payload);
+        }
+
+        private ChannelMessageBatch readChannelMessageBatch() throws Exception {
+            int count = decoder.readSmallInt();
+            List<InterHubMessage> messages = new ArrayList<InterHubMessage>(count);
+            for (int i = 0; i < count; i++) {
+                try {
+                    messages.add(readChannelMessage());
+                } catch (EOFException e) {
+                    throw e;
+                } catch (IOException e) {
+                    // Same failures that the connection treats as recoverable for a single message
+                    messages.add(new StreamFailureMessage(e));
+                } catch (ClassNotFoundException e) {
+                    messages.add(new StreamFailureMessage(e));
+                }
+            }
+            return new ChannelMessageBatch(messages);
+        }
+
         private ChannelIdentifier readChannelId() throws IOException {
             int channelNum = decoder.readSmallInt();
             ChannelIdentifier channelId = channels.get(channelNum);
@@ -98,8 +128,10 @@ public class InterHubMessageSerializer implements StatefulSerializer<InterHubMes
             if (message instanceof ChannelMessage) {
                 ChannelMessage channelMessage = (ChannelMessage) message;
                 encoder.writeByte(CHANNEL_MESSAGE);
-                writeChannelId(channelMessage);
-                payloadWriter.write(channelMessage.getPayload());
+                writeChannelMessage(channelMessage);
+            } else if (message instanceof ChannelMessageBatch) {
+                encoder.writeByte(CHANNEL_MESSAGE_BATCH);
+                writeChannelMessageBatch((ChannelMessageBatch) message);
             } else if (message instanceof EndOfStream) {
                 encoder.writeByte(END_STREAM_MESSAGE);
             } else {
@@ -107,6 +139,34 @@ public class InterHubMessageSerializer implements StatefulSerializer<InterHubMes
             }
         }
 
+        private void writeChannelMessage(ChannelMessage channelMessage) throws Exception {
+            writeChannelId(channelMessage);
+            payloadWriter.write(channelMessage.getPayload());
+        }
+
+        private void writeChannelMessageBatch(ChannelMessageBatch batch) throws Exception {
+            List<? extends InterHubMessage> messages = batch.getMessages();
+            encoder.writeSmallInt(messages.size());
+            Exception failure = null;
+            for (InterHubMessage message : messages) {
+                try {
+                    writeChannelMessage((ChannelMessage) message);
+                } catch (IOException e) {
+                    // Same failures that the connection treats as recoverable for a single message. Carry on with the remaining messages of the batch
+                    if (failure == null) {
+                        failure = e;
+                    }
+                } catch (ClassNotFoundException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
         private void writeChannelId(ChannelMessage channelMessage) throws IOException {
             Integer channelNum = channels.get(channelMessage.getChannel());
             if (channelNum == null) {
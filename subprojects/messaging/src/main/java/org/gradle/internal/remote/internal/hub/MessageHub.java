@@ -45,9 +45,11 @@ public class MessageHub implements AsyncStoppable {
     private enum State {Running, Stopping, Stopped}
 
     private static final Discard DISCARD = new Discard();
+    private static final int MAX_BATCH_SIZE = 256;
     private final ManagedExecutor workers;
     private final String displayName;
     private final Action<? super Throwable> errorHandler;
+    private final boolean batchOutgoing;
     private final Lock lock = new ReentrantLock();
     private State state = State.Running;
     private final IncomingQueue incomingQueue = new IncomingQueue(lock);
@@ -58,8 +60,18 @@ public class MessageHub implements AsyncStoppable {
      * @param errorHandler Notified when some asynch. activity fails. Must be thread-safe.
      */
     public MessageHub(String displayName, ExecutorFactory executorFactory, Action<? super Throwable> errorHandler) {
+        this(displayName, executorFactory, errorHandler, false);
+    }
+
+    /**
+     * @param errorHandler Notified when some asynch. activity fails. Must be thread-safe.
+     * @param batchOutgoing When true, consecutive channel messages that are queued for a connection are sent as a single {@link ChannelMessageBatch} frame,
+     * so that the receiving hub can queue them all at once rather than one at a time. Both sides of the connection must understand batches.
+     */
+    public MessageHub(String displayName, ExecutorFactory executorFactory, Action<? super Throwable> errorHandler, boolean batchOutgoing) {
         this.displayName = displayName;
         this.errorHandler = errorHandler;
+        this.batchOutgoing = batchOutgoing;
         workers = executorFactory.create(displayName + " workers");
     }
 
@@ -268,6 +280,10 @@ public class MessageHub implements AsyncStoppable {
                         if (message == null || message instanceof EndOfStream) {
                             return;
                         }
+                        if (message instanceof ChannelMessageBatch) {
+                            addToIncoming(unpack((ChannelMessageBatch) message));
+                            continue;
+                        }
                         addToIncoming(message);
                     }
                 } finally {
@@ -282,6 +298,19 @@ public class MessageHub implements AsyncStoppable {
                 errorHandler.execute(e);
             }
         }
+
+        private List<InterHubMessage> unpack(ChannelMessageBatch batch) {
+            List<InterHubMessage> messages = new ArrayList<InterHubMessage>(batch.getMessages().size());
+            for (InterHubMessage message : batch.getMessages()) {
+                if (message instanceof StreamFailureMessage) {
+                    Throwable failure = ((StreamFailureMessage) message).getFailure();
+                    messages.add(new StreamFailureMessage(new RecoverableMessageIOException(String.format("Could not read message from %s.", connection), failure)));
+                } else {
+                    messages.add(message);
+                }
+            }
+            return messages;
+        }
     }
 
     private void addToIncoming(InterHubMessage message) {
@@ -293,6 +322,17 @@ public class MessageHub implements AsyncStoppable {
         }
     }
 
+    private void addToIncoming(List<? extends InterHubMessage> messages) {
+        lock.lock();
+        try {
+            for (InterHubMessage message : messages) {
+                incomingQueue.queue(message);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     private class ConnectionDispatch implements Runnable {
         private final RemoteConnection<InterHubMessage> connection;
         private final EndPointQueue queue;
@@ -315,7 +355,7 @@ public class MessageHub implements AsyncStoppable {
                         } finally {
                             lock.unlock();
                         }
-                        for (InterHubMessage message : messages) {
+                        for (InterHubMessage message : batchOutgoing ? batch(messages) : messages) {
                             try {
                                 connection.dispatch(message);
                             } catch (RecoverableMessageIOException e) {
@@ -341,6 +381,39 @@ public class MessageHub implements AsyncStoppable {
                 errorHandler.execute(t);
             }
         }
+
+        /**
+         * Groups runs of consecutive channel messages into batches, preserving the order of all messages.
+         */
+        private List<InterHubMessage> batch(List<InterHubMessage> messages) {
+            List<InterHubMessage> result = new ArrayList<InterHubMessage>();
+            List<ChannelMessage> current = new ArrayList<ChannelMessage>();
+            for (InterHubMessage message : messages) {
+                if (message instanceof ChannelMessage) {
+                    current.add((ChannelMessage) message);
+                    if (current.size() == MAX_BATCH_SIZE) {
+                        flushBatch(current, result);
+                    }
+                } else {
+                    flushBatch(current, result);
+                    result.add(message);
+                }
+            }
+            flushBatch(current, result);
+            return result;
+        }
+
+        private void flushBatch(List<ChannelMessage> current, List<InterHubMessage> result) {
+            if (current.isEmpty()) {
+                return;
+            }
+            if (current.size() == 1) {
+                result.add(current.get(0));
+            } else {
+                result.add(new ChannelMessageBatch(new ArrayList<ChannelMessage>(current)));
+            }
+            current.clear();
+        }
     }
 
     private class ChannelDispatch<T> implements Dispatch<T> {
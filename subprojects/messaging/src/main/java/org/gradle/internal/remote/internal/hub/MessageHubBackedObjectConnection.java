@@ -69,7 +69,7 @@ public class MessageHubBackedObjectConnection implements ObjectConnection {
                 }
             }
         };
-        this.hub = new MessageHub(completion.toString(), executorFactory, errorHandler);
+        this.hub = new MessageHub(completion.toString(), executorFactory, errorHandler, true);
         this.completion = completion;
         this.addUnrecoverableErrorHandler(new Action<Throwable>() {
             @Override
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.hub.protocol;
+
+import java.util.List;
+
+/**
+ * A sequence of {@link ChannelMessage}s that are sent over a connection as a single frame. A batch is never queued, it is unpacked into its messages as soon as it is received.
+ *
+ * <p>In a batch that has been received, a message that could not be read is replaced by a {@link StreamFailureMessage}, so that the failure is reported in the position of the message.</p>
+ */
+public class ChannelMessageBatch extends InterHubMessage {
+    private final List<? extends InterHubMessage> messages;
+
+    public ChannelMessageBatch(List<? extends InterHubMessage> messages) {
+        this.messages = messages;
+    }
+
+    @Override
+    public Delivery getDelivery() {
+        return Delivery.SingleHandler;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%s messages: %s]", getClass().getSimpleName(), messages.size());
+    }
+
+    public List<? extends InterHubMessage> getMessages() {
+        return messages;
+    }
+}
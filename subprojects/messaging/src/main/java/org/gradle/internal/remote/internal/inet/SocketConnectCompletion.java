@@ -32,7 +32,7 @@ class SocketConnectCompletion implements ConnectCompletion {
 
     @Override
     public String toString() {
-        return socket.socket().getLocalSocketAddress() + " to " + socket.socket().getRemoteSocketAddress();
+        return UnixDomainSockets.describeLocalAddress(socket) + " to " + UnixDomainSockets.describeRemoteAddress(socket);
     }
 
     public <T> RemoteConnection<T> create(StatefulSerializer<T> serializer) {
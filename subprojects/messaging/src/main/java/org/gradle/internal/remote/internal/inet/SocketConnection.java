@@ -42,8 +42,8 @@ import java.nio.channels.SocketChannel;
 public class SocketConnection<T> implements RemoteConnection<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(SocketConnection.class);
     private final SocketChannel socket;
-    private final SocketInetAddress localAddress;
-    private final SocketInetAddress remoteAddress;
+    private final Object localAddress;
+    private final Object remoteAddress;
     private final ObjectWriter<T> objectWriter;
     private final ObjectReader<T> objectReader;
     private final InputStream instr;
@@ -61,15 +61,30 @@ public class SocketConnection<T> implements RemoteConnection<T> {
         } catch (IOException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
-        InetSocketAddress localSocketAddress = (InetSocketAddress) socket.socket().getLocalSocketAddress();
-        localAddress = new SocketInetAddress(localSocketAddress.getAddress(), localSocketAddress.getPort());
-        InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
-        remoteAddress = new SocketInetAddress(remoteSocketAddress.getAddress(), remoteSocketAddress.getPort());
+        if (isTcp(socket)) {
+            InetSocketAddress localSocketAddress = (InetSocketAddress) socket.socket().getLocalSocketAddress();
+            localAddress = new SocketInetAddress(localSocketAddress.getAddress(), localSocketAddress.getPort());
+            InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
+            remoteAddress = new SocketInetAddress(remoteSocketAddress.getAddress(), remoteSocketAddress.getPort());
+        } else {
+            localAddress = UnixDomainSockets.describeLocalAddress(socket);
+            remoteAddress = UnixDomainSockets.describeRemoteAddress(socket);
+        }
         objectReader = messageSerializer.newReader(streamSerializer.newDecoder(instr));
         encoder = streamSerializer.newEncoder(outstr);
         objectWriter = messageSerializer.newWriter(encoder);
     }
 
+    private static boolean isTcp(SocketChannel socket) {
+        try {
+            socket.socket();
+            return true;
+        } catch (UnsupportedOperationException e) {
+            // Unix domain socket channels do not provide a socket
+            return false;
+        }
+    }
+
     @Override
     public String toString() {
         return "socket connection from " + localAddress + " to " + remoteAddress;
@@ -155,7 +170,7 @@ public class SocketConnection<T> implements RemoteConnection<T> {
             this.socket = socket;
             selector = Selector.open();
             socket.register(selector, SelectionKey.OP_READ);
-            buffer = ByteBuffer.allocateDirect(4096);
+            buffer = ByteBuffer.allocateDirect(32 * 1024);
             BufferCaster.cast(buffer).limit(0);
         }
 
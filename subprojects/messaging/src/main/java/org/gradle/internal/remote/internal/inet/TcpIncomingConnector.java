@@ -29,6 +29,9 @@ import org.gradle.internal.remote.internal.IncomingConnector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.channels.ClosedChannelException;
@@ -42,11 +45,20 @@ public class TcpIncomingConnector implements IncomingConnector {
     private final ExecutorFactory executorFactory;
     private final InetAddressFactory addressFactory;
     private final IdGenerator<UUID> idGenerator;
+    private final File socketDir;
 
     public TcpIncomingConnector(ExecutorFactory executorFactory, InetAddressFactory addressFactory, IdGenerator<UUID> idGenerator) {
+        this(executorFactory, addressFactory, idGenerator, null);
+    }
+
+    /**
+     * Creates a connector that, in addition to TCP, also accepts local connections over a Unix domain socket in the given directory, when the JVM supports it.
+     */
+    public TcpIncomingConnector(ExecutorFactory executorFactory, InetAddressFactory addressFactory, IdGenerator<UUID> idGenerator, @Nullable File socketDir) {
         this.executorFactory = executorFactory;
         this.addressFactory = addressFactory;
         this.idGenerator = idGenerator;
+        this.socketDir = socketDir;
     }
 
     public ConnectionAcceptor accept(Action<ConnectCompletion> action, boolean allowRemote) {
@@ -61,12 +73,18 @@ public class TcpIncomingConnector implements IncomingConnector {
         }
 
         UUID id = idGenerator.generateId();
+        final File socketFile = allowRemote ? null : socketFileFor(id);
+        final ServerSocketChannel localServerSocket = socketFile == null ? null : bindLocal(socketFile);
         List<InetAddress> addresses = addressFactory.getCommunicationAddresses();
-        final Address address = new MultiChoiceAddress(id, localPort, addresses);
+        final Address address = new MultiChoiceAddress(id, localPort, addresses, localServerSocket == null ? null : socketFile);
         LOGGER.debug("Listening on {}.", address);
 
         final ManagedExecutor executor = executorFactory.create("Incoming " + (allowRemote ? "remote" : "local")+ " TCP Connector on port " + localPort);
         executor.execute(new Receiver(serverSocket, action, allowRemote));
+        if (localServerSocket != null) {
+            // A Unix domain socket only accepts connections from the local machine
+            executor.execute(new Receiver(localServerSocket, action, true));
+        }
 
         return new ConnectionAcceptor() {
             public Address getAddress() {
@@ -74,7 +92,10 @@ public class TcpIncomingConnector implements IncomingConnector {
             }
 
             public void requestStop() {
-                CompositeStoppable.stoppable(serverSocket).stop();
+                CompositeStoppable.stoppable(serverSocket, localServerSocket).stop();
+                if (localServerSocket != null) {
+                    socketFile.delete();
+                }
             }
 
             public void stop() {
@@ -84,6 +105,32 @@ public class TcpIncomingConnector implements IncomingConnector {
         };
     }
 
+    @Nullable
+    private File socketFileFor(UUID id) {
+        UnixDomainSockets unixDomainSockets = UnixDomainSockets.current();
+        if (socketDir == null || unixDomainSockets == null) {
+            return null;
+        }
+        File socketFile = new File(socketDir, Long.toHexString(id.getMostSignificantBits()) + ".sock");
+        return unixDomainSockets.canBindTo(socketFile) ? socketFile : null;
+    }
+
+    @Nullable
+    private ServerSocketChannel bindLocal(File socketFile) {
+        // A socket file left behind by a process that did not stop cleanly makes the bind fail. Delete it without checking
+        // whether it exists first, as that check does not see a dangling link
+        if (!socketFile.delete() && socketFile.exists()) {
+            LOGGER.debug("Could not delete stale Unix domain socket {}, using TCP only.", socketFile);
+            return null;
+        }
+        try {
+            return UnixDomainSockets.current().bind(socketFile);
+        } catch (IOException e) {
+            LOGGER.debug("Could not listen on Unix domain socket {}, using TCP only.", socketFile, e);
+            return null;
+        }
+    }
+
     private class Receiver implements Runnable {
         private final ServerSocketChannel serverSocket;
         private final Action<ConnectCompletion> action;
@@ -100,14 +147,16 @@ public class TcpIncomingConnector implements IncomingConnector {
                 try {
                     while (true) {
                         final SocketChannel socket = serverSocket.accept();
-                        InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
-                        InetAddress remoteInetAddress = remoteSocketAddress.getAddress();
-                        if (!allowRemote && !addressFactory.isCommunicationAddress(remoteInetAddress)) {
-                            LOGGER.error("Cannot accept connection from remote address {}.", remoteInetAddress);
-                            socket.close();
-                            continue;
+                        if (!allowRemote) {
+                            InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
+                            InetAddress remoteInetAddress = remoteSocketAddress.getAddress();
+                            if (!addressFactory.isCommunicationAddress(remoteInetAddress)) {
+                                LOGGER.error("Cannot accept connection from remote address {}.", remoteInetAddress);
+                                socket.close();
+                                continue;
+                            }
                         }
-                        LOGGER.debug("Accepted connection from {} to {}.", socket.socket().getRemoteSocketAddress(), socket.socket().getLocalSocketAddress());
+                        LOGGER.debug("Accepted connection from {} to {}.", UnixDomainSockets.describeRemoteAddress(socket), UnixDomainSockets.describeLocalAddress(socket));
                         try {
                             action.execute(new SocketConnectCompletion(socket));
                         } catch (Throwable t) {
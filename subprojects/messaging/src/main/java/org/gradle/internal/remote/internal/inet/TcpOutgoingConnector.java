@@ -23,6 +23,7 @@ import org.gradle.internal.remote.internal.OutgoingConnector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.*;
 import java.nio.channels.SocketChannel;
@@ -39,6 +40,11 @@ public class TcpOutgoingConnector implements OutgoingConnector {
         InetEndpoint address = (InetEndpoint) destinationAddress;
         LOGGER.debug("Attempting to connect to {}.", address);
 
+        SocketChannel localSocketChannel = tryConnectLocal(address);
+        if (localSocketChannel != null) {
+            return new SocketConnectCompletion(localSocketChannel);
+        }
+
         // Try each address in turn. Not all of them are necessarily reachable (eg when socket option IPV6_V6ONLY
         // is on - the default for debian and others), so we will try each of them until we can connect
         List<InetAddress> candidateAddresses = address.getCandidates();
@@ -73,6 +79,29 @@ public class TcpOutgoingConnector implements OutgoingConnector {
         }
     }
 
+    /**
+     * Connects over the Unix domain socket of the given address, when there is one and this JVM supports it. Returns null if TCP should be used instead.
+     */
+    private SocketChannel tryConnectLocal(InetEndpoint address) {
+        if (!(address instanceof MultiChoiceAddress)) {
+            return null;
+        }
+        File socketFile = ((MultiChoiceAddress) address).getSocketFile();
+        UnixDomainSockets unixDomainSockets = UnixDomainSockets.current();
+        if (socketFile == null || unixDomainSockets == null || !socketFile.exists()) {
+            return null;
+        }
+        LOGGER.debug("Trying to connect to socket {}.", socketFile);
+        try {
+            SocketChannel socketChannel = unixDomainSockets.connect(socketFile);
+            LOGGER.debug("Connected to socket {}.", socketFile);
+            return socketChannel;
+        } catch (IOException e) {
+            LOGGER.debug("Cannot connect to socket {}, falling back to TCP.", socketFile);
+            return null;
+        }
+    }
+
     private SocketChannel tryConnect(InetEndpoint address, InetAddress candidate) throws IOException {
         SocketChannel socketChannel = SocketChannel.open();
 
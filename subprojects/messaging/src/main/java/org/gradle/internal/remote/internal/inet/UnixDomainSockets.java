@@ -0,0 +1,182 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.SocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Access to Unix domain socket channels, which are available from Java 16. Connecting over a Unix domain socket avoids the overhead of the TCP loopback
+ * stack for connections that are always local.
+ *
+ * Uses reflection, as this code needs to run on Java versions that do not provide these channels.
+ */
+public class UnixDomainSockets {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.remote.unix-domain-sockets";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnixDomainSockets.class);
+    // The maximum length of a socket path is platform specific, this is the smallest of the common limits
+    private static final int MAX_PATH_LENGTH = 100;
+    private static final UnixDomainSockets INSTANCE = create();
+
+    private final Object unixProtocolFamily;
+    private final Method openServerSocketChannel;
+    private final Method openSocketChannel;
+    private final Method bind;
+    private final Method createAddress;
+    private final Method getLocalAddress;
+    private final Method getRemoteAddress;
+
+    private UnixDomainSockets(Object unixProtocolFamily, Method openServerSocketChannel, Method openSocketChannel, Method bind, Method createAddress, Method getLocalAddress, Method getRemoteAddress) {
+        this.unixProtocolFamily = unixProtocolFamily;
+        this.openServerSocketChannel = openServerSocketChannel;
+        this.openSocketChannel = openSocketChannel;
+        this.bind = bind;
+        this.createAddress = createAddress;
+        this.getLocalAddress = getLocalAddress;
+        this.getRemoteAddress = getRemoteAddress;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private static UnixDomainSockets create() {
+        if (!Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))) {
+            return null;
+        }
+        try {
+            Class<?> protocolFamilyType = Class.forName("java.net.ProtocolFamily");
+            Class<? extends Enum> standardProtocolFamilyType = (Class<? extends Enum>) Class.forName("java.net.StandardProtocolFamily");
+            Class<?> unixDomainSocketAddressType = Class.forName("java.net.UnixDomainSocketAddress");
+            return new UnixDomainSockets(
+                Enum.valueOf(standardProtocolFamilyType, "UNIX"),
+                ServerSocketChannel.class.getMethod("open", protocolFamilyType),
+                SocketChannel.class.getMethod("open", protocolFamilyType),
+                ServerSocketChannel.class.getMethod("bind", SocketAddress.class),
+                unixDomainSocketAddressType.getMethod("of", String.class),
+                SocketChannel.class.getMethod("getLocalAddress"),
+                SocketChannel.class.getMethod("getRemoteAddress")
+            );
+        } catch (Exception e) {
+            // Not available on this Java version
+            return null;
+        }
+    }
+
+    /**
+     * Returns the Unix domain sockets of this JVM, or null when not supported.
+     */
+    @Nullable
+    public static UnixDomainSockets current() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns whether the given file can be used as the path of a socket.
+     */
+    public boolean canBindTo(File socketFile) {
+        return socketFile.getAbsolutePath().length() <= MAX_PATH_LENGTH;
+    }
+
+    /**
+     * Opens a server channel bound to the given file, which must not exist.
+     */
+    public ServerSocketChannel bind(File socketFile) throws IOException {
+        ServerSocketChannel serverSocketChannel = (ServerSocketChannel) invoke(openServerSocketChannel, null, unixProtocolFamily);
+        try {
+            invoke(bind, serverSocketChannel, address(socketFile));
+        } catch (IOException e) {
+            serverSocketChannel.close();
+            throw e;
+        }
+        return serverSocketChannel;
+    }
+
+    /**
+     * Opens a channel connected to the given socket file.
+     */
+    public SocketChannel connect(File socketFile) throws IOException {
+        SocketChannel socketChannel = (SocketChannel) invoke(openSocketChannel, null, unixProtocolFamily);
+        try {
+            socketChannel.connect(address(socketFile));
+        } catch (IOException e) {
+            socketChannel.close();
+            throw e;
+        }
+        return socketChannel;
+    }
+
+    /**
+     * Describes the local end of the given channel, which may be a TCP or a Unix domain socket channel.
+     */
+    public static String describeLocalAddress(SocketChannel socketChannel) {
+        return describe(socketChannel, true);
+    }
+
+    /**
+     * Describes the remote end of the given channel, which may be a TCP or a Unix domain socket channel.
+     */
+    public static String describeRemoteAddress(SocketChannel socketChannel) {
+        return describe(socketChannel, false);
+    }
+
+    private static String describe(SocketChannel socketChannel, boolean local) {
+        try {
+            return String.valueOf(local ? socketChannel.socket().getLocalSocketAddress() : socketChannel.socket().getRemoteSocketAddress());
+        } catch (UnsupportedOperationException e) {
+            // Not a TCP channel
+        }
+        UnixDomainSockets unixDomainSockets = current();
+        if (unixDomainSockets != null) {
+            try {
+                return "unix:" + invoke(local ? unixDomainSockets.getLocalAddress : unixDomainSockets.getRemoteAddress, socketChannel);
+            } catch (IOException e) {
+                LOGGER.debug("Could not determine address of {}.", socketChannel, e);
+            }
+        }
+        return "unix:unknown";
+    }
+
+    private SocketAddress address(File socketFile) throws IOException {
+        return (SocketAddress) invoke(createAddress, null, socketFile.getAbsolutePath());
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) throws IOException {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IOException(e);
+        }
+    }
+}
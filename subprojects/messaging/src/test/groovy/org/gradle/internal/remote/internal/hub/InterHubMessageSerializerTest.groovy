@@ -18,8 +18,10 @@ package org.gradle.internal.remote.internal.hub
 
 import org.gradle.internal.remote.internal.hub.protocol.ChannelIdentifier
 import org.gradle.internal.remote.internal.hub.protocol.ChannelMessage
+import org.gradle.internal.remote.internal.hub.protocol.ChannelMessageBatch
 import org.gradle.internal.remote.internal.hub.protocol.EndOfStream
 import org.gradle.internal.remote.internal.hub.protocol.InterHubMessage
+import org.gradle.internal.remote.internal.hub.protocol.StreamFailureMessage
 import org.gradle.internal.serialize.DefaultSerializer
 import org.gradle.internal.serialize.InputStreamBackedDecoder
 import org.gradle.internal.serialize.OutputStreamBackedEncoder
@@ -89,6 +91,80 @@ class InterHubMessageSerializerTest extends Specification {
         result[2].payload == "payload 3"
     }
 
+    def "can serialise ChannelMessageBatch"() {
+        def channelId1 = new ChannelIdentifier("channel 1")
+        def channelId2 = new ChannelIdentifier("channel 2")
+        def batch = new ChannelMessageBatch([
+            new ChannelMessage(channelId1, "payload 1"),
+            new ChannelMessage(channelId2, "payload 2"),
+            new ChannelMessage(channelId1, "payload 3")])
+
+        when:
+        def serialized = serialize(batch, new ChannelMessage(channelId2, "payload 4"))
+        def result = deserializeMultiple(serialized, 2)
+
+        then:
+        result[0] instanceof ChannelMessageBatch
+        result[0].messages*.channel == [channelId1, channelId2, channelId1]
+        result[0].messages*.payload == ["payload 1", "payload 2", "payload 3"]
+        result[1] instanceof ChannelMessage
+        result[1].channel == channelId2
+        result[1].payload == "payload 4"
+    }
+
+    def "payload that cannot be serialized is reported in its position in the batch"() {
+        def channelId = new ChannelIdentifier("channel")
+        def batch = new ChannelMessageBatch([
+            new ChannelMessage(channelId, "payload 1"),
+            new ChannelMessage(channelId, new Object()),
+            new ChannelMessage(channelId, "payload 3")])
+        def outStr = new ByteArrayOutputStream()
+        def encoder = new OutputStreamBackedEncoder(outStr)
+        def writer = serializer.newWriter(encoder)
+
+        when:
+        writer.write(batch)
+
+        then:
+        thrown(NotSerializableException)
+
+        when:
+        writer.write(new ChannelMessage(channelId, "payload 4"))
+        def result = deserializeMultiple(outStr.toByteArray(), 2)
+
+        then:
+        result[0] instanceof ChannelMessageBatch
+        result[0].messages.size() == 3
+        result[0].messages[0].payload == "payload 1"
+        result[0].messages[1] instanceof StreamFailureMessage
+        result[0].messages[1].failure instanceof ObjectStreamException
+        result[0].messages[2].payload == "payload 3"
+        result[1] instanceof ChannelMessage
+        result[1].payload == "payload 4"
+    }
+
+    def "payload that cannot be deserialized is reported in its position in the batch"() {
+        def channelId = new ChannelIdentifier("channel")
+        def batch = new ChannelMessageBatch([
+            new ChannelMessage(channelId, "payload 1"),
+            new ChannelMessage(channelId, new BrokenPayload()),
+            new ChannelMessage(channelId, "payload 3")])
+
+        when:
+        def serialized = serialize(batch, new ChannelMessage(channelId, "payload 4"))
+        def result = deserializeMultiple(serialized, 2)
+
+        then:
+        result[0] instanceof ChannelMessageBatch
+        result[0].messages.size() == 3
+        result[0].messages[0].payload == "payload 1"
+        result[0].messages[1] instanceof StreamFailureMessage
+        result[0].messages[1].failure instanceof InvalidObjectException
+        result[0].messages[2].payload == "payload 3"
+        result[1] instanceof ChannelMessage
+        result[1].payload == "payload 4"
+    }
+
     def "can serialise EndOfStream"() {
         when:
         def serialized = serialize(new EndOfStream())
@@ -121,4 +197,10 @@ class InterHubMessageSerializerTest extends Specification {
         }
         return result
     }
+
+    static class BrokenPayload implements Serializable {
+        private void readObject(ObjectInputStream inputStream) throws IOException {
+            throw new InvalidObjectException("broken")
+        }
+    }
 }
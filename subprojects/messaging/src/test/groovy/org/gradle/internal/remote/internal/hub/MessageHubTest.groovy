@@ -19,12 +19,15 @@ package org.gradle.internal.remote.internal.hub
 import org.gradle.api.Action
 import org.gradle.internal.dispatch.BoundedDispatch
 import org.gradle.internal.dispatch.Dispatch
+import org.gradle.internal.remote.internal.RecoverableMessageIOException
 import org.gradle.internal.remote.internal.RemoteConnection
 import org.gradle.internal.remote.internal.TestConnection
 import org.gradle.internal.remote.internal.hub.protocol.ChannelIdentifier
 import org.gradle.internal.remote.internal.hub.protocol.ChannelMessage
+import org.gradle.internal.remote.internal.hub.protocol.ChannelMessageBatch
 import org.gradle.internal.remote.internal.hub.protocol.EndOfStream
 import org.gradle.internal.remote.internal.hub.protocol.InterHubMessage
+import org.gradle.internal.remote.internal.hub.protocol.StreamFailureMessage
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import spock.lang.Timeout
 
@@ -254,6 +257,79 @@ class MessageHubTest extends ConcurrentSpec {
         connection.stop()
     }
 
+    def "consecutive outgoing messages are dispatched to connection as a batch when batching is enabled"() {
+        def batchingHub = new MessageHub("<batching hub>", executorFactory, errorHandler, true)
+        RemoteConnection<InterHubMessage> outgoing = Mock()
+        def connection = new MockOutgoingConnection(outgoing)
+
+        when:
+        batchingHub.getOutgoing("channel1", String).dispatch("message1")
+        batchingHub.getOutgoing("channel2", String).dispatch("message2")
+        batchingHub.getOutgoing("channel1", String).dispatch("message3")
+        batchingHub.addConnection(connection)
+        batchingHub.stop()
+
+        then:
+        1 * outgoing.dispatch({ it instanceof ChannelMessageBatch && it.messages*.payload == ["message1", "message2", "message3"] })
+        1 * outgoing.dispatch({ it instanceof EndOfStream }) >> { connection.stop() }
+        (1.._) * outgoing.flush()
+        0 * _._
+
+        cleanup:
+        batchingHub?.stop()
+    }
+
+    def "incoming batch is unpacked and dispatched to handlers in order"() {
+        def connection = new TestConnection()
+        def received = new CopyOnWriteArrayList()
+        Dispatch<String> handler = Mock()
+
+        given:
+        hub.addHandler("channel", handler)
+
+        when:
+        hub.addConnection(connection)
+        connection.queueIncoming(new ChannelMessageBatch([
+            new ChannelMessage(new ChannelIdentifier("channel"), "message 1"),
+            new ChannelMessage(new ChannelIdentifier("channel"), "message 2")
+        ]))
+        connection.stop()
+        hub.stop()
+
+        then:
+        2 * handler.dispatch(_) >> { String message -> received << message }
+        received == ["message 1", "message 2"]
+    }
+
+    def "failure to read a message of incoming batch is reported in the position of the message"() {
+        def connection = new TestConnection()
+        def received = new CopyOnWriteArrayList()
+        FailureAwareHandler handler = Mock()
+        def failure = new IOException("broken")
+
+        given:
+        hub.addHandler("channel", handler)
+
+        when:
+        hub.addConnection(connection)
+        connection.queueIncoming(new ChannelMessageBatch([
+            new ChannelMessage(new ChannelIdentifier("channel"), "message 1"),
+            new StreamFailureMessage(failure),
+            new ChannelMessage(new ChannelIdentifier("channel"), "message 3")
+        ]))
+        connection.stop()
+        hub.stop()
+
+        then:
+        2 * handler.dispatch(_) >> { String message -> received << message }
+        1 * handler.handleStreamFailure(_) >> { Throwable t -> received << t }
+        received.size() == 3
+        received[0] == "message 1"
+        received[1] instanceof RecoverableMessageIOException
+        received[1].cause == failure
+        received[2] == "message 3"
+    }
+
     def "incoming messages are dispatched asynchronously to handler"() {
         def connection = new TestConnection()
         Dispatch<String> handler = Mock()
@@ -694,6 +770,9 @@ class MessageHubTest extends ConcurrentSpec {
         0 * _._
     }
 
+    interface FailureAwareHandler extends Dispatch<String>, StreamFailureHandler {
+    }
+
     private static class MockOutgoingConnection implements RemoteConnection<InterHubMessage> {
         private final RemoteConnection<InterHubMessage> dispatch
         private final BlockingQueue<InterHubMessage> incoming = new LinkedBlockingQueue<>()
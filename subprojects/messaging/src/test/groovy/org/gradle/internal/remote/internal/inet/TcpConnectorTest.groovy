@@ -16,6 +16,7 @@
 package org.gradle.internal.remote.internal.inet
 
 import org.gradle.api.Action
+import org.gradle.internal.id.IdGenerator
 import org.gradle.internal.id.UUIDGenerator
 import org.gradle.internal.remote.internal.ConnectCompletion
 import org.gradle.internal.remote.internal.ConnectException
@@ -28,12 +29,14 @@ import org.gradle.internal.serialize.Serializers
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import org.gradle.util.ports.ReleasingPortAllocator
 import org.junit.Rule
+import spock.lang.IgnoreIf
 import spock.lang.Issue
 import spock.lang.Shared
 import spock.lang.Timeout
 import spock.lang.Unroll
 
 import java.nio.channels.SocketChannel
+import java.nio.file.Files
 
 @Timeout(60)
 class TcpConnectorTest extends ConcurrentSpec {
@@ -60,6 +63,92 @@ class TcpConnectorTest extends ConcurrentSpec {
         connection?.stop()
     }
 
+    @IgnoreIf({ UnixDomainSockets.current() == null })
+    def "client connects to server over Unix domain socket when available"() {
+        Action action = Mock()
+        // Use a short path, as the length of a socket path is limited
+        def socketDir = Files.createTempDirectory("sock").toFile()
+        def localIncomingConnector = new TcpIncomingConnector(executorFactory, addressFactory, idGenerator, socketDir)
+
+        when:
+        def acceptor = localIncomingConnector.accept(action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+
+        then:
+        acceptor.address.socketFile.parentFile == socketDir
+        connection.toString().contains("unix:")
+
+        when:
+        acceptor.stop()
+
+        then:
+        !acceptor.address.socketFile.exists()
+
+        cleanup:
+        acceptor?.stop()
+        connection?.stop()
+        socketDir.deleteDir()
+    }
+
+    @IgnoreIf({ UnixDomainSockets.current() == null })
+    def "replaces stale Unix domain socket file"() {
+        Action action = Mock()
+        def socketDir = Files.createTempDirectory("sock").toFile()
+        def id = UUID.randomUUID()
+        def staleSocketFile = new File(socketDir, Long.toHexString(id.mostSignificantBits) + ".sock")
+        staleSocketFile.text = "stale"
+        def localIncomingConnector = new TcpIncomingConnector(executorFactory, addressFactory, { id } as IdGenerator, socketDir)
+
+        when:
+        def acceptor = localIncomingConnector.accept(action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+
+        then:
+        acceptor.address.socketFile == staleSocketFile
+        connection.toString().contains("unix:")
+
+        cleanup:
+        acceptor?.stop()
+        connection?.stop()
+        socketDir.deleteDir()
+    }
+
+    @IgnoreIf({ UnixDomainSockets.current() == null })
+    def "client falls back to TCP when Unix domain socket is not available"() {
+        Action action = Mock()
+        def socketDir = Files.createTempDirectory("sock").toFile()
+        def localIncomingConnector = new TcpIncomingConnector(executorFactory, addressFactory, idGenerator, socketDir)
+
+        when:
+        def acceptor = localIncomingConnector.accept(action, false)
+        acceptor.address.socketFile.delete()
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+
+        then:
+        !connection.toString().contains("unix:")
+
+        cleanup:
+        acceptor?.stop()
+        connection?.stop()
+        socketDir.deleteDir()
+    }
+
+    def "does not listen on Unix domain socket for remote connections"() {
+        Action action = Mock()
+        def socketDir = Files.createTempDirectory("sock").toFile()
+        def localIncomingConnector = new TcpIncomingConnector(executorFactory, addressFactory, idGenerator, socketDir)
+
+        when:
+        def acceptor = localIncomingConnector.accept(action, true)
+
+        then:
+        acceptor.address.socketFile == null
+
+        cleanup:
+        acceptor?.stop()
+        socketDir.deleteDir()
+    }
+
     def "client can connect to server using remote addresses"() {
         Action action = Mock()
 
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance.experiment.java
+
+import org.gradle.performance.AbstractCrossBuildPerformanceTest
+import org.gradle.performance.categories.PerformanceExperiment
+import org.junit.experimental.categories.Category
+
+import static org.gradle.integtests.tooling.fixture.TextUtil.escapeString
+import static org.gradle.performance.generator.JavaTestProject.LARGE_MONOLITHIC_JAVA_PROJECT
+
+@Category(PerformanceExperiment)
+class ParallelJavadocPerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    def "javadoc on a large monolithic project in package groups"() {
+        given:
+        def testProject = LARGE_MONOLITHIC_JAVA_PROJECT
+        def packageGroupsInitScript = temporaryFolder.file("package-groups.gradle")
+        packageGroupsInitScript << """
+            allprojects {
+                tasks.withType(Javadoc) {
+                    packageGroups = 4
+                }
+            }
+        """.stripIndent()
+        runner.testGroup = "javadoc"
+        runner.buildSpec {
+            warmUpCount = 2
+            invocationCount = 10
+            projectName(testProject.projectName).displayName("4 package groups").invocation {
+                tasksToRun("javadoc").cleanTasks("cleanJavadoc").gradleOpts("-Xms${testProject.daemonMemory}", "-Xmx${testProject.daemonMemory}").args(
+                    "--init-script", escapeString(packageGroupsInitScript.absolutePath))
+            }
+        }
+        runner.baseline {
+            warmUpCount = 2
+            invocationCount = 10
+            projectName(testProject.projectName).displayName("single javadoc process").invocation {
+                tasksToRun("javadoc").cleanTasks("cleanJavadoc").gradleOpts("-Xms${testProject.daemonMemory}", "-Xmx${testProject.daemonMemory}")
+            }
+        }
+
+        when:
+        def results = runner.run()
+
+        then:
+        results
+    }
+}
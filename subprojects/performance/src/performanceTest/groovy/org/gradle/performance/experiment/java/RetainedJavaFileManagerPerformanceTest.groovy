@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance.experiment.java
+
+import org.gradle.performance.AbstractCrossBuildPerformanceTest
+import org.gradle.performance.categories.PerformanceExperiment
+import org.gradle.performance.mutator.ApplyNonAbiChangeToJavaSourceFileMutator
+import org.junit.experimental.categories.Category
+
+import static org.gradle.performance.generator.JavaTestProject.MEDIUM_MONOLITHIC_JAVA_PROJECT
+
+@Category(PerformanceExperiment)
+class RetainedJavaFileManagerPerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    def "assemble for non-abi change on a monolithic project with retained file managers"() {
+        given:
+        def testProject = MEDIUM_MONOLITHIC_JAVA_PROJECT
+        def fileToChange = testProject.config.fileToChangeByScenario['assemble']
+        runner.testGroup = "java compiler file managers"
+        runner.buildSpec {
+            warmUpCount = 5
+            invocationCount = 20
+            listener = new ApplyNonAbiChangeToJavaSourceFileMutator(fileToChange)
+            projectName(testProject.projectName).displayName("retained file managers").invocation {
+                tasksToRun("assemble").args("-Dorg.gradle.internal.java.compile.retain-file-managers=true").gradleOpts("-Xms${testProject.daemonMemory}", "-Xmx${testProject.daemonMemory}")
+            }
+        }
+        runner.baseline {
+            warmUpCount = 5
+            invocationCount = 20
+            listener = new ApplyNonAbiChangeToJavaSourceFileMutator(fileToChange)
+            projectName(testProject.projectName).displayName("new file manager per compilation").invocation {
+                tasksToRun("assemble").gradleOpts("-Xms${testProject.daemonMemory}", "-Xmx${testProject.daemonMemory}")
+            }
+        }
+
+        when:
+        def results = runner.run()
+
+        then:
+        results
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance.regression.corefeature
+
+import org.gradle.performance.AbstractCrossVersionPerformanceTest
+
+import static org.gradle.performance.generator.JavaTestProject.SMALL_JAVA_MULTI_PROJECT
+
+class WarmDaemonStartupPerformanceTest extends AbstractCrossVersionPerformanceTest {
+
+    def "run help against a warm daemon"() {
+        given:
+        runner.testProject = SMALL_JAVA_MULTI_PROJECT
+        runner.gradleOpts = ["-Xms${SMALL_JAVA_MULTI_PROJECT.daemonMemory}", "-Xmx${SMALL_JAVA_MULTI_PROJECT.daemonMemory}"]
+        runner.tasksToRun = ['help']
+        runner.warmUpRuns = 10
+        runner.runs = 40
+        runner.targetVersions = ["5.1-20181023100041+0000"]
+
+        when:
+        def result = runner.run()
+
+        then:
+        result.assertCurrentVersionHasNotRegressed()
+    }
+}
@@ -24,9 +24,13 @@ import org.gradle.cache.CacheDecorator;
 import org.gradle.cache.CrossProcessCacheAccess;
 import org.gradle.cache.FileLock;
 import org.gradle.cache.MultiProcessSafePersistentIndexedCache;
+import org.gradle.internal.HeapPressureListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -34,12 +38,16 @@ import java.util.concurrent.atomic.AtomicReference;
  * The in-memory cache is invalidated when the backing cache is changed by another process.
  *
  * Also decorates each cache so that updates to the backing cache are made asynchronously.
+ *
+ * The in-memory caches are discarded when the heap is under pressure. They are refilled from the backing caches on demand.
  */
-public class InMemoryCacheDecoratorFactory {
+public class InMemoryCacheDecoratorFactory implements HeapPressureListener {
     private final static Logger LOG = LoggerFactory.getLogger(InMemoryCacheDecoratorFactory.class);
     private final boolean longLivingProcess;
     private final HeapProportionalCacheSizer cacheSizer = new HeapProportionalCacheSizer();
     private final CrossBuildInMemoryCache<String, CacheDetails> caches;
+    // Weakly referenced, so that trimming does not keep caches alive that have otherwise been collected
+    private final Set<CacheDetails> createdCaches = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<CacheDetails, Boolean>()));
 
     public InMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemoryCacheFactory cacheFactory) {
         this.longLivingProcess = longLivingProcess;
@@ -68,6 +76,7 @@ public class InMemoryCacheDecoratorFactory {
                 Cache<Object, Object> entries = createInMemoryCache(cacheId, maxSize);
                 CacheDetails cacheDetails = new CacheDetails(cacheId, maxSize, entries, new AtomicReference<FileLock.State>(null));
                 LOG.debug("Creating in-memory store for cache {} (max size: {})", cacheId, maxSize);
+                createdCaches.add(cacheDetails);
                 return cacheDetails;
             }
         });
@@ -77,6 +86,16 @@ public class InMemoryCacheDecoratorFactory {
         return cacheDetails;
     }
 
+    @Override
+    public void onHeapPressure() {
+        synchronized (createdCaches) {
+            for (CacheDetails cacheDetails : createdCaches) {
+                LOG.debug("Discarding in-memory store for cache {}", cacheDetails.cacheId);
+                cacheDetails.entries.invalidateAll();
+            }
+        }
+    }
+
     private Cache<Object, Object> createInMemoryCache(String cacheId, int maxSize) {
         LoggingEvictionListener evictionListener = new LoggingEvictionListener(cacheId, maxSize);
         final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().removalListener(evictionListener);
@@ -66,6 +66,34 @@ class InMemoryCacheDecoratorFactoryTest extends Specification {
         0 * target._
     }
 
+    def "discards cached results when heap is under pressure"() {
+        given:
+        def cache = cacheFactory.decorator(100, true).decorate("path/fileSnapshots.bin", "fileSnapshots", target, crossProcessCacheAccess, asyncCacheAccess)
+        crossProcessCacheAccess.withFileLock(_) >> { Factory task -> task.create() }
+        asyncCacheAccess.read(_) >> { Factory task -> task.create() }
+
+        when:
+        def result = cache.get("key")
+
+        then:
+        result == "result 1"
+
+        and:
+        1 * target.get("key") >> "result 1"
+        0 * target._
+
+        when:
+        cacheFactory.onHeapPressure()
+        result = cache.get("key")
+
+        then:
+        result == "result 2"
+
+        and:
+        1 * target.get("key") >> "result 2"
+        0 * target._
+    }
+
     def "does not cache result when not long running process"() {
         given:
         def cache = cacheFactory.decorator(100, false).decorate("path/fileSnapshots.bin", "fileSnapshots", target, crossProcessCacheAccess, asyncCacheAccess)
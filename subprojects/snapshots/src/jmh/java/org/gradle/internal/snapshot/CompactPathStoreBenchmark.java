@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot;
+
+import org.gradle.api.internal.cache.StringInterner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the heap retained by the absolute paths of the files of a large source tree, when kept as interned strings and when kept in a
+ * {@link CompactPathStore}. The retained heap is printed at the end of each iteration, the time to build the paths is measured by JMH.
+ */
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@State(Scope.Benchmark)
+public class CompactPathStoreBenchmark {
+    private static final String ROOT = File.separator + "home" + File.separator + "user" + File.separator + "projects" + File.separator + "huge-repository";
+
+    @Param({"200000"})
+    int fileCount;
+
+    long heapBefore;
+    Object retained;
+
+    @Benchmark
+    public Object internedStrings() {
+        StringInterner interner = new StringInterner();
+        List<String> paths = new ArrayList<String>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            paths.add(interner.intern(ROOT + File.separator + directoryOf(i) + File.separator + fileName(i)));
+        }
+        retained = paths;
+        return paths;
+    }
+
+    @Benchmark
+    public Object compactPathStore() {
+        CompactPathStore store = new CompactPathStore(Integer.MAX_VALUE);
+        int root = store.root(ROOT);
+        int[] handles = new int[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            int directory = root;
+            for (String segment : directoryOf(i).split(File.separator.equals("\\") ? "\\\\" : File.separator)) {
+                directory = store.child(directory, segment);
+            }
+            handles[i] = store.child(directory, fileName(i));
+        }
+        retained = new Object[]{store, handles};
+        return retained;
+    }
+
+    @Setup(Level.Iteration)
+    public void measureHeap() {
+        heapBefore = usedHeap();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportRetainedHeap() {
+        long retainedBytes = usedHeap() - heapBefore;
+        System.out.println();
+        System.out.println("Retained heap: " + retainedBytes / 1024 + " KiB for " + fileCount + " paths");
+        retained = null;
+    }
+
+    private static String directoryOf(int file) {
+        // A tree of modules, with packages of 20 files each
+        int module = file / 10000;
+        int pkg = (file / 20) % 500;
+        return "module" + module + File.separator + "src" + File.separator + "main" + File.separator + "java" + File.separator + "org" + File.separator + "example" + File.separator + "package" + pkg;
+    }
+
+    private static String fileName(int file) {
+        return "SomeClass" + (file % 20) + ".java";
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memoryBean.getHeapMemoryUsage().getUsed();
+    }
+}
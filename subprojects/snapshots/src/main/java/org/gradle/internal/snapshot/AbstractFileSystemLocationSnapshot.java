@@ -16,18 +16,47 @@
 
 package org.gradle.internal.snapshot;
 
+import javax.annotation.Nullable;
+
 public abstract class AbstractFileSystemLocationSnapshot implements FileSystemLocationSnapshot {
+    // Either the absolute path, or the store and handle of the absolute path
     private final String absolutePath;
+    private final CompactPathStore pathStore;
+    private final int pathHandle;
     private final String name;
 
     public AbstractFileSystemLocationSnapshot(String absolutePath, String name) {
         this.absolutePath = absolutePath;
+        this.pathStore = null;
+        this.pathHandle = 0;
+        this.name = name;
+    }
+
+    public AbstractFileSystemLocationSnapshot(CompactPathStore pathStore, int pathHandle, String name) {
+        this.absolutePath = null;
+        this.pathStore = pathStore;
+        this.pathHandle = pathHandle;
         this.name = name;
     }
 
     @Override
     public String getAbsolutePath() {
-        return absolutePath;
+        return absolutePath != null ? absolutePath : pathStore.getPath(pathHandle);
+    }
+
+    /**
+     * Returns the store that holds the absolute path of this snapshot, or null when the snapshot holds the absolute path itself.
+     */
+    @Nullable
+    public CompactPathStore getPathStore() {
+        return pathStore;
+    }
+
+    /**
+     * Returns the handle of the absolute path of this snapshot in its {@link #getPathStore() store}.
+     */
+    public int getPathHandle() {
+        return pathHandle;
     }
 
     @Override
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compact store of absolute paths, which can be used by snapshots instead of keeping a {@link String} for the absolute path of each file.
+ *
+ * <p>Paths are kept in a trie: each path is an {@code int} handle to a node, and each node refers to the handle of its parent and to its
+ * own segment. The nodes are kept in {@code int} arrays and each distinct segment is kept once, so a path costs a few bytes on top of the
+ * segments it shares with other paths, rather than a {@link String} holding all of its characters. The full path is rebuilt when it is
+ * requested.</p>
+ *
+ * <p>Adding paths is synchronized, while rebuilding a path does not lock. A store only grows, so users should start a new store once
+ * {@link #isFull()}. Snapshots keep a reference to the store that holds their path, so discarding a store is always safe.</p>
+ */
+public class CompactPathStore {
+    private static final int NO_PARENT = -1;
+    private static final int DEFAULT_CAPACITY = 1 << 20;
+
+    private final int capacity;
+    private final Map<String, Integer> segmentIds = new HashMap<String, Integer>();
+    private volatile String[] segments = new String[64];
+    private volatile int[] parents = new int[256];
+    private volatile int[] segmentsByNode = new int[256];
+    private int nodeCount;
+    // Open addressing table of node handles + 1, by parent and segment
+    private int[] nodesByParentAndSegment = new int[512];
+
+    public CompactPathStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CompactPathStore(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the handle of the given path, which is kept as a single segment.
+     */
+    public synchronized int root(String absolutePath) {
+        return node(NO_PARENT, absolutePath);
+    }
+
+    /**
+     * Returns the handle of the path of the child with the given name of the given path.
+     */
+    public synchronized int child(int parent, String name) {
+        return node(parent, name);
+    }
+
+    /**
+     * Returns the path with the given handle.
+     */
+    public String getPath(int handle) {
+        int[] parents = this.parents;
+        int[] segmentsByNode = this.segmentsByNode;
+        String[] segments = this.segments;
+        int length = 0;
+        for (int current = handle; current != NO_PARENT; current = parents[current]) {
+            length += segments[segmentsByNode[current]].length();
+            if (needsSeparator(parents[current], parents, segmentsByNode, segments)) {
+                length++;
+            }
+        }
+        char[] path = new char[length];
+        int end = length;
+        for (int current = handle; current != NO_PARENT; current = parents[current]) {
+            String segment = segments[segmentsByNode[current]];
+            end -= segment.length();
+            segment.getChars(0, segment.length(), path, end);
+            if (needsSeparator(parents[current], parents, segmentsByNode, segments)) {
+                path[--end] = File.separatorChar;
+            }
+        }
+        return new String(path);
+    }
+
+    private static boolean needsSeparator(int parent, int[] parents, int[] segmentsByNode, String[] segments) {
+        if (parent == NO_PARENT) {
+            return false;
+        }
+        // A root such as '/' already ends with a separator
+        String parentSegment = segments[segmentsByNode[parent]];
+        return parentSegment.isEmpty() || parentSegment.charAt(parentSegment.length() - 1) != File.separatorChar;
+    }
+
+    /**
+     * Returns the number of paths in this store.
+     */
+    public synchronized int size() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns true when this store has reached its capacity. More paths can be added to a full store, but it is better to start a new one.
+     */
+    public synchronized boolean isFull() {
+        return nodeCount >= capacity;
+    }
+
+    private int node(int parent, String segment) {
+        int segmentId = segmentId(segment);
+        int mask = nodesByParentAndSegment.length - 1;
+        int slot = hash(parent, segmentId) & mask;
+        while (true) {
+            int candidate = nodesByParentAndSegment[slot] - 1;
+            if (candidate == -1) {
+                break;
+            }
+            if (parents[candidate] == parent && segmentsByNode[candidate] == segmentId) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int handle = nodeCount;
+        ensureNodeCapacity(handle + 1);
+        parents[handle] = parent;
+        segmentsByNode[handle] = segmentId;
+        nodeCount = handle + 1;
+        nodesByParentAndSegment[slot] = handle + 1;
+        if (nodeCount * 2 > nodesByParentAndSegment.length) {
+            rehash();
+        }
+        return handle;
+    }
+
+    private int segmentId(String segment) {
+        Integer id = segmentIds.get(segment);
+        if (id == null) {
+            id = segmentIds.size();
+            String[] segments = this.segments;
+            if (id == segments.length) {
+                segments = Arrays.copyOf(segments, segments.length * 2);
+            }
+            segments[id] = segment;
+            this.segments = segments;
+            segmentIds.put(segment, id);
+        }
+        return id;
+    }
+
+    private void ensureNodeCapacity(int required) {
+        if (required > parents.length) {
+            int newLength = parents.length * 2;
+            int[] newSegmentsByNode = Arrays.copyOf(segmentsByNode, newLength);
+            int[] newParents = Arrays.copyOf(parents, newLength);
+            segmentsByNode = newSegmentsByNode;
+            parents = newParents;
+        }
+    }
+
+    private void rehash() {
+        int[] table = new int[nodesByParentAndSegment.length * 2];
+        int mask = table.length - 1;
+        for (int handle = 0; handle < nodeCount; handle++) {
+            int slot = hash(parents[handle], segmentsByNode[handle]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = handle + 1;
+        }
+        nodesByParentAndSegment = table;
+    }
+
+    private static int hash(int parent, int segmentId) {
+        int hash = parent * 31 + segmentId;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -34,6 +34,12 @@ public class DirectorySnapshot extends AbstractFileSystemLocationSnapshot implem
         this.contentHash = contentHash;
     }
 
+    public DirectorySnapshot(CompactPathStore pathStore, int pathHandle, String name, List<FileSystemLocationSnapshot> children, HashCode contentHash) {
+        super(pathStore, pathHandle, name);
+        this.children = children;
+        this.contentHash = contentHash;
+    }
+
     @Override
     public HashCode getHash() {
         return contentHash;
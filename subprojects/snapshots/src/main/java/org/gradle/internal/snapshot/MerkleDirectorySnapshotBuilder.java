@@ -32,7 +32,7 @@ public class MerkleDirectorySnapshotBuilder implements FileSystemSnapshotVisitor
 
     private final RelativePathSegmentsTracker relativePathSegmentsTracker = new RelativePathSegmentsTracker();
     private final Deque<List<FileSystemLocationSnapshot>> levelHolder = new ArrayDeque<List<FileSystemLocationSnapshot>>();
-    private final Deque<String> directoryAbsolutePaths = new ArrayDeque<String>();
+    private final Deque<DirectoryLocation> directoryLocations = new ArrayDeque<DirectoryLocation>();
     private final boolean sortingRequired;
     private FileSystemLocationSnapshot result;
 
@@ -51,7 +51,14 @@ public class MerkleDirectorySnapshotBuilder implements FileSystemSnapshotVisitor
     public boolean preVisitDirectory(String absolutePath, String name) {
         relativePathSegmentsTracker.enter(name);
         levelHolder.addLast(new ArrayList<FileSystemLocationSnapshot>());
-        directoryAbsolutePaths.addLast(absolutePath);
+        directoryLocations.addLast(new DirectoryLocation(absolutePath, null, 0));
+        return true;
+    }
+
+    public boolean preVisitDirectory(CompactPathStore pathStore, int pathHandle, String name) {
+        relativePathSegmentsTracker.enter(name);
+        levelHolder.addLast(new ArrayList<FileSystemLocationSnapshot>());
+        directoryLocations.addLast(new DirectoryLocation(null, pathStore, pathHandle));
         return true;
     }
 
@@ -81,7 +88,7 @@ public class MerkleDirectorySnapshotBuilder implements FileSystemSnapshotVisitor
     public boolean postVisitDirectory(boolean includeEmpty) {
         String name = relativePathSegmentsTracker.leave();
         List<FileSystemLocationSnapshot> children = levelHolder.removeLast();
-        String absolutePath = directoryAbsolutePaths.removeLast();
+        DirectoryLocation location = directoryLocations.removeLast();
         if (children.isEmpty() && !includeEmpty) {
             return false;
         }
@@ -94,7 +101,9 @@ public class MerkleDirectorySnapshotBuilder implements FileSystemSnapshotVisitor
             hasher.putString(child.getName());
             hasher.putHash(child.getHash());
         }
-        DirectorySnapshot directorySnapshot = new DirectorySnapshot(absolutePath, name, children, hasher.hash());
+        DirectorySnapshot directorySnapshot = location.pathStore != null
+            ? new DirectorySnapshot(location.pathStore, location.pathHandle, name, children, hasher.hash())
+            : new DirectorySnapshot(location.absolutePath, name, children, hasher.hash());
         List<FileSystemLocationSnapshot> siblings = levelHolder.peekLast();
         if (siblings != null) {
             siblings.add(directorySnapshot);
@@ -116,4 +125,16 @@ public class MerkleDirectorySnapshotBuilder implements FileSystemSnapshotVisitor
     public FileSystemLocationSnapshot getResult() {
         return result;
     }
+
+    private static class DirectoryLocation {
+        private final String absolutePath;
+        private final CompactPathStore pathStore;
+        private final int pathHandle;
+
+        DirectoryLocation(@Nullable String absolutePath, @Nullable CompactPathStore pathStore, int pathHandle) {
+            this.absolutePath = absolutePath;
+            this.pathStore = pathStore;
+            this.pathHandle = pathHandle;
+        }
+    }
 }
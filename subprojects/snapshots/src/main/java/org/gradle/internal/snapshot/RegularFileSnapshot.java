@@ -32,6 +32,12 @@ public class RegularFileSnapshot extends AbstractFileSystemLocationSnapshot {
         this.lastModified = lastModified;
     }
 
+    public RegularFileSnapshot(CompactPathStore pathStore, int pathHandle, String name, HashCode contentHash, long lastModified) {
+        super(pathStore, pathHandle, name);
+        this.contentHash = contentHash;
+        this.lastModified = lastModified;
+    }
+
     @Override
     public FileType getType() {
         return FileType.RegularFile;
@@ -37,6 +37,7 @@ import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.nativeintegration.filesystem.DefaultFileMetadata;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.gradle.internal.nativeintegration.filesystem.Stat;
+import org.gradle.internal.snapshot.CompactPathStore;
 import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.MerkleDirectorySnapshotBuilder;
 import org.gradle.internal.snapshot.RegularFileSnapshot;
@@ -53,34 +54,69 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
 
 public class DirectorySnapshotter {
+    /**
+     * The system property used to opt in to keeping the absolute paths of the files in directory snapshots in a {@link CompactPathStore}.
+     */
+    public static final String COMPACT_PATHS_PROPERTY = "org.gradle.internal.snapshot.compact-paths";
+
     private final FileHasher hasher;
     private final FileSystem fileSystem;
     private final StringInterner stringInterner;
     private final DefaultExcludes defaultExcludes;
+    private final boolean useCompactPaths;
+    private CompactPathStore pathStore;
 
     public DirectorySnapshotter(FileHasher hasher, FileSystem fileSystem, StringInterner stringInterner, String... defaultExcludes) {
+        this(hasher, fileSystem, stringInterner, Boolean.getBoolean(COMPACT_PATHS_PROPERTY), defaultExcludes);
+    }
+
+    public DirectorySnapshotter(FileHasher hasher, FileSystem fileSystem, StringInterner stringInterner, boolean useCompactPaths, String... defaultExcludes) {
         this.hasher = hasher;
         this.fileSystem = fileSystem;
         this.stringInterner = stringInterner;
+        this.useCompactPaths = useCompactPaths;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
     }
 
+    private synchronized CompactPathStore getPathStore() {
+        // Snapshots refer to the store holding their paths, so replacing a full store is safe. The old store is collected once all of its snapshots are gone
+        if (pathStore == null || pathStore.isFull()) {
+            pathStore = new CompactPathStore();
+        }
+        return pathStore;
+    }
+
     public FileSystemLocationSnapshot snapshot(String absolutePath, @Nullable PatternSet patterns, final MutableBoolean hasBeenFiltered) {
         Path rootPath = Paths.get(absolutePath);
         final Spec<FileTreeElement> spec = (patterns == null || patterns.isEmpty()) ? null : patterns.getAsSpec();
         final MerkleDirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.sortingRequired();
+        final CompactPathStore pathStore = useCompactPaths ? getPathStore() : null;
 
         try {
             Files.walkFileTree(rootPath, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new java.nio.file.FileVisitor<Path>() {
+                // The handles of the directories being visited, when using the path store
+                private int[] directoryHandles = new int[16];
+                private int depth;
+
                 @Override
                 public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
                     String name = stringInterner.intern(dir.getFileName().toString());
                     if (builder.isRoot() || isAllowed(dir, name, true, attrs, builder.getRelativePath())) {
-                        builder.preVisitDirectory(internedAbsolutePath(dir), name);
+                        if (pathStore == null) {
+                            builder.preVisitDirectory(internedAbsolutePath(dir), name);
+                        } else {
+                            int handle = depth == 0 ? pathStore.root(dir.toString()) : pathStore.child(directoryHandles[depth - 1], name);
+                            if (depth == directoryHandles.length) {
+                                directoryHandles = Arrays.copyOf(directoryHandles, depth * 2);
+                            }
+                            directoryHandles[depth++] = handle;
+                            builder.preVisitDirectory(pathStore, handle, name);
+                        }
                         return FileVisitResult.CONTINUE;
                     } else {
                         return FileVisitResult.SKIP_SUBTREE;
@@ -123,6 +159,9 @@ public class DirectorySnapshotter {
                         throw new GradleException(String.format("Could not read directory path '%s'.", dir), exc);
                     }
                     builder.postVisitDirectory();
+                    if (pathStore != null) {
+                        depth--;
+                    }
                     return FileVisitResult.CONTINUE;
                 }
 
@@ -134,7 +173,9 @@ public class DirectorySnapshotter {
                     Preconditions.checkNotNull(attrs, "Unauthorized access to %", file);
                     DefaultFileMetadata metadata = new DefaultFileMetadata(FileType.RegularFile, attrs.lastModifiedTime().toMillis(), attrs.size());
                     HashCode hash = hasher.hash(file.toFile(), metadata);
-                    RegularFileSnapshot fileSnapshot = new RegularFileSnapshot(internedAbsolutePath(file), name, hash, metadata.getLastModified());
+                    RegularFileSnapshot fileSnapshot = pathStore == null
+                        ? new RegularFileSnapshot(internedAbsolutePath(file), name, hash, metadata.getLastModified())
+                        : new RegularFileSnapshot(pathStore, pathStore.child(directoryHandles[depth - 1], name), name, hash, metadata.getLastModified());
                     builder.visit(fileSnapshot);
                 }
 
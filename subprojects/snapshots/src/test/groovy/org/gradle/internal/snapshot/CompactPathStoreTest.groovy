@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot
+
+import spock.lang.Specification
+
+class CompactPathStoreTest extends Specification {
+    def store = new CompactPathStore(4)
+    def separator = File.separator
+
+    def "rebuilds paths from their segments"() {
+        def root = store.root("/root")
+        def dir = store.child(root, "dir")
+        def file = store.child(dir, "file.txt")
+
+        expect:
+        store.getPath(root) == "/root"
+        store.getPath(dir) == "/root${separator}dir"
+        store.getPath(file) == "/root${separator}dir${separator}file.txt"
+    }
+
+    def "does not add a separator after a root that ends with one"() {
+        def root = store.root(separator)
+        def child = store.child(root, "child")
+
+        expect:
+        store.getPath(child) == "${separator}child"
+    }
+
+    def "reuses the handle of a path that is already in the store"() {
+        def root = store.root("/root")
+        def first = store.child(root, "dir")
+        def other = store.child(root, "other")
+
+        expect:
+        store.root("/root") == root
+        store.child(root, "dir") == first
+        store.child(first, "dir") != first
+        other != first
+        store.size() == 4
+    }
+
+    def "keeps paths when growing"() {
+        def store = new CompactPathStore()
+        def root = store.root("root")
+        def handles = (0..<1000).collect { store.child(root, "child" + it) }
+
+        expect:
+        handles.withIndex().every { handle, index -> store.getPath(handle) == "root${separator}child${index}" }
+        store.child(root, "child500") == handles[500]
+    }
+
+    def "is full once it reaches its capacity"() {
+        def root = store.root("/root")
+
+        when:
+        store.child(root, "a")
+        store.child(root, "b")
+
+        then:
+        !store.full
+
+        when:
+        store.child(root, "c")
+
+        then:
+        store.full
+    }
+}
@@ -132,6 +132,37 @@ class DirectorySnapshotterTest extends Specification {
         ] as Set
     }
 
+    def "snapshot keeping paths in a path store has the same paths and hashes"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.file("a.txt").text = "a"
+        rootDir.file("a/b/c.txt").text = "c"
+        rootDir.file("a/c/c.txt").text = "other c"
+        rootDir.createDir("empty")
+        def compactSnapshotter = new DirectorySnapshotter(fileHasher, TestFiles.fileSystem(), new StringInterner(), true)
+
+        when:
+        def snapshot = directorySnapshotter.snapshot(rootDir.absolutePath, null, new MutableBoolean())
+        def compactSnapshot = compactSnapshotter.snapshot(rootDir.absolutePath, null, new MutableBoolean())
+
+        then:
+        compactSnapshot.hash == snapshot.hash
+        compactSnapshot.pathStore != null
+        visitedPaths(compactSnapshot) == visitedPaths(snapshot)
+        visitedPaths(compactSnapshot).contains(rootDir.file("a/b/c.txt").absolutePath)
+    }
+
+    private static List<String> visitedPaths(FileSystemLocationSnapshot snapshot) {
+        def visited = []
+        snapshot.accept(new RelativePathTrackingVisitor() {
+            @Override
+            void visit(String absolutePath, Deque<String> relativePath) {
+                visited << absolutePath
+            }
+        })
+        return visited
+    }
+
     def "default excludes are correctly parsed"() {
         def defaultExcludes = new DirectorySnapshotter.DefaultExcludes(DirectoryScanner.getDefaultExcludes())
 
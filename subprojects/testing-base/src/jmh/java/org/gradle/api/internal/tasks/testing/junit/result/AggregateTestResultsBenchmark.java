@@ -0,0 +1,218 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import com.google.common.io.Files;
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.report.DefaultTestReport;
+import org.gradle.api.tasks.testing.TestResult;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.BuildOperationWorker;
+import org.gradle.internal.operations.CallableBuildOperation;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the HTML report for the aggregated binary results of many synthetic projects, in the same way as the {@code TestReport} task does, and reports
+ * the largest live heap observed while generating the report as the {@code liveHeapMb} counter. The live heap is sampled by a background thread.
+ */
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class AggregateTestResultsBenchmark {
+    private static final int METHODS_PER_CLASS = 20;
+    private static final long SAMPLE_INTERVAL_MILLIS = 200;
+
+    @Param({"400"})
+    int projects;
+
+    @Param({"250"})
+    int classesPerProject;
+
+    private File rootDir;
+    private List<File> resultDirs;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapCounters {
+        public long liveHeapMb;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            liveHeapMb = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void createResults() {
+        rootDir = Files.createTempDir();
+        resultDirs = new ArrayList<File>(projects);
+        for (int p = 0; p < projects; p++) {
+            File resultsDir = new File(rootDir, "project" + p);
+            GFileUtils.mkdirs(resultsDir);
+            List<TestClassResult> results = new ArrayList<TestClassResult>(classesPerProject);
+            long id = 0;
+            for (int i = 0; i < classesPerProject; i++) {
+                TestClassResult classResult = new TestClassResult(++id, "org.gradle.project" + p + ".GeneratedTest" + i, 0);
+                for (int j = 0; j < METHODS_PER_CLASS; j++) {
+                    TestMethodResult methodResult = new TestMethodResult(++id, "test" + j, TestResult.ResultType.SUCCESS, 10, 10);
+                    if (j == 0 && i % 10 == 0) {
+                        methodResult = new TestMethodResult(id, "test" + j, TestResult.ResultType.FAILURE, 10, 10)
+                            .addFailure("expected:<1> but was:<2>", "java.lang.AssertionError: expected:<1> but was:<2>\n\tat org.junit.Assert.fail(Assert.java:88)", "java.lang.AssertionError");
+                    }
+                    classResult.add(methodResult);
+                }
+                results.add(classResult);
+            }
+            new TestOutputStore(resultsDir).writer().close();
+            new TestResultSerializer(resultsDir).write(results);
+            resultDirs.add(resultsDir);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteResults() {
+        GFileUtils.deleteDirectory(rootDir);
+    }
+
+    @Benchmark
+    public void generateReport(HeapCounters counters) throws Exception {
+        List<TestResultsProvider> providers = new ArrayList<TestResultsProvider>(resultDirs.size());
+        for (File resultDir : resultDirs) {
+            providers.add(new BinaryResultBackedTestResultsProvider(resultDir));
+        }
+        AggregateTestResultsProvider provider = new AggregateTestResultsProvider(providers);
+        File reportDir = new File(rootDir, "report");
+        HeapSampler sampler = new HeapSampler();
+        sampler.start();
+        try {
+            new DefaultTestReport(new InlineBuildOperationExecutor()).generateReport(provider, reportDir);
+        } finally {
+            counters.liveHeapMb = Math.max(counters.liveHeapMb, sampler.finish());
+            provider.close();
+            GFileUtils.deleteDirectory(reportDir);
+        }
+    }
+
+    private static class HeapSampler extends Thread {
+        private volatile boolean finished;
+        private long maxLiveHeapMb;
+
+        HeapSampler() {
+            super("heap sampler");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!finished) {
+                maxLiveHeapMb = Math.max(maxLiveHeapMb, liveHeapMb());
+                try {
+                    Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        long finish() throws InterruptedException {
+            finished = true;
+            interrupt();
+            join();
+            return maxLiveHeapMb;
+        }
+
+        private static long liveHeapMb() {
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            return (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+        }
+    }
+
+    /**
+     * Runs all operations on the calling thread, so that the benchmark does not depend on the build operation infrastructure.
+     */
+    private static class InlineBuildOperationExecutor implements BuildOperationExecutor {
+        @Override
+        public void run(RunnableBuildOperation buildOperation) {
+            buildOperation.run(null);
+        }
+
+        @Override
+        public <T> T call(CallableBuildOperation<T> buildOperation) {
+            return buildOperation.call(null);
+        }
+
+        @Override
+        public <O extends RunnableBuildOperation> void runAll(Action<BuildOperationQueue<O>> schedulingAction) {
+            schedulingAction.execute(new BuildOperationQueue<O>() {
+                @Override
+                public void add(O operation) {
+                    operation.run(null);
+                }
+
+                @Override
+                public void cancel() {
+                }
+
+                @Override
+                public void waitForCompletion() {
+                }
+
+                @Override
+                public void setLogLocation(String logLocation) {
+                }
+            });
+        }
+
+        @Override
+        public <O extends BuildOperation> void runAll(BuildOperationWorker<O> worker, Action<BuildOperationQueue<O>> schedulingAction) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BuildOperationRef getCurrentOperation() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import com.google.common.io.Files;
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.api.tasks.testing.TestResult;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates JUnit XML reports for a large synthetic test suite, using a varying number of threads.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class JUnitXmlReportGenerationBenchmark {
+    private static final int CLASS_COUNT = 10000;
+    private static final int METHODS_PER_CLASS = 10;
+    private static final int OUTPUT_LINES_PER_METHOD = 5;
+
+    @Param({"1", "4", "8"})
+    int threads;
+
+    private File resultsDir;
+    private File reportDir;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void createResults() {
+        resultsDir = Files.createTempDir();
+        reportDir = new File(resultsDir, "xml");
+        GFileUtils.mkdirs(reportDir);
+        executor = Executors.newFixedThreadPool(threads);
+
+        List<TestClassResult> results = new ArrayList<TestClassResult>(CLASS_COUNT);
+        TestOutputStore.Writer outputWriter = new TestOutputStore(resultsDir).writer();
+        long id = 0;
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            long classId = ++id;
+            TestClassResult classResult = new TestClassResult(classId, "org.gradle.generated.package" + (i % 100) + ".GeneratedTest" + i, 0);
+            for (int j = 0; j < METHODS_PER_CLASS; j++) {
+                long methodId = ++id;
+                TestMethodResult methodResult = new TestMethodResult(methodId, "test" + j, TestResult.ResultType.SUCCESS, 10, 10);
+                if (j == 0) {
+                    methodResult = new TestMethodResult(methodId, "test" + j, TestResult.ResultType.FAILURE, 10, 10)
+                        .addFailure("expected:<1> but was:<2>", "java.lang.AssertionError: expected:<1> but was:<2>\n\tat org.junit.Assert.fail(Assert.java:88)", "java.lang.AssertionError");
+                }
+                classResult.add(methodResult);
+                for (int k = 0; k < OUTPUT_LINES_PER_METHOD; k++) {
+                    outputWriter.onOutput(classId, methodId, new DefaultTestOutputEvent(k % 2 == 0 ? TestOutputEvent.Destination.StdOut : TestOutputEvent.Destination.StdErr, "Output line " + k + " of test " + j + " <with> & markup\n"));
+                }
+            }
+            results.add(classResult);
+        }
+        outputWriter.close();
+        new TestResultSerializer(resultsDir).write(results);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteResults() {
+        executor.shutdown();
+        GFileUtils.deleteDirectory(resultsDir);
+    }
+
+    @Benchmark
+    public void generateXmlReports() throws Exception {
+        BinaryResultBackedTestResultsProvider provider = new BinaryResultBackedTestResultsProvider(resultsDir);
+        final JUnitXmlResultWriter xmlWriter = new JUnitXmlResultWriter("localhost", provider, TestOutputAssociation.WITH_SUITE);
+        final List<Future<?>> futures = new ArrayList<Future<?>>(CLASS_COUNT);
+        try {
+            provider.visitClasses(new Action<TestClassResult>() {
+                @Override
+                public void execute(final TestClassResult result) {
+                    futures.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            writeReport(xmlWriter, result);
+                        }
+                    }));
+                }
+            });
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            provider.close();
+        }
+    }
+
+    private void writeReport(JUnitXmlResultWriter xmlWriter, TestClassResult result) {
+        try {
+            OutputStream output = new FileOutputStream(new File(reportDir, "TEST-" + result.getClassName() + ".xml"));
+            try {
+                xmlWriter.write(result, output);
+            } finally {
+                output.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
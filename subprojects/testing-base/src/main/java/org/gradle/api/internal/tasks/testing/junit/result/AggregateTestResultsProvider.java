@@ -28,12 +28,21 @@ import org.gradle.internal.concurrent.CompositeStoppable;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Set;
 
 import static org.gradle.util.CollectionUtils.any;
 
+/**
+ * Combines the results of several providers, merging the results of classes with the same name.
+ *
+ * <p>The results are streamed: a first pass over the providers only collects the class names, without loading the results of the tests, so that the second pass can hand each class on to the visitor
+ * as soon as it has been seen in every provider that contains it. Only the results of classes that occur in several providers are held until they are complete,
+ * instead of the results of all providers.</p>
+ */
 public class AggregateTestResultsProvider implements TestResultsProvider {
     private final Iterable<TestResultsProvider> providers;
     private Multimap<Long, DelegateProvider> classOutputProviders;
@@ -44,26 +53,65 @@ public class AggregateTestResultsProvider implements TestResultsProvider {
 
     @Override
     public void visitClasses(final Action<? super TestClassResult> visitor) {
-        final Map<String, OverlayedIdProxyingTestClassResult> aggregatedTestResults = new LinkedHashMap<String, OverlayedIdProxyingTestClassResult>();
+        final Map<String, AggregatedClass> aggregatedClasses = new HashMap<String, AggregatedClass>();
+        for (final TestResultsProvider provider : providers) {
+            provider.visitClassNames(new Action<String>() {
+                public void execute(String className) {
+                    AggregatedClass aggregatedClass = aggregatedClasses.get(className);
+                    if (aggregatedClass == null) {
+                        aggregatedClass = new AggregatedClass(aggregatedClasses.size() + 1);
+                        aggregatedClasses.put(className, aggregatedClass);
+                    }
+                    aggregatedClass.remaining++;
+                }
+            });
+        }
+
         classOutputProviders = ArrayListMultimap.create();
-        final AtomicLong newIdCounter = new AtomicLong(0L);
         for (final TestResultsProvider provider : providers) {
             provider.visitClasses(new Action<TestClassResult>() {
                 public void execute(final TestClassResult classResult) {
-                    OverlayedIdProxyingTestClassResult newTestResult = aggregatedTestResults.get(classResult.getClassName());
+                    AggregatedClass aggregatedClass = aggregatedClasses.get(classResult.getClassName());
+                    OverlayedIdProxyingTestClassResult newTestResult = aggregatedClass.result;
                     if (newTestResult != null) {
                         newTestResult.addTestClassResult(classResult);
                     } else {
-                        long newId = newIdCounter.incrementAndGet();
-                        newTestResult = new OverlayedIdProxyingTestClassResult(newId, classResult);
-                        aggregatedTestResults.put(classResult.getClassName(), newTestResult);
+                        newTestResult = new OverlayedIdProxyingTestClassResult(aggregatedClass.id, classResult);
+                        aggregatedClass.result = newTestResult;
                     }
                     classOutputProviders.put(newTestResult.getId(), new DelegateProvider(classResult.getId(), provider));
+                    aggregatedClass.remaining--;
+                    if (aggregatedClass.remaining == 0) {
+                        aggregatedClass.result = null;
+                        visitor.execute(newTestResult);
+                    }
                 }
             });
         }
-        for (OverlayedIdProxyingTestClassResult classResult : aggregatedTestResults.values()) {
-            visitor.execute(classResult);
+    }
+
+    @Override
+    public void visitClassNames(Action<? super String> visitor) {
+        final Set<String> classNames = new LinkedHashSet<String>();
+        for (TestResultsProvider provider : providers) {
+            provider.visitClassNames(new Action<String>() {
+                public void execute(String className) {
+                    classNames.add(className);
+                }
+            });
+        }
+        for (String className : classNames) {
+            visitor.execute(className);
+        }
+    }
+
+    private static class AggregatedClass {
+        private final long id;
+        private int remaining;
+        private OverlayedIdProxyingTestClassResult result;
+
+        private AggregatedClass(long id) {
+            this.id = id;
         }
     }
 
@@ -34,6 +34,8 @@ import org.gradle.util.GFileUtils;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Binary2JUnitXmlReportGenerator {
 
@@ -42,6 +44,7 @@ public class Binary2JUnitXmlReportGenerator {
     private JUnitXmlResultWriter xmlWriter;
     private final BuildOperationExecutor buildOperationExecutor;
     private final static Logger LOG = Logging.getLogger(Binary2JUnitXmlReportGenerator.class);
+    private final static int MAX_CLASSES_PER_BATCH = 1000;
 
     public Binary2JUnitXmlReportGenerator(File testResultsDir, TestResultsProvider testResultsProvider, TestOutputAssociation outputAssociation, BuildOperationExecutor buildOperationExecutor, String hostName) {
         this.testResultsDir = testResultsDir;
@@ -74,19 +77,38 @@ public class Binary2JUnitXmlReportGenerator {
             }
         });
 
+        final List<TestClassResult> batch = new ArrayList<TestClassResult>(MAX_CLASSES_PER_BATCH);
+        testResultsProvider.visitClasses(new Action<TestClassResult>() {
+            public void execute(final TestClassResult result) {
+                batch.add(result);
+                if (batch.size() == MAX_CLASSES_PER_BATCH) {
+                    generateFiles(batch);
+                }
+            }
+        });
+        generateFiles(batch);
+
+        LOG.info("Finished generating test XML results ({}) into: {}", clock.getElapsed(), testResultsDir);
+    }
+
+    /**
+     * Writes the report files for the given batch of classes concurrently. Results are written in batches so that only a bounded number of
+     * class results are held in memory while the remaining results are read.
+     */
+    private void generateFiles(final List<TestClassResult> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
         buildOperationExecutor.runAll(new Action<BuildOperationQueue<JUnitXmlReportFileGenerator>>() {
             @Override
             public void execute(final BuildOperationQueue<JUnitXmlReportFileGenerator> queue) {
-                testResultsProvider.visitClasses(new Action<TestClassResult>() {
-                    public void execute(final TestClassResult result) {
-                        final File reportFile = new File(testResultsDir, getReportFileName(result));
-                        queue.add(new JUnitXmlReportFileGenerator(result, reportFile, xmlWriter));
-                    }
-                });
+                for (TestClassResult result : batch) {
+                    final File reportFile = new File(testResultsDir, getReportFileName(result));
+                    queue.add(new JUnitXmlReportFileGenerator(result, reportFile, xmlWriter));
+                }
             }
         });
-
-        LOG.info("Finished generating test XML results ({}) into: {}", clock.getElapsed(), testResultsDir);
+        batch.clear();
     }
 
     private String getReportFileName(TestClassResult result) {
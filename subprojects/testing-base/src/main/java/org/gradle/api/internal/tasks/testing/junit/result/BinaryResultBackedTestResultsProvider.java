@@ -81,4 +81,9 @@ public class BinaryResultBackedTestResultsProvider extends TestOutputStoreBacked
     public void visitClasses(final Action<? super TestClassResult> visitor) {
         resultSerializer.read(visitor);
     }
+
+    @Override
+    public void visitClassNames(Action<? super String> visitor) {
+        resultSerializer.readClassNames(visitor);
+    }
 }
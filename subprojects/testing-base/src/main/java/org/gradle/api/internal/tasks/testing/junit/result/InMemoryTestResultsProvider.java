@@ -78,6 +78,13 @@ public class InMemoryTestResultsProvider extends TestOutputStoreBackedResultsPro
         }
     }
 
+    @Override
+    public void visitClassNames(Action<? super String> visitor) {
+        for (TestClassResult result : results) {
+            visitor.execute(result.getClassName());
+        }
+    }
+
     @Override
     public boolean isHasResults() {
         return results.iterator().hasNext();
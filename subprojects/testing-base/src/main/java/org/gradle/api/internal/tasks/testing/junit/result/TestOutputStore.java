@@ -21,18 +21,42 @@ import com.esotericsoftware.kryo.io.Output;
 import com.google.common.collect.ImmutableMap;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestOutputEvent;
-import org.gradle.internal.io.RandomAccessFileInputStream;
 import org.gradle.internal.UncheckedException;
-import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.io.BufferCaster;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
 import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Stores the output of tests in a single data file, along with an index of the offsets of the output events of each test.
+ *
+ * <p>The reader uses the index to decode the events of a given test directly from the data file, without scanning the events of other tests.
+ * The data file is memory mapped, except on Windows where a mapped file cannot be deleted until the mapping is garbage collected. The reader is thread-safe.</p>
+ */
 public class TestOutputStore {
 
+    /**
+     * The maximum number of bytes of the data file that are mapped by a single buffer.
+     */
+    private static final long MAX_CHUNK_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * The maximum size of a record header: a boolean, two var-longs and a var-int.
+     */
+    private static final int MAX_HEADER_SIZE = 1 + 9 + 9 + 5;
+
     private final File resultsDir;
     private final Charset messageStorageCharset;
 
@@ -49,24 +73,79 @@ public class TestOutputStore {
         return new File(resultsDir, getOutputsFile().getName() + ".idx");
     }
 
-    private static class Region {
-        long start;
-        long stop;
+    /**
+     * A compact, append-only list of increasing file offsets, stored as var-long encoded deltas.
+     */
+    private static class OffsetList {
+        private static final OffsetList EMPTY = new OffsetList(0, new byte[0]);
+        private int count;
+        private byte[] data;
+        private int size;
+        private long last;
+
+        private OffsetList() {
+            this.data = new byte[16];
+        }
+
+        private OffsetList(int count, byte[] data) {
+            this.count = count;
+            this.data = data;
+            this.size = data.length;
+        }
+
+        void add(long offset) {
+            if (size + 9 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            long delta = offset - last;
+            last = offset;
+            while ((delta & ~0x7FL) != 0) {
+                data[size++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            data[size++] = (byte) delta;
+            count++;
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        long[] toArray() {
+            long[] offsets = new long[count];
+            long current = 0;
+            int pos = 0;
+            for (int i = 0; i < count; i++) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                current += delta;
+                offsets[i] = current;
+            }
+            return offsets;
+        }
 
-        private Region() {
-            start = -1;
-            stop = -1;
+        void write(Output output) {
+            output.writeInt(count, true);
+            output.writeInt(size, true);
+            output.writeBytes(data, 0, size);
         }
 
-        private Region(long start, long stop) {
-            this.start = start;
-            this.stop = stop;
+        static OffsetList read(Input input) {
+            int count = input.readInt(true);
+            int size = input.readInt(true);
+            return count == 0 ? EMPTY : new OffsetList(count, input.readBytes(size));
         }
     }
 
     private static class TestCaseRegion {
-        Region stdOutRegion = new Region();
-        Region stdErrRegion = new Region();
+        OffsetList stdOut = new OffsetList();
+        OffsetList stdErr = new OffsetList();
     }
 
     public class Writer implements Closeable {
@@ -123,13 +202,8 @@ public class TestOutputStore {
 
             TestCaseRegion region = testCaseRegions.get(testId);
 
-            Region streamRegion = isStdout ? region.stdOutRegion : region.stdErrRegion;
-
-            long total = output.getWritePosition();
-            if (streamRegion.start < 0) {
-                streamRegion.start = total;
-            }
-            streamRegion.stop = total;
+            OffsetList offsets = isStdout ? region.stdOut : region.stdErr;
+            offsets.add(output.getWritePosition());
         }
 
         private void writeIndex() {
@@ -155,10 +229,8 @@ public class TestOutputStore {
                         long id = testCaseEntry.getKey();
                         TestCaseRegion region = testCaseEntry.getValue();
                         indexOutput.writeLong(id, true);
-                        indexOutput.writeLong(region.stdOutRegion.start);
-                        indexOutput.writeLong(region.stdOutRegion.stop);
-                        indexOutput.writeLong(region.stdErrRegion.start);
-                        indexOutput.writeLong(region.stdErrRegion.stop);
+                        region.stdOut.write(indexOutput);
+                        region.stdErr.write(indexOutput);
                     }
                 }
             } finally {
@@ -173,53 +245,61 @@ public class TestOutputStore {
 
     private static class Index {
         final ImmutableMap<Long, Index> children;
-        final Region stdOut;
-        final Region stdErr;
+        final OffsetList stdOut;
+        final OffsetList stdErr;
 
-        private Index(Region stdOut, Region stdErr) {
+        private Index(OffsetList stdOut, OffsetList stdErr) {
             this.children = ImmutableMap.of();
             this.stdOut = stdOut;
             this.stdErr = stdErr;
         }
 
-        private Index(ImmutableMap<Long, Index> children, Region stdOut, Region stdErr) {
+        private Index(ImmutableMap<Long, Index> children) {
             this.children = children;
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
+            this.stdOut = OffsetList.EMPTY;
+            this.stdErr = OffsetList.EMPTY;
         }
-    }
-
-    private static class IndexBuilder {
-        final Region stdOut = new Region();
-        final Region stdErr = new Region();
-
-        private final ImmutableMap.Builder<Long, Index> children = ImmutableMap.builder();
 
-        void add(long key, Index index) {
-            if (stdOut.start < 0) {
-                stdOut.start = index.stdOut.start;
+        boolean hasOutput(boolean stdout) {
+            if (children.isEmpty()) {
+                return !(stdout ? stdOut : stdErr).isEmpty();
             }
-            if (stdErr.start < 0) {
-                stdErr.start = index.stdErr.start;
-            }
-            if (index.stdOut.stop > stdOut.stop) {
-                stdOut.stop = index.stdOut.stop;
-            }
-            if (index.stdErr.stop > stdErr.stop) {
-                stdErr.stop = index.stdErr.stop;
+            for (Index child : children.values()) {
+                if (child.hasOutput(stdout)) {
+                    return true;
+                }
             }
-
-            children.put(key, index);
+            return false;
         }
 
-        Index build() {
-            return new Index(children.build(), stdOut, stdErr);
+        long[] offsets(boolean stdout) {
+            if (children.isEmpty()) {
+                return (stdout ? stdOut : stdErr).toArray();
+            }
+            long[][] childOffsets = new long[children.size()][];
+            int count = 0;
+            int i = 0;
+            for (Index child : children.values()) {
+                childOffsets[i] = child.offsets(stdout);
+                count += childOffsets[i].length;
+                i++;
+            }
+            long[] offsets = new long[count];
+            int pos = 0;
+            for (long[] child : childOffsets) {
+                System.arraycopy(child, 0, offsets, pos, child.length);
+                pos += child.length;
+            }
+            // Output of the tests of a class is interleaved, so restore the order in which it was written
+            Arrays.sort(offsets);
+            return offsets;
         }
     }
 
     public class Reader implements Closeable {
-        private final Index index;
-        private final RandomAccessFile dataFile;
+        private final ImmutableMap<Long, Index> index;
+        private final FileChannel dataFile;
+        private final MappedByteBuffer[] chunks;
 
         public Reader() {
             File indexFile = getIndexFile();
@@ -237,24 +317,23 @@ public class TestOutputStore {
                     throw new UncheckedIOException(e);
                 }
 
-                IndexBuilder rootBuilder = null;
+                ImmutableMap.Builder<Long, Index> rootBuilder = ImmutableMap.builder();
                 try {
                     int numClasses = input.readInt(true);
-                    rootBuilder = new IndexBuilder();
 
                     for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
                         long classId = input.readLong(true);
-                        IndexBuilder classBuilder = new IndexBuilder();
+                        ImmutableMap.Builder<Long, Index> classBuilder = ImmutableMap.builder();
 
                         int numEntries = input.readInt(true);
                         for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
                             long testId = input.readLong(true);
-                            Region stdOut = new Region(input.readLong(), input.readLong());
-                            Region stdErr = new Region(input.readLong(), input.readLong());
-                            classBuilder.add(testId, new Index(stdOut, stdErr));
+                            OffsetList stdOut = OffsetList.read(input);
+                            OffsetList stdErr = OffsetList.read(input);
+                            classBuilder.put(testId, new Index(stdOut, stdErr));
                         }
 
-                        rootBuilder.add(classId, classBuilder.build());
+                        rootBuilder.put(classId, new Index(classBuilder.build()));
                     }
                 } finally {
                     input.close();
@@ -263,8 +342,9 @@ public class TestOutputStore {
                 index = rootBuilder.build();
 
                 try {
-                    dataFile = new RandomAccessFile(getOutputsFile(), "r");
-                } catch (FileNotFoundException e) {
+                    dataFile = new RandomAccessFile(outputsFile, "r").getChannel();
+                    chunks = map(dataFile);
+                } catch (IOException e) {
                     throw new UncheckedIOException(e);
                 }
             } else { // no outputs file
@@ -274,7 +354,21 @@ public class TestOutputStore {
 
                 index = null;
                 dataFile = null;
+                chunks = null;
+            }
+        }
+
+        private MappedByteBuffer[] map(FileChannel channel) throws IOException {
+            if (OperatingSystem.current().isWindows()) {
+                return new MappedByteBuffer[0];
             }
+            long size = channel.size();
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = i * MAX_CHUNK_SIZE;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAX_CHUNK_SIZE, size - start));
+            }
+            return chunks;
         }
 
         @Override
@@ -289,13 +383,8 @@ public class TestOutputStore {
                 return false;
             }
 
-            Index classIndex = index.children.get(classId);
-            if (classIndex == null) {
-                return false;
-            } else {
-                Region region = destination == TestOutputEvent.Destination.StdOut ? classIndex.stdOut : classIndex.stdErr;
-                return region.start >= 0;
-            }
+            Index classIndex = index.get(classId);
+            return classIndex != null && classIndex.hasOutput(destination == TestOutputEvent.Destination.StdOut);
         }
 
         public void writeAllOutput(long classId, TestOutputEvent.Destination destination, java.io.Writer writer) {
@@ -315,8 +404,8 @@ public class TestOutputStore {
                 return;
             }
 
-            Index targetIndex = index.children.get(classId);
-            if (targetIndex != null && testId != 0) {
+            Index targetIndex = index.get(classId);
+            if (targetIndex != null && !allClassOutput) {
                 targetIndex = targetIndex.children.get(testId);
             }
 
@@ -324,63 +413,99 @@ public class TestOutputStore {
                 return;
             }
 
-            boolean stdout = destination == TestOutputEvent.Destination.StdOut;
-            Region region = stdout ? targetIndex.stdOut : targetIndex.stdErr;
-
-            if (region.start < 0) {
+            long[] offsets = targetIndex.offsets(destination == TestOutputEvent.Destination.StdOut);
+            if (offsets.length == 0) {
                 return;
             }
 
-            boolean ignoreClassLevel = !allClassOutput && testId != 0;
-            boolean ignoreTestLevel = !allClassOutput && testId == 0;
-
+            CharsetDecoder decoder = messageStorageCharset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer chars = CharBuffer.allocate(8192);
             try {
-                dataFile.seek(region.start);
-                long maxPos = region.stop - region.start;
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile));
-                while (decoder.getReadPosition() <= maxPos) {
-                    boolean readStdout = decoder.readBoolean();
-                    long readClassId = decoder.readSmallLong();
-                    long readTestId = decoder.readSmallLong();
-                    int readLength = decoder.readSmallInt();
-
-                    boolean isClassLevel = readTestId == 0;
-
-                    if (stdout != readStdout || classId != readClassId) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
+                for (long offset : offsets) {
+                    ByteBuffer message = readMessage(offset);
+                    decoder.reset();
+                    CoderResult result;
+                    do {
+                        result = decoder.decode(message, chars, true);
+                        drain(chars, writer);
+                    } while (result.isOverflow());
+                    do {
+                        result = decoder.flush(chars);
+                        drain(chars, writer);
+                    } while (result.isOverflow());
+                }
+            } catch (IOException e1) {
+                throw new UncheckedIOException(e1);
+            }
+        }
 
-                    if (ignoreClassLevel && isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
+        private void drain(CharBuffer chars, java.io.Writer writer) throws IOException {
+            BufferCaster.cast(chars).flip();
+            writer.write(chars.array(), 0, chars.limit());
+            BufferCaster.cast(chars).clear();
+        }
 
-                    if (ignoreTestLevel && !isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
+        /**
+         * Returns a buffer containing the message bytes of the record at the given offset. Uses the mapped file where possible.
+         */
+        private ByteBuffer readMessage(long offset) throws IOException {
+            int chunkIndex = (int) (offset / MAX_CHUNK_SIZE);
+            if (chunkIndex < chunks.length) {
+                ByteBuffer buffer = chunks[chunkIndex].duplicate();
+                BufferCaster.cast(buffer).position((int) (offset % MAX_CHUNK_SIZE));
+                if (buffer.remaining() >= MAX_HEADER_SIZE) {
+                    int length = skipHeader(buffer);
+                    if (buffer.remaining() >= length) {
+                        BufferCaster.cast(buffer).limit(buffer.position() + length);
+                        return buffer;
                     }
+                }
+            }
 
-                    if (testId == 0 || testId == readTestId) {
-                        byte[] stringBytes = new byte[readLength];
-                        decoder.readBytes(stringBytes);
-                        String message;
-                        try {
-                            message = new String(stringBytes, messageStorageCharset.name());
-                        } catch (UnsupportedEncodingException e) {
-                            // shouldn't happen
-                            throw UncheckedException.throwAsUncheckedException(e);
-                        }
+            // The file is not mapped, or the record spans mapped chunks
+            ByteBuffer buffer = read(offset, (int) Math.min(MAX_HEADER_SIZE, dataFile.size() - offset));
+            int length = skipHeader(buffer);
+            long messageStart = offset + buffer.position();
+            return read(messageStart, length);
+        }
 
-                        writer.write(message);
-                    } else {
-                        decoder.skipBytes(readLength);
-                    }
+        private ByteBuffer read(long offset, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (dataFile.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException();
                 }
-            } catch (IOException e1) {
-                throw new UncheckedIOException(e1);
+            }
+            BufferCaster.cast(buffer).flip();
+            return buffer;
+        }
+    }
+
+    /**
+     * Skips the header of the record at the current position of the given buffer, returning the length of the message.
+     */
+    private static int skipHeader(ByteBuffer buffer) {
+        buffer.get();
+        readVarLong(buffer);
+        readVarLong(buffer);
+        return (int) readVarLong(buffer);
+    }
+
+    /**
+     * Reads a positive var-long or var-int, as written by {@link KryoBackedEncoder#writeSmallLong(long)} and {@link KryoBackedEncoder#writeSmallInt(int)}.
+     */
+    private static long readVarLong(ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; shift < 56; shift += 7) {
+            int b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
             }
         }
+        return result | (long) (buffer.get() & 0xFF) << 56;
     }
 
     // IMPORTANT: return must be closed when done with.
@@ -16,38 +16,47 @@
 
 package org.gradle.api.internal.tasks.testing.junit.result;
 
-import com.google.common.collect.Maps;
 import org.gradle.api.Action;
-import org.gradle.internal.concurrent.CompositeStoppable;
 
 import java.io.IOException;
-import java.util.concurrent.ConcurrentMap;
 
 public abstract class TestOutputStoreBackedResultsProvider implements TestResultsProvider {
     private final TestOutputStore outputStore;
-    private final ConcurrentMap<Thread, TestOutputStore.Reader> readers;
+    private final Object lock = new Object();
+    private volatile TestOutputStore.Reader reader;
 
     public TestOutputStoreBackedResultsProvider(TestOutputStore outputStore) {
         this.outputStore = outputStore;
-        this.readers = Maps.newConcurrentMap();
     }
 
     protected void withReader(Action<TestOutputStore.Reader> action) {
         action.execute(getReader());
     }
 
+    /**
+     * The reader is thread-safe, so a single reader, and a single copy of the output index, is shared by all threads that generate reports.
+     */
     private TestOutputStore.Reader getReader() {
-        Thread thread = Thread.currentThread();
-        TestOutputStore.Reader reader = readers.get(thread);
-        if (reader == null) {
-            reader = outputStore.reader();
-            readers.put(thread, reader);
+        TestOutputStore.Reader result = reader;
+        if (result == null) {
+            synchronized (lock) {
+                result = reader;
+                if (result == null) {
+                    result = outputStore.reader();
+                    reader = result;
+                }
+            }
         }
-        return reader;
+        return result;
     }
 
     @Override
     public void close() throws IOException {
-        CompositeStoppable.stoppable(readers.values()).stop();
+        synchronized (lock) {
+            if (reader != null) {
+                reader.close();
+                reader = null;
+            }
+        }
     }
 }
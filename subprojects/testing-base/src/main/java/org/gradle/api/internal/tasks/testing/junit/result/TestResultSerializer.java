@@ -96,11 +96,7 @@ public class TestResultSerializer {
         try {
             InputStream inputStream = new FileInputStream(resultsFile);
             try {
-                Decoder decoder = new KryoBackedDecoder(inputStream);
-                int version = decoder.readSmallInt();
-                if (version != RESULT_VERSION) {
-                    throw new IllegalArgumentException(String.format("Unexpected result file version %d found in %s.", version, resultsFile));
-                }
+                Decoder decoder = openDecoder(inputStream);
                 readResults(decoder, visitor);
             } finally {
                 inputStream.close();
@@ -110,6 +106,45 @@ public class TestResultSerializer {
         }
     }
 
+    /**
+     * Visits the name of each test class, skipping over the results of its tests.
+     */
+    public void readClassNames(Action<? super String> visitor) {
+        if (!isHasResults()) {
+            return;
+        }
+        try {
+            InputStream inputStream = new FileInputStream(resultsFile);
+            try {
+                Decoder decoder = openDecoder(inputStream);
+                int classCount = decoder.readSmallInt();
+                for (int i = 0; i < classCount; i++) {
+                    decoder.readSmallLong();
+                    visitor.execute(decoder.readString());
+                    decoder.readString();
+                    decoder.readLong();
+                    int testMethodCount = decoder.readSmallInt();
+                    for (int j = 0; j < testMethodCount; j++) {
+                        skipMethodResult(decoder);
+                    }
+                }
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private Decoder openDecoder(InputStream inputStream) throws IOException {
+        Decoder decoder = new KryoBackedDecoder(inputStream);
+        int version = decoder.readSmallInt();
+        if (version != RESULT_VERSION) {
+            throw new IllegalArgumentException(String.format("Unexpected result file version %d found in %s.", version, resultsFile));
+        }
+        return decoder;
+    }
+
     public boolean isHasResults() {
         return resultsFile.exists() && resultsFile.length() > 0;
     }
@@ -153,4 +188,19 @@ public class TestResultSerializer {
         }
         return methodResult;
     }
+
+    private void skipMethodResult(Decoder decoder) throws IOException {
+        decoder.readSmallLong();
+        decoder.readString();
+        decoder.readString();
+        decoder.readSmallInt();
+        decoder.readSmallLong();
+        decoder.readLong();
+        int failures = decoder.readSmallInt();
+        for (int i = 0; i < failures; i++) {
+            decoder.readString();
+            decoder.readString();
+            decoder.readString();
+        }
+    }
 }
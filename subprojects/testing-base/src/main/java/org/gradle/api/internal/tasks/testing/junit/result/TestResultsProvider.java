@@ -44,6 +44,11 @@ public interface TestResultsProvider extends Closeable {
      */
     void visitClasses(Action<? super TestClassResult> visitor);
 
+    /**
+     * Visits the name of each test class, in the same order as {@link #visitClasses(org.gradle.api.Action)}, without loading the results of its tests.
+     */
+    void visitClassNames(Action<? super String> visitor);
+
     boolean hasOutput(long id, TestOutputEvent.Destination destination);
 
     boolean isHasResults();
@@ -91,6 +91,17 @@ public class ClassTestResults extends CompositeTestResults {
         return results;
     }
 
+    /**
+     * Discards the results of the individual tests once the page of this class has been generated. The failed and ignored tests are still referenced by
+     * the package and overview pages, but without the details of their failures.
+     */
+    public void discardTestResults() {
+        results.clear();
+        for (TestResult failure : getFailures()) {
+            failure.discardFailures();
+        }
+    }
+
     public TestResult addTest(String testName, String testDisplayName, long duration) {
         TestResult test = new TestResult(testName, testDisplayName, duration, this);
         results.add(test);
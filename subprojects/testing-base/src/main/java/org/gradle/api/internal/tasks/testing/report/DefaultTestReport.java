@@ -38,10 +38,19 @@ import org.gradle.util.GFileUtils;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED;
 
+/**
+ * Generates the HTML test report.
+ *
+ * <p>The results are streamed: the page of each class is generated as soon as the class has been visited, after which the results of its tests are
+ * discarded. Only a summary of each class, and the failed and ignored tests, are kept to generate the package and overview pages at the end. At most
+ * {@link #MAX_PENDING_CLASS_PAGES} class pages are queued for generation in parallel, further pages are generated while visiting the classes.</p>
+ */
 public class DefaultTestReport implements TestReporter {
+    private static final int MAX_PENDING_CLASS_PAGES = 64;
     private final BuildOperationExecutor buildOperationExecutor;
     private final static Logger LOG = Logging.getLogger(DefaultTestReport.class);
 
@@ -54,34 +63,28 @@ public class DefaultTestReport implements TestReporter {
         LOG.info("Generating HTML test report...");
 
         Timer clock = Time.startTimer();
-        AllTestResults model = loadModelFromProvider(resultsProvider);
-        generateFiles(model, resultsProvider, reportDir);
+        generateFiles(resultsProvider, reportDir);
         LOG.info("Finished generating test html results ({}) into: {}", clock.getElapsed(), reportDir);
     }
 
-    private AllTestResults loadModelFromProvider(TestResultsProvider resultsProvider) {
-        final AllTestResults model = new AllTestResults();
-        resultsProvider.visitClasses(new Action<TestClassResult>() {
-            public void execute(TestClassResult classResult) {
-                model.addTestClass(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName());
-                List<TestMethodResult> collectedResults = classResult.getResults();
-                for (TestMethodResult collectedResult : collectedResults) {
-                    final TestResult testResult = model.addTest(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName(), collectedResult.getName(), collectedResult.getDisplayName(), collectedResult.getDuration());
-                    if (collectedResult.getResultType() == SKIPPED) {
-                        testResult.setIgnored();
-                    } else {
-                        List<TestFailure> failures = collectedResult.getFailures();
-                        for (TestFailure failure : failures) {
-                            testResult.addFailure(failure);
-                        }
-                    }
+    private static ClassTestResults addClassToModel(AllTestResults model, TestClassResult classResult) {
+        ClassTestResults classResults = model.addTestClass(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName());
+        List<TestMethodResult> collectedResults = classResult.getResults();
+        for (TestMethodResult collectedResult : collectedResults) {
+            final TestResult testResult = model.addTest(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName(), collectedResult.getName(), collectedResult.getDisplayName(), collectedResult.getDuration());
+            if (collectedResult.getResultType() == SKIPPED) {
+                testResult.setIgnored();
+            } else {
+                List<TestFailure> failures = collectedResult.getFailures();
+                for (TestFailure failure : failures) {
+                    testResult.addFailure(failure);
                 }
             }
-        });
-        return model;
+        }
+        return classResults;
     }
 
-    private void generateFiles(AllTestResults model, final TestResultsProvider resultsProvider, final File reportDir) {
+    private void generateFiles(final TestResultsProvider resultsProvider, final File reportDir) {
         try {
             HtmlReportRenderer htmlRenderer = new HtmlReportRenderer();
             buildOperationExecutor.run(new RunnableBuildOperation() {
@@ -98,18 +101,29 @@ public class DefaultTestReport implements TestReporter {
                 }
             });
 
-            htmlRenderer.render(model, new ReportRenderer<AllTestResults, HtmlReportBuilder>() {
+            htmlRenderer.render(new AllTestResults(), new ReportRenderer<AllTestResults, HtmlReportBuilder>() {
                 @Override
                 public void render(final AllTestResults model, final HtmlReportBuilder output) throws IOException {
                     buildOperationExecutor.runAll(new Action<BuildOperationQueue<HtmlReportFileGenerator<? extends CompositeTestResults>>>() {
                         @Override
-                        public void execute(BuildOperationQueue<HtmlReportFileGenerator<? extends CompositeTestResults>> queue) {
+                        public void execute(final BuildOperationQueue<HtmlReportFileGenerator<? extends CompositeTestResults>> queue) {
+                            final AtomicInteger pendingClassPages = new AtomicInteger();
+                            resultsProvider.visitClasses(new Action<TestClassResult>() {
+                                @Override
+                                public void execute(TestClassResult classResult) {
+                                    ClassTestResults classResults = addClassToModel(model, classResult);
+                                    ClassPageGenerator generator = new ClassPageGenerator(classResults, new ClassPageRenderer(resultsProvider), output, pendingClassPages);
+                                    if (pendingClassPages.incrementAndGet() <= MAX_PENDING_CLASS_PAGES) {
+                                        queue.add(generator);
+                                    } else {
+                                        // The pages are generated more slowly than the classes are visited, so generate this one now rather than holding on to its results
+                                        generator.run(null);
+                                    }
+                                }
+                            });
                             queue.add(generator("index.html", model, new OverviewPageRenderer(), output));
                             for (PackageTestResults packageResults : model.getPackages()) {
                                 queue.add(generator(packageResults.getBaseUrl(), packageResults, new PackagePageRenderer(), output));
-                                for (ClassTestResults classResults : packageResults.getClasses()) {
-                                    queue.add(generator(classResults.getBaseUrl(), classResults, new ClassPageRenderer(resultsProvider), output));
-                                }
                             }
                         }
                     });
@@ -124,9 +138,28 @@ public class DefaultTestReport implements TestReporter {
         return new HtmlReportFileGenerator<T>(fileUrl, results, renderer, output);
     }
 
+    private static class ClassPageGenerator extends HtmlReportFileGenerator<ClassTestResults> {
+        private final AtomicInteger pendingClassPages;
+
+        ClassPageGenerator(ClassTestResults results, ClassPageRenderer renderer, HtmlReportBuilder output, AtomicInteger pendingClassPages) {
+            super(results.getBaseUrl(), results, renderer, output);
+            this.pendingClassPages = pendingClassPages;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            try {
+                super.run(context);
+            } finally {
+                results.discardTestResults();
+                pendingClassPages.decrementAndGet();
+            }
+        }
+    }
+
     private static class HtmlReportFileGenerator<T extends CompositeTestResults> implements RunnableBuildOperation {
         private final String fileUrl;
-        private final T results;
+        protected final T results;
         private final PageRenderer<T> renderer;
         private final HtmlReportBuilder output;
 
@@ -39,7 +39,9 @@ class AggregateTestResultsProviderTest extends Specification {
         provider.visitClasses(action)
 
         then:
+        1 * provider1.visitClassNames(_) >> { Action a -> a.execute('class-1') }
         1 * provider1.visitClasses(_) >> { Action a -> a.execute(class1) }
+        1 * provider2.visitClassNames(_) >> { Action a -> a.execute('class-2') }
         1 * provider2.visitClasses(_) >> { Action a -> a.execute(class2) }
         // TODO(radimk): should not assume order
         1 * action.execute(_) >> { TestClassResult r ->
@@ -68,7 +70,9 @@ class AggregateTestResultsProviderTest extends Specification {
         provider.visitClasses(Stub(Action))
 
         then:
+        1 * provider1.visitClassNames(_) >> { Action a -> a.execute('class-1') }
         1 * provider1.visitClasses(_) >> { Action a -> a.execute(class1) }
+        1 * provider2.visitClassNames(_) >> { Action a -> a.execute('class-2') }
         1 * provider2.visitClasses(_) >> { Action a -> a.execute(class2) }
 
         when:
@@ -105,7 +109,9 @@ class AggregateTestResultsProviderTest extends Specification {
         provider.visitClasses(action)
 
         then:
+        1 * provider1.visitClassNames(_) >> { Action a -> a.execute('class-1') }
         1 * provider1.visitClasses(_) >> { Action a -> a.execute(class1) }
+        1 * provider2.visitClassNames(_) >> { Action a -> a.execute('class-1') }
         1 * provider2.visitClasses(_) >> { Action a -> a.execute(class2) }
         1 * action.execute(_) >> { TestClassResult r ->
             assert r.id == 1
@@ -133,7 +139,9 @@ class AggregateTestResultsProviderTest extends Specification {
         provider.visitClasses(action)
 
         then:
+        1 * provider1.visitClassNames(_) >> { Action a -> a.execute('class-1') }
         1 * provider1.visitClasses(_) >> { Action a -> a.execute(class1) }
+        1 * provider2.visitClassNames(_) >> { Action a -> a.execute('class-1') }
         1 * provider2.visitClasses(_) >> { Action a -> a.execute(class2) }
         1 * action.execute(_) >> { TestClassResult r ->
             assert r.id == 1
@@ -164,7 +172,9 @@ class AggregateTestResultsProviderTest extends Specification {
         provider.visitClasses(Stub(Action))
 
         then:
+        1 * provider1.visitClassNames(_) >> { Action a -> a.execute('class-1') }
         1 * provider1.visitClasses(_) >> { Action a -> a.execute(class1) }
+        1 * provider2.visitClassNames(_) >> { Action a -> a.execute('class-1') }
         1 * provider2.visitClasses(_) >> { Action a -> a.execute(class2) }
 
         when:
@@ -184,4 +194,29 @@ class AggregateTestResultsProviderTest extends Specification {
         1 * provider2.writeNonTestOutput(12, TestOutputEvent.Destination.StdOut, writer)
     }
 
+    def "hands on classes as soon as all their results have been visited"() {
+        def visited = []
+        def class1 = Stub(TestClassResult) {
+            getClassName() >> 'class-1'
+        }
+        def class2 = Stub(TestClassResult) {
+            getClassName() >> 'class-2'
+        }
+        def class3 = Stub(TestClassResult) {
+            getClassName() >> 'class-1'
+        }
+
+        when:
+        provider.visitClasses({ TestClassResult r -> visited << r.className } as Action)
+
+        then:
+        1 * provider1.visitClassNames(_) >> { Action a -> a.execute('class-1'); a.execute('class-2') }
+        1 * provider1.visitClasses(_) >> { Action a -> a.execute(class1); a.execute(class2) }
+        1 * provider2.visitClassNames(_) >> { Action a -> a.execute('class-1') }
+        1 * provider2.visitClasses(_) >> { Action a ->
+            assert visited == ['class-2']
+            a.execute(class3)
+        }
+        visited == ['class-2', 'class-1']
+    }
 }
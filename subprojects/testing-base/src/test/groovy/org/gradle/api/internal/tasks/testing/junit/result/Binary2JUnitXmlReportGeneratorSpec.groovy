@@ -81,6 +81,23 @@ class Binary2JUnitXmlReportGeneratorSpec extends Specification {
         numThreads << [ 1, 4 ]
     }
 
+    def "writes results for more classes than fit in a single batch"() {
+        generator = generatorWithMaxThreads(4)
+
+        def results = (1..2500).collect { new TestClassResult(it, "FooTest$it", 100).add(new TestMethodResult(it, "foo")) }
+
+        resultsProvider.visitClasses(_) >> { Action action ->
+            results.each { action.execute(it) }
+        }
+
+        when:
+        generator.generate()
+
+        then:
+        2500 * generator.xmlWriter.write(_, _)
+        0 * generator.xmlWriter._
+    }
+
     def "adds context information to the failure if something goes wrong"() {
         generator = generatorWithMaxThreads(1)
 
@@ -98,6 +98,42 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "reads output that is interleaved across many tests"() {
+        when:
+        def writer = output.writer()
+        100.times { classId ->
+            10.times { testId ->
+                writer.onOutput(classId + 1, testId + 1, output(StdOut, "[out-${classId + 1}-${testId + 1}]"))
+            }
+        }
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 42, 7, StdOut) == "[out-42-7]"
+        collectAllOutput(reader, 3, StdOut) == (1..10).collect { "[out-3-$it]" }.join("")
+
+        cleanup:
+        reader.close()
+    }
+
+    def "reads large output with multi-byte characters"() {
+        def message = "\u00e9\u20ac" * 100000
+
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, "[out]"))
+        writer.onOutput(1, 1, output(StdOut, message))
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == "[out]" + message
+
+        cleanup:
+        reader.close()
+    }
+
     def DefaultTestOutputEvent output(TestOutputEvent.Destination destination, String msg) {
         new DefaultTestOutputEvent(destination, msg)
     }
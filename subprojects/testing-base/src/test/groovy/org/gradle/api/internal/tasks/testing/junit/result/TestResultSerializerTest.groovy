@@ -67,6 +67,22 @@ class TestResultSerializerTest extends Specification {
         readClass2.results.empty
     }
 
+    def "can read class names without the results of the tests"() {
+        def class1 = new TestClassResult(1, 'Class1', 1234)
+        class1.add(new TestMethodResult(1, "method1", TestResult.ResultType.SUCCESS, 100, 2300))
+        class1.add(new TestMethodResult(2, "method2", TestResult.ResultType.FAILURE, 200, 2700).addFailure("message", "stack-trace", "ExceptionType"))
+        def class2 = new TestClassResult(2, 'Class2', 5678)
+        def serializer = new TestResultSerializer(tmp.createDir("results"))
+        def classNames = []
+
+        when:
+        serializer.write([class1, class2])
+        serializer.readClassNames({ classNames << it } as Action)
+
+        then:
+        classNames == ['Class1', 'Class2']
+    }
+
     List<TestClassResult> serialize(Collection<TestClassResult> results) {
         def serializer = new TestResultSerializer(tmp.createDir("results"))
         serializer.write(results)
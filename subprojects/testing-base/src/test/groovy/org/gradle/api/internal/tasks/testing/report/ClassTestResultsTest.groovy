@@ -15,8 +15,11 @@
  */
 package org.gradle.api.internal.tasks.testing.report
 
+import org.gradle.api.internal.tasks.testing.junit.result.TestFailure
 import spock.lang.Specification
 
+import static org.gradle.api.tasks.testing.TestResult.ResultType
+
 class ClassTestResultsTest extends Specification {
     def determinesSimpleName() {
         expect:
@@ -25,4 +28,26 @@ class ClassTestResultsTest extends Specification {
         new ClassTestResults(1, 'org.gradle.Test', 'TestDisplay', null).reportName == 'TestDisplay'
         new ClassTestResults(2, 'Test', 'TestDisplay', null).reportName == 'TestDisplay'
     }
+
+    def "keeps summary of tests when their results are discarded"() {
+        def allResults = new AllTestResults()
+        def classResults = allResults.addTestClass(1, 'org.gradle.Test')
+        allResults.addTest(1, 'org.gradle.Test', 'passed', 100)
+        allResults.addTest(1, 'org.gradle.Test', 'failed', 200).addFailure(new TestFailure("message", "stack-trace", "ExceptionType"))
+        allResults.addTest(1, 'org.gradle.Test', 'ignored', 0).setIgnored()
+
+        when:
+        classResults.discardTestResults()
+
+        then:
+        classResults.testResults.empty
+        classResults.testCount == 3
+        classResults.failureCount == 1
+        classResults.ignoredCount == 1
+        classResults.duration == 300
+        def failed = allResults.failures.first()
+        failed.name == 'failed'
+        failed.resultType == ResultType.FAILURE
+        failed.failures.empty
+    }
 }
@@ -67,6 +67,12 @@ class BuildableTestResultsProvider implements TestResultsProvider {
         }
     }
 
+    void visitClassNames(Action<? super String> visitor) {
+        testClasses.values().each {
+            visitor.execute(it.className)
+        }
+    }
+
     boolean isHasResults() {
         !testClasses.isEmpty()
     }
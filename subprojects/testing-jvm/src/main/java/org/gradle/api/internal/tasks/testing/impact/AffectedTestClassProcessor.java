@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.impact;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+/**
+ * Passes only the test classes affected by the changes since the previous execution to its delegate.
+ */
+public class AffectedTestClassProcessor implements TestClassProcessor {
+    private static final Logger LOGGER = Logging.getLogger(AffectedTestClassProcessor.class);
+
+    private final TestImpactAnalysis analysis;
+    private final TestClassProcessor delegate;
+    private int skipped;
+
+    public AffectedTestClassProcessor(TestImpactAnalysis analysis, TestClassProcessor delegate) {
+        this.analysis = analysis;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        delegate.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        if (analysis.isAffected(testClass.getTestClassName())) {
+            delegate.processTestClass(testClass);
+        } else {
+            LOGGER.debug("Skipping test class {} as neither it nor its dependencies have changed.", testClass.getTestClassName());
+            skipped++;
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (skipped > 0) {
+            LOGGER.info("Skipped {} test classes not affected by changes since the previous execution.", skipped);
+        }
+        delegate.stop();
+    }
+
+    @Override
+    public void stopNow() {
+        delegate.stopNow();
+    }
+}
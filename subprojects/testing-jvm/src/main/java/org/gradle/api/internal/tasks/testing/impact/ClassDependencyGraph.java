@@ -0,0 +1,182 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The static dependencies between the classes in the directories of a test runtime classpath, which include the test classes as well as the classes under test.
+ *
+ * <p>Classes are located and analyzed lazily, the first time they are reached from a test class. A class is looked up in the directories in classpath order,
+ * as the test class loader would. Everything on the classpath that is not a class file in one of the directories, that is jars and resources, is summarized
+ * by a single hash, as changes to these cannot be traced to individual classes.</p>
+ */
+class ClassDependencyGraph {
+    private final List<File> classpath;
+    private final List<File> classesDirs = new ArrayList<File>();
+    private final DefaultClassDependenciesAnalyzer analyzer = new DefaultClassDependenciesAnalyzer(new StringInterner());
+    private final Map<String, ClassNode> classes = new HashMap<String, ClassNode>();
+
+    ClassDependencyGraph(Iterable<File> classpath) {
+        this.classpath = Lists.newArrayList(classpath);
+        for (File file : this.classpath) {
+            if (file.isDirectory()) {
+                classesDirs.add(file);
+            }
+        }
+    }
+
+    /**
+     * Returns a hash of the class files of the given class and of all classes it transitively depends on, or null when the class cannot be found.
+     */
+    @Nullable
+    HashCode hashWithDependencies(String className) {
+        ClassNode root = getClassNode(className);
+        if (root == null) {
+            return null;
+        }
+        Set<String> seen = new TreeSet<String>();
+        Deque<ClassNode> queue = new ArrayDeque<ClassNode>();
+        seen.add(className);
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            ClassNode node = queue.removeFirst();
+            for (String dependency : node.dependencies) {
+                if (seen.add(dependency)) {
+                    ClassNode dependencyNode = getClassNode(dependency);
+                    if (dependencyNode != null) {
+                        queue.add(dependencyNode);
+                    }
+                }
+            }
+        }
+        Hasher hasher = Hashing.newHasher();
+        for (String name : seen) {
+            ClassNode node = getClassNode(name);
+            if (node != null) {
+                hasher.putString(name);
+                hasher.putHash(node.hash);
+            }
+        }
+        return hasher.hash();
+    }
+
+    /**
+     * Returns a hash of all the entries of the classpath other than the class files in class directories.
+     */
+    HashCode hashNonClassEntries() {
+        Hasher hasher = Hashing.newHasher();
+        for (File file : classpath) {
+            hasher.putString(file.getAbsolutePath());
+            if (file.isDirectory()) {
+                hashResources(file, "", hasher);
+            } else if (file.isFile()) {
+                hasher.putLong(file.length());
+                hasher.putLong(file.lastModified());
+            } else {
+                hasher.putNull();
+            }
+        }
+        return hasher.hash();
+    }
+
+    private void hashResources(File dir, String relativePath, Hasher hasher) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        TreeSet<File> sorted = new TreeSet<File>();
+        Collections.addAll(sorted, children);
+        for (File child : sorted) {
+            String childPath = relativePath + "/" + child.getName();
+            if (child.isDirectory()) {
+                hashResources(child, childPath, hasher);
+            } else if (!child.getName().endsWith(".class")) {
+                hasher.putString(childPath);
+                hasher.putHash(Hashing.hashBytes(readFile(child)));
+            }
+        }
+    }
+
+    @Nullable
+    private ClassNode getClassNode(String className) {
+        if (classes.containsKey(className)) {
+            return classes.get(className);
+        }
+        ClassNode node = null;
+        String relativePath = className.replace('.', '/') + ".class";
+        for (File classesDir : classesDirs) {
+            File classFile = new File(classesDir, relativePath);
+            if (classFile.isFile()) {
+                node = analyze(classFile);
+                break;
+            }
+        }
+        classes.put(className, node);
+        return node;
+    }
+
+    private ClassNode analyze(File classFile) {
+        byte[] content = readFile(classFile);
+        try {
+            ClassAnalysis analysis = analyzer.getClassAnalysis(new ByteArrayInputStream(content));
+            return new ClassNode(Hashing.hashBytes(content), analysis.getClassDependencies());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] readFile(File file) {
+        try {
+            return Files.toByteArray(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class ClassNode {
+        final HashCode hash;
+        final Set<String> dependencies;
+
+        ClassNode(HashCode hash, Set<String> dependencies) {
+            this.hash = hash;
+            this.dependencies = dependencies;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.impact;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides which test classes need to run, based on the classes each test class depends on and the results of the previous execution.
+ *
+ * <p>A test class is affected when it was not run before, when it failed in the previous execution, when the hash of its class file or of any class
+ * it transitively depends on has changed, or when anything else on the test runtime classpath (jars, resources) has changed. Classes are looked up
+ * in every directory of the test runtime classpath, so changes to the classes under test are detected as well. After the execution,
+ * {@link #storeResults(Collection)} records the hashes of the test classes that were executed, so that they are skipped next time if nothing they
+ * depend on changes.</p>
+ *
+ * <p>Instances are not thread-safe; the test class scanner calls {@link #isAffected(String)} from a single thread.</p>
+ */
+public class TestImpactAnalysis {
+    private static final int FORMAT_VERSION = 1;
+
+    private final File stateFile;
+    private final ClassDependencyGraph graph;
+    private final Set<String> previousFailedTestClasses;
+    private final HashCode nonClassEntriesHash;
+    private final Map<String, HashCode> previousHashes;
+    private final Map<String, HashCode> currentHashes = new HashMap<String, HashCode>();
+    private final Set<String> affectedClasses = new HashSet<String>();
+
+    public TestImpactAnalysis(File stateFile, Iterable<File> classpath, Set<String> previousFailedTestClasses) {
+        this.stateFile = stateFile;
+        this.graph = new ClassDependencyGraph(classpath);
+        this.previousFailedTestClasses = previousFailedTestClasses;
+        this.nonClassEntriesHash = graph.hashNonClassEntries();
+        this.previousHashes = loadPreviousHashes(stateFile, nonClassEntriesHash);
+    }
+
+    /**
+     * Returns true when the given test class needs to run.
+     */
+    public boolean isAffected(String testClassName) {
+        HashCode hash = graph.hashWithDependencies(testClassName);
+        if (hash != null) {
+            currentHashes.put(testClassName, hash);
+        }
+        boolean affected = hash == null
+            || previousFailedTestClasses.contains(testClassName)
+            || !hash.equals(previousHashes.get(testClassName));
+        if (affected) {
+            affectedClasses.add(testClassName);
+        }
+        return affected;
+    }
+
+    /**
+     * Persists the state for the next execution. Test classes that were affected but did not run (for example because the execution was
+     * interrupted) are not recorded, so they are considered affected again next time.
+     */
+    public void storeResults(Collection<String> executedTestClasses) {
+        Set<String> executed = new HashSet<String>(executedTestClasses);
+        // Keep the state of test classes that were not considered this time, for example because of a test filter
+        Map<String, HashCode> hashes = new HashMap<String, HashCode>(previousHashes);
+        for (String className : affectedClasses) {
+            hashes.remove(className);
+        }
+        for (Map.Entry<String, HashCode> entry : currentHashes.entrySet()) {
+            String className = entry.getKey();
+            if (!affectedClasses.contains(className) || executed.contains(className)) {
+                hashes.put(className, entry.getValue());
+            }
+        }
+        write(hashes);
+    }
+
+    private void write(Map<String, HashCode> hashes) {
+        HashCodeSerializer hashSerializer = new HashCodeSerializer();
+        try {
+            stateFile.getParentFile().mkdirs();
+            KryoBackedEncoder encoder = new KryoBackedEncoder(new BufferedOutputStream(new FileOutputStream(stateFile)));
+            try {
+                encoder.writeSmallInt(FORMAT_VERSION);
+                hashSerializer.write(encoder, nonClassEntriesHash);
+                encoder.writeSmallInt(hashes.size());
+                for (Map.Entry<String, HashCode> entry : hashes.entrySet()) {
+                    encoder.writeString(entry.getKey());
+                    hashSerializer.write(encoder, entry.getValue());
+                }
+            } finally {
+                encoder.close();
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException("Could not write test impact analysis state to " + stateFile, e);
+        }
+    }
+
+    private static Map<String, HashCode> loadPreviousHashes(File stateFile, HashCode nonClassEntriesHash) {
+        Map<String, HashCode> hashes = new HashMap<String, HashCode>();
+        if (!stateFile.isFile()) {
+            return hashes;
+        }
+        HashCodeSerializer hashSerializer = new HashCodeSerializer();
+        try {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new BufferedInputStream(new FileInputStream(stateFile)));
+            try {
+                if (decoder.readSmallInt() != FORMAT_VERSION) {
+                    return hashes;
+                }
+                HashCode previousNonClassEntriesHash = hashSerializer.read(decoder);
+                if (!previousNonClassEntriesHash.equals(nonClassEntriesHash)) {
+                    // Something that cannot be attributed to individual classes has changed, so every test class is affected
+                    return hashes;
+                }
+                int count = decoder.readSmallInt();
+                for (int i = 0; i < count; i++) {
+                    String className = decoder.readString();
+                    hashes.put(className, hashSerializer.read(decoder));
+                }
+            } finally {
+                decoder.close();
+            }
+        } catch (Exception e) {
+            // Unreadable state, treat every test class as affected
+            hashes.clear();
+        }
+        return hashes;
+    }
+}
@@ -23,6 +23,7 @@ import org.gradle.api.Action;
 import org.gradle.api.Incubating;
 import org.gradle.api.JavaVersion;
 import org.gradle.api.NonNullApi;
+import org.gradle.api.Task;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileTreeElement;
@@ -35,6 +36,7 @@ import org.gradle.api.internal.tasks.testing.TestExecuter;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
+import org.gradle.api.internal.tasks.testing.impact.TestImpactAnalysis;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
 import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer;
@@ -144,6 +146,8 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
     private FileCollection classpath;
     private TestFramework testFramework;
     private boolean scanForTestClasses = true;
+    private boolean selectAffectedTests;
+    private TestImpactAnalysis testImpactAnalysis;
     private long forkEvery;
     private int maxParallelForks = 1;
     private TestExecuter<JvmTestExecutionSpec> testExecuter;
@@ -152,6 +156,12 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
         patternSet = getFileResolver().getPatternSetFactory().create();
         forkOptions = new DefaultJavaForkOptions(getFileResolver());
         forkOptions.setEnableAssertions(true);
+        getOutputs().doNotCacheIf("Only test classes affected by changes are selected", new Spec<Task>() {
+            @Override
+            public boolean isSatisfiedBy(Task task) {
+                return selectAffectedTests;
+            }
+        });
     }
 
     @Inject
@@ -551,7 +561,25 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
     protected JvmTestExecutionSpec createTestExecutionSpec() {
         DefaultJavaForkOptions javaForkOptions = new DefaultJavaForkOptions(getFileResolver());
         copyTo(javaForkOptions);
-        return new JvmTestExecutionSpec(getTestFramework(), getClasspath(), getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), getPreviousFailedTestClasses());
+        Set<String> previousFailedTestClasses = getPreviousFailedTestClasses();
+        if (selectAffectedTests) {
+            testImpactAnalysis = new TestImpactAnalysis(new File(getTemporaryDir(), "test-impact.bin"), getClasspath(), previousFailedTestClasses);
+        }
+        return new JvmTestExecutionSpec(getTestFramework(), getClasspath(), getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), previousFailedTestClasses, testImpactAnalysis);
+    }
+
+    private void storeTestImpactResults() {
+        final Set<String> executedTestClasses = new HashSet<String>();
+        TestResultSerializer serializer = new TestResultSerializer(getBinResultsDir());
+        if (serializer.isHasResults()) {
+            serializer.read(new Action<TestClassResult>() {
+                @Override
+                public void execute(TestClassResult testClassResult) {
+                    executedTestClasses.add(testClassResult.getClassName());
+                }
+            });
+        }
+        testImpactAnalysis.storeResults(executedTestClasses);
     }
 
     private Set<String> getPreviousFailedTestClasses() {
@@ -587,6 +615,13 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
             super.executeTests();
         } finally {
             testFramework = null;
+            if (testImpactAnalysis != null) {
+                try {
+                    storeTestImpactResults();
+                } finally {
+                    testImpactAnalysis = null;
+                }
+            }
         }
     }
 
@@ -957,6 +992,33 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
         this.scanForTestClasses = scanForTestClasses;
     }
 
+    /**
+     * Specifies whether only the test classes affected by changes since the previous execution of this task should be executed.
+     *
+     * <p>When {@code true}, the classes each test class statically depends on are determined from all directories of the test runtime classpath,
+     * which include the test classes as well as the classes under test. A test class is executed when
+     * it or any class it depends on has changed, when it failed in the previous execution or when it has not been executed before. A change to any jar or resource
+     * on the test runtime classpath causes all test classes to be executed. Dependencies that are only visible at runtime, for example through reflection,
+     * are not detected. The outputs of this task are not cached when this is enabled. The default value is {@code false}.</p>
+     *
+     * @since 5.2
+     */
+    @Input
+    @Incubating
+    public boolean isSelectAffectedTests() {
+        return selectAffectedTests;
+    }
+
+    /**
+     * Sets whether only the test classes affected by changes since the previous execution of this task should be executed.
+     *
+     * @since 5.2
+     */
+    @Incubating
+    public void setSelectAffectedTests(boolean selectAffectedTests) {
+        this.selectAffectedTests = selectAffectedTests;
+    }
+
     /**
      * Returns the maximum number of test classes to execute in a forked test process. The forked test process will be restarted when this limit is reached. The default value is 0 (no maximum).
      *
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestImpactAnalysisTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+
+    def classesDir = tmp.createDir("classes")
+    def mainClassesDir = tmp.createDir("main-classes")
+    def libDir = tmp.createDir("lib")
+    def stateFile = tmp.file("state/test-impact.bin")
+
+    def setup() {
+        copyClass(ImpactSubject, ImpactSubject)
+        copyClass(ImpactTest, ImpactTest)
+        copyClass(UnrelatedImpactTest, UnrelatedImpactTest)
+    }
+
+    def "all test classes are affected on first execution"() {
+        def analysis = analysis()
+
+        expect:
+        analysis.isAffected(ImpactTest.name)
+        analysis.isAffected(UnrelatedImpactTest.name)
+    }
+
+    def "test classes are not affected when nothing has changed"() {
+        given:
+        executeAll()
+
+        when:
+        def analysis = analysis()
+
+        then:
+        !analysis.isAffected(ImpactTest.name)
+        !analysis.isAffected(UnrelatedImpactTest.name)
+    }
+
+    def "test class is affected when a class it depends on changes"() {
+        given:
+        executeAll()
+
+        when:
+        copyClass(ImpactSubject, UnrelatedImpactTest)
+        def analysis = analysis()
+
+        then:
+        analysis.isAffected(ImpactTest.name)
+        !analysis.isAffected(UnrelatedImpactTest.name)
+    }
+
+    def "test class is affected when a class under test in another classes directory changes"() {
+        given:
+        classesDir.file(ImpactSubject.name.replace('.', '/') + ".class").delete()
+        copyClass(mainClassesDir, ImpactSubject, ImpactSubject)
+        executeAll()
+
+        when:
+        copyClass(mainClassesDir, ImpactSubject, UnrelatedImpactTest)
+        def analysis = analysis()
+
+        then:
+        analysis.isAffected(ImpactTest.name)
+        !analysis.isAffected(UnrelatedImpactTest.name)
+    }
+
+    def "previously failed test classes are affected"() {
+        given:
+        executeAll()
+
+        when:
+        def analysis = analysis([UnrelatedImpactTest.name] as Set)
+
+        then:
+        !analysis.isAffected(ImpactTest.name)
+        analysis.isAffected(UnrelatedImpactTest.name)
+    }
+
+    def "all test classes are affected when a jar or resource changes"() {
+        given:
+        executeAll()
+
+        when:
+        change.call()
+        def analysis = analysis()
+
+        then:
+        analysis.isAffected(ImpactTest.name)
+        analysis.isAffected(UnrelatedImpactTest.name)
+
+        where:
+        change << [
+            { classesDir.file("some.properties").text = "changed" },
+            { libDir.file("lib.jar").text = "not really a jar" }
+        ]
+    }
+
+    def "affected test classes that were not executed remain affected"() {
+        given:
+        def first = analysis()
+        first.isAffected(ImpactTest.name)
+        first.isAffected(UnrelatedImpactTest.name)
+        first.storeResults([ImpactTest.name])
+
+        when:
+        def analysis = analysis()
+
+        then:
+        !analysis.isAffected(ImpactTest.name)
+        analysis.isAffected(UnrelatedImpactTest.name)
+    }
+
+    def "keeps state of test classes that were not considered"() {
+        given:
+        executeAll()
+        def filtered = analysis()
+        filtered.isAffected(ImpactTest.name)
+        filtered.storeResults([])
+
+        when:
+        def analysis = analysis()
+
+        then:
+        !analysis.isAffected(ImpactTest.name)
+        !analysis.isAffected(UnrelatedImpactTest.name)
+    }
+
+    def "processor only forwards affected test classes"() {
+        given:
+        executeAll()
+        copyClass(ImpactSubject, UnrelatedImpactTest)
+        def delegate = Mock(TestClassProcessor)
+        def processor = new AffectedTestClassProcessor(analysis(), delegate)
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo(ImpactTest.name))
+        processor.processTestClass(new DefaultTestClassRunInfo(UnrelatedImpactTest.name))
+        processor.stop()
+
+        then:
+        1 * delegate.processTestClass({ it.testClassName == ImpactTest.name })
+        1 * delegate.stop()
+        0 * delegate._
+    }
+
+    private TestImpactAnalysis analysis(Set<String> previousFailed = [] as Set) {
+        new TestImpactAnalysis(stateFile, [classesDir, mainClassesDir, libDir], previousFailed)
+    }
+
+    private void executeAll() {
+        def analysis = analysis()
+        analysis.isAffected(ImpactTest.name)
+        analysis.isAffected(UnrelatedImpactTest.name)
+        analysis.storeResults([ImpactTest.name, UnrelatedImpactTest.name])
+    }
+
+    private void copyClass(Class<?> target, Class<?> source) {
+        copyClass(classesDir, target, source)
+    }
+
+    private static void copyClass(TestFile dir, Class<?> target, Class<?> source) {
+        TestFile file = dir.file(target.name.replace('.', '/') + ".class")
+        file.parentFile.mkdirs()
+        file.bytes = source.getResourceAsStream("/" + source.name.replace('.', '/') + ".class").bytes
+    }
+
+    static class ImpactSubject {
+    }
+
+    static class ImpactTest {
+        ImpactSubject subject
+    }
+
+    static class UnrelatedImpactTest {
+    }
+}